@@ -0,0 +1,33 @@
+package org.example.eshopbackend.config;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import lombok.RequiredArgsConstructor;
+import org.example.eshopbackend.service.catalog.CatalogVersion;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.servlet.HandlerInterceptor;
+
+/**
+ * ETag z {@link CatalogVersion} pro veřejné GETy katalogu. Shodný If-None-Match vrátí 304
+ * ještě před controllerem; do DB jde nejvýš jeden krátký dotaz na verzi za {@code catalog.version.poll-ms}.
+ * Registruje ho {@link WebConfig}.
+ */
+@RequiredArgsConstructor
+public class CatalogETagInterceptor implements HandlerInterceptor {
+
+    private final CatalogVersion catalogVersion;
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (!"GET".equals(request.getMethod()) && !"HEAD".equals(request.getMethod())) return true;
+
+        // verzi čteme před načtením dat: zápis během requestu dá nanejvýš nová data se starým ETagem,
+        // který příští revalidace odmítne – nikdy stará data s novým ETagem
+        String etag = catalogVersion.etag();
+        response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().cachePublic().getHeaderValue());
+        // nastaví ETag a při shodě odpoví 304
+        return !new ServletWebRequest(request, response).checkNotModified(etag);
+    }
+}
@@ -0,0 +1,75 @@
+package org.example.eshopbackend.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.service.ProductAttributeBackfill;
+import org.example.eshopbackend.service.catalog.CatalogReadModel;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Schéma read modelu katalogu, které Hibernate (ddl-auto=update) neumí: pomocné SQL funkce,
+ * sloupec {@code catalog_products.search_vector} (tsvector bez diakritiky) s GIN indexem
+ * a tabulka {@code catalog_version}.
+ * Chyba DDL zastaví start – vyhledávání s tímto schématem počítá. Po doplnění schématu dopočítá
+ * chybějící číselné parametry produktů, zkontroluje read model a při nesouladu ho postaví znovu.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogSchemaInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbc;
+    private final CatalogReadModel readModel;
+    private final ProductAttributeBackfill attributeBackfill;
+
+    private static final List<String> DDL = List.of(
+            "create extension if not exists unaccent",
+
+            // unaccent() je jen STABLE – do indexu/triggeru potřebujeme IMMUTABLE obal
+            """
+            create or replace function eshop_unaccent(text) returns text
+                language sql immutable parallel safe strict as
+            $$ select public.unaccent('public.unaccent'::regdictionary, $1) $$
+            """,
+
+            // číselné parametry už parsuje Java do products (AttributeNumbers), read model je jen kopíruje
+            "drop function if exists eshop_first_number(text)",
+
+            // fulltext se přesunul z products do read modelu – původní trigger a sloupec už nejsou potřeba
+            "drop trigger if exists trg_products_search_vector on products",
+            "drop trigger if exists trg_categories_search_vector on categories",
+            "drop function if exists products_search_vector_refresh()",
+            "drop function if exists categories_search_vector_refresh()",
+            "alter table products drop column if exists search_vector",
+
+            "alter table catalog_products add column if not exists search_vector tsvector",
+            "create index if not exists ix_catalog_products_search_vector on catalog_products using gin (search_vector)",
+
+            // verze katalogu pro ETagy, společná všem uzlům (CatalogVersion); start z hodin, ať se
+            // ETagy z doby před zavedením tabulky neopakují
+            "create table if not exists catalog_version (id smallint primary key, version bigint not null)",
+            """
+            insert into catalog_version (id, version)
+            values (1, cast(extract(epoch from now()) * 1000 as bigint))
+            on conflict (id) do nothing
+            """
+    );
+
+    @Override
+    public void run(ApplicationArguments args) {
+        DDL.forEach(jdbc::execute);
+        log.info("Schéma read modelu katalogu připraveno (search_vector + GIN).");
+        try {
+            // před kontrolou read modelu, ať ji nové číselné stíny nerozbijí
+            log.info("Číselné parametry produktů: {}", attributeBackfill.run(false));
+            log.info("Read model katalogu: {}", readModel.checkAndRepair());
+        } catch (Exception e) {
+            log.error("Nepodařilo se připravit read model katalogu: {}", e.getMessage(), e);
+        }
+    }
+}
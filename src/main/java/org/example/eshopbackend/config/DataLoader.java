@@ -16,6 +16,7 @@ import org.example.eshopbackend.mapper.OrderMapper;
 import org.example.eshopbackend.repository.OrderRepository;
 import org.example.eshopbackend.repository.ShipmentRepository;
 import org.example.eshopbackend.repository.UserRepository;
+import org.example.eshopbackend.service.OrderNumberAllocator;
 import org.example.eshopbackend.util.VsUtil;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.core.io.ClassPathResource;
@@ -38,6 +39,7 @@ public class DataLoader implements CommandLineRunner {
     private final PasswordEncoder passwordEncoder;
     private final ObjectMapper objectMapper;
     private final OrderMapper orderMapper;
+    private final OrderNumberAllocator orderNumberAllocator;
 
     @Override
     public void run(String... args) throws Exception {
@@ -106,7 +108,7 @@ public class DataLoader implements CommandLineRunner {
                 entity.setAgeConfirmed(true);
 
                 // 5) vygeneruj číslo objednávky
-                String orderNumber = generateOrderNumber();
+                String orderNumber = orderNumberAllocator.next();
                 entity.setOrderNumber(orderNumber);
 
                 // 6) VS z čísla objednávky
@@ -198,25 +200,6 @@ public class DataLoader implements CommandLineRunner {
 
     /* === Helpers === */
 
-    private String generateOrderNumber() {
-        String year = String.valueOf(java.time.Year.now().getValue());
-        String prefix = year + "-";
-        Optional<OrderEntity> last =
-                orderRepository.findTopByOrderNumberStartingWithOrderByOrderIdDesc(prefix);
-
-        int nextSeq = 1;
-        if (last.isPresent()) {
-            String lastNumber = last.get().getOrderNumber();
-            String[] parts = lastNumber.split("-");
-            if (parts.length == 2) {
-                try {
-                    nextSeq = Integer.parseInt(parts[1]) + 1;
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-        return String.format("%s%05d", prefix, nextSeq);
-    }
-
     private ShipmentStatus parseStatus(String s) {
         try {
             return ShipmentStatus.valueOf(s.trim().toUpperCase());
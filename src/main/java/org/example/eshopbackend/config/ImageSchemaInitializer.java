@@ -0,0 +1,40 @@
+package org.example.eshopbackend.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Částečný unikátní index na primární obrázek produktu (Hibernate ho neumí). Chyba zastaví start –
+ * ImageService spoléhá na to, že druhý primární obrázek DB odmítne.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class ImageSchemaInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbc;
+
+    private static final List<String> DDL = List.of(
+            // nejvýš jeden primární obrázek na produkt; případné starší duplicity vyhraje první v galerii
+            """
+            update images i set is_primary = false
+             where i.is_primary
+               and exists (select 1 from images o
+                            where o.product_id = i.product_id and o.is_primary
+                              and (o.sort_order, o.image_id) < (i.sort_order, i.image_id))
+            """,
+            "create unique index if not exists ux_images_primary on images (product_id) where is_primary"
+    );
+
+    @Override
+    public void run(ApplicationArguments args) {
+        DDL.forEach(jdbc::execute);
+        log.info("Schéma obrázků připraveno (ux_images_primary).");
+    }
+}
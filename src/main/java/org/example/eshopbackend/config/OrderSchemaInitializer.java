@@ -0,0 +1,39 @@
+package org.example.eshopbackend.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * Doplnění schématu objednávek, které Hibernate (ddl-auto=update) neumí. Chyba zastaví start –
+ * kód s tímto schématem počítá.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderSchemaInitializer implements ApplicationRunner {
+
+    private final JdbcTemplate jdbc;
+
+    private static final List<String> DDL = List.of(
+            // starší položky objednávek nemají product_id – dohledat podle snapshotu slugu (order_items.name)
+            """
+            update order_items i set product_id = p.productid
+              from products p
+             where i.product_id is null and i.name = p.slug
+            """,
+            // OrderExpiryJob hledá jen nezaplacené objednávky podle stáří
+            "create index if not exists ix_orders_new_created on orders (created_at) where order_status = 'NEW'"
+    );
+
+    @Override
+    public void run(ApplicationArguments args) {
+        DDL.forEach(jdbc::execute);
+        log.info("Schéma objednávek připraveno.");
+    }
+}
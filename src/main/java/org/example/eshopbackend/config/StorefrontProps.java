@@ -0,0 +1,39 @@
+package org.example.eshopbackend.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/** Veřejná adresa obchodu – pro odkazy ve feedech a sitemapě. */
+@Configuration
+@ConfigurationProperties(prefix = "storefront")
+@Getter
+@Setter
+public class StorefrontProps {
+    /** např. https://www.example.cz (bez lomítka na konci) */
+    private String baseUrl = "http://localhost:3000";
+    /** cesta detailu produktu, {slug} se nahradí */
+    private String productPath = "/produkt/{slug}";
+    /** cesta výpisu kategorie, {slug} se nahradí */
+    private String categoryPath = "/kategorie/{slug}";
+    /** veřejná adresa tohoto backendu (odkazy na části sitemapy) */
+    private String apiBaseUrl = "http://localhost:8080";
+    /** odkud se servírují obrázky s relativní URL (/static/images/…); prázdné = baseUrl */
+    private String imageBaseUrl = "";
+    /** dodací lhůta zboží skladem ve dnech (0 = ihned) */
+    private int deliveryDays = 0;
+
+    public String productUrl(String slug) {
+        return baseUrl + productPath.replace("{slug}", slug);
+    }
+
+    public String categoryUrl(String slug) {
+        return baseUrl + categoryPath.replace("{slug}", slug);
+    }
+
+    public String imageUrl(String url) {
+        if (url == null || url.isBlank() || !url.startsWith("/")) return url;
+        return (imageBaseUrl == null || imageBaseUrl.isBlank() ? baseUrl : imageBaseUrl) + url;
+    }
+}
@@ -1,7 +1,11 @@
 // src/main/java/org/example/zeniqbackend/config/WebConfig.java
 package org.example.eshopbackend.config;
 
+import lombok.RequiredArgsConstructor;
+import org.example.eshopbackend.service.catalog.CatalogVersion;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.ResourceHandlerRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
@@ -9,7 +13,24 @@ import java.nio.file.Path;
 import java.nio.file.Paths;
 
 @Configuration
+@RequiredArgsConstructor
 public class WebConfig implements WebMvcConfigurer {
+
+    // ObjectProvider: @WebMvcTest slice servisní beany nenačítá
+    private final ObjectProvider<CatalogVersion> catalogVersion;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        // veřejný katalog: ETag podle verze katalogu, 304 bez dotazu do DB
+        // (bestsellery se mění s objednávkami, ne s katalogem → bez ETagu; sitemapa má ETag podle své generace;
+        //  našeptávač se upravuje asynchronně po commitu, verze katalogu by mu předběhla data)
+        catalogVersion.ifAvailable(version -> registry
+                .addInterceptor(new CatalogETagInterceptor(version))
+                .addPathPatterns("/api/catalog/**")
+                .excludePathPatterns("/api/catalog/bestsellers", "/api/catalog/products/*/also-bought",
+                        "/api/catalog/sitemap*", "/api/catalog/suggest"));
+    }
+
     @Override
     public void addResourceHandlers(ResourceHandlerRegistry registry) {
         Path dir = Paths.get("./static/images").toAbsolutePath().normalize();
@@ -7,6 +7,7 @@ import lombok.RequiredArgsConstructor;
 import org.example.eshopbackend.dto.*;
 import org.example.eshopbackend.dto.image.CreateImageRequestDTO;
 import org.example.eshopbackend.dto.image.ImageResponseDTO;
+import org.example.eshopbackend.dto.image.ReorderImagesRequestDTO;
 import org.example.eshopbackend.dto.image.UpdateImageRequestDTO;
 import org.example.eshopbackend.dto.shipment.OrderResponseDTO;
 import org.example.eshopbackend.dto.shipment.UpdateOrderDTO;
@@ -22,8 +23,12 @@ import org.example.eshopbackend.mapper.OrderMapper;
 
 import org.example.eshopbackend.service.CategoryService;
 import org.example.eshopbackend.service.ImageService;
+import org.example.eshopbackend.service.ProductAttributeBackfill;
 import org.example.eshopbackend.service.ProductService;
 import org.example.eshopbackend.service.OrderService;
+import org.example.eshopbackend.service.catalog.CatalogReadModel;
+import org.example.eshopbackend.service.catalog.CatalogResponseCache;
+import org.example.eshopbackend.service.catalog.SalesAggregator;
 
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -50,6 +55,11 @@ public class AdminController {
     private final ImageService imageService;
     private final ImageMapper imageMapper;
 
+    private final CatalogResponseCache catalogResponseCache;
+    private final CatalogReadModel catalogReadModel;
+    private final ProductAttributeBackfill productAttributeBackfill;
+    private final SalesAggregator salesAggregator;
+
     // --- CATEGORY ---
 
     @PostMapping("/categories")
@@ -114,6 +124,18 @@ public class AdminController {
         return page.map(orderMapper::toDto);
     }
 
+    @GetMapping("/orders/seek")
+    public CursorPageDTO<OrderResponseDTO> seekOrders(@RequestParam(required = false) String cursor,
+                                                      @RequestParam(defaultValue = "20") int size) {
+        CursorPageDTO<OrderEntity> page = orderService.seekOrders(cursor, size);
+        return CursorPageDTO.<OrderResponseDTO>builder()
+                .items(page.getItems().stream().map(orderMapper::toDto).toList())
+                .size(page.getSize())
+                .hasNext(page.isHasNext())
+                .nextCursor(page.getNextCursor())
+                .build();
+    }
+
     @GetMapping("/orders/{id}")
     public OrderResponseDTO getOrder(@PathVariable Long id) {
         return orderMapper.toDto(orderService.getOrderById(id));
@@ -142,6 +164,18 @@ public class AdminController {
         return imageService.listByProduct(productId);
     }
 
+    @PutMapping("/products/{productId}/images/order")
+    public List<ImageResponseDTO> reorderProductImages(@PathVariable Long productId,
+                                                       @Valid @RequestBody ReorderImagesRequestDTO dto) {
+        return imageService.reorder(productId, dto.getImageIds());
+    }
+
+    // stav zmenšenin po uploadu (PENDING → PROCESSING → READY/FAILED)
+    @GetMapping("/images/{imageId}")
+    public ImageResponseDTO getImage(@PathVariable Long imageId) {
+        return imageService.get(imageId);
+    }
+
     @PutMapping("/images/{imageId}")
     public ImageResponseDTO updateImage(@PathVariable Long imageId,
                                         @Valid @RequestBody UpdateImageRequestDTO dto) {
@@ -157,4 +191,41 @@ public class AdminController {
     public ImageResponseDTO setPrimaryImage(@PathVariable Long imageId) {
         return imageService.setPrimary(imageId);
     }
+
+    // --- CATALOG CACHE ---
+
+    @GetMapping("/catalog/cache")
+    public CatalogResponseCache.Stats catalogCacheStats() {
+        return catalogResponseCache.stats();
+    }
+
+    @DeleteMapping("/catalog/cache")
+    public void clearCatalogCache() {
+        catalogResponseCache.invalidateAll();
+    }
+
+    // --- CATALOG READ MODEL ---
+
+    @GetMapping("/catalog/read-model")
+    public CatalogReadModel.Consistency checkCatalogReadModel() {
+        return catalogReadModel.check();
+    }
+
+    @PostMapping("/catalog/read-model/rebuild")
+    public CatalogReadModel.Consistency rebuildCatalogReadModel() {
+        catalogReadModel.rebuild();
+        return catalogReadModel.check();
+    }
+
+    // přepočet číselných parametrů (all=true po změně parseru, jinak jen chybějící)
+    @PostMapping("/catalog/attributes/backfill")
+    public ProductAttributeBackfill.Result backfillProductAttributes(@RequestParam(defaultValue = "false") boolean all) {
+        return productAttributeBackfill.run(all);
+    }
+
+    // statistiky prodejů znovu od nuly (např. po mazání objednávek)
+    @PostMapping("/catalog/sales/rebuild")
+    public void rebuildSalesStats() {
+        salesAggregator.rebuild();
+    }
 }
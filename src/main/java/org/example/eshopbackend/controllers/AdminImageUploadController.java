@@ -1,11 +1,15 @@
 // src/main/java/org/example/zeniqbackend/controllers/AdminImageUploadController.java
 package org.example.eshopbackend.controllers;
 
+import jakarta.servlet.http.HttpServletRequest;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.eshopbackend.dto.image.CreateImageRequestDTO;
 import org.example.eshopbackend.dto.image.ImageResponseDTO;
 import org.example.eshopbackend.service.ImageService;
+import org.example.eshopbackend.service.image.ImageImportService;
+import org.example.eshopbackend.service.image.ImageStorage;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.util.StringUtils;
@@ -14,7 +18,6 @@ import org.springframework.web.multipart.MultipartFile;
 import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
 import java.io.IOException;
-import java.nio.file.*;
 import java.util.*;
 
 @RestController
@@ -25,6 +28,8 @@ import java.util.*;
 public class AdminImageUploadController {
 
     private final ImageService imageService;
+    private final ImageStorage imageStorage;
+    private final ImageImportService imageImportService;
 
     private static final Set<String> ALLOWED_EXT  = Set.of("png","jpg","jpeg","webp","gif");
     private static final Set<String> ALLOWED_MIME = Set.of("image/png","image/jpeg","image/webp","image/gif");
@@ -81,20 +86,10 @@ public class AdminImageUploadController {
             throw new IllegalArgumentException("Nepovolená přípona: " + ext);
         }
 
-        // Destinace na disku
-        Path dir = Paths.get("./static/images").toAbsolutePath().normalize();
-        Files.createDirectories(dir);
-
-        // Výsledný název souboru
-        String filename = productId + "-" + UUID.randomUUID() + "." + ext;
-        Path target = dir.resolve(filename);
-
-        // Uložení
-        Files.copy(file.getInputStream(), target, StandardCopyOption.REPLACE_EXISTING);
-
-        // Veřejná ABSOLUTNÍ URL (aby prošla @URL v entitě)
-        String publicUrl = "/static/images/" + filename;
+        if ("jpeg".equals(ext)) ext = "jpg"; // stejný obsah = stejné jméno
 
+        // Uložení pod hashem obsahu (stejná fotka u více produktů = jeden soubor)
+        String publicUrl = imageStorage.store(file, ext);
 
         log.info("Uložen obrázek produktu {} → {}", productId, publicUrl);
 
@@ -108,4 +103,24 @@ public class AdminImageUploadController {
 
         return imageService.addToProduct(productId, dto);
     }
+
+    /**
+     * Hromadný import fotek ze ZIPu (manifest.csv nebo složka/jméno souboru = slug produktu).
+     * Archiv je přímo tělo requestu ({@code Content-Type: application/zip}), ne multipart – velký archiv
+     * tak nepotřebuje zvednout globální limit uploadu. Zpracuje se na pozadí, průběh a výsledek
+     * po souborech: GET /images/import/{jobId}.
+     */
+    @PostMapping(
+            value = "/images/import",
+            consumes = "application/zip"
+    )
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public ImageImportService.Report importZip(HttpServletRequest request) throws IOException {
+        return imageImportService.start(request.getInputStream(), request.getContentLengthLong());
+    }
+
+    @GetMapping("/images/import/{jobId}")
+    public ImageImportService.Report importStatus(@PathVariable String jobId) {
+        return imageImportService.status(jobId);
+    }
 }
@@ -1,17 +1,29 @@
 // src/main/java/org/example/zeniqbackend/controllers/CatalogController.java
 package org.example.eshopbackend.controllers;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
-import org.example.eshopbackend.dto.CategoryResponseDTO;
+import org.example.eshopbackend.dto.ProductLookupItemDTO;
+import org.example.eshopbackend.dto.ProductLookupRequestDTO;
+import org.example.eshopbackend.dto.ProductRangeFilterDTO;
 import org.example.eshopbackend.dto.ProductResponseDTO;
+import org.example.eshopbackend.dto.SuggestionDTO;
+import org.example.eshopbackend.dto.facet.FacetFilterDTO;
+import org.example.eshopbackend.dto.facet.FacetResultDTO;
 import org.example.eshopbackend.dto.image.ImageResponseDTO;
 import org.example.eshopbackend.mapper.CategoryMapper;
 import org.example.eshopbackend.service.CatalogService;
 import org.example.eshopbackend.service.ImageService;
+import org.example.eshopbackend.service.catalog.CatalogFacetIndex;
+import org.example.eshopbackend.service.catalog.CatalogResponseCache;
+import org.example.eshopbackend.service.catalog.CatalogSuggestIndex;
+import org.example.eshopbackend.service.catalog.SalesAggregator;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.web.PageableDefault;
 import org.springframework.data.domain.Sort;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
 
@@ -25,14 +37,61 @@ public class CatalogController {
     private final CatalogService catalog;
     private final CategoryMapper categoryMapper;
     private final ImageService imageService;
+    private final CatalogResponseCache responseCache;
+    private final CatalogFacetIndex facetIndex;
+    private final CatalogSuggestIndex suggestIndex;
+    private final SalesAggregator salesAggregator;
+
+    private static ResponseEntity<byte[]> json(byte[] body) {
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private static String pageKey(Pageable pageable) {
+        return pageable.getPageNumber() + ":" + pageable.getPageSize() + ":" + pageable.getSort();
+    }
 
     // --- Produkty (veřejný výpis s primaryImageUrl) ---
     @GetMapping("/products")
-    public Page<ProductResponseDTO> list(
+    public ResponseEntity<byte[]> list(
+            @PageableDefault(size = 12, sort = "productName", direction = Sort.Direction.ASC)
+            Pageable pageable
+    ) {
+        String key = CatalogResponseCache.PRODUCTS + pageKey(pageable);
+        return json(responseCache.getOrLoad(key, () -> catalog.listDto(pageable)));
+    }
+
+    // --- Keyset stránkování (infinite scroll): ?sort=productName|price&cursor=…, stejně rychlé i hluboko ---
+    @GetMapping("/products/seek")
+    public ResponseEntity<byte[]> seek(
+            @RequestParam(defaultValue = CatalogService.SORT_NAME) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size
+    ) {
+        String key = CatalogResponseCache.PRODUCTS + "seek:" + sort + ":" + size + ":" + cursor;
+        return json(responseCache.getOrLoad(key, () -> catalog.seekDto(null, sort, cursor, size)));
+    }
+
+    // --- Facetové filtrování: ?manufacturer=…&flavor=…&nicotineMg=…&puffCount=…&category=…&priceMin=&priceMax=
+    //     stránka produktů + počty u všech hodnot facet, celé z paměti
+    @GetMapping("/products/facets")
+    public FacetResultDTO facets(@ModelAttribute FacetFilterDTO filter) {
+        return facetIndex.search(filter);
+    }
+
+    // --- Rozsahy číselných parametrů: ?nicotineMax=10&puffMin=600&sort=puffCount,desc (z indexů read modelu) ---
+    @GetMapping("/products/range")
+    public Page<ProductResponseDTO> range(
+            @ModelAttribute ProductRangeFilterDTO filter,
             @PageableDefault(size = 12, sort = "productName", direction = Sort.Direction.ASC)
             Pageable pageable
     ) {
-        return catalog.listDto(pageable);
+        return catalog.filterDto(filter, pageable);
+    }
+
+    // --- Hromadně pro košík/checkout: {"ids":[…]} a/nebo {"slugs":[…]}, max 300, v pořadí požadavku ---
+    @PostMapping("/products/lookup")
+    public List<ProductLookupItemDTO> lookup(@Valid @RequestBody ProductLookupRequestDTO request) {
+        return catalog.lookupDtos(request.getIds(), request.getSlugs());
     }
 
     @GetMapping("/products/{id}")
@@ -41,27 +100,48 @@ public class CatalogController {
     }
 
     @GetMapping("/products/slug/{slug}")
-    public ProductResponseDTO bySlug(@PathVariable String slug) {
-        return catalog.getDtoBySlug(slug);
+    public ResponseEntity<byte[]> bySlug(@PathVariable String slug) {
+        String key = CatalogResponseCache.PRODUCT + slug;
+        return json(responseCache.getOrLoad(key, () -> catalog.getDtoBySlug(slug)));
     }
 
-    // --- Vyhledávání ---
+    // --- Vyhledávání (řazeno podle relevance, sort se ignoruje) ---
     @GetMapping("/products/search")
     public Page<ProductResponseDTO> search(
             @RequestParam("q") String q,
-            @PageableDefault(size = 12, sort = "productName", direction = Sort.Direction.ASC)
+            @PageableDefault(size = 12)
             Pageable pageable
     ) {
         return catalog.searchDto(q, pageable);
     }
 
+    // --- Našeptávač (na každý stisk klávesy, bez DB) ---
+    @GetMapping("/suggest")
+    public List<SuggestionDTO> suggest(@RequestParam("q") String q,
+                                       @RequestParam(defaultValue = "8") int limit) {
+        return suggestIndex.suggest(q, limit);
+    }
+
+    // --- Bestsellery a "často kupováno společně" (z paměti, viz SalesAggregator; bez ETagu katalogu) ---
+    @GetMapping("/bestsellers")
+    public List<ProductResponseDTO> bestsellers(@RequestParam(required = false) String category,
+                                                @RequestParam(defaultValue = "12") int limit) {
+        return salesAggregator.bestsellers(category, limit);
+    }
+
+    @GetMapping("/products/{id}/also-bought")
+    public List<ProductResponseDTO> alsoBought(@PathVariable Long id,
+                                               @RequestParam(defaultValue = "6") int limit) {
+        return salesAggregator.boughtTogether(id, limit);
+    }
+
     // --- Kategorie (navbar) ---
     @GetMapping("/categories")
-    public List<CategoryResponseDTO> categories() {
-        return catalog.listCategories()
+    public ResponseEntity<byte[]> categories() {
+        return json(responseCache.getOrLoad(CatalogResponseCache.CATEGORIES, () -> catalog.listCategories()
                 .stream()
                 .map(categoryMapper::toDto)
-                .toList();
+                .toList()));
     }
 
     @GetMapping("/categories/{slug}/products")
@@ -73,6 +153,18 @@ public class CatalogController {
         return catalog.listDtoByCategorySlug(slug, pageable);
     }
 
+    @GetMapping("/categories/{slug}/products/seek")
+    public ResponseEntity<byte[]> productsByCategorySeek(
+            @PathVariable String slug,
+            @RequestParam(defaultValue = CatalogService.SORT_NAME) String sort,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "12") int size
+    ) {
+        // stejný prefix jako /products/seek → změna produktu invaliduje i stránky kategorií
+        String key = CatalogResponseCache.PRODUCTS + "category:" + slug + ":seek:" + sort + ":" + size + ":" + cursor;
+        return json(responseCache.getOrLoad(key, () -> catalog.seekDto(slug, sort, cursor, size)));
+    }
+
     // CatalogController
     @GetMapping("/products/{id}/images")
     public List<ImageResponseDTO> imagesPublic(@PathVariable Long id) {
@@ -0,0 +1,45 @@
+package org.example.eshopbackend.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.example.eshopbackend.service.catalog.CatalogFeedService;
+import org.example.eshopbackend.service.catalog.CatalogFeedWriter.Format;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/** Feedy pro Heureku, Zboží.cz a NDJSON export katalogu – soubor z disku se streamuje do odpovědi. */
+@RestController
+@RequestMapping("/api/catalog/feeds")
+@RequiredArgsConstructor
+public class CatalogFeedController {
+
+    private final CatalogFeedService feeds;
+
+    @GetMapping("/heureka.xml")
+    public ResponseEntity<Resource> heureka() throws IOException {
+        return serve(Format.HEUREKA);
+    }
+
+    @GetMapping("/zbozi.xml")
+    public ResponseEntity<Resource> zbozi() throws IOException {
+        return serve(Format.ZBOZI);
+    }
+
+    @GetMapping("/products.ndjson")
+    public ResponseEntity<Resource> ndjson() throws IOException {
+        return serve(Format.NDJSON);
+    }
+
+    private ResponseEntity<Resource> serve(Format format) throws IOException {
+        return ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.parseMediaType(format.contentType), StandardCharsets.UTF_8))
+                .body(new FileSystemResource(feeds.feed(format)));
+    }
+}
@@ -2,6 +2,7 @@ package org.example.eshopbackend.controllers;
 
 
 import org.example.eshopbackend.exception.MissingCredentialsException;
+import org.example.eshopbackend.exception.OutOfStockException;
 import org.example.eshopbackend.exception.PplAccountMissingException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,4 +36,12 @@ public class GlobalExceptionHandler {
                 .status(HttpStatus.BAD_REQUEST)
                 .body(Map.of("message", ex.getMessage()));
     }
-}
\ No newline at end of file
+
+    @ExceptionHandler(OutOfStockException.class)
+    public ResponseEntity<Map<String, Object>> handleOutOfStock(OutOfStockException ex) {
+        // 409 + položky, kterých je málo: [{ productId, requested, available }]
+        return ResponseEntity
+                .status(HttpStatus.CONFLICT)
+                .body(Map.of("message", ex.getMessage(), "items", ex.getLines()));
+    }
+}
@@ -0,0 +1,36 @@
+package org.example.eshopbackend.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.example.eshopbackend.service.image.ImageVariantService;
+import org.example.eshopbackend.service.image.ImageVariantService.Variant;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Zmenšené produktové obrázky: {@code /api/images/12-<uuid>.jpg?w=200&q=75}.
+ * Varianta je pro dané parametry neměnná → stejné cachování jako originály ve /static.
+ */
+@RestController
+@RequestMapping("/api/images")
+@RequiredArgsConstructor
+public class ImageVariantController {
+
+    private final ImageVariantService variants;
+
+    @GetMapping("/{filename:.+}")
+    public ResponseEntity<Resource> variant(@PathVariable String filename,
+                                            @RequestParam("w") int width,
+                                            @RequestParam(value = "q", required = false) Integer quality) {
+        Variant v = variants.variant(filename, width, quality);
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(v.contentType()))
+                .cacheControl(CacheControl.maxAge(365, TimeUnit.DAYS).cachePublic().immutable())
+                .body(new FileSystemResource(v.file()));
+    }
+}
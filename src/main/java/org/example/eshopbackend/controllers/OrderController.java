@@ -32,18 +32,10 @@ public class OrderController {
             dto.setAdultoczUid("DEV-MOCK-UID-" + devFlag.toUpperCase()); // "OK" / "NOK"
         }
 
-        // 1) vytvoř objednávku
+        // 1) vytvoř objednávku (potvrzovací e-mail odejde po commitu, viz OrderConfirmationMailer)
         OrderEntity saved = orderService.addOrder(dto);
 
-        // 2) po uložení zkus poslat potvrzovací e-mail (když selže, neblokuje to odpověď)
-        try {
-            emailService.sendOrderConfirmation(saved);
-        } catch (Exception e) {
-            log.warn("Nepodařilo se odeslat potvrzovací e-mail pro objednávku {}: {}",
-                    saved.getOrderNumber(), e.getMessage());
-        }
-
-        // 3) vrať DTO
+        // 2) vrať DTO
         return orderMapper.toDto(saved);
     }
 
@@ -5,6 +5,8 @@ import org.example.eshopbackend.dto.shipment.CreateShipmentCommand;
 import org.example.eshopbackend.dto.shipment.ShipmentDTO;
 import org.example.eshopbackend.dto.shipment.PplTrackingStatus;
 import org.example.eshopbackend.shipping.ppl.ShipmentService;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -33,15 +35,15 @@ public class ShippingController {
         return shipmentService.refreshTracking(shipmentId);
     }
 
-    /** Stažení uloženého štítku */
+    /** Stažení uloženého štítku – soubor se streamuje z disku, Range (tisk po částech, navázání) řeší Spring */
     @GetMapping("/{shipmentId}/label")
-    public ResponseEntity<byte[]> downloadLabel(@PathVariable Long shipmentId) {
+    public ResponseEntity<Resource> downloadLabel(@PathVariable Long shipmentId) {
         var label = shipmentService.loadLabelFile(shipmentId);
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_DISPOSITION,
                         ContentDisposition.attachment().filename(label.filename()).build().toString())
                 .contentType(MediaType.parseMediaType(label.mime()))
-                .body(label.bytes());
+                .body(new FileSystemResource(label.path()));
     }
 
     /** Manuální refresh trackingu (vrátí aktualizované DTO) */
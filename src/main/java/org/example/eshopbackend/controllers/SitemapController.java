@@ -0,0 +1,57 @@
+package org.example.eshopbackend.controllers;
+
+import lombok.RequiredArgsConstructor;
+import org.example.eshopbackend.service.catalog.SitemapService;
+import org.example.eshopbackend.service.catalog.SitemapService.Generation;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.Resource;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sitemapa pro vyhledávače – index a gzipované části z disku. ETag = generace sitemapy
+ * (ne verze katalogu, sitemapa se přegenerovává s odstupem), 304 vyřeší Spring.
+ */
+@RestController
+@RequestMapping("/api/catalog")
+@RequiredArgsConstructor
+public class SitemapController {
+
+    private static final MediaType GZIP = MediaType.parseMediaType("application/gzip");
+
+    private final SitemapService sitemap;
+
+    @GetMapping("/sitemap.xml")
+    public ResponseEntity<Resource> index() {
+        Generation g = sitemap.current();
+        return serve(g, sitemap.indexFile(g), new MediaType(MediaType.APPLICATION_XML, StandardCharsets.UTF_8));
+    }
+
+    @GetMapping("/sitemap-{shard}.xml.gz")
+    public ResponseEntity<Resource> shard(@PathVariable int shard) {
+        Generation g = sitemap.current();
+        Path file = sitemap.shardFile(g, shard);
+        if (file == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Část sitemapy neexistuje");
+        return serve(g, file, GZIP);
+    }
+
+    private static ResponseEntity<Resource> serve(Generation g, Path file, MediaType type) {
+        return ResponseEntity.ok()
+                .contentType(type)
+                .eTag("\"s" + g.id() + "\"")
+                .lastModified(g.generatedAt())
+                .cacheControl(CacheControl.maxAge(1, TimeUnit.HOURS).cachePublic())
+                .body(new FileSystemResource(file));
+    }
+}
@@ -0,0 +1,15 @@
+package org.example.eshopbackend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+/** Stránka pro keyset stránkování – bez totalElements (žádný count dotaz). */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class CursorPageDTO<T> {
+    private List<T> items;
+    private int size;
+    private boolean hasNext;
+    /** předej jako ?cursor= pro další stránku; null = konec */
+    private String nextCursor;
+}
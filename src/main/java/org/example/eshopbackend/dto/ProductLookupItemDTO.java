@@ -0,0 +1,16 @@
+package org.example.eshopbackend.dto;
+
+import lombok.*;
+
+/**
+ * Jedna položka odpovědi na hromadné dotažení, ve stejném pořadí jako v požadavku.
+ * Vyplněné je vždy to, čím se ptal klient ({@code id} nebo {@code slug}); {@code missing} = produkt neexistuje.
+ */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ProductLookupItemDTO {
+    private Long id;
+    private String slug;
+    private boolean missing;
+    /** null, pokud {@code missing} */
+    private ProductResponseDTO product;
+}
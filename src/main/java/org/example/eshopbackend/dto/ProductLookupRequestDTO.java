@@ -0,0 +1,17 @@
+package org.example.eshopbackend.dto;
+
+import jakarta.validation.constraints.Size;
+import lombok.*;
+
+import java.util.List;
+
+/** Hromadné dotažení produktů (košík, checkout) – podle id, podle slugů, nebo obojí. */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ProductLookupRequestDTO {
+
+    @Size(max = 300)
+    private List<Long> ids;
+
+    @Size(max = 300)
+    private List<String> slugs;
+}
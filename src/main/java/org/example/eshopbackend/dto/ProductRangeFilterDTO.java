@@ -0,0 +1,23 @@
+package org.example.eshopbackend.dto;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+
+/** Rozsahové filtry nad číselnými parametry (?nicotineMax=10&puffMin=600…); null = bez omezení, meze včetně. */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ProductRangeFilterDTO {
+    /** slug kategorie */
+    private String category;
+
+    private BigDecimal nicotineMin;
+    private BigDecimal nicotineMax;
+    private BigDecimal volumeMin;
+    private BigDecimal volumeMax;
+    private Integer puffMin;
+    private Integer puffMax;
+    private Integer batteryMin;
+    private Integer batteryMax;
+    private BigDecimal priceMin;
+    private BigDecimal priceMax;
+}
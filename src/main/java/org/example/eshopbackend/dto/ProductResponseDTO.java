@@ -4,7 +4,7 @@ import lombok.*;
 import java.math.BigDecimal;
 
 // src/main/java/org/example/zeniqbackend/dto/ProductResponseDTO.java
-@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder(toBuilder = true)
 public class ProductResponseDTO {
 
     private Long productId;
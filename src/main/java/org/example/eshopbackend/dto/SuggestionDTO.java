@@ -0,0 +1,17 @@
+package org.example.eshopbackend.dto;
+
+import lombok.*;
+
+/** Jeden návrh pro našeptávač ve vyhledávání. */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class SuggestionDTO {
+
+    public enum Type { PRODUCT, MANUFACTURER, FLAVOR }
+
+    private Type type;
+    /** text k zobrazení (název produktu, výrobce, příchuť) */
+    private String text;
+    /** jen u PRODUCT – odkaz na detail */
+    private String slug;
+    private String primaryImageUrl;
+}
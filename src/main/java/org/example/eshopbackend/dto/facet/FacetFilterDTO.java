@@ -0,0 +1,25 @@
+package org.example.eshopbackend.dto.facet;
+
+import lombok.*;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/** Filtr katalogu z query parametrů (?flavor=a&flavor=b&priceMax=300…); v rámci facety OR, mezi facetami AND. */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class FacetFilterDTO {
+    @Builder.Default private List<String> category = new ArrayList<>();
+    @Builder.Default private List<String> manufacturer = new ArrayList<>();
+    @Builder.Default private List<String> flavor = new ArrayList<>();
+    @Builder.Default private List<String> nicotineMg = new ArrayList<>();
+    @Builder.Default private List<String> puffCount = new ArrayList<>();
+
+    private BigDecimal priceMin;
+    private BigDecimal priceMax;
+
+    /** productName | price */
+    @Builder.Default private String sort = "productName";
+    @Builder.Default private int page = 0;
+    @Builder.Default private int size = 12;
+}
@@ -0,0 +1,23 @@
+package org.example.eshopbackend.dto.facet;
+
+import lombok.*;
+import org.example.eshopbackend.dto.ProductResponseDTO;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class FacetResultDTO {
+    private List<ProductResponseDTO> items;
+    private int page;
+    private int size;
+    private long totalElements;
+
+    /** název facety → hodnoty s počty (category, manufacturer, flavor, nicotineMg, puffCount) */
+    private Map<String, List<FacetValueDTO>> facets;
+
+    /** rozsah cen ve výsledku bez cenového filtru – pro slider */
+    private BigDecimal priceMin;
+    private BigDecimal priceMax;
+}
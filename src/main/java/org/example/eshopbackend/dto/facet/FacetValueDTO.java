@@ -0,0 +1,11 @@
+package org.example.eshopbackend.dto.facet;
+
+import lombok.*;
+
+/** Jedna hodnota facety a počet produktů, které by po jejím zaškrtnutí zůstaly. */
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class FacetValueDTO {
+    private String value;
+    private int count;
+    private boolean selected;
+}
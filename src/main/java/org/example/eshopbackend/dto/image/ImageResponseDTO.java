@@ -2,8 +2,10 @@
 package org.example.eshopbackend.dto.image;
 
 import lombok.*;
+import org.example.eshopbackend.entity.ImageDerivativeStatus;
 
 import java.time.OffsetDateTime;
+import java.util.List;
 
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class ImageResponseDTO {
@@ -14,4 +16,13 @@ public class ImageResponseDTO {
     private boolean primary;
     private int sortOrder;
     private OffsetDateTime createdAt;
+
+    // rozměry originálu – stránka si podle nich drží místo (žádný posun layoutu)
+    private Integer width;
+    private Integer height;
+    private Long byteSize;
+    private String placeholder;
+    private ImageDerivativeStatus derivativeStatus;
+    /** Zmenšeniny vzestupně podle šířky, pro srcset */
+    private List<ImageVariantDTO> variants;
 }
@@ -0,0 +1,9 @@
+package org.example.eshopbackend.dto.image;
+
+import lombok.*;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ImageVariantDTO {
+    private int width;
+    private String url;
+}
@@ -0,0 +1,13 @@
+package org.example.eshopbackend.dto.image;
+
+import jakarta.validation.constraints.NotNull;
+import lombok.*;
+
+import java.util.List;
+
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
+public class ReorderImagesRequestDTO {
+    /** všechny obrázky produktu v novém pořadí (první = sortOrder 0) */
+    @NotNull
+    private List<@NotNull Long> imageIds;
+}
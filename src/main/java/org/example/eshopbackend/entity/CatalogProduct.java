@@ -0,0 +1,109 @@
+package org.example.eshopbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+
+/**
+ * Read model veřejného katalogu: jeden zploštělý řádek na produkt (kategorie, hlavní obrázek,
+ * číselné parametry, text pro hledání). Zapisuje ho jen {@code CatalogReadModel} nativním SQL,
+ * Hibernate z něj pouze čte. Sloupec {@code search_vector} (tsvector) doplňuje CatalogSchemaInitializer.
+ */
+@Entity
+@Immutable
+@Table(name = "catalog_products", indexes = {
+        @Index(name = "ix_catalog_products_name_id", columnList = "product_name, product_id"),
+        @Index(name = "ix_catalog_products_price_id", columnList = "price, product_id"),
+        @Index(name = "ix_catalog_products_category_name_id", columnList = "category_slug, product_name, product_id"),
+        @Index(name = "ix_catalog_products_category_price_id", columnList = "category_slug, price, product_id"),
+        @Index(name = "ix_catalog_products_category_id", columnList = "category_id"), // přepočet po změně kategorie
+        // rozsahové filtry a řazení podle parametrů
+        @Index(name = "ix_catalog_products_nicotine_id", columnList = "nicotine_mg_value, product_id"),
+        @Index(name = "ix_catalog_products_volume_id", columnList = "volume_ml, product_id"),
+        @Index(name = "ix_catalog_products_puffs_id", columnList = "puff_count_value, product_id"),
+        @Index(name = "ix_catalog_products_battery_id", columnList = "battery_mah_value, product_id")
+})
+@Getter @NoArgsConstructor @AllArgsConstructor @Builder
+public class CatalogProduct {
+
+    @Id
+    @Column(name = "product_id", nullable = false)
+    private Long productId;
+
+    @Column(name = "product_name", nullable = false, length = 160)
+    private String productName;
+
+    @Column(name = "slug", nullable = false, unique = true, length = 180)
+    private String slug;
+
+    @Column(name = "description", columnDefinition = "TEXT")
+    private String description;
+
+    // String parametry produktu (tak, jak je zadal admin)
+    @Column(name = "manufacturer", length = 120)
+    private String manufacturer;
+
+    @Column(name = "battery_capacity_mah", length = 64)
+    private String batteryCapacityMah;
+
+    @Column(name = "nicotine_mg", length = 64)
+    private String nicotineMg;
+
+    @Column(name = "volume", length = 64)
+    private String volume;
+
+    @Column(name = "puff_count", length = 64)
+    private String puffCount;
+
+    @Column(name = "flavor", length = 120)
+    private String flavor;
+
+    @Column(name = "amount", nullable = false)
+    private Integer amount;
+
+    @Column(name = "price", precision = 10, scale = 2)
+    private BigDecimal price;
+
+    @Column(name = "weight_grams")
+    private Integer weightGrams;
+
+    @Column(name = "image_url", length = 512)
+    private String imageUrl;
+
+    // kategorie
+    @Column(name = "category_id", nullable = false)
+    private Long categoryId;
+
+    @Column(name = "category_slug", nullable = false, length = 100)
+    private String categorySlug;
+
+    @Column(name = "category_name", nullable = false, length = 100)
+    private String categoryName;
+
+    /** primary → sortOrder → imageId, stejně jako galerie */
+    @Column(name = "primary_image_url", length = 512)
+    private String primaryImageUrl;
+
+    // číselné hodnoty vytažené z textových parametrů ("20 mg" → 20), null = nejde přečíst; kopie z products
+    @Column(name = "nicotine_mg_value", precision = 8, scale = 2)
+    private BigDecimal nicotineMgValue;
+
+    @Column(name = "volume_ml", precision = 8, scale = 2)
+    private BigDecimal volumeMl;
+
+    @Column(name = "puff_count_value")
+    private Integer puffCountValue;
+
+    @Column(name = "battery_mah_value")
+    private Integer batteryMahValue;
+
+    /** složený text bez diakritiky (název, výrobce, příchuť, kategorie, slug) */
+    @Column(name = "search_text", columnDefinition = "TEXT")
+    private String searchText;
+
+    @Column(name = "refreshed_at", nullable = false)
+    private OffsetDateTime refreshedAt;
+}
@@ -9,7 +9,7 @@ import org.hibernate.validator.constraints.URL;
 import java.time.OffsetDateTime;
 
 @Entity
-@Table(name = "images")
+@Table(name = "images", indexes = @Index(name = "ix_images_url", columnList = "url"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Image {
 
@@ -37,6 +37,30 @@ public class Image {
     @Column(name = "sort_order", nullable = false)
     private int sortOrder;
 
+    // ---- zmenšeniny (vyplní ImageDerivativeService na pozadí) ----
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "derivative_status", length = 16)
+    private ImageDerivativeStatus derivativeStatus;
+
+    /** Rozměry originálu v px */
+    @Column(name = "width")
+    private Integer width;
+
+    @Column(name = "height")
+    private Integer height;
+
+    @Column(name = "byte_size")
+    private Long byteSize;
+
+    /** Šířky vygenerovaných zmenšenin, vzestupně ("200,480,800") */
+    @Column(name = "variant_widths", length = 64)
+    private String variantWidths;
+
+    /** Rozmazaný náhled 16 px jako data URI (LQIP) */
+    @Column(name = "placeholder", length = 2048)
+    private String placeholder;
+
     @Column(name = "created_at", nullable = false)
     private OffsetDateTime createdAt;
 
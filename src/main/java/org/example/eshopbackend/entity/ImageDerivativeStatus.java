@@ -0,0 +1,9 @@
+package org.example.eshopbackend.entity;
+
+/** Stav zmenšenin nahraného obrázku (null = externí URL, nic se negeneruje). */
+public enum ImageDerivativeStatus {
+    PENDING,     // čeká ve frontě
+    PROCESSING,  // právě se generuje
+    READY,       // zmenšeniny, rozměry a náhled jsou hotové
+    FAILED       // originál nejde přečíst
+}
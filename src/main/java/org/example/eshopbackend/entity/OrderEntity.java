@@ -79,6 +79,9 @@ public class OrderEntity {
     @Column(length = 20)
     private String bankVs;
 
+    // kusy odečtené ze skladu (null = objednávka z doby před rezervací skladu)
+    private Boolean stockReserved;
+
     // src/main/java/org/example/zeniqbackend/entity/OrderEntity.java
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, orphanRemoval = true)
     @Builder.Default
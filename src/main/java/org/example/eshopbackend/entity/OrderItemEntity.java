@@ -6,7 +6,8 @@ import java.math.BigDecimal;
 
 
 @Entity @Table(name="order_items", indexes = {
-        @Index(name="ix_items_order", columnList="order_id")
+        @Index(name="ix_items_order", columnList="order_id"),
+        @Index(name="ix_items_product", columnList="product_id")
 })
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class OrderItemEntity {
@@ -20,6 +21,10 @@ public class OrderItemEntity {
 
 
 
+    /** Id produktu v čase objednávky – bez FK, produkt může být později smazán (snapshot zůstává). */
+    @Column(name = "product_id")
+    private Long productId;
+
     @Column(nullable=false, length=64)
     private String nameOfProduct;
     @Column(nullable=false, length=128)
@@ -0,0 +1,19 @@
+package org.example.eshopbackend.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/** Čítač čísel objednávek pro jeden rok (viz OrderNumberAllocator). */
+@Entity
+@Table(name = "order_number_counters")
+@Getter @Setter @NoArgsConstructor @AllArgsConstructor
+public class OrderNumberCounter {
+
+    @Id
+    @Column(name = "order_year", nullable = false)
+    private Integer orderYear;
+
+    /** Poslední přidělené pořadí (2025-00042 → 42) */
+    @Column(name = "last_value", nullable = false)
+    private long lastValue;
+}
@@ -3,6 +3,7 @@ package org.example.eshopbackend.entity;
 
 import jakarta.persistence.*;
 import lombok.*;
+import org.example.eshopbackend.util.AttributeNumbers;
 import org.hibernate.validator.constraints.URL;
 
 import java.math.BigDecimal;
@@ -10,7 +11,7 @@ import java.util.ArrayList;
 import java.util.List;
 
 @Entity
-@Table(name = "products")
+@Table(name = "products", indexes = @Index(name = "ix_products_category_id", columnList = "category_id"))
 @Getter @Setter @NoArgsConstructor @AllArgsConstructor @Builder
 public class Product {
 
@@ -46,6 +47,19 @@ public class Product {
     @Column(name = "flavor", length = 120)
     private String flavor;
 
+    // číselné stíny textových parametrů (viz syncNumericAttributes), null = nejde přečíst
+    @Column(name = "nicotine_mg_value", precision = 8, scale = 2)
+    private BigDecimal nicotineMgValue;
+
+    @Column(name = "volume_ml", precision = 8, scale = 2)
+    private BigDecimal volumeMl;
+
+    @Column(name = "puff_count_value")
+    private Integer puffCountValue;
+
+    @Column(name = "battery_mah_value")
+    private Integer batteryMahValue;
+
     @Column(name = "price", precision = 10, scale = 2)
     private BigDecimal price;
 
@@ -86,4 +100,12 @@ public class Product {
         images.remove(image);
         image.setProduct(null);
     }
+
+    /** Přepočítá číselné stíny z textových parametrů – volat po každé změně nicotineMg/volume/puffCount/batteryCapacityMah. */
+    public void syncNumericAttributes() {
+        nicotineMgValue = AttributeNumbers.firstNumber(nicotineMg);
+        volumeMl = AttributeNumbers.firstNumber(volume);
+        puffCountValue = AttributeNumbers.firstInteger(puffCount);
+        batteryMahValue = AttributeNumbers.firstInteger(batteryCapacityMah);
+    }
 }
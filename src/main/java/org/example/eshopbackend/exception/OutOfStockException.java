@@ -0,0 +1,22 @@
+package org.example.eshopbackend.exception;
+
+import java.util.List;
+
+/** Objednávka chce víc kusů, než je skladem; {@code lines} jsou jen položky, které nevyšly. */
+public class OutOfStockException extends RuntimeException {
+
+    public record Line(Long productId, int requested, int available) {}
+
+    private final List<Line> lines;
+
+    public OutOfStockException(List<Line> lines) {
+        super("Nedostatek zboží skladem: " + lines.stream()
+                .map(l -> "id=" + l.productId() + " (chybí " + (l.requested() - l.available()) + " ks)")
+                .toList());
+        this.lines = List.copyOf(lines);
+    }
+
+    public List<Line> getLines() {
+        return lines;
+    }
+}
@@ -2,12 +2,27 @@
 package org.example.eshopbackend.mapper;
 
 import org.example.eshopbackend.dto.image.ImageResponseDTO;
+import org.example.eshopbackend.dto.image.ImageVariantDTO;
 import org.example.eshopbackend.entity.Image;
+import org.example.eshopbackend.service.image.ImageDerivativeService;
 import org.mapstruct.*;
 
+import java.util.Arrays;
+
 @Mapper(componentModel = "spring", unmappedTargetPolicy = ReportingPolicy.IGNORE)
 public interface ImageMapper {
 
     @Mapping(source = "product.productId", target = "productId")
+    @Mapping(target = "variants", ignore = true)
     ImageResponseDTO toDto(Image image);
+
+    // "200,480,800" → srcset položky s URL hotových zmenšenin
+    @AfterMapping
+    default void fillVariants(Image image, @MappingTarget ImageResponseDTO dto) {
+        if (image.getVariantWidths() == null || image.getVariantWidths().isBlank()) return;
+        dto.setVariants(Arrays.stream(image.getVariantWidths().split(","))
+                .map(Integer::parseInt)
+                .map(w -> new ImageVariantDTO(w, ImageDerivativeService.derivativeUrl(image.getUrl(), w)))
+                .toList());
+    }
 }
@@ -4,6 +4,7 @@ package org.example.eshopbackend.mapper;
 import org.example.eshopbackend.dto.CreateProductRequestDTO;
 import org.example.eshopbackend.dto.ProductResponseDTO;
 import org.example.eshopbackend.dto.UpdateProductRequestDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
 import org.example.eshopbackend.entity.Category;
 import org.example.eshopbackend.entity.Product;
 import org.mapstruct.*;
@@ -28,6 +29,9 @@ public interface ProductMapper {
     @Mapping(target = "categoryName", source = "category.categoryName")
     ProductResponseDTO toDto(Product product);
 
+    // read model má stejné názvy polí jako DTO
+    ProductResponseDTO toDto(CatalogProduct row);
+
     default Product toEntity(CreateProductRequestDTO dto, Category category, String slug) {
         Product p = toEntity(dto);
         p.setCategory(category);
@@ -0,0 +1,154 @@
+package org.example.eshopbackend.repository;
+
+import jakarta.persistence.QueryHint;
+import org.example.eshopbackend.dto.ProductResponseDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.math.BigDecimal;
+import java.time.OffsetDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/** Čtení veřejného katalogu z read modelu – bez joinů na kategorie a obrázky. */
+@Repository
+public interface CatalogProductRepository extends JpaRepository<CatalogProduct, Long>,
+                                                  JpaSpecificationExecutor<CatalogProduct> {
+
+    // projekce přímo do ProductResponseDTO, žádné entity v persistence contextu
+    String DTO_SELECT = """
+        select new org.example.eshopbackend.dto.ProductResponseDTO(
+            r.productId, r.productName, r.slug, r.description,
+            r.manufacturer, r.batteryCapacityMah, r.nicotineMg, r.volume, r.puffCount, r.flavor,
+            r.amount, r.price, r.categoryId, r.categoryName, r.primaryImageUrl,
+            r.weightGrams, r.imageUrl)
+        from CatalogProduct r
+        """;
+
+    @Query(value = DTO_SELECT, countQuery = "select count(r) from CatalogProduct r")
+    Page<ProductResponseDTO> findDtoPage(Pageable pageable);
+
+    @Query(value = DTO_SELECT + "where r.categorySlug = :slug",
+           countQuery = "select count(r) from CatalogProduct r where r.categorySlug = :slug")
+    Page<ProductResponseDTO> findDtoPageByCategorySlug(@Param("slug") String slug, Pageable pageable);
+
+    @Query(DTO_SELECT + "where r.slug = :slug")
+    Optional<ProductResponseDTO> findDtoBySlug(@Param("slug") String slug);
+
+    @Query(DTO_SELECT + "where r.productId = :id")
+    Optional<ProductResponseDTO> findDtoById(@Param("id") Long id);
+
+    /** Pořadí výsledku není dané – volající si ho srovná podle svých id. */
+    @Query(DTO_SELECT + "where r.productId in :ids")
+    List<ProductResponseDTO> findDtosByIds(@Param("ids") Collection<Long> ids);
+
+    /** Pořadí výsledku není dané – volající si ho srovná podle svých slugů. */
+    @Query(DTO_SELECT + "where r.slug in :slugs")
+    List<ProductResponseDTO> findDtosBySlugs(@Param("slugs") Collection<String> slugs);
+
+    // 🔎 fulltext nad catalog_products.search_vector, řazeno podle relevance.
+    // :q je hotový tsquery (TextFold.toPrefixTsQuery) – Pageable proto posílej bez řazení.
+    @Query(value = """
+        select r.product_id from catalog_products r
+        where r.search_vector @@ to_tsquery('simple', :q)
+        order by ts_rank_cd(r.search_vector, to_tsquery('simple', :q)) desc, r.product_id
+    """, countQuery = """
+        select count(*) from catalog_products r
+        where r.search_vector @@ to_tsquery('simple', :q)
+    """, nativeQuery = true)
+    Page<Long> searchIds(@Param("q") String tsQuery, Pageable pageable);
+
+    /**
+     * Celý katalog jako dopředný kurzor (feedy): Postgres posílá řádky po fetch size, ne všechny naráz.
+     * Volat v transakci a zpracované řádky odpojovat z persistence contextu.
+     */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r from CatalogProduct r order by r.productId")
+    Stream<CatalogProduct> streamAllOrderById();
+
+    /** Slugy produktů pro sitemapu, stejně jako feedy po fetch size. */
+    @QueryHints({
+            @QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "1000"),
+            @QueryHint(name = HibernateHints.HINT_READ_ONLY, value = "true")
+    })
+    @Query("select r.slug as slug, r.refreshedAt as refreshedAt from CatalogProduct r order by r.productId")
+    Stream<SitemapEntry> streamSitemapEntries();
+
+    interface SitemapEntry {
+        String getSlug();
+        OffsetDateTime getRefreshedAt();
+    }
+
+    /** Čas posledního přepočtu read modelu – spolu s count() otisk pro snapshot vyhledávacího indexu. */
+    @Query("select max(r.refreshedAt) from CatalogProduct r")
+    Optional<OffsetDateTime> lastRefreshedAt();
+
+    // ---- keyset (seek) stránkování: bez offsetu a bez count(*) ----
+    // Pageable slouží jen jako limit (PageRequest.of(0, n)), řazení je pevně v dotazu.
+    // Porovnání řádkových hodnot (a, id) > (:a, :id) = jeden range scan indexu (a, product_id).
+    // Cena: produkty bez ceny až na konci (nulls last, jako offsetové řazení v Postgresu);
+    // *ByPrice vrací jen produkty s cenou, po posledním z nich pokračuje *WithoutPrice jen podle id.
+
+    @Query(DTO_SELECT + """
+        where (r.productName, r.productId) > (:afterName, :afterId)
+        order by r.productName, r.productId
+    """)
+    List<ProductResponseDTO> findNextByName(@Param("afterName") String afterName,
+                                            @Param("afterId") Long afterId,
+                                            Pageable limit);
+
+    @Query(DTO_SELECT + """
+        where r.price is not null and (r.price, r.productId) > (:afterPrice, :afterId)
+        order by r.price, r.productId
+    """)
+    List<ProductResponseDTO> findNextByPrice(@Param("afterPrice") BigDecimal afterPrice,
+                                             @Param("afterId") Long afterId,
+                                             Pageable limit);
+
+    @Query(DTO_SELECT + """
+        where r.price is null and r.productId > :afterId
+        order by r.productId
+    """)
+    List<ProductResponseDTO> findNextWithoutPrice(@Param("afterId") Long afterId, Pageable limit);
+
+    @Query(DTO_SELECT + """
+        where r.categorySlug = :slug
+          and (r.productName, r.productId) > (:afterName, :afterId)
+        order by r.productName, r.productId
+    """)
+    List<ProductResponseDTO> findNextByNameInCategory(@Param("slug") String slug,
+                                                      @Param("afterName") String afterName,
+                                                      @Param("afterId") Long afterId,
+                                                      Pageable limit);
+
+    @Query(DTO_SELECT + """
+        where r.categorySlug = :slug
+          and r.price is not null and (r.price, r.productId) > (:afterPrice, :afterId)
+        order by r.price, r.productId
+    """)
+    List<ProductResponseDTO> findNextByPriceInCategory(@Param("slug") String slug,
+                                                       @Param("afterPrice") BigDecimal afterPrice,
+                                                       @Param("afterId") Long afterId,
+                                                       Pageable limit);
+
+    @Query(DTO_SELECT + """
+        where r.categorySlug = :slug and r.price is null and r.productId > :afterId
+        order by r.productId
+    """)
+    List<ProductResponseDTO> findNextWithoutPriceInCategory(@Param("slug") String slug,
+                                                            @Param("afterId") Long afterId,
+                                                            Pageable limit);
+}
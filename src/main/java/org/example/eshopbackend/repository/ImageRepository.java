@@ -2,12 +2,14 @@
 package org.example.eshopbackend.repository;
 
 import org.example.eshopbackend.entity.Image;
+import org.example.eshopbackend.entity.ImageDerivativeStatus;
 import org.example.eshopbackend.entity.Product;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
-import org.springframework.data.domain.Pageable;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,13 +19,61 @@ public interface ImageRepository extends JpaRepository<Image, Long> {
     Optional<Image> findFirstByProductAndPrimaryTrue(Product product);
     boolean existsByProductAndPrimaryTrue(Product product);
 
+    // obsahově adresované soubory: URL sdílí víc řádků, počet řádků = počet odkazů
+    boolean existsByUrl(String url);
+
+    Optional<Image> findFirstByUrlAndDerivativeStatusAndImageIdNot(String url, ImageDerivativeStatus status, Long imageId);
+
+    /** Rozpracované (restart uprostřed generování) a lokální obrázky nahrané před zavedením zmenšenin. */
+    @Query("""
+           select i.imageId from Image i
+           where i.derivativeStatus in :statuses
+              or (i.derivativeStatus is null and i.url like '/static/images/%')
+           order by i.imageId
+           """)
+    List<Long> findIdsNeedingDerivatives(@Param("statuses") Collection<ImageDerivativeStatus> statuses);
+
+    // ---- hromadné úpravy galerie: pevný počet UPDATE nezávisle na počtu obrázků ----
+    // flushAutomatically – nejdřív se zapíšou rozpracované změny entit (smazání, is_primary=false),
+    // jinak by se UPDATE míjel s unikátním indexem ux_images_primary
+
+    @Query("select i.imageId from Image i where i.product = :product")
+    List<Long> findIdsByProduct(@Param("product") Product product);
+
+    /** Posune pořadí o {@code delta} všem obrázkům produktu s pořadím v [from, to]. */
+    @Modifying(flushAutomatically = true)
+    @Query("""
+           update Image i set i.sortOrder = i.sortOrder + :delta
+           where i.product = :product and i.sortOrder between :from and :to
+           """)
+    int shiftSortOrder(@Param("product") Product product, @Param("from") int from,
+                       @Param("to") int to, @Param("delta") int delta);
+
+    /** Zruší primární obrázek produktu; {@code keepId} (může být null) se nechá být. */
+    @Modifying(flushAutomatically = true)
     @Query("""
-        select i.url
-        from Image i
-        where i.product.productId = :productId
-        order by case when i.primary = true then 0 else 1 end,
-                 coalesce(i.sortOrder, 0),
-                 i.imageId
-    """)
-    List<String> findTopUrlsByProductId(@Param("productId") Long productId, Pageable pageable);
+           update Image i set i.primary = false
+           where i.product = :product and i.primary = true
+             and (:keepId is null or i.imageId <> :keepId)
+           """)
+    int clearPrimary(@Param("product") Product product, @Param("keepId") Long keepId);
+
+    /** Produkt bez primárního obrázku → primární bude první v galerii (kromě {@code exceptId}). */
+    @Modifying(flushAutomatically = true)
+    @Query(value = """
+           update images set is_primary = true
+           where image_id = (select o.image_id from images o
+                             where o.product_id = :productId and o.image_id <> :exceptId
+                             order by o.sort_order, o.image_id limit 1)
+             and not exists (select 1 from images p where p.product_id = :productId and p.is_primary)
+           """, nativeQuery = true)
+    int promoteFirstIfNoPrimary(@Param("productId") Long productId, @Param("exceptId") Long exceptId);
+
+    /** Pořadí = pozice v {@code orderedIds} (od 0), jedním UPDATE. */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(value = """
+           update images set sort_order = array_position(cast(array[:ids] as bigint[]), image_id) - 1
+           where product_id = :productId and image_id in (:ids)
+           """, nativeQuery = true)
+    int reorder(@Param("productId") Long productId, @Param("ids") List<Long> orderedIds);
 }
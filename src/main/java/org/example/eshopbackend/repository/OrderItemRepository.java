@@ -3,12 +3,43 @@ package org.example.eshopbackend.repository;
 
 import org.example.eshopbackend.entity.OrderItemEntity;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
 public interface OrderItemRepository extends JpaRepository<OrderItemEntity, Long> {
     List<OrderItemEntity> findByOrder_OrderId(Long orderId);
 
+    /** Prodané kusy podle slugu produktu (order_items.name je snapshot slugu), bez zrušených objednávek. */
+    @Query("""
+        select i.name as slug, sum(i.amountOfProducts) as units
+        from OrderItemEntity i
+        where i.order.orderStatus <> org.example.eshopbackend.entity.OrderStatus.CANCELED
+        group by i.name
+    """)
+    List<SlugSales> sumUnitsBySlug();
+
+    interface SlugSales {
+        String getSlug();
+        Long getUnits();
+    }
+
+    /** Položky daných objednávek pro statistiky prodejů (jen se známým produktem). */
+    @Query("""
+        select i.order.orderId as orderId, i.productId as productId, i.amountOfProducts as units
+        from OrderItemEntity i
+        where i.order.orderId in :orderIds and i.productId is not null
+    """)
+    List<SalesLine> findSalesLines(@Param("orderIds") Collection<Long> orderIds);
+
+    interface SalesLine {
+        Long getOrderId();
+        Long getProductId();
+        Integer getUnits();
+    }
+
 }
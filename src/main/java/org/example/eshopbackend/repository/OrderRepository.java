@@ -1,15 +1,48 @@
 package org.example.eshopbackend.repository;
 
+import jakarta.persistence.LockModeType;
 import org.example.eshopbackend.entity.OrderEntity;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface OrderRepository extends JpaRepository<OrderEntity, Long> {
     Optional<OrderEntity> findByOrderNumber(String orderNumber);
-    Optional<OrderEntity> findTopByOrderNumberStartingWithOrderByOrderIdDesc(String prefix);
     List<OrderEntity> findTop10ByOrderByOrderIdDesc();
+
+    // objednávka i s položkami jedním dotazem – pro e-maily mimo transakci
+    @EntityGraph(attributePaths = "items")
+    @Query("select o from OrderEntity o where o.orderId = :id")
+    Optional<OrderEntity> findWithItemsById(@Param("id") Long id);
+
+    // admin úprava zamkne řádek – souběžný OrderExpiryJob ho přeskočí (skip locked) a nepřepíše stav
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select o from OrderEntity o where o.orderId = :id")
+    Optional<OrderEntity> findByIdForUpdate(@Param("id") Long id);
+
+    // keyset stránkování admin výpisu (nejnovější první), Pageable jen jako limit
+    @Query("select o from OrderEntity o where o.orderId < :beforeId order by o.orderId desc")
+    List<OrderEntity> findNextByIdDesc(@Param("beforeId") Long beforeId, Pageable limit);
+
+    // statistiky prodejů: další nezrušené objednávky za watermarkem, jen "usazené" (starší než settledBefore),
+    // aby se nepřeskočila objednávka s nižším id, která commitne později
+    @Query("""
+        select o.orderId from OrderEntity o
+        where o.orderId > :afterId
+          and o.createdAt < :settledBefore
+          and o.orderStatus <> org.example.eshopbackend.entity.OrderStatus.CANCELED
+        order by o.orderId
+    """)
+    List<Long> findSettledIdsAfter(@Param("afterId") Long afterId,
+                                   @Param("settledBefore") Instant settledBefore,
+                                   Pageable limit);
 }
@@ -8,6 +8,8 @@ import org.springframework.stereotype.Repository;
 
 import org.springframework.data.domain.Page;          // ✅ SPRÁVNÝ Page
 import org.springframework.data.domain.Pageable;
+import java.math.BigDecimal;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -17,20 +19,44 @@ public interface ProductRepository extends JpaRepository<Product, Long> {
     Optional<Product> findBySlug(String slug);
 
     boolean existsBySlug(String slug);
+
+    boolean existsByImageUrl(String imageUrl);
+
     // Pokud máš v Product pole "category" typu Category:
     @Query("select p from Product p join p.category c where c.slug = :slug")
     Page<Product> findByCategorySlug(@Param("slug") String slug, Pageable pageable);
 
-    // 🔎 fulltext-like vyhledávání (case-insensitive)
+    // ---- dávkový přepočet číselných parametrů (keyset po id, Pageable = jen limit) ----
+
+    @Query("select p.productId from Product p where p.productId > :afterId order by p.productId")
+    List<Long> findIdsAfter(@Param("afterId") Long afterId, Pageable limit);
+
+    /** Produkty, kde je textový parametr vyplněný, ale číselný stín chybí. */
+    @Query("""
+        select p.productId from Product p
+        where p.productId > :afterId
+          and ((p.nicotineMg is not null and p.nicotineMgValue is null)
+            or (p.volume is not null and p.volumeMl is null)
+            or (p.puffCount is not null and p.puffCountValue is null)
+            or (p.batteryCapacityMah is not null and p.batteryMahValue is null))
+        order by p.productId
+    """)
+    List<Long> findIdsMissingNumericAttributesAfter(@Param("afterId") Long afterId, Pageable limit);
+
+    // ---- checkout: celý košík jedním dotazem, jen sloupce pro snapshot položek ----
+
     @Query("""
-        select p from Product p
-        left join p.category c
-        where
-            lower(p.productName) like lower(concat('%', :q, '%'))
-         or lower(coalesce(p.description, '')) like lower(concat('%', :q, '%'))
-         or lower(p.slug) like lower(concat('%', :q, '%'))
-         or lower(coalesce(c.categoryName, '')) like lower(concat('%', :q, '%'))
+        select p.productId as productId, p.productName as productName, p.slug as slug,
+               p.price as price, p.weightGrams as weightGrams
+        from Product p where p.productId in :ids
     """)
-    Page<Product> search(@Param("q") String q, Pageable pageable);
+    List<CheckoutProduct> findCheckoutProducts(@Param("ids") Collection<Long> ids);
 
+    interface CheckoutProduct {
+        Long getProductId();
+        String getProductName();
+        String getSlug();
+        BigDecimal getPrice();
+        Integer getWeightGrams();
+    }
 }
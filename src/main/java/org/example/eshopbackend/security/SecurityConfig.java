@@ -35,7 +35,8 @@ public class SecurityConfig {
 
                 .authorizeHttpRequests(auth -> auth
                         .requestMatchers("/api/auth/**").permitAll()
-                        .requestMatchers(HttpMethod.GET, "/api/products/**", "/api/catalog/**").permitAll()
+                        .requestMatchers(HttpMethod.GET, "/api/products/**", "/api/catalog/**", "/api/images/**").permitAll()
+                        .requestMatchers(HttpMethod.POST, "/api/catalog/products/lookup").permitAll()
                         .requestMatchers( "/static/**","/images/**", "/css/**", "/js/**", "/error").permitAll()
                         .requestMatchers("/api/verification/**").permitAll()
                         .requestMatchers("/api/order/**").permitAll()
@@ -57,7 +58,8 @@ public class SecurityConfig {
         CorsConfiguration configuration = new CorsConfiguration();
         configuration.setAllowedOrigins(List.of("http://localhost:3000", "https://eshop-frontend-kappa.vercel.app"));
         configuration.setAllowedMethods(List.of("GET", "POST", "PUT", "DELETE", "OPTIONS"));
-        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type"));
+        configuration.setAllowedHeaders(List.of("Authorization", "Content-Type", "If-None-Match"));
+        configuration.setExposedHeaders(List.of("ETag")); // revalidace katalogu (304)
         configuration.setAllowCredentials(true);
 
         UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
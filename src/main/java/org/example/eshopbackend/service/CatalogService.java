@@ -2,95 +2,255 @@
 package org.example.eshopbackend.service;
 
 import lombok.RequiredArgsConstructor;
+import org.example.eshopbackend.dto.CursorPageDTO;
+import org.example.eshopbackend.dto.ProductLookupItemDTO;
+import org.example.eshopbackend.dto.ProductRangeFilterDTO;
 import org.example.eshopbackend.dto.ProductResponseDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
 import org.example.eshopbackend.entity.Category;
-import org.example.eshopbackend.entity.Product;
 import org.example.eshopbackend.mapper.ProductMapper;
+import org.example.eshopbackend.repository.CatalogProductRepository;
 import org.example.eshopbackend.repository.CategoryRepository;
-import org.example.eshopbackend.repository.ImageRepository;
-import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogSearchEngine;
+import org.example.eshopbackend.util.KeysetCursor;
+import org.example.eshopbackend.util.TextFold;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.http.HttpStatus;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.List;
+import java.math.BigDecimal;
+import java.util.*;
+import java.util.stream.Collectors;
 
 @Service
 @RequiredArgsConstructor
 public class CatalogService {
-    private final ProductRepository repo;
+    public static final String SORT_NAME = "productName";
+    public static final String SORT_PRICE = "price";
+    private static final int MAX_SEEK_SIZE = 100;
+    public static final int MAX_LOOKUP = 300;
+
+    /** API název řazení → sloupec read modelu; jiné řazení rozsahový filtr nepřijme */
+    private static final Map<String, String> RANGE_SORTS = Map.of(
+            SORT_NAME, "productName",
+            SORT_PRICE, "price",
+            "nicotineMg", "nicotineMgValue",
+            "volume", "volumeMl",
+            "puffCount", "puffCountValue",
+            "batteryCapacityMah", "batteryMahValue");
+
+    // veřejný katalog čte jen z read modelu (catalog_products), viz CatalogReadModel
+    private final CatalogProductRepository repo;
     private final CategoryRepository catRepo;
-    private final ImageRepository imageRepo;
+    // volitelný vestavěný fulltext (catalog.search.engine=embedded), jinak Postgres
+    private final CatalogSearchEngine searchEngine;
     private final ProductMapper productMapper;
 
-    @Transactional(readOnly = true)
-    public Page<Product> list(Pageable pageable) {
-        return repo.findAll(pageable);
+    public List<Category> listCategories() {
+        return catRepo.findAllOrdered();
     }
 
+    /* ====== DTO read path (projekce z read modelu, bez hydratace entit) ====== */
+
     @Transactional(readOnly = true)
-    public Product getBySlug(String slug) {
-        return repo.findBySlug(slug).orElseThrow();
+    public Page<ProductResponseDTO> listDto(Pageable pageable) {
+        return repo.findDtoPage(pageable);
     }
 
     @Transactional(readOnly = true)
-    public Product getById(Long id) {
-        return repo.findById(id).orElseThrow();
+    public ProductResponseDTO getDtoBySlug(String slug) {
+        return repo.findDtoBySlug(slug).orElseThrow();
     }
 
-    public List<Category> listCategories() {
-        return catRepo.findAllOrdered();
+    @Transactional(readOnly = true)
+    public ProductResponseDTO getDtoById(Long id) {
+        return repo.findDtoById(id).orElseThrow();
     }
 
     @Transactional(readOnly = true)
-    public Page<Product> listByCategorySlug(String slug, Pageable pageable) {
-        return repo.findByCategorySlug(slug, pageable);
+    public Page<ProductResponseDTO> listDtoByCategorySlug(String slug, Pageable pageable) {
+        return repo.findDtoPageByCategorySlug(slug, pageable);
     }
 
-    /* ====== DTO helpery s primaryImageUrl ====== */
+    /** Fulltext bez diakritiky ("prichut" najde "příchuť"), výsledky seřazené podle relevance; vestavěný engine toleruje i překlepy. */
+    @Transactional(readOnly = true)
+    public Page<ProductResponseDTO> searchDto(String q, Pageable pageable) {
+        String tsQuery = TextFold.toPrefixTsQuery(q);
+        if (tsQuery == null) return Page.empty(pageable);
+        Pageable ranked = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize());
+        Page<Long> ids = searchEngine.isEnabled()
+                ? searchEngine.search(q, ranked)
+                : repo.searchIds(tsQuery, ranked);
+        if (!ids.hasContent()) return new PageImpl<>(List.of(), ranked, ids.getTotalElements());
 
-    private String loadPrimaryImageUrl(Long productId) {
-        return imageRepo.findTopUrlsByProductId(productId, PageRequest.of(0, 1))
-                .stream().findFirst().orElse(null);
+        // projekce nezaručuje pořadí → vrátit v pořadí relevance
+        Map<Long, ProductResponseDTO> byId = new HashMap<>();
+        for (ProductResponseDTO dto : repo.findDtosByIds(ids.getContent())) {
+            byId.put(dto.getProductId(), dto);
+        }
+        List<ProductResponseDTO> ordered = ids.getContent().stream()
+                .map(byId::get)
+                .filter(Objects::nonNull) // smazaný mezi dvěma dotazy
+                .toList();
+        return new PageImpl<>(ordered, ranked, ids.getTotalElements());
     }
 
+    /**
+     * Rozsahové filtry a řazení nad číselnými parametry ("nikotin ≤ 10 mg, potahů ≥ 600").
+     * Do SQL jdou jen zadané meze, takže Postgres použije indexy read modelu; produkty bez čísla
+     * v daném parametru rozsahem neprojdou.
+     */
     @Transactional(readOnly = true)
-    public Page<ProductResponseDTO> listDto(Pageable pageable) {
-        return list(pageable).map(p -> {
-            ProductResponseDTO dto = productMapper.toDto(p);
-            dto.setPrimaryImageUrl(loadPrimaryImageUrl(p.getProductId()));
-            return dto;
-        });
+    public Page<ProductResponseDTO> filterDto(ProductRangeFilterDTO filter, Pageable pageable) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order o : pageable.getSort()) {
+            String column = RANGE_SORTS.get(o.getProperty());
+            if (column == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Neznámé řazení: " + o.getProperty());
+            }
+            orders.add(new Sort.Order(o.getDirection(), column));
+        }
+        orders.add(Sort.Order.asc("productId")); // stabilní pořadí při shodě
+        Pageable page = PageRequest.of(pageable.getPageNumber(),
+                Math.max(1, Math.min(pageable.getPageSize(), MAX_SEEK_SIZE)), Sort.by(orders));
+
+        Specification<CatalogProduct> spec = Specification.allOf(
+                equal("categorySlug", filter.getCategory()),
+                between("nicotineMgValue", filter.getNicotineMin(), filter.getNicotineMax()),
+                between("volumeMl", filter.getVolumeMin(), filter.getVolumeMax()),
+                between("puffCountValue", filter.getPuffMin(), filter.getPuffMax()),
+                between("batteryMahValue", filter.getBatteryMin(), filter.getBatteryMax()),
+                between("price", filter.getPriceMin(), filter.getPriceMax()));
+        return repo.findAll(spec, page).map(productMapper::toDto);
     }
 
-    @Transactional(readOnly = true)
-    public ProductResponseDTO getDtoBySlug(String slug) {
-        Product p = getBySlug(slug);
-        ProductResponseDTO dto = productMapper.toDto(p);
-        dto.setPrimaryImageUrl(loadPrimaryImageUrl(p.getProductId()));
-        return dto;
+    private static Specification<CatalogProduct> equal(String attribute, String value) {
+        if (value == null || value.isBlank()) return null;
+        return (root, query, cb) -> cb.equal(root.get(attribute), value);
     }
 
-    @Transactional(readOnly = true)
-    public ProductResponseDTO getDtoById(Long id) {
-        Product p = getById(id);
-        ProductResponseDTO dto = productMapper.toDto(p);
-        dto.setPrimaryImageUrl(loadPrimaryImageUrl(p.getProductId()));
-        return dto;
+    private static <T extends Comparable<? super T>> Specification<CatalogProduct> between(String attribute, T min, T max) {
+        if (min == null && max == null) return null;
+        return (root, query, cb) -> {
+            if (min == null) return cb.lessThanOrEqualTo(root.get(attribute), max);
+            if (max == null) return cb.greaterThanOrEqualTo(root.get(attribute), min);
+            return cb.between(root.get(attribute), min, max);
+        };
     }
 
+    /**
+     * Hromadné dotažení pro košík/checkout: nejvýš dva dotazy (id a slugy) místo jednoho na položku.
+     * Výsledek je v pořadí požadavku (nejdřív id, pak slugy), neexistující produkty mají {@code missing}.
+     */
     @Transactional(readOnly = true)
-    public Page<ProductResponseDTO> listDtoByCategorySlug(String slug, Pageable pageable) {
-        return listByCategorySlug(slug, pageable).map(p -> {
-            ProductResponseDTO dto = productMapper.toDto(p);
-            dto.setPrimaryImageUrl(loadPrimaryImageUrl(p.getProductId()));
-            return dto;
-        });
+    public List<ProductLookupItemDTO> lookupDtos(List<Long> ids, List<String> slugs) {
+        List<Long> wantedIds = ids == null ? List.of() : ids;
+        List<String> wantedSlugs = slugs == null ? List.of() : slugs;
+        if (wantedIds.size() + wantedSlugs.size() > MAX_LOOKUP) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Max " + MAX_LOOKUP + " produktů na dotaz");
+        }
+
+        Map<Long, ProductResponseDTO> byId = new HashMap<>();
+        Set<Long> idKeys = wantedIds.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (!idKeys.isEmpty()) {
+            repo.findDtosByIds(idKeys).forEach(dto -> byId.put(dto.getProductId(), dto));
+        }
+        Map<String, ProductResponseDTO> bySlug = new HashMap<>();
+        Set<String> slugKeys = wantedSlugs.stream().filter(Objects::nonNull).collect(Collectors.toSet());
+        if (!slugKeys.isEmpty()) {
+            repo.findDtosBySlugs(slugKeys).forEach(dto -> bySlug.put(dto.getSlug(), dto));
+        }
+
+        List<ProductLookupItemDTO> out = new ArrayList<>(wantedIds.size() + wantedSlugs.size());
+        for (Long id : wantedIds) {
+            ProductResponseDTO dto = id == null ? null : byId.get(id);
+            out.add(ProductLookupItemDTO.builder().id(id).missing(dto == null).product(dto).build());
+        }
+        for (String slug : wantedSlugs) {
+            ProductResponseDTO dto = slug == null ? null : bySlug.get(slug);
+            out.add(ProductLookupItemDTO.builder().slug(slug).missing(dto == null).product(dto).build());
+        }
+        return out;
     }
+
+    /* ====== keyset (seek) stránkování ====== */
+
+    /**
+     * Další stránka za {@code cursor} (null = první stránka). Náklad nezávisí na hloubce stránky
+     * a neběží count(*); {@code categorySlug} null = celý katalog.
+     */
     @Transactional(readOnly = true)
-    public Page<ProductResponseDTO> searchDto(String q, Pageable pageable) {
-        var page = repo.search(q, pageable);
-        return page.map(productMapper::toDto);
+    public CursorPageDTO<ProductResponseDTO> seekDto(String categorySlug, String sort, String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, MAX_SEEK_SIZE));
+        Pageable fetch = PageRequest.of(0, limit + 1); // o jeden víc → víme, jestli existuje další stránka
+        KeysetCursor after = decodeCursor(cursor, sort);
+        long afterId = after == null ? 0L : after.id();
+
+        List<ProductResponseDTO> rows = switch (sort) {
+            case SORT_NAME -> {
+                String afterName = after == null ? "" : after.key();
+                yield categorySlug == null
+                        ? repo.findNextByName(afterName, afterId, fetch)
+                        : repo.findNextByNameInCategory(categorySlug, afterName, afterId, fetch);
+            }
+            case SORT_PRICE -> {
+                // prázdný klíč = poslední řádek byl bez ceny → zbývají jen produkty bez ceny
+                if (after != null && after.key().isEmpty()) {
+                    yield categorySlug == null
+                            ? repo.findNextWithoutPrice(afterId, fetch)
+                            : repo.findNextWithoutPriceInCategory(categorySlug, afterId, fetch);
+                }
+                BigDecimal afterPrice = after == null ? BigDecimal.valueOf(-1) : parsePrice(after.key());
+                List<ProductResponseDTO> priced = categorySlug == null
+                        ? repo.findNextByPrice(afterPrice, afterId, fetch)
+                        : repo.findNextByPriceInCategory(categorySlug, afterPrice, afterId, fetch);
+                if (priced.size() > limit) yield priced;
+                // produkty s cenou došly → zbytek stránky doplní produkty bez ceny od začátku
+                Pageable rest = PageRequest.of(0, limit + 1 - priced.size());
+                List<ProductResponseDTO> merged = new ArrayList<>(priced);
+                merged.addAll(categorySlug == null
+                        ? repo.findNextWithoutPrice(0L, rest)
+                        : repo.findNextWithoutPriceInCategory(categorySlug, 0L, rest));
+                yield merged;
+            }
+            default -> throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Nepodporované řazení: " + sort);
+        };
+
+        boolean hasNext = rows.size() > limit;
+        List<ProductResponseDTO> page = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            ProductResponseDTO last = page.get(page.size() - 1);
+            String key = SORT_NAME.equals(sort) ? last.getProductName()
+                    : last.getPrice() == null ? "" : last.getPrice().toPlainString();
+            nextCursor = new KeysetCursor(sort, key, last.getProductId()).encode();
+        }
+
+        return CursorPageDTO.<ProductResponseDTO>builder()
+                .items(page)
+                .size(limit)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
+    private static KeysetCursor decodeCursor(String cursor, String sort) {
+        if (cursor == null || cursor.isBlank()) return null;
+        try {
+            return KeysetCursor.decode(cursor, sort);
+        } catch (IllegalArgumentException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+        }
     }
 
+    private static BigDecimal parsePrice(String key) {
+        try {
+            return new BigDecimal(key);
+        } catch (NumberFormatException e) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Neplatný cursor");
+        }
+    }
 }
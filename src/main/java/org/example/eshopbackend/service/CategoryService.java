@@ -5,6 +5,8 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.eshopbackend.dto.CreateCategoryRequestDTO;
 import org.example.eshopbackend.entity.Category;
 import org.example.eshopbackend.repository.CategoryRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
@@ -21,6 +23,7 @@ import java.util.Locale;
 public class CategoryService {
 
     private final CategoryRepository categoryRepository;
+    private final ApplicationEventPublisher events;
 
     @PreAuthorize("hasRole('ADMIN')")
     @Transactional
@@ -45,6 +48,7 @@ public class CategoryService {
         try {
             Category saved = categoryRepository.save(entity);
             log.info("Created category id={} slug={}", saved.getCategoryId(), saved.getSlug());
+            events.publishEvent(CatalogChangedEvent.category(saved.getCategoryId()));
             return saved;
         } catch (DataIntegrityViolationException ex) {
             // souběh – přidáme další sufix a zkusíme znovu
@@ -52,6 +56,7 @@ public class CategoryService {
             entity.setSlug(slug);
             Category saved = categoryRepository.save(entity);
             log.info("Created category (retry) id={} slug={}", saved.getCategoryId(), saved.getSlug());
+            events.publishEvent(CatalogChangedEvent.category(saved.getCategoryId()));
             return saved;
         }
     }
@@ -72,6 +77,7 @@ public class CategoryService {
     @Transactional
     public void delete(Long id) {
         categoryRepository.deleteById(id);
+        events.publishEvent(CatalogChangedEvent.category(id));
     }
 
     // --- helpers ---
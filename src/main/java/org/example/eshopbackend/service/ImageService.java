@@ -8,16 +8,26 @@ import org.example.eshopbackend.dto.image.CreateImageRequestDTO;
 import org.example.eshopbackend.dto.image.ImageResponseDTO;
 import org.example.eshopbackend.dto.image.UpdateImageRequestDTO;
 import org.example.eshopbackend.entity.Image;
+import org.example.eshopbackend.entity.ImageDerivativeStatus;
 import org.example.eshopbackend.entity.Product;
 import org.example.eshopbackend.exception.NotFoundException;
 import org.example.eshopbackend.mapper.ImageMapper;
 import org.example.eshopbackend.repository.ImageRepository;
 import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.image.ImageDerivativeService;
+import org.example.eshopbackend.service.image.ImageStoredEvent;
+import org.example.eshopbackend.service.image.ImagesReleasedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 @Service
 @RequiredArgsConstructor
@@ -27,6 +37,7 @@ public class ImageService {
     private final ImageRepository imageRepository;
     private final ProductRepository productRepository;
     private final ImageMapper imageMapper;
+    private final ApplicationEventPublisher events;
 
     private Product findProductOrThrow(Long productId) {
         return productRepository.findById(productId)
@@ -38,6 +49,27 @@ public class ImageService {
                 .orElseThrow(() -> new NotFoundException("Image not found: " + imageId));
     }
 
+    private void publishChange(Product product) {
+        events.publishEvent(CatalogChangedEvent.image(product.getProductId(), product.getSlug()));
+    }
+
+    // nová/změněná lokální URL → staré rozměry a zmenšeniny neplatí, vygenerují se po commitu znovu
+    private void resetDerivatives(Image image) {
+        image.setWidth(null);
+        image.setHeight(null);
+        image.setByteSize(null);
+        image.setVariantWidths(null);
+        image.setPlaceholder(null);
+        image.setDerivativeStatus(ImageDerivativeService.localFilename(image.getUrl()) != null
+                ? ImageDerivativeStatus.PENDING : null);
+    }
+
+    private void requestDerivatives(Image image) {
+        if (image.getDerivativeStatus() == ImageDerivativeStatus.PENDING) {
+            events.publishEvent(new ImageStoredEvent(image.getImageId()));
+        }
+    }
+
     @Transactional(readOnly = true)
     public List<ImageResponseDTO> listByProduct(Long productId) {
         Product product = findProductOrThrow(productId);
@@ -57,10 +89,8 @@ public class ImageService {
         boolean makePrimary = Boolean.TRUE.equals(dto.getPrimary()) || firstImage;
 
         if (makePrimary) {
-            // zruš primární na ostatních
-            imageRepository.findByProductOrderBySortOrderAscImageIdAsc(product).forEach(img -> {
-                if (img.isPrimary()) img.setPrimary(false);
-            });
+            // zruš primární na ostatních (před INSERTem kvůli ux_images_primary)
+            imageRepository.clearPrimary(product, null);
         }
 
         Image image = Image.builder()
@@ -70,50 +100,49 @@ public class ImageService {
                 .sortOrder(sortOrder)
                 .primary(makePrimary)
                 .build();
+        resetDerivatives(image);
 
-        // jednoduché přečíslování, pokud se vkládá doprostřed
-        imageRepository.findByProductOrderBySortOrderAscImageIdAsc(product).forEach(img -> {
-            if (img.getSortOrder() >= sortOrder) {
-                img.setSortOrder(img.getSortOrder() + 1);
-            }
-        });
+        // vkládá se doprostřed → udělat místo
+        if (sortOrder < defaultOrder) {
+            imageRepository.shiftSortOrder(product, sortOrder, Integer.MAX_VALUE, 1);
+        }
 
         Image saved = imageRepository.save(image);
+        publishChange(product);
+        requestDerivatives(saved);
         return imageMapper.toDto(saved);
     }
 
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasRole('ADMIN')")
+    public ImageResponseDTO get(Long imageId) {
+        return imageMapper.toDto(findImageOrThrow(imageId));
+    }
+
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
     public ImageResponseDTO update(Long imageId, @Valid UpdateImageRequestDTO dto) {
         Image image = findImageOrThrow(imageId);
         Product product = image.getProduct();
 
-        if (dto.getUrl() != null) image.setUrl(dto.getUrl());
+        boolean urlChanged = dto.getUrl() != null && !dto.getUrl().equals(image.getUrl());
+        if (urlChanged) {
+            events.publishEvent(ImagesReleasedEvent.of(image.getUrl())); // starý soubor možná bez odkazu
+            image.setUrl(dto.getUrl());
+            resetDerivatives(image);
+        }
         if (dto.getAltText() != null) image.setAltText(dto.getAltText());
 
         if (dto.getSortOrder() != null) {
             int newOrder = dto.getSortOrder();
             int oldOrder = image.getSortOrder();
-            if (newOrder != oldOrder) {
-                // posun ostatních
-                List<Image> all = imageRepository.findByProductOrderBySortOrderAscImageIdAsc(product);
-                if (newOrder < oldOrder) {
-                    // posuneme dolů ty mezi <newOrder, oldOrder)
-                    for (Image img : all) {
-                        if (!img.getImageId().equals(image.getImageId())
-                                && img.getSortOrder() >= newOrder && img.getSortOrder() < oldOrder) {
-                            img.setSortOrder(img.getSortOrder() + 1);
-                        }
-                    }
-                } else {
-                    // posuneme nahoru ty mezi (oldOrder, newOrder]
-                    for (Image img : all) {
-                        if (!img.getImageId().equals(image.getImageId())
-                                && img.getSortOrder() <= newOrder && img.getSortOrder() > oldOrder) {
-                            img.setSortOrder(img.getSortOrder() - 1);
-                        }
-                    }
-                }
+            if (newOrder < oldOrder) {
+                // posuneme dolů ty mezi <newOrder, oldOrder)
+                imageRepository.shiftSortOrder(product, newOrder, oldOrder - 1, 1);
+                image.setSortOrder(newOrder);
+            } else if (newOrder > oldOrder) {
+                // posuneme nahoru ty mezi (oldOrder, newOrder]
+                imageRepository.shiftSortOrder(product, oldOrder + 1, newOrder, -1);
                 image.setSortOrder(newOrder);
             }
         }
@@ -122,19 +151,19 @@ public class ImageService {
             boolean makePrimary = dto.getPrimary();
             if (makePrimary) {
                 // zruš primární ostatním
-                imageRepository.findByProductOrderBySortOrderAscImageIdAsc(product).forEach(img -> img.setPrimary(false));
+                imageRepository.clearPrimary(product, image.getImageId());
                 image.setPrimary(true);
-            } else if (image.isPrimary() && !makePrimary) {
-                // nesmíš nechat produkt bez primárního – buď necháme, nebo nastavíme jiný jako primary
+            } else if (image.isPrimary()) {
+                // nesmíš nechat produkt bez primárního – primární bude první jiný
+                // (UPDATE nejdřív zapíše is_primary=false tohoto obrázku)
                 image.setPrimary(false);
-                imageRepository.findByProductOrderBySortOrderAscImageIdAsc(product).stream()
-                        .filter(img -> !img.getImageId().equals(image.getImageId()))
-                        .findFirst()
-                        .ifPresent(img -> img.setPrimary(true));
+                imageRepository.promoteFirstIfNoPrimary(product.getProductId(), image.getImageId());
             }
         }
 
         Image saved = imageRepository.save(image);
+        publishChange(product);
+        if (urlChanged) requestDerivatives(saved);
         return imageMapper.toDto(saved);
     }
 
@@ -147,19 +176,17 @@ public class ImageService {
         int removedOrder = image.getSortOrder();
 
         imageRepository.delete(image);
+        // soubor sdílí víc obrázků (stejný obsah) – smaže se po commitu, jen pokud to byl poslední odkaz
+        events.publishEvent(ImagesReleasedEvent.of(image.getUrl()));
 
-        // zkompaktovat pořadí
-        List<Image> rest = imageRepository.findByProductOrderBySortOrderAscImageIdAsc(product);
-        for (Image img : rest) {
-            if (img.getSortOrder() > removedOrder) {
-                img.setSortOrder(img.getSortOrder() - 1);
-            }
-        }
+        // zkompaktovat pořadí (UPDATE nejdřív zapíše DELETE)
+        imageRepository.shiftSortOrder(product, removedOrder + 1, Integer.MAX_VALUE, -1);
 
         // zajisti, že nějaký primary zůstane
-        if (wasPrimary && !rest.isEmpty() && rest.stream().noneMatch(Image::isPrimary)) {
-            rest.get(0).setPrimary(true);
+        if (wasPrimary) {
+            imageRepository.promoteFirstIfNoPrimary(product.getProductId(), imageId);
         }
+        publishChange(product);
     }
 
     @Transactional
@@ -168,10 +195,32 @@ public class ImageService {
         Image image = findImageOrThrow(imageId);
         Product product = image.getProduct();
 
-        imageRepository.findByProductOrderBySortOrderAscImageIdAsc(product)
-                .forEach(img -> img.setPrimary(false));
+        imageRepository.clearPrimary(product, image.getImageId());
         image.setPrimary(true);
 
-        return imageMapper.toDto(imageRepository.save(image));
+        Image saved = imageRepository.save(image);
+        publishChange(product);
+        return imageMapper.toDto(saved);
+    }
+
+    /**
+     * Nové pořadí celé galerie: {@code imageIds} musí obsahovat každý obrázek produktu právě jednou.
+     * Pořadí se zapíše jedním UPDATE, vrací galerii v novém pořadí.
+     */
+    @Transactional
+    @PreAuthorize("hasRole('ADMIN')")
+    public List<ImageResponseDTO> reorder(Long productId, List<Long> imageIds) {
+        Product product = findProductOrThrow(productId);
+        Set<Long> current = new HashSet<>(imageRepository.findIdsByProduct(product));
+        if (imageIds.size() != current.size() || !current.equals(new HashSet<>(imageIds))) {
+            throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                    "Pořadí musí obsahovat všechny obrázky produktu právě jednou");
+        }
+        if (!imageIds.isEmpty()) {
+            imageRepository.reorder(productId, imageIds);
+            publishChange(product);
+        }
+        return imageRepository.findByProductOrderBySortOrderAscImageIdAsc(product)
+                .stream().map(imageMapper::toDto).toList();
     }
 }
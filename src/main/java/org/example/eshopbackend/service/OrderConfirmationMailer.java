@@ -0,0 +1,31 @@
+package org.example.eshopbackend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.repository.OrderRepository;
+import org.example.eshopbackend.service.email.EmailService;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Potvrzovací e-mail nové objednávky až po commitu – pomalé SMTP tak nedrží zámky čítače čísel
+ * ani řádků skladu. Chyba odeslání objednávku neshodí, jen se zaloguje.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class OrderConfirmationMailer {
+
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onOrderCreated(OrderCreatedEvent event) {
+        try {
+            orderRepository.findWithItemsById(event.orderId()).ifPresent(emailService::sendOrderConfirmation);
+        } catch (Exception e) {
+            log.warn("Nepodařilo se odeslat potvrzovací e-mail pro objednávku {}: {}", event.orderId(), e.getMessage());
+        }
+    }
+}
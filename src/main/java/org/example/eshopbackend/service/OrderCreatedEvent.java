@@ -0,0 +1,8 @@
+package org.example.eshopbackend.service;
+
+/**
+ * Publikuje se při založení objednávky (v transakci objednávky).
+ * Potvrzovací e-mail se posílá až po commitu, viz {@link OrderConfirmationMailer}.
+ */
+public record OrderCreatedEvent(Long orderId) {
+}
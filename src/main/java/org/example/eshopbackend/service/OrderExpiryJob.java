@@ -0,0 +1,124 @@
+package org.example.eshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.entity.OrderStatus;
+import org.example.eshopbackend.repository.OrderRepository;
+import org.example.eshopbackend.service.email.EmailService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Ruší nezaplacené objednávky převodem ({@code NEW} starší než {@code orders.expiry.after-hours})
+ * a vrací jejich kusy na sklad. Běží po dávkách: každá dávka je krátká samostatná transakce, která si
+ * přes {@code FOR UPDATE SKIP LOCKED} vezme nejvýš {@code batch-size} objednávek – víc instancí tak
+ * může běžet současně a každá zpracuje jiné objednávky. Zákazníkům se píše až po commitu dávky.
+ */
+@Component
+@Slf4j
+public class OrderExpiryJob {
+
+    // expired = dávka zamčená touto instancí, zamčené jinou instancí se přeskočí;
+    // stav se v UPDATE ověřuje znovu – objednávka mohla změnit stav, než ji dávka zamkla
+    private static final String EXPIRE = """
+            with expired as (
+                select order_id, stock_reserved from orders
+                 where order_status = 'NEW' and payment_method = 'BANK_TRANSFER' and created_at < ?
+                 order by order_id
+                 limit ?
+                   for update skip locked
+            )
+            update orders o set order_status = 'CANCELED',
+                   stock_reserved = case when e.stock_reserved then false else e.stock_reserved end,
+                   updated_at = ?
+              from expired e
+             where o.order_id = e.order_id and o.order_status = 'NEW'
+            returning o.order_id, coalesce(e.stock_reserved, false) as released
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final StockService stockService;
+    private final OrderRepository orderRepository;
+    private final EmailService emailService;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final Duration after;
+    private final int batchSize;
+    private final int maxBatches;
+
+    public OrderExpiryJob(JdbcTemplate jdbc,
+                          StockService stockService,
+                          OrderRepository orderRepository,
+                          EmailService emailService,
+                          ApplicationEventPublisher events,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${orders.expiry.after-hours:168}") long afterHours,
+                          @Value("${orders.expiry.batch-size:100}") int batchSize,
+                          @Value("${orders.expiry.max-batches:50}") int maxBatches) {
+        this.jdbc = jdbc;
+        this.stockService = stockService;
+        this.orderRepository = orderRepository;
+        this.emailService = emailService;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.after = afterHours > 0 ? Duration.ofHours(afterHours) : null;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxBatches = Math.max(1, maxBatches);
+    }
+
+    /** Dávky, dokud jsou plné (nejvýš max-batches za běh, zbytek příště); vrací počet zrušených. */
+    @Scheduled(fixedDelayString = "${orders.expiry.poll-ms:600000}", initialDelayString = "${orders.expiry.poll-ms:600000}")
+    public int expireUnpaid() {
+        if (after == null) return 0; // after-hours <= 0 = vypnuto
+        Instant cutoff = Instant.now().minus(after);
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int expired = expireBatch(cutoff);
+            total += expired;
+            if (expired < batchSize) break;
+        }
+        if (total > 0) log.info("Nezaplacené objednávky: zrušeno {} starších než {}", total, cutoff);
+        return total;
+    }
+
+    private int expireBatch(Instant cutoff) {
+        List<Long> expired = new ArrayList<>();
+        List<Long> reserved = new ArrayList<>();
+        tx.executeWithoutResult(status -> {
+            jdbc.query(EXPIRE, rs -> {
+                long orderId = rs.getLong("order_id");
+                expired.add(orderId);
+                if (rs.getBoolean("released")) reserved.add(orderId);
+            }, Timestamp.from(cutoff), batchSize, Timestamp.from(Instant.now()));
+
+            // StockService publikuje změnu katalogu (sklad v read modelu) – zpracuje se po commitu
+            stockService.releaseOrders(reserved);
+            // bestsellery apod. odečtou zrušené objednávky po commitu
+            expired.forEach(id -> events.publishEvent(
+                    new OrderStatusChangedEvent(id, OrderStatus.NEW, OrderStatus.CANCELED)));
+        });
+        notifyCustomers(expired);
+        return expired.size();
+    }
+
+    // mimo transakci – pomalé SMTP nedrží zámky; chyba jednoho e-mailu nezastaví ostatní
+    private void notifyCustomers(List<Long> orderIds) {
+        for (Long orderId : orderIds) {
+            try {
+                orderRepository.findById(orderId).ifPresent(emailService::sendOrderExpired);
+            } catch (Exception e) {
+                log.warn("Nepodařilo se odeslat e-mail o zrušení objednávky {}: {}", orderId, e.getMessage());
+            }
+        }
+    }
+}
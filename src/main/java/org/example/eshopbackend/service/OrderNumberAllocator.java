@@ -0,0 +1,88 @@
+package org.example.eshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Year;
+import java.util.List;
+
+/**
+ * Čísla objednávek {@code <rok>-<pořadí>} z čítače v {@code order_number_counters}, bez hledání
+ * poslední objednávky. Výchozí režim (block-size=1) přičítá v transakci objednávky: souběžné
+ * objednávky čekají jen na zámek řádku čítače a rollback číslo vrátí, řada je bez mezer.
+ * Při block-size &gt; 1 si instance bere celé bloky v samostatné transakci a přiděluje je z paměti –
+ * víc instancí se nezdržuje, za cenu mezer (restart, rollback) a čísel, která mezi instancemi
+ * nejdou časově po sobě.
+ */
+@Component
+@Slf4j
+public class OrderNumberAllocator {
+
+    private static final String INCREMENT =
+            "update order_number_counters set last_value = last_value + ? where order_year = ? returning last_value";
+
+    // první objednávka roku: navázat na objednávky číslované dřív podle poslední objednávky
+    private static final String SEED = """
+            insert into order_number_counters (order_year, last_value)
+            select ?, coalesce(max(cast(split_part(order_number, '-', 2) as bigint)), 0)
+              from orders where order_number ~ ?
+            on conflict (order_year) do nothing
+            """;
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate separateTx;
+    private final int blockSize;
+
+    // aktuální blok při block-size > 1 (pod zámkem this)
+    private int blockYear;
+    private long blockNext = 1, blockEnd = 0;
+
+    public OrderNumberAllocator(JdbcTemplate jdbc,
+                                PlatformTransactionManager transactionManager,
+                                @Value("${orders.number.block-size:1}") int blockSize) {
+        this.jdbc = jdbc;
+        this.separateTx = new TransactionTemplate(transactionManager);
+        this.separateTx.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.blockSize = Math.max(1, blockSize);
+    }
+
+    /** Další číslo pro aktuální rok; volat uvnitř transakce, která objednávku ukládá. */
+    public String next() {
+        return next(Year.now().getValue());
+    }
+
+    public String next(int year) {
+        long seq = blockSize == 1 ? increment(year, 1) : fromBlock(year);
+        return format(year, seq);
+    }
+
+    /** 2025, 42 → "2025-00042" */
+    public static String format(int year, long seq) {
+        return String.format("%d-%05d", year, seq);
+    }
+
+    private synchronized long fromBlock(int year) {
+        if (year != blockYear || blockNext > blockEnd) {
+            Long last = separateTx.execute(status -> increment(year, blockSize));
+            blockYear = year;
+            blockEnd = last;
+            blockNext = last - blockSize + 1;
+            log.info("Čísla objednávek: blok {}..{} pro rok {}", blockNext, blockEnd, year);
+        }
+        return blockNext++;
+    }
+
+    private long increment(int year, int by) {
+        List<Long> last = jdbc.queryForList(INCREMENT, Long.class, by, year);
+        if (last.isEmpty()) {
+            jdbc.update(SEED, year, "^" + year + "-[0-9]+$");
+            last = jdbc.queryForList(INCREMENT, Long.class, by, year);
+        }
+        return last.get(0);
+    }
+}
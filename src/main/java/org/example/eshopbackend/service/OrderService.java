@@ -3,6 +3,7 @@ package org.example.eshopbackend.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.example.eshopbackend.adulto.AdultoVerifier;
+import org.example.eshopbackend.dto.CursorPageDTO;
 import org.example.eshopbackend.dto.shipment.CreateOrderRequestDTO;
 import org.example.eshopbackend.dto.shipment.OrderItemRequestDTO;
 import org.example.eshopbackend.dto.shipment.UpdateOrderDTO;
@@ -13,10 +14,15 @@ import org.example.eshopbackend.exception.OrderNotFoundException;
 import org.example.eshopbackend.mapper.OrderMapper;
 import org.example.eshopbackend.repository.OrderRepository;
 import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.repository.ProductRepository.CheckoutProduct;
 import org.example.eshopbackend.service.email.EmailService;
+import org.example.eshopbackend.util.KeysetCursor;
+import org.example.eshopbackend.util.MoneyUtil;
 import org.example.eshopbackend.util.PhoneUtil;
 import org.example.eshopbackend.util.VsUtil;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.prepost.PreAuthorize;
@@ -24,9 +30,10 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.server.ResponseStatusException;
 
-import java.math.RoundingMode;
-import java.math.BigDecimal;
-import java.util.Optional;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 
 @Service
 @RequiredArgsConstructor
@@ -38,39 +45,18 @@ public class OrderService {
     private final EmailService emailService;
     private final AdultoVerifier adultoVerifier;
     private final ProductRepository productRepository;
+    private final ApplicationEventPublisher events;
+    private final OrderNumberAllocator orderNumberAllocator;
+    private final StockService stockService;
 
     private static final int REQUIRED_AGE = 18;
 
-    private String generateOrderNumber() {
-        String year = String.valueOf(java.time.Year.now().getValue()); // např. "2025"
-        String prefix = year + "-";
-
-        Optional<OrderEntity> last = orderRepository.findTopByOrderNumberStartingWithOrderByOrderIdDesc(prefix);
-
-        int nextSeq = 1;
-        if (last.isPresent()) {
-            String lastNumber = last.get().getOrderNumber(); // např. 2025-00042
-            String[] parts = lastNumber.split("-");
-            if (parts.length == 2) {
-                try {
-                    nextSeq = Integer.parseInt(parts[1]) + 1;
-                } catch (NumberFormatException ignored) {}
-            }
-        }
-
-        return String.format("%s%05d", prefix, nextSeq); // např. 2025-00043
-    }
-
     @Transactional(readOnly = true)
     public OrderEntity findByOrderNumberOrThrow(String orderNumber) {
         return orderRepository.findByOrderNumber(orderNumber)
                 .orElseThrow(() -> new OrderNotFoundException("Order not found: " + orderNumber));
     }
 
-    private static long toKc(BigDecimal v) {
-        return v.setScale(0, RoundingMode.HALF_UP).longValueExact();
-    }
-
     @Transactional
     public OrderEntity addOrder(CreateOrderRequestDTO req) {
         // 1) 18+ verifikace (Adulto nebo DEV mock)
@@ -106,50 +92,56 @@ public class OrderService {
         OrderEntity order = orderMapper.toEntity(req);
         order.setOrderStatus(OrderStatus.NEW);
         order.setPaymentMethod(PaymentMethod.BANK_TRANSFER);
-        String orderNumber = generateOrderNumber();
-        order.setOrderNumber(orderNumber);
-        order.setBankVs(VsUtil.fromOrderNumber(orderNumber));
         order.setAgeConfirmed(true);
 
         // přepiš telefon v entitě na E.164
         // POZOR: pokud má entita jiný název pole, uprav na správný setter
         order.setCustomerPhone(phoneE164);
 
-        BigDecimal computedSubtotal = BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
-
-        // Snapshot položek
+        // Snapshot položek: jeden průchod najde zdvojené produkty, pak všechny produkty jedním dotazem
+        Map<Long, Integer> quantities = new LinkedHashMap<>();
         for (OrderItemRequestDTO it : req.getItems()) {
-            Product p = productRepository.findById(it.getProductId())
-                    .orElseThrow(() -> new NotFoundException("Produkt neexistuje: id=" + it.getProductId()));
+            if (it.getProductId() == null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Položka objednávky nemá id produktu");
+            }
+            if (quantities.putIfAbsent(it.getProductId(), Math.max(1, it.getQuantity())) != null) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST,
+                        "Produkt je v objednávce vícekrát: id=" + it.getProductId());
+            }
+        }
+        Map<Long, CheckoutProduct> products = new HashMap<>();
+        productRepository.findCheckoutProducts(quantities.keySet()).forEach(p -> products.put(p.getProductId(), p));
+        List<Long> missing = quantities.keySet().stream().filter(id -> !products.containsKey(id)).toList();
+        if (!missing.isEmpty()) {
+            throw new NotFoundException("Produkt neexistuje: id=" + missing);
+        }
 
-            int qty = Math.max(1, it.getQuantity());
-            BigDecimal unit = p.getPrice().setScale(2, RoundingMode.HALF_UP);
-            BigDecimal line = unit.multiply(BigDecimal.valueOf(qty));
+        // ceny v haléřích (MoneyUtil): jednotková cena zaokrouhlená jednou, dál přesně
+        long subtotalHal = 0;
+        for (Map.Entry<Long, Integer> e : quantities.entrySet()) {
+            CheckoutProduct p = products.get(e.getKey());
+            int qty = e.getValue();
+            long unitHal = MoneyUtil.toHalere(p.getPrice());
+            long lineHal = Math.multiplyExact(unitHal, qty);
 
             OrderItemEntity item = OrderItemEntity.builder()
                     .order(order)
+                    .productId(p.getProductId())
                     .nameOfProduct(p.getProductName())
                     .name(p.getSlug())
                     .amountOfProducts(qty)
-                    .unitPriceCzk(unit)
-                    .lineTotalCzk(line)
+                    .unitPriceCzk(MoneyUtil.fromHalere(unitHal))
+                    .lineTotalCzk(MoneyUtil.fromHalere(lineHal))
                     .weightGrams(p.getWeightGrams())
                     .build();
 
             order.getItems().add(item);
-            computedSubtotal = computedSubtotal.add(line);
+            subtotalHal = Math.addExact(subtotalHal, lineHal);
         }
 
-        // 4) Doprava a total
-        BigDecimal shipping = (req.getShippingCzk() != null)
-                ? BigDecimal.valueOf(req.getShippingCzk()).setScale(2, RoundingMode.HALF_UP)
-                : BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
-        if (shipping.signum() < 0) shipping = BigDecimal.ZERO.setScale(2, RoundingMode.HALF_UP);
-
-        BigDecimal computedTotal = computedSubtotal.add(shipping);
-
-        long subtotalKc = toKc(computedSubtotal);
-        long shippingKc = toKc(shipping);
+        // 4) Doprava (z FE v celých Kč) a total
+        long shippingKc = req.getShippingCzk() != null ? Math.max(0L, req.getShippingCzk()) : 0L;
+        long subtotalKc = MoneyUtil.halereToKc(subtotalHal);
         long totalKc    = Math.addExact(subtotalKc, shippingKc);
 
         order.setSubtotalCzk(subtotalKc);
@@ -161,11 +153,19 @@ public class OrderService {
             throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Součet na serveru nesouhlasí.");
         }
 
+        // 5) Sklad – všechny položky naráz, nedostatek → OutOfStockException (409) a rollback
+        stockService.reserve(quantities);
+        order.setStockReserved(true);
+
+        // číslo až těsně před uložením – zámek čítače se drží jen do commitu
+        String orderNumber = orderNumberAllocator.next();
+        order.setOrderNumber(orderNumber);
+        order.setBankVs(VsUtil.fromOrderNumber(orderNumber));
+
         try {
             OrderEntity saved = orderRepository.save(order);
-            // Pozn.: potvrzovací e-mail posíláme zde.
-            // Pokud ho současně posíláš i v controlleru, jednu z těch dvou cest vypni, ať to nejde dvakrát.
-            emailService.sendOrderConfirmation(saved);
+            // potvrzovací e-mail až po commitu (OrderConfirmationMailer), ne pod zámky skladu a čítače
+            events.publishEvent(new OrderCreatedEvent(saved.getOrderId()));
             return saved;
         } catch (Exception e) {
             log.error("Error while creating order", e);
@@ -173,6 +173,14 @@ public class OrderService {
         }
     }
 
+    private static Map<Long, Integer> quantities(OrderEntity order) {
+        Map<Long, Integer> quantities = new HashMap<>();
+        for (OrderItemEntity item : order.getItems()) {
+            if (item.getProductId() != null) quantities.merge(item.getProductId(), item.getAmountOfProducts(), Integer::sum);
+        }
+        return quantities;
+    }
+
     // --- pomocná metoda pro DEV režim ---
     private String resolveDevAdultoUidFromHeader() {
         try {
@@ -194,6 +202,36 @@ public class OrderService {
         return orderRepository.findAll(pageable);
     }
 
+    // Read (keyset, nejnovější první) — bez offsetu a bez count(*), cursor=null je první stránka
+    @Transactional(readOnly = true)
+    @PreAuthorize("hasRole('ADMIN')")
+    public CursorPageDTO<OrderEntity> seekOrders(String cursor, int size) {
+        int limit = Math.max(1, Math.min(size, 100));
+        long beforeId = Long.MAX_VALUE;
+        if (cursor != null && !cursor.isBlank()) {
+            try {
+                beforeId = KeysetCursor.decode(cursor, "orderId").id();
+            } catch (IllegalArgumentException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, e.getMessage());
+            }
+        }
+
+        List<OrderEntity> rows = orderRepository.findNextByIdDesc(beforeId, PageRequest.of(0, limit + 1));
+        boolean hasNext = rows.size() > limit;
+        List<OrderEntity> page = hasNext ? rows.subList(0, limit) : rows;
+        String nextCursor = null;
+        if (hasNext) {
+            Long lastId = page.get(page.size() - 1).getOrderId();
+            nextCursor = new KeysetCursor("orderId", String.valueOf(lastId), lastId).encode();
+        }
+        return CursorPageDTO.<OrderEntity>builder()
+                .items(page)
+                .size(limit)
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     // Read (detail)
     @Transactional(readOnly = true)
     @PreAuthorize("hasRole('ADMIN')")
@@ -207,7 +245,8 @@ public class OrderService {
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
     public OrderEntity updateOrder(Long id, UpdateOrderDTO updateDTO) {
-        OrderEntity orderEntity = orderRepository.findById(id)
+        // zámek řádku do commitu: stav a stock_reserved nepřepíše souběžně OrderExpiryJob
+        OrderEntity orderEntity = orderRepository.findByIdForUpdate(id)
                 .orElseThrow(() -> new OrderNotFoundException(id));
 
         // 1. Uložíme si starý status před změnou
@@ -216,11 +255,26 @@ public class OrderService {
         // 2. MapStruct aplikuje změny z DTO (včetně nového statusu, pokud tam je)
         orderMapper.updateOrder(orderEntity, updateDTO);
 
+        // Sklad: zrušení vrátí kusy, obnovení zrušené objednávky je odečte znovu (nebo 409)
+        OrderStatus changedTo = orderEntity.getOrderStatus();
+        if (oldStatus != OrderStatus.CANCELED && changedTo == OrderStatus.CANCELED
+                && Boolean.TRUE.equals(orderEntity.getStockReserved())) {
+            stockService.release(quantities(orderEntity));
+            orderEntity.setStockReserved(false);
+        } else if (oldStatus == OrderStatus.CANCELED && changedTo != OrderStatus.CANCELED
+                && Boolean.FALSE.equals(orderEntity.getStockReserved())) {
+            stockService.reserve(quantities(orderEntity));
+            orderEntity.setStockReserved(true);
+        }
+
         // 3. Uložíme do DB
         OrderEntity saved = orderRepository.save(orderEntity);
 
         // 4. Zjistíme nový status
         OrderStatus newStatus = saved.getOrderStatus();
+        if (oldStatus != newStatus) {
+            events.publishEvent(new OrderStatusChangedEvent(saved.getOrderId(), oldStatus, newStatus));
+        }
 
         // --- Logika pro odesílání e-mailů podle změny stavu ---
 
@@ -251,9 +305,13 @@ public class OrderService {
     @Transactional
     @PreAuthorize("hasRole('ADMIN')")
     public void deleteOrder(Long id) {
-        if (!orderRepository.existsById(id)) {
-            throw new OrderNotFoundException(id);
+        // zámek jako u změny stavu – rezervaci nesmí souběžně vrátit OrderExpiryJob
+        OrderEntity order = orderRepository.findByIdForUpdate(id)
+                .orElseThrow(() -> new OrderNotFoundException(id));
+        // nezrušená (nevypršená) objednávka drží kusy – bez ní by zmizely ze skladu natrvalo
+        if (Boolean.TRUE.equals(order.getStockReserved())) {
+            stockService.releaseOrders(List.of(id));
         }
-        orderRepository.deleteById(id);
+        orderRepository.delete(order);
     }
 }
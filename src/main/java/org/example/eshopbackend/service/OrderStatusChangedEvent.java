@@ -0,0 +1,18 @@
+package org.example.eshopbackend.service;
+
+import org.example.eshopbackend.entity.OrderStatus;
+
+/**
+ * Publikuje se při změně stavu objednávky (v transakci změny).
+ * Posluchači, kterým záleží na commitu, reagují přes {@code @TransactionalEventListener}.
+ */
+public record OrderStatusChangedEvent(Long orderId, OrderStatus from, OrderStatus to) {
+
+    public boolean canceled() {
+        return from != OrderStatus.CANCELED && to == OrderStatus.CANCELED;
+    }
+
+    public boolean reopened() {
+        return from == OrderStatus.CANCELED && to != OrderStatus.CANCELED;
+    }
+}
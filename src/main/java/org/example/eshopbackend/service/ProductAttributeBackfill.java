@@ -0,0 +1,87 @@
+package org.example.eshopbackend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.entity.Product;
+import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Dávkové doplnění číselných stínů parametrů ({@link Product#syncNumericAttributes()}) u existujících produktů.
+ * Každá dávka má vlastní transakci a jednu {@link CatalogChangedEvent}, takže read model i indexy
+ * se obnoví po dávkách a dlouhý běh nedrží zámky nad celou tabulkou.
+ */
+@Service
+@Slf4j
+public class ProductAttributeBackfill {
+
+    static final int BATCH_SIZE = 500;
+
+    private final ProductRepository productRepository;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+
+    public ProductAttributeBackfill(ProductRepository productRepository,
+                                    ApplicationEventPublisher events,
+                                    PlatformTransactionManager transactionManager) {
+        this.productRepository = productRepository;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    public record Result(int scanned, int updated) {}
+
+    /**
+     * @param all false = jen produkty s chybějícím stínem (při startu), true = přepočítat vše (po změně parseru)
+     */
+    public Result run(boolean all) {
+        int scanned = 0, updated = 0;
+        long afterId = 0L;
+        while (true) {
+            PageRequest limit = PageRequest.of(0, BATCH_SIZE);
+            List<Long> ids = all
+                    ? productRepository.findIdsAfter(afterId, limit)
+                    : productRepository.findIdsMissingNumericAttributesAfter(afterId, limit);
+            if (ids.isEmpty()) break;
+
+            Integer changed = tx.execute(status -> syncBatch(ids));
+            scanned += ids.size();
+            updated += changed == null ? 0 : changed;
+            afterId = ids.get(ids.size() - 1);
+            if (ids.size() < BATCH_SIZE) break;
+        }
+        if (updated > 0) log.info("Číselné parametry produktů přepočítány: {} z {}", updated, scanned);
+        return new Result(scanned, updated);
+    }
+
+    private int syncBatch(List<Long> ids) {
+        List<Long> changedIds = new ArrayList<>();
+        List<String> changedSlugs = new ArrayList<>();
+        for (Product p : productRepository.findAllById(ids)) {
+            BigDecimal nicotine = p.getNicotineMgValue(), volume = p.getVolumeMl();
+            Integer puffs = p.getPuffCountValue(), battery = p.getBatteryMahValue();
+            p.syncNumericAttributes();
+            if (!sameNumber(nicotine, p.getNicotineMgValue()) || !sameNumber(volume, p.getVolumeMl())
+                    || !Objects.equals(puffs, p.getPuffCountValue()) || !Objects.equals(battery, p.getBatteryMahValue())) {
+                changedIds.add(p.getProductId());
+                changedSlugs.add(p.getSlug());
+            }
+        }
+        // změněné entity zapíše dirty checking při commitu, read model se obnoví ve stejné transakci
+        if (!changedIds.isEmpty()) events.publishEvent(CatalogChangedEvent.products(changedIds, changedSlugs));
+        return changedIds.size();
+    }
+
+    private static boolean sameNumber(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+}
@@ -6,10 +6,14 @@ import lombok.extern.slf4j.Slf4j;
 import org.example.eshopbackend.dto.CreateProductRequestDTO;
 import org.example.eshopbackend.dto.UpdateProductRequestDTO;
 import org.example.eshopbackend.entity.Category;
+import org.example.eshopbackend.entity.Image;
 import org.example.eshopbackend.entity.Product;
 import org.example.eshopbackend.mapper.ProductMapper;
 import org.example.eshopbackend.repository.CategoryRepository;
 import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.image.ImagesReleasedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
@@ -18,6 +22,8 @@ import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
 
 @Service
@@ -28,6 +34,7 @@ public class ProductService {
     private final ProductRepository productRepository;
     private final CategoryRepository categoryRepository;
     private final ProductMapper mapper;
+    private final ApplicationEventPublisher events;
 
     // CREATE
     @PreAuthorize("hasRole('ADMIN')")
@@ -44,10 +51,12 @@ public class ProductService {
         // ⬇ sanity: null → 0, záporné clampnout
         Integer w = entity.getWeightGrams();
         if (w == null || w < 0) entity.setWeightGrams(0);
+        entity.syncNumericAttributes();
 
         try {
             Product saved = productRepository.save(entity);
             log.info("Created product id={} slug={} weight={}g", saved.getProductId(), saved.getSlug(), saved.getWeightGrams());
+            events.publishEvent(CatalogChangedEvent.product(saved.getProductId(), saved.getSlug()));
             return saved;
         } catch (DataIntegrityViolationException ex) {
             // Fallback pro souběh (unikátní slug)
@@ -55,6 +64,7 @@ public class ProductService {
             entity.setSlug(slug);
             Product saved = productRepository.save(entity);
             log.info("Created product (retry) id={} slug={} weight={}g", saved.getProductId(), saved.getSlug(), saved.getWeightGrams());
+            events.publishEvent(CatalogChangedEvent.product(saved.getProductId(), saved.getSlug()));
             return saved;
         }
     }
@@ -88,6 +98,7 @@ public class ProductService {
 
         // ostatní pole přes MapStruct (null neřeší)
         mapper.updateEntity(entity, dto);
+        entity.syncNumericAttributes();
 
         // ⬇ sanity pro váhu jen když přišla (abychom nepřepisovali na 0 omylem)
         if (dto.getWeightGrams() != null) {
@@ -96,14 +107,22 @@ public class ProductService {
             }
         }
 
-        return productRepository.save(entity);
+        Product saved = productRepository.save(entity);
+        events.publishEvent(CatalogChangedEvent.product(saved.getProductId(), saved.getSlug()));
+        return saved;
     }
 
     // DELETE
     @PreAuthorize("hasRole('ADMIN')")
     @Transactional
     public void delete(Long id) {
-        productRepository.deleteById(id);
+        productRepository.findById(id).ifPresent(p -> {
+            List<String> urls = new ArrayList<>(p.getImages().stream().map(Image::getUrl).toList());
+            urls.add(p.getImageUrl());
+            productRepository.delete(p); // obrázky smaže kaskáda, soubory až po commitu bez posledního odkazu
+            events.publishEvent(CatalogChangedEvent.product(p.getProductId(), p.getSlug()));
+            events.publishEvent(ImagesReleasedEvent.of(urls));
+        });
     }
 
     // ---- helpers ----
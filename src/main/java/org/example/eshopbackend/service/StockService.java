@@ -0,0 +1,168 @@
+package org.example.eshopbackend.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.exception.OutOfStockException;
+import org.example.eshopbackend.service.catalog.StockChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * Sklad ({@code products.amount_of_products}) při objednávce. Všechny položky se odečtou jedním
+ * dotazem s podmínkou {@code amount >= qty}; řádky produktů se zamykají vzestupně podle id, takže
+ * dvě objednávky se stejnými produkty na sebe jen počkají a neskončí deadlockem. Když některá
+ * položka nevyjde, vyhodí se {@link OutOfStockException} a rollback transakce objednávky vrátí
+ * i už odečtené položky. Volat uvnitř transakce, která objednávku ukládá.
+ * Stejný příkaz přepíše i {@code catalog_products.amount}, takže read model nic nepřepočítává;
+ * po commitu jde jen lehká {@link StockChangedEvent} s novými počty kusů.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class StockService {
+
+    // req = položky objednávky, locked = aktuální sklad po zamčení, upd = odečtené řádky,
+    // rm = sloupec amount v read modelu (řádky products jsou už zamčené, pořadí zámků se nemění)
+    private static final String RESERVE = """
+            with req (product_id, qty) as (
+                select * from unnest(cast(? as bigint[]), cast(? as int[]))
+            ), locked as (
+                select p.productid, p.amount_of_products from products p
+                 where p.productid in (select product_id from req)
+                 order by p.productid
+                   for update
+            ), upd as (
+                update products p set amount_of_products = p.amount_of_products - r.qty
+                  from req r join locked l on l.productid = r.product_id
+                 where p.productid = r.product_id and p.amount_of_products >= r.qty
+                returning p.productid, p.slug, p.amount_of_products
+            ), rm as (
+                update catalog_products c set amount = u.amount_of_products
+                  from upd u
+                 where c.product_id = u.productid
+            )
+            select r.product_id, r.qty, coalesce(l.amount_of_products, 0) as available,
+                   u.productid is not null as reserved, u.slug, u.amount_of_products as amount
+              from req r left join locked l on l.productid = r.product_id
+                         left join upd u on u.productid = r.product_id
+            """;
+
+    // vrácení zamyká ve stejném pořadí jako rezervace; %s = dotaz (product_id, qty)
+    private static final String RELEASE = """
+            with req (product_id, qty) as (
+                %s
+            ), locked as (
+                select p.productid from products p
+                 where p.productid in (select product_id from req)
+                 order by p.productid
+                   for update
+            ), upd as (
+                update products p set amount_of_products = p.amount_of_products + r.qty
+                  from req r join locked l on l.productid = r.product_id
+                 where p.productid = r.product_id
+                returning p.productid, p.slug, p.amount_of_products
+            ), rm as (
+                update catalog_products c set amount = u.amount_of_products
+                  from upd u
+                 where c.product_id = u.productid
+            )
+            select productid as product_id, slug, amount_of_products as amount from upd
+            """;
+
+    private static final String RELEASE_LINES = RELEASE.formatted(
+            "select * from unnest(cast(? as bigint[]), cast(? as int[]))");
+
+    private static final String RELEASE_ORDERS = RELEASE.formatted("""
+            select product_id, cast(sum(amount_of_products) as int) from order_items
+                 where order_id = any (cast(? as bigint[])) and product_id is not null
+                 group by product_id""");
+
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+
+    /** Odečte kusy všech položek (productId → počet), nebo nic a {@link OutOfStockException}. */
+    public void reserve(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        Lines lines = Lines.of(quantities);
+
+        Changed changed = new Changed();
+        List<OutOfStockException.Line> missing = new ArrayList<>();
+        jdbc.query(RESERVE, rs -> {
+            if (rs.getBoolean("reserved")) {
+                changed.processRow(rs);
+            } else {
+                missing.add(new OutOfStockException.Line(
+                        rs.getLong("product_id"), rs.getInt("qty"), rs.getInt("available")));
+            }
+        }, lines.ids(), lines.qtys());
+
+        if (!missing.isEmpty()) throw new OutOfStockException(missing);
+        changed.publish();
+    }
+
+    /** Vrátí kusy na sklad (zrušená objednávka). Smazané produkty se přeskočí. */
+    public void release(Map<Long, Integer> quantities) {
+        if (quantities.isEmpty()) return;
+        Lines lines = Lines.of(quantities);
+        Changed changed = new Changed();
+        jdbc.query(RELEASE_LINES, changed, lines.ids(), lines.qtys());
+        if (changed.amounts.size() < lines.ids().length) {
+            log.info("Sklad: {} z {} produktů už neexistuje, kusy se nevrátily",
+                    lines.ids().length - changed.amounts.size(), lines.ids().length);
+        }
+        changed.publish();
+    }
+
+    /** Vrátí kusy všech položek daných objednávek jedním dotazem; vrací počet dotčených produktů. */
+    public int releaseOrders(List<Long> orderIds) {
+        if (orderIds.isEmpty()) return 0;
+        long[] ids = orderIds.stream().mapToLong(Long::longValue).toArray();
+        Changed changed = new Changed();
+        jdbc.query(RELEASE_ORDERS, changed, (Object) ids);
+        changed.publish();
+        return changed.amounts.size();
+    }
+
+    // změněné produkty (product_id, slug, nový sklad) → jedna událost, zpracuje se až po commitu
+    private final class Changed implements RowCallbackHandler {
+        final Map<Long, Integer> amounts = new TreeMap<>();
+        final Set<String> slugs = new HashSet<>();
+
+        @Override
+        public void processRow(ResultSet rs) throws SQLException {
+            amounts.put(rs.getLong("product_id"), rs.getInt("amount"));
+            String slug = rs.getString("slug");
+            if (slug != null) slugs.add(slug);
+        }
+
+        void publish() {
+            if (!amounts.isEmpty()) events.publishEvent(new StockChangedEvent(Map.copyOf(amounts), Set.copyOf(slugs)));
+        }
+    }
+
+    // seřazené podle id – stejné pořadí zámků ve všech objednávkách
+    private record Lines(long[] ids, int[] qtys) {
+        static Lines of(Map<Long, Integer> quantities) {
+            Map<Long, Integer> sorted = new TreeMap<>(quantities);
+            long[] ids = new long[sorted.size()];
+            int[] qtys = new int[sorted.size()];
+            int i = 0;
+            for (Map.Entry<Long, Integer> e : sorted.entrySet()) {
+                ids[i] = e.getKey();
+                qtys[i++] = e.getValue();
+            }
+            return new Lines(ids, qtys);
+        }
+    }
+}
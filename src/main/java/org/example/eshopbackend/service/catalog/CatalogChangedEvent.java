@@ -0,0 +1,56 @@
+package org.example.eshopbackend.service.catalog;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Publikuje se při každém zápisu do katalogu (produkt, kategorie, obrázek).
+ * Posluchači reagují až po commitu (viz {@code @TransactionalEventListener}).
+ * {@code categoryId} nese jen událost CATEGORY.
+ */
+public record CatalogChangedEvent(Kind kind, Set<Long> productIds, Set<String> slugs, Long categoryId) {
+
+    public enum Kind {
+        PRODUCT,   // vytvoření / úprava / smazání produktu
+        CATEGORY,  // vytvoření / smazání kategorie
+        IMAGE,     // změna galerie produktu
+        REBUILD    // read model přestavěn od nuly (oprava nekonzistence)
+    }
+
+    public CatalogChangedEvent(Kind kind, Set<Long> productIds, Set<String> slugs) {
+        this(kind, productIds, slugs, null);
+    }
+
+    public static CatalogChangedEvent product(Long productId, String... slugs) {
+        return new CatalogChangedEvent(Kind.PRODUCT, idSet(productId), slugSet(slugs));
+    }
+
+    /** Dávková změna více produktů (např. přepočet parametrů) – jedna událost místo jedné na produkt. */
+    public static CatalogChangedEvent products(Collection<Long> productIds, Collection<String> slugs) {
+        return new CatalogChangedEvent(Kind.PRODUCT, Set.copyOf(productIds),
+                slugs.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet()));
+    }
+
+    public static CatalogChangedEvent image(Long productId, String slug) {
+        return new CatalogChangedEvent(Kind.IMAGE, idSet(productId), slugSet(slug));
+    }
+
+    public static CatalogChangedEvent category(Long categoryId) {
+        return new CatalogChangedEvent(Kind.CATEGORY, Set.of(), Set.of(), categoryId);
+    }
+
+    public static CatalogChangedEvent rebuild() {
+        return new CatalogChangedEvent(Kind.REBUILD, Set.of(), Set.of());
+    }
+
+    private static Set<Long> idSet(Long id) {
+        return id == null ? Set.of() : Set.of(id);
+    }
+
+    private static Set<String> slugSet(String... slugs) {
+        return Arrays.stream(slugs).filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet());
+    }
+}
@@ -0,0 +1,285 @@
+package org.example.eshopbackend.service.catalog;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.dto.ProductResponseDTO;
+import org.example.eshopbackend.dto.facet.FacetFilterDTO;
+import org.example.eshopbackend.dto.facet.FacetResultDTO;
+import org.example.eshopbackend.dto.facet.FacetValueDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.mapper.ProductMapper;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.math.BigDecimal;
+import java.text.Collator;
+import java.util.*;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * Facetové filtrování katalogu v paměti: pro každou hodnotu facety bitset produktů.
+ * Filtrovaná stránka i počty všech facet se spočítají jedním průchodem nad bitsety, bez SQL.
+ * Po zápisu se z read modelu načtou jen změněné produkty a index se přeskládá (copy-on-write);
+ * změna skladu jen přepíše počet kusů v řádcích.
+ */
+@Component
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogFacetIndex {
+
+    public static final String CATEGORY = "category";
+    public static final String MANUFACTURER = "manufacturer";
+    public static final String FLAVOR = "flavor";
+    public static final String NICOTINE = "nicotineMg";
+    public static final String PUFF_COUNT = "puffCount";
+
+    /** facety v pořadí, v jakém je vrací API, a jak z řádku vytáhnout hodnotu */
+    private static final Map<String, Function<Row, String>> FACETS = new LinkedHashMap<>();
+    static {
+        FACETS.put(CATEGORY, Row::categorySlug);
+        FACETS.put(MANUFACTURER, r -> r.dto().getManufacturer());
+        FACETS.put(FLAVOR, r -> r.dto().getFlavor());
+        FACETS.put(NICOTINE, r -> r.dto().getNicotineMg());
+        FACETS.put(PUFF_COUNT, r -> r.dto().getPuffCount());
+    }
+
+    private static final int MAX_PAGE_SIZE = 100;
+
+    private final CatalogProductRepository repo;
+    private final ProductMapper productMapper;
+
+    // null = ještě nenačteno (načte se líně při prvním dotazu)
+    private volatile Snapshot snapshot;
+
+    private record Row(ProductResponseDTO dto, String categorySlug) {}
+
+    /**
+     * Neměnný stav indexu. Doc id = pozice v {@code rows} (seřazeno podle názvu, id),
+     * {@code byPrice} je permutace doc id podle ceny.
+     */
+    private record Snapshot(List<Row> rows, int[] byPrice, Map<String, Map<String, BitSet>> facets) {}
+
+    /* ====== dotaz ====== */
+
+    public FacetResultDTO search(FacetFilterDTO filter) {
+        Snapshot snap = snapshot();
+        int n = snap.rows().size();
+        int size = Math.max(1, Math.min(filter.getSize(), MAX_PAGE_SIZE));
+        int page = Math.max(0, filter.getPage());
+
+        Map<String, List<String>> selectedValues = selected(filter);
+
+        // OR uvnitř facety
+        Map<String, BitSet> selectedBits = new HashMap<>();
+        selectedValues.forEach((facet, values) -> {
+            BitSet bits = new BitSet(n);
+            Map<String, BitSet> byValue = snap.facets().get(facet);
+            for (String v : values) {
+                BitSet vb = byValue.get(v);
+                if (vb != null) bits.or(vb);
+            }
+            selectedBits.put(facet, bits);
+        });
+
+        BitSet all = new BitSet(n);
+        all.set(0, n);
+        BitSet priceMask = priceMask(snap, filter.getPriceMin(), filter.getPriceMax());
+
+        // AND mezi facetami
+        BitSet withoutPrice = (BitSet) all.clone();
+        selectedBits.values().forEach(withoutPrice::and);
+        BitSet result = (BitSet) withoutPrice.clone();
+        if (priceMask != null) result.and(priceMask);
+
+        // počty: každá faceta se počítá s filtry všech ostatních, ale bez sebe (disjunktivní facety)
+        Map<String, List<FacetValueDTO>> facets = new LinkedHashMap<>();
+        for (var facet : snap.facets().entrySet()) {
+            BitSet base = (BitSet) all.clone();
+            if (priceMask != null) base.and(priceMask);
+            selectedBits.forEach((other, bits) -> {
+                if (!other.equals(facet.getKey())) base.and(bits);
+            });
+            List<String> chosen = selectedValues.getOrDefault(facet.getKey(), List.of());
+            List<FacetValueDTO> values = new ArrayList<>();
+            for (var value : facet.getValue().entrySet()) {
+                BitSet hit = (BitSet) base.clone();
+                hit.and(value.getValue());
+                int count = hit.cardinality();
+                boolean isSelected = chosen.contains(value.getKey());
+                if (count > 0 || isSelected) {
+                    values.add(new FacetValueDTO(value.getKey(), count, isSelected));
+                }
+            }
+            values.sort(Comparator.comparingInt(FacetValueDTO::getCount).reversed()
+                    .thenComparing(FacetValueDTO::getValue));
+            facets.put(facet.getKey(), values);
+        }
+
+        return FacetResultDTO.builder()
+                .items(page(snap, result, filter.getSort(), page, size))
+                .page(page)
+                .size(size)
+                .totalElements(result.cardinality())
+                .facets(facets)
+                .priceMin(priceBound(snap, withoutPrice, true))
+                .priceMax(priceBound(snap, withoutPrice, false))
+                .build();
+    }
+
+    private static Map<String, List<String>> selected(FacetFilterDTO filter) {
+        Map<String, List<String>> out = new HashMap<>();
+        putIfAny(out, CATEGORY, filter.getCategory());
+        putIfAny(out, MANUFACTURER, filter.getManufacturer());
+        putIfAny(out, FLAVOR, filter.getFlavor());
+        putIfAny(out, NICOTINE, filter.getNicotineMg());
+        putIfAny(out, PUFF_COUNT, filter.getPuffCount());
+        return out;
+    }
+
+    private static void putIfAny(Map<String, List<String>> out, String facet, List<String> values) {
+        if (values == null) return;
+        List<String> clean = values.stream().map(CatalogFacetIndex::normalize).filter(Objects::nonNull).toList();
+        if (!clean.isEmpty()) out.put(facet, clean);
+    }
+
+    private static BitSet priceMask(Snapshot snap, BigDecimal min, BigDecimal max) {
+        if (min == null && max == null) return null;
+        BitSet mask = new BitSet(snap.rows().size());
+        for (int doc = 0; doc < snap.rows().size(); doc++) {
+            BigDecimal price = snap.rows().get(doc).dto().getPrice();
+            if (price == null) continue;
+            if (min != null && price.compareTo(min) < 0) continue;
+            if (max != null && price.compareTo(max) > 0) continue;
+            mask.set(doc);
+        }
+        return mask;
+    }
+
+    private static BigDecimal priceBound(Snapshot snap, BitSet docs, boolean lowest) {
+        // byPrice je seřazené vzestupně, null ceny na konci
+        int[] order = snap.byPrice();
+        for (int i = 0; i < order.length; i++) {
+            int doc = order[lowest ? i : order.length - 1 - i];
+            BigDecimal price = snap.rows().get(doc).dto().getPrice();
+            if (docs.get(doc) && price != null) return price;
+        }
+        return null;
+    }
+
+    private static List<ProductResponseDTO> page(Snapshot snap, BitSet result, String sort, int page, int size) {
+        long skip = (long) page * size;
+        List<ProductResponseDTO> items = new ArrayList<>(size);
+        if ("price".equals(sort)) {
+            for (int doc : snap.byPrice()) {
+                if (!result.get(doc)) continue;
+                if (skip-- > 0) continue;
+                items.add(snap.rows().get(doc).dto());
+                if (items.size() == size) break;
+            }
+        } else {
+            for (int doc = result.nextSetBit(0); doc >= 0 && items.size() < size; doc = result.nextSetBit(doc + 1)) {
+                if (skip-- > 0) continue;
+                items.add(snap.rows().get(doc).dto());
+            }
+        }
+        return items;
+    }
+
+    /* ====== údržba ====== */
+
+    private Snapshot snapshot() {
+        Snapshot snap = snapshot;
+        if (snap != null) return snap;
+        synchronized (this) {
+            if (snapshot == null) reload();
+            return snapshot;
+        }
+    }
+
+    /** Načte celý katalog z read modelu a postaví index znovu. */
+    public synchronized void reload() {
+        List<Row> rows = repo.findAll().stream().map(this::toRow).toList();
+        snapshot = build(rows);
+        log.info("Facetový index katalogu načten: {} produktů", rows.size());
+    }
+
+    // dřív než CatalogVersion zvedne verzi (ETag), ať nový ETag nikdy neodejde se starým indexem
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (snapshot == null) return; // ještě nikdo nečetl, načte se líně
+        switch (event.kind()) {
+            case PRODUCT, IMAGE -> refresh(event.productIds());
+            case CATEGORY, REBUILD -> reload();
+        }
+    }
+
+    /** Znovu načte jen dané produkty; smazané z indexu vypadnou. */
+    public synchronized void refresh(Collection<Long> productIds) {
+        Snapshot current = snapshot;
+        if (current == null || productIds.isEmpty()) return;
+
+        List<Row> rows = new ArrayList<>(current.rows().size() + productIds.size());
+        for (Row row : current.rows()) {
+            if (!productIds.contains(row.dto().getProductId())) rows.add(row);
+        }
+        repo.findAllById(productIds).forEach(p -> rows.add(toRow(p)));
+        snapshot = build(rows);
+    }
+
+    // sklad nemění řazení ani hodnoty facet → stačí vyměnit DTO dotčených řádků, bitsety zůstávají
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        Snapshot current = snapshot;
+        if (current == null) return;
+        List<Row> rows = new ArrayList<>(current.rows());
+        for (int doc = 0; doc < rows.size(); doc++) {
+            Row row = rows.get(doc);
+            Integer amount = event.amounts().get(row.dto().getProductId());
+            if (amount != null) rows.set(doc, new Row(row.dto().toBuilder().amount(amount).build(), row.categorySlug()));
+        }
+        snapshot = new Snapshot(List.copyOf(rows), current.byPrice(), current.facets());
+    }
+
+    private Row toRow(CatalogProduct p) {
+        return new Row(productMapper.toDto(p), p.getCategorySlug());
+    }
+
+    private static Snapshot build(List<Row> unsorted) {
+        Collator collator = Collator.getInstance(Locale.forLanguageTag("cs"));
+        List<Row> rows = new ArrayList<>(unsorted);
+        rows.sort(Comparator.comparing((Row r) -> r.dto().getProductName(), Comparator.nullsLast(collator))
+                .thenComparing(r -> r.dto().getProductId()));
+
+        int[] byPrice = IntStream.range(0, rows.size()).boxed()
+                .sorted(Comparator.comparing((Integer doc) -> rows.get(doc).dto().getPrice(),
+                        Comparator.nullsLast(Comparator.naturalOrder())))
+                .mapToInt(Integer::intValue)
+                .toArray();
+
+        Map<String, Map<String, BitSet>> facets = new LinkedHashMap<>();
+        FACETS.forEach((facet, extractor) -> {
+            Map<String, BitSet> byValue = new HashMap<>();
+            for (int doc = 0; doc < rows.size(); doc++) {
+                String value = normalize(extractor.apply(rows.get(doc)));
+                if (value != null) byValue.computeIfAbsent(value, v -> new BitSet(rows.size())).set(doc);
+            }
+            facets.put(facet, byValue);
+        });
+        return new Snapshot(List.copyOf(rows), byPrice, facets);
+    }
+
+    private static String normalize(String value) {
+        if (value == null) return null;
+        String trimmed = value.trim();
+        return trimmed.isEmpty() ? null : trimmed;
+    }
+}
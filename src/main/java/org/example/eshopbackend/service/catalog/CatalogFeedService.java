@@ -0,0 +1,82 @@
+package org.example.eshopbackend.service.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.service.catalog.CatalogFeedWriter.Format;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Feedy pro srovnávače cen uložené na disku: soubor se jménem podle verze katalogu a okna skladu
+ * ({@code heureka-<CatalogVersion.stamp()>.xml}). Dokud se razítko nezmění, servíruje se hotový
+ * soubor; potom se při prvním požadavku vygeneruje znovu (jen jednou, ostatní počkají).
+ */
+@Service
+@Slf4j
+public class CatalogFeedService {
+
+    private static final long KEEP_PREVIOUS_MS = 10 * 60 * 1000L;
+
+    private final CatalogFeedWriter writer;
+    private final CatalogVersion catalogVersion;
+    private final Path dir;
+    private final Map<Format, Object> locks = new EnumMap<>(Format.class);
+
+    public CatalogFeedService(CatalogFeedWriter writer,
+                              CatalogVersion catalogVersion,
+                              @Value("${catalog.feed.dir:./data/feeds}") String dir) {
+        this.writer = writer;
+        this.catalogVersion = catalogVersion;
+        this.dir = Path.of(dir).toAbsolutePath().normalize();
+        for (Format f : Format.values()) locks.put(f, new Object());
+    }
+
+    /** Cesta k aktuálnímu feedu; vygeneruje ho, pokud pro aktuální verzi katalogu ještě není. */
+    public Path feed(Format format) throws IOException {
+        // verzi číst před generováním – změna během zápisu zvedne verzi a příště se generuje znovu
+        String version = catalogVersion.stamp();
+        Path file = dir.resolve(format.baseName + "-" + version + format.extension);
+        if (Files.isRegularFile(file)) return file;
+
+        synchronized (locks.get(format)) {
+            if (Files.isRegularFile(file)) return file;
+            Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, format.baseName, ".tmp");
+            try {
+                long started = System.nanoTime();
+                int items;
+                try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 64 * 1024)) {
+                    items = writer.write(format, out);
+                }
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                log.info("Feed {} vygenerován: {} položek, {} ms", file.getFileName(), items,
+                        (System.nanoTime() - started) / 1_000_000);
+            } finally {
+                Files.deleteIfExists(tmp);
+            }
+            deleteOlderVersions(format, file);
+            return file;
+        }
+    }
+
+    // starší verze mažeme až po chvíli – mohou se ještě posílat klientovi, který je dostal před přegenerováním
+    private void deleteOlderVersions(Format format, Path current) {
+        long cutoff = System.currentTimeMillis() - KEEP_PREVIOUS_MS;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, format.baseName + "-*" + format.extension)) {
+            for (Path f : files) {
+                if (!f.equals(current) && Files.getLastModifiedTime(f).toMillis() < cutoff) Files.deleteIfExists(f);
+            }
+        } catch (IOException e) {
+            log.warn("Starší feedy {} nejde smazat: {}", format.baseName, e.getMessage());
+        }
+    }
+}
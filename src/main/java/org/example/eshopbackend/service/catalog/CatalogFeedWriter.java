@@ -0,0 +1,138 @@
+package org.example.eshopbackend.service.catalog;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import org.example.eshopbackend.config.StorefrontProps;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.mapper.ProductMapper;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.nio.charset.StandardCharsets;
+import java.util.Iterator;
+import java.util.stream.Stream;
+
+/**
+ * Zápis feedů po jednom produktu z dopředného kurzoru nad read modelem – paměť nezávisí na velikosti katalogu.
+ * XML přes StAX, NDJSON = jeden JSON produktu na řádek.
+ */
+@Component
+@RequiredArgsConstructor
+public class CatalogFeedWriter {
+
+    private static final String ZBOZI_NS = "http://www.zbozi.cz/ns/offer/1.0";
+    private static final XMLOutputFactory XML = XMLOutputFactory.newFactory();
+
+    private final CatalogProductRepository repo;
+    private final ProductMapper productMapper;
+    private final ObjectMapper objectMapper;
+    private final StorefrontProps storefront;
+
+    @PersistenceContext
+    private EntityManager em;
+
+    public enum Format {
+        HEUREKA("heureka", ".xml", "application/xml"),
+        ZBOZI("zbozi", ".xml", "application/xml"),
+        NDJSON("products", ".ndjson", "application/x-ndjson");
+
+        public final String baseName;
+        public final String extension;
+        public final String contentType;
+
+        Format(String baseName, String extension, String contentType) {
+            this.baseName = baseName;
+            this.extension = extension;
+            this.contentType = contentType;
+        }
+    }
+
+    /** Zapíše celý feed do {@code out}; vrací počet položek. Stream nezavírá. */
+    @Transactional(readOnly = true)
+    public int write(Format format, OutputStream out) throws IOException {
+        try (Stream<CatalogProduct> rows = repo.streamAllOrderById()) {
+            Iterator<CatalogProduct> it = rows.iterator();
+            return switch (format) {
+                case HEUREKA -> writeXml(it, out, null);
+                case ZBOZI -> writeXml(it, out, ZBOZI_NS);
+                case NDJSON -> writeNdjson(it, out);
+            };
+        } catch (XMLStreamException e) {
+            throw new IOException("Zápis XML feedu selhal", e);
+        }
+    }
+
+    // Heureka a Zboží mají stejnou kostru SHOP/SHOPITEM, Zboží navíc vlastní namespace
+    private int writeXml(Iterator<CatalogProduct> rows, OutputStream out, String namespace) throws XMLStreamException {
+        XMLStreamWriter xml = XML.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+        xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+        xml.writeStartElement("SHOP");
+        if (namespace != null) xml.writeDefaultNamespace(namespace);
+
+        int count = 0;
+        while (rows.hasNext()) {
+            CatalogProduct p = rows.next();
+            if (listed(p)) {
+                writeItem(xml, p, namespace == null);
+                count++;
+            }
+            em.detach(p); // persistence context neroste s katalogem
+        }
+
+        xml.writeEndElement();
+        xml.writeEndDocument();
+        xml.flush();
+        xml.close(); // nezavírá podkladový stream
+        return count;
+    }
+
+    private void writeItem(XMLStreamWriter xml, CatalogProduct p, boolean heureka) throws XMLStreamException {
+        xml.writeStartElement("SHOPITEM");
+        element(xml, "ITEM_ID", String.valueOf(p.getProductId()));
+        element(xml, "PRODUCTNAME", p.getProductName());
+        if (heureka) element(xml, "PRODUCT", p.getProductName());
+        element(xml, "DESCRIPTION", p.getDescription());
+        element(xml, "URL", storefront.productUrl(p.getSlug()));
+        element(xml, "IMGURL", storefront.imageUrl(p.getPrimaryImageUrl() != null ? p.getPrimaryImageUrl() : p.getImageUrl()));
+        element(xml, "PRICE_VAT", p.getPrice().setScale(2, RoundingMode.HALF_UP).toPlainString());
+        element(xml, "MANUFACTURER", p.getManufacturer());
+        element(xml, "CATEGORYTEXT", p.getCategoryName());
+        element(xml, "DELIVERY_DATE", String.valueOf(storefront.getDeliveryDays()));
+        xml.writeEndElement();
+    }
+
+    private static void element(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+        if (value == null || value.isBlank()) return;
+        xml.writeStartElement(name);
+        xml.writeCharacters(value);
+        xml.writeEndElement();
+    }
+
+    private int writeNdjson(Iterator<CatalogProduct> rows, OutputStream out) throws IOException {
+        int count = 0;
+        while (rows.hasNext()) {
+            CatalogProduct p = rows.next();
+            out.write(objectMapper.writeValueAsBytes(productMapper.toDto(p)));
+            out.write('\n');
+            count++;
+            em.detach(p);
+        }
+        return count;
+    }
+
+    /** Do srovnávačů jen produkty skladem a s cenou. */
+    private static boolean listed(CatalogProduct p) {
+        return p.getPrice() != null && p.getPrice().compareTo(BigDecimal.ZERO) > 0
+                && p.getAmount() != null && p.getAmount() > 0;
+    }
+}
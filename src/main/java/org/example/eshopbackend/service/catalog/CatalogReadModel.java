@@ -0,0 +1,178 @@
+package org.example.eshopbackend.service.catalog;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Udržuje tabulku {@code catalog_products} (viz {@link org.example.eshopbackend.entity.CatalogProduct}).
+ * Přepočet běží ve stejné transakci jako zápis (BEFORE_COMMIT), takže read model nikdy nepředbíhá
+ * ani nezaostává za commitnutými daty. Kontrola konzistence umí tabulku postavit znovu od nuly.
+ */
+@Service
+@RequiredArgsConstructor
+@Slf4j
+public class CatalogReadModel {
+
+    /** Sloupce read modelu, které se počítají z products/categories/images (bez search_vector a refreshed_at). */
+    private static final List<String> COLUMNS = List.of(
+            "product_id", "product_name", "slug", "description",
+            "manufacturer", "battery_capacity_mah", "nicotine_mg", "volume", "puff_count", "flavor",
+            "amount", "price", "weight_grams", "image_url",
+            "category_id", "category_slug", "category_name", "primary_image_url",
+            "nicotine_mg_value", "volume_ml", "puff_count_value", "battery_mah_value", "search_text");
+
+    // eshop_unaccent zakládá CatalogSchemaInitializer; číselné hodnoty parsuje Java při zápisu produktu
+    private static final String FRESH_SELECT = """
+        select p.productid               as product_id,
+               p.product_name            as product_name,
+               p.slug                    as slug,
+               p.description             as description,
+               p.manufacturer            as manufacturer,
+               p.battery_capacity_mah    as battery_capacity_mah,
+               p.nicotine_mg             as nicotine_mg,
+               p.volume                  as volume,
+               p.puff_count              as puff_count,
+               p.flavor                  as flavor,
+               p.amount_of_products      as amount,
+               p.price                   as price,
+               p.weight_grams            as weight_grams,
+               p.image_url               as image_url,
+               c.category_id             as category_id,
+               c.slug                    as category_slug,
+               c.category_name           as category_name,
+               (select i.url from images i
+                 where i.product_id = p.productid
+                 order by i.is_primary desc, i.sort_order, i.image_id
+                 limit 1)                as primary_image_url,
+               p.nicotine_mg_value       as nicotine_mg_value,
+               p.volume_ml               as volume_ml,
+               p.puff_count_value        as puff_count_value,
+               p.battery_mah_value       as battery_mah_value,
+               eshop_unaccent(lower(concat_ws(' ', p.product_name, p.manufacturer, p.flavor,
+                                              c.category_name, replace(p.slug, '-', ' ')))) as search_text
+        from products p
+        join categories c on c.category_id = p.category_id
+        """;
+
+    // stejné váhy jako dřív nad products: A název, B výrobce/příchuť/slug, C kategorie, D popis
+    private static final String SEARCH_VECTOR = """
+           setweight(to_tsvector('simple', eshop_unaccent(coalesce(f.product_name, ''))), 'A')
+        || setweight(to_tsvector('simple', eshop_unaccent(
+               coalesce(f.manufacturer, '') || ' ' || coalesce(f.flavor, '') || ' '
+               || replace(coalesce(f.slug, ''), '-', ' '))), 'B')
+        || setweight(to_tsvector('simple', eshop_unaccent(coalesce(f.category_name, ''))), 'C')
+        || setweight(to_tsvector('simple', eshop_unaccent(coalesce(f.description, ''))), 'D')
+        """;
+
+    private static final String INSERT_FROM = "insert into catalog_products ("
+            + String.join(", ", COLUMNS) + ", search_vector, refreshed_at) select f.*, "
+            + SEARCH_VECTOR + ", now() from (";
+
+    @PersistenceContext
+    private EntityManager em;
+
+    private final ApplicationEventPublisher events;
+
+    public record Consistency(long products, long rows, long missing, long stale, long orphaned) {
+        public boolean consistent() {
+            return missing == 0 && stale == 0 && orphaned == 0;
+        }
+    }
+
+    // ve stejné transakci jako zápis – commit zápisu i read modelu je jeden
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.kind()) {
+            case CATEGORY -> refreshCategory(event.categoryId());
+            case PRODUCT, IMAGE -> refresh(event.productIds());
+            case REBUILD -> { } // vlastní událost, read model už je hotový
+        }
+    }
+
+    /** Přepočítá řádky daných produktů; smazaný produkt z read modelu zmizí. */
+    @Transactional
+    public void refresh(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return;
+        em.flush(); // native SQL musí vidět změny z persistence contextu
+
+        em.createNativeQuery("delete from catalog_products where product_id in (:ids)")
+                .setParameter("ids", productIds)
+                .executeUpdate();
+        em.createNativeQuery(INSERT_FROM + FRESH_SELECT + " where p.productid in (:ids)) f")
+                .setParameter("ids", productIds)
+                .executeUpdate();
+    }
+
+    /** Přepočítá řádky produktů jedné kategorie (název/slug kategorie je v každém z nich). */
+    @Transactional
+    public void refreshCategory(Long categoryId) {
+        if (categoryId == null) return;
+        em.flush();
+
+        em.createNativeQuery("delete from catalog_products where category_id = :id")
+                .setParameter("id", categoryId)
+                .executeUpdate();
+        em.createNativeQuery(INSERT_FROM + FRESH_SELECT + " where p.category_id = :id) f")
+                .setParameter("id", categoryId)
+                .executeUpdate();
+    }
+
+    /** Postaví read model znovu od nuly; vrací počet řádků. Cache a ETagy katalogu se po commitu zahodí. */
+    @Transactional
+    public int rebuild() {
+        int rows = rebuildRows();
+        events.publishEvent(CatalogChangedEvent.rebuild());
+        log.info("Read model katalogu přestavěn: {} produktů", rows);
+        return rows;
+    }
+
+    private int rebuildRows() {
+        em.flush();
+        em.createNativeQuery("delete from catalog_products").executeUpdate();
+        return em.createNativeQuery(INSERT_FROM + FRESH_SELECT + ") f").executeUpdate();
+    }
+
+    /** Porovná read model s tím, co by z products/categories/images vzniklo teď. */
+    @Transactional(readOnly = true)
+    public Consistency check() {
+        String fresh = COLUMNS.stream().map(c -> "f." + c).collect(Collectors.joining(", "));
+        String stored = COLUMNS.stream().map(c -> "r." + c).collect(Collectors.joining(", "));
+        Object[] row = (Object[]) em.createNativeQuery("with f as (" + FRESH_SELECT + ") select "
+                + "(select count(*) from f), "
+                + "(select count(*) from catalog_products), "
+                + "(select count(*) from f where not exists "
+                + "   (select 1 from catalog_products r where r.product_id = f.product_id)), "
+                + "(select count(*) from f join catalog_products r on r.product_id = f.product_id "
+                + "   where (" + fresh + ") is distinct from (" + stored + ")), "
+                + "(select count(*) from catalog_products r where not exists "
+                + "   (select 1 from f where f.product_id = r.product_id))")
+                .getSingleResult();
+        return new Consistency(num(row[0]), num(row[1]), num(row[2]), num(row[3]), num(row[4]));
+    }
+
+    /** Kontrola a při nesouladu přestavba – volá se při startu a z administrace. */
+    @Transactional
+    public Consistency checkAndRepair() {
+        Consistency result = check();
+        if (!result.consistent()) {
+            log.warn("Read model katalogu nesedí ({}), přestavuji", result);
+            rebuild();
+        }
+        return result;
+    }
+
+    private static long num(Object value) {
+        return ((Number) value).longValue();
+    }
+}
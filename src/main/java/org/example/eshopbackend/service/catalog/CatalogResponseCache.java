@@ -0,0 +1,176 @@
+package org.example.eshopbackend.service.catalog;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * LRU cache hotových JSON odpovědí (UTF-8 bajty) pro veřejné endpointy katalogu.
+ * Velikost je omezená součtem bajtů, invalidace běží až po commitu zápisu. Události chodí jen
+ * z této instance – zápis na jiném uzlu se tu projeví nejpozději po {@code catalog.cache.ttl-minutes}.
+ */
+@Component
+@Slf4j
+public class CatalogResponseCache {
+
+    public static final String PRODUCTS = "products:";
+    public static final String PRODUCT = "product:";
+    public static final String CATEGORIES = "categories";
+
+    /** hrubý odhad režie jednoho záznamu (entry, klíč, pole) */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    private final ObjectMapper objectMapper;
+    private final long maxBytes;
+    private final long ttlMillis; // 0 = bez expirace
+
+    // access-order = true → iterace od nejdéle nepoužitého
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(64, 0.75f, true);
+    private long currentBytes;
+    // zvyšuje se při každé invalidaci – načtení, které začalo před ní, se neuloží
+    private long generation;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong invalidations = new AtomicLong();
+
+    @Autowired
+    public CatalogResponseCache(ObjectMapper objectMapper,
+                                @Value("${catalog.cache.max-bytes:33554432}") long maxBytes,
+                                @Value("${catalog.cache.ttl-minutes:5}") long ttlMinutes) {
+        this(objectMapper, maxBytes, Duration.ofMinutes(ttlMinutes));
+    }
+
+    public CatalogResponseCache(ObjectMapper objectMapper, long maxBytes, Duration ttl) {
+        this.objectMapper = objectMapper;
+        this.maxBytes = maxBytes;
+        this.ttlMillis = Math.max(0, ttl.toMillis());
+    }
+
+    private record Entry(byte[] body, long expiresAtMillis) {
+        boolean expired(long now) {
+            return expiresAtMillis > 0 && now >= expiresAtMillis;
+        }
+    }
+
+    public record Stats(long hits, long misses, long evictions, long invalidations,
+                        int entries, long bytes, long maxBytes) {}
+
+    /** Vrátí serializovanou odpověď z cache, nebo ji spočítá, serializuje a uloží. */
+    public byte[] getOrLoad(String key, Supplier<?> loader) {
+        long startGeneration;
+        synchronized (this) {
+            Entry cached = entries.get(key);
+            if (cached != null && !cached.expired(System.currentTimeMillis())) {
+                hits.incrementAndGet();
+                return cached.body();
+            }
+            if (cached != null) {
+                remove(key, cached);
+                evictions.incrementAndGet();
+            }
+            startGeneration = generation;
+        }
+        misses.incrementAndGet();
+
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(loader.get());
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        put(key, body, startGeneration);
+        return body;
+    }
+
+    private synchronized void put(String key, byte[] body, long startGeneration) {
+        long size = sizeOf(key, body);
+        if (startGeneration != generation || size > maxBytes / 4) {
+            return; // mezitím proběhl zápis, nebo je odpověď nepřiměřeně velká
+        }
+        long expiresAt = ttlMillis == 0 ? 0 : System.currentTimeMillis() + ttlMillis;
+        Entry previous = entries.put(key, new Entry(body, expiresAt));
+        if (previous != null) currentBytes -= sizeOf(key, previous.body());
+        currentBytes += size;
+
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (currentBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Entry> eldest = it.next();
+            currentBytes -= sizeOf(eldest.getKey(), eldest.getValue().body());
+            it.remove();
+            evictions.incrementAndGet();
+        }
+    }
+
+    private void remove(String key, Entry entry) {
+        entries.remove(key);
+        currentBytes -= sizeOf(key, entry.body());
+    }
+
+    @Order(Ordered.HIGHEST_PRECEDENCE) // dřív než CatalogVersion zvedne verzi
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        switch (event.kind()) {
+            case CATEGORY -> invalidate(key -> key.equals(CATEGORIES));
+            case PRODUCT, IMAGE -> invalidate(key -> key.startsWith(PRODUCTS)
+                    || event.slugs().stream().anyMatch(slug -> key.equals(PRODUCT + slug)));
+            case REBUILD -> invalidateAll();
+        }
+    }
+
+    // sklad: jen detail dotčených produktů; seznamy (i s počtem kusů) dožijí TTL
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onStockChanged(StockChangedEvent event) {
+        Set<String> keys = new HashSet<>();
+        event.slugs().forEach(slug -> keys.add(PRODUCT + slug));
+        if (!keys.isEmpty()) invalidate(keys::contains);
+    }
+
+    public synchronized void invalidateAll() {
+        invalidate(key -> true);
+    }
+
+    private synchronized void invalidate(Predicate<String> matcher) {
+        generation++;
+        int removed = 0;
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, Entry> e = it.next();
+            if (matcher.test(e.getKey())) {
+                currentBytes -= sizeOf(e.getKey(), e.getValue().body());
+                it.remove();
+                removed++;
+            }
+        }
+        invalidations.addAndGet(removed);
+        log.debug("Catalog cache: invalidováno {} záznamů", removed);
+    }
+
+    public synchronized Stats stats() {
+        return new Stats(hits.get(), misses.get(), evictions.get(), invalidations.get(),
+                entries.size(), currentBytes, maxBytes);
+    }
+
+    private static long sizeOf(String key, byte[] body) {
+        return body.length + 2L * key.length() + ENTRY_OVERHEAD;
+    }
+}
@@ -0,0 +1,535 @@
+package org.example.eshopbackend.service.catalog;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.util.BkTree;
+import org.example.eshopbackend.util.BoundedLevenshtein;
+import org.example.eshopbackend.util.TextFold;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Vestavěný fulltext (alternativa k Postgres tsvector, {@code catalog.search.engine=embedded}).
+ * Invertovaný index nad read modelem: posting listy v primitivních polích, BM25F skóre
+ * (název > výrobce/příchuť > kategorie > popis), prefix posledního slova a překlepy přes
+ * BK-strom nad slovníkem (bez průchodu všemi termy). Po zápisu se přeindexují jen změněné produkty;
+ * idf počítá jen s živými dokumenty, takže smazané docs do kompakce skóre nezkreslují. Index se
+ * ukládá na disk, aby restart nemusel číst celý katalog.
+ */
+@Component
+@Slf4j
+public class CatalogSearchEngine {
+
+    public static final String ENGINE_EMBEDDED = "embedded";
+
+    // váhy polí (BM25F) a parametry BM25
+    private static final float W_NAME = 3.0f, W_BRAND = 2.0f, W_CATEGORY = 1.5f, W_DESCRIPTION = 1.0f;
+    private static final float K1 = 1.2f, B = 0.75f;
+    // shoda přes prefix / překlep má nižší váhu než přesná
+    private static final float PREFIX_FACTOR = 0.8f, FUZZY_FACTOR = 0.6f;
+    private static final int MAX_EXPANSIONS = 50;
+    private static final double COMPACT_RATIO = 0.2;
+
+    private static final int SNAPSHOT_MAGIC = 0x45534958; // "ESIX"
+    private static final int SNAPSHOT_VERSION = 2;
+    private static final long NO_TIME = Long.MIN_VALUE;
+
+    private final CatalogProductRepository repo;
+    private final boolean enabled;
+    private final Path snapshotPath;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private volatile boolean loaded;
+    private volatile boolean dirty;
+
+    // změny, které přišly před dokončením líného načtení (pod zámkem pending)
+    private final Set<Long> pending = new HashSet<>();
+    private boolean pendingRebuild;
+
+    // ---- stav indexu (pod zámkem) ----
+    private TreeMap<String, Postings> dict = new TreeMap<>();
+    private BkTree fuzzy = new BkTree(); // termy slovníku pro překlepy
+    private long[] docProduct = new long[64];
+    private float[] docLen = new float[64];
+    private long[] docRefreshed = new long[64]; // refreshed_at řádku read modelu (µs) – pro otisk
+    private Postings[][] docPostings = new Postings[64][]; // termy dokumentu – pro živé df při mazání
+    private BitSet deleted = new BitSet();
+    private Map<Long, Integer> docByProduct = new HashMap<>();
+    private int maxDoc;
+    private int live;
+    private double totalLen;
+
+    public CatalogSearchEngine(CatalogProductRepository repo,
+                               @Value("${catalog.search.engine:postgres}") String engine,
+                               @Value("${catalog.search.snapshot-path:./data/search-index.bin}") String snapshotPath) {
+        this.repo = repo;
+        this.enabled = ENGINE_EMBEDDED.equalsIgnoreCase(engine);
+        this.snapshotPath = Path.of(snapshotPath);
+    }
+
+    /** Posting list jednoho termu: doc id rostoucí, vážená frekvence přes pole; live = df bez smazaných docs. */
+    private static final class Postings {
+        int[] docs = new int[4];
+        float[] tfs = new float[4];
+        int size;
+        int live;
+
+        void add(int doc, float tf) {
+            if (size == docs.length) {
+                docs = Arrays.copyOf(docs, size * 2);
+                tfs = Arrays.copyOf(tfs, size * 2);
+            }
+            docs[size] = doc;
+            tfs[size] = tf;
+            size++;
+            live++;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /* ====== dotaz ====== */
+
+    /**
+     * Id produktů seřazená podle relevance. Všechna slova dotazu musí sedět (přesně, prefixem
+     * u posledního slova, nebo s překlepem), stejně jako v režimu Postgres.
+     */
+    public Page<Long> search(String query, Pageable pageable) {
+        List<String> tokens = TextFold.tokens(query);
+        if (tokens.isEmpty()) return Page.empty(pageable);
+        ensureLoaded();
+
+        lock.readLock().lock();
+        try {
+            float[] score = new float[maxDoc];
+            int[] hits = new int[maxDoc];
+            for (int q = 0; q < tokens.size(); q++) {
+                Map<String, Float> expansions = expand(tokens.get(q), q == tokens.size() - 1);
+                float[] best = new float[maxDoc]; // v rámci jednoho slova bereme nejlepší rozvinutí
+                for (var e : expansions.entrySet()) {
+                    Postings p = dict.get(e.getKey());
+                    float idf = idf(p.live);
+                    for (int i = 0; i < p.size; i++) {
+                        int doc = p.docs[i];
+                        float s = e.getValue() * idf * bm25(p.tfs[i], docLen[doc]);
+                        if (s > best[doc]) best[doc] = s;
+                    }
+                }
+                for (int doc = 0; doc < maxDoc; doc++) {
+                    if (best[doc] > 0) {
+                        score[doc] += best[doc];
+                        hits[doc]++;
+                    }
+                }
+            }
+
+            List<Integer> matched = new ArrayList<>();
+            for (int doc = 0; doc < maxDoc; doc++) {
+                if (hits[doc] == tokens.size() && !deleted.get(doc)) matched.add(doc);
+            }
+            matched.sort((a, b) -> score[a] != score[b]
+                    ? Float.compare(score[b], score[a])
+                    : Long.compare(docProduct[a], docProduct[b]));
+
+            int from = (int) Math.min(pageable.getOffset(), matched.size());
+            int to = Math.min(from + pageable.getPageSize(), matched.size());
+            List<Long> ids = matched.subList(from, to).stream().map(doc -> docProduct[doc]).toList();
+            return new PageImpl<>(ids, pageable, matched.size());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Termy ze slovníku, na které se slovo dotazu rozvine, s váhou shody. */
+    private Map<String, Float> expand(String token, boolean isLast) {
+        Map<String, Float> out = new HashMap<>();
+        if (isLive(token)) out.put(token, 1.0f);
+
+        if (isLast) {
+            for (var e : dict.subMap(token, true, token + Character.MAX_VALUE, false).entrySet()) {
+                if (out.size() >= MAX_EXPANSIONS) break;
+                if (e.getValue().live > 0) out.putIfAbsent(e.getKey(), PREFIX_FACTOR);
+            }
+        }
+
+        int max = BoundedLevenshtein.allowedEdits(token.length());
+        if (max > 0 && out.size() < MAX_EXPANSIONS) {
+            List<String> candidates = fuzzy.within(token, max);
+            Collections.sort(candidates);
+            for (String term : candidates) {
+                if (out.size() >= MAX_EXPANSIONS) break;
+                if (isLive(term)) out.putIfAbsent(term, FUZZY_FACTOR);
+            }
+        }
+        return out;
+    }
+
+    // term, který mají jen smazané docs, nerozvíjet – jen by ubral místo z MAX_EXPANSIONS
+    private boolean isLive(String term) {
+        Postings p = dict.get(term);
+        return p != null && p.live > 0;
+    }
+
+    private float idf(int df) {
+        return (float) Math.log(1 + (live - df + 0.5) / (df + 0.5));
+    }
+
+    private float bm25(float tf, float len) {
+        double avg = live == 0 ? 1 : totalLen / live;
+        return (float) (tf * (K1 + 1) / (tf + K1 * (1 - B + B * len / avg)));
+    }
+
+    /* ====== indexace ====== */
+
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            if (!loadSnapshot()) rebuild();
+            // změny commitnuté během načítání snapshot/katalog nemusí obsahovat – dotáhnou se
+            while (true) {
+                Set<Long> ids;
+                boolean full;
+                synchronized (pending) {
+                    if (pending.isEmpty() && !pendingRebuild) {
+                        loaded = true;
+                        return;
+                    }
+                    ids = new HashSet<>(pending);
+                    full = pendingRebuild;
+                    pending.clear();
+                    pendingRebuild = false;
+                }
+                if (full) rebuild(); else reindex(ids);
+            }
+        }
+    }
+
+    // dřív než CatalogVersion zvedne verzi (ETag)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 3)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        if (!enabled) return;
+        synchronized (pending) {
+            if (!loaded) {
+                // index ještě není načtený – změna se použije hned po načtení
+                if (event.kind() == CatalogChangedEvent.Kind.PRODUCT || event.kind() == CatalogChangedEvent.Kind.IMAGE) {
+                    pending.addAll(event.productIds());
+                } else {
+                    pendingRebuild = true;
+                }
+                dirty = true;
+                return;
+            }
+        }
+        switch (event.kind()) {
+            case PRODUCT, IMAGE -> reindex(event.productIds());
+            case CATEGORY, REBUILD -> rebuild();
+        }
+    }
+
+    /** Přeindexuje dané produkty (smazané odstraní); při velkém podílu smazaných docs index zkompaktuje. */
+    public void reindex(Collection<Long> productIds) {
+        if (productIds.isEmpty()) return;
+        List<CatalogProduct> fresh = repo.findAllById(productIds);
+        lock.writeLock().lock();
+        try {
+            for (Long id : productIds) remove(id);
+            fresh.forEach(this::add);
+            dirty = true;
+            if (deleted.cardinality() > COMPACT_RATIO * maxDoc) compact();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Postaví index znovu z read modelu a uloží snapshot. */
+    public void rebuild() {
+        List<CatalogProduct> all = repo.findAll();
+        lock.writeLock().lock();
+        try {
+            clear();
+            all.forEach(this::add);
+            writeSnapshot();
+        } finally {
+            lock.writeLock().unlock();
+        }
+        log.info("Vyhledávací index postaven: {} produktů, {} termů", live, dict.size());
+    }
+
+    private void clear() {
+        dict = new TreeMap<>();
+        docProduct = new long[64];
+        docLen = new float[64];
+        docRefreshed = new long[64];
+        docPostings = new Postings[64][];
+        deleted = new BitSet();
+        docByProduct = new HashMap<>();
+        fuzzy = new BkTree();
+        maxDoc = 0;
+        live = 0;
+        totalLen = 0;
+    }
+
+    private void add(CatalogProduct p) {
+        Map<String, Float> tf = new HashMap<>();
+        float len = 0;
+        len += addField(tf, p.getProductName(), W_NAME);
+        len += addField(tf, p.getManufacturer(), W_BRAND);
+        len += addField(tf, p.getFlavor(), W_BRAND);
+        len += addField(tf, p.getCategoryName(), W_CATEGORY);
+        len += addField(tf, p.getDescription(), W_DESCRIPTION);
+        addDoc(p.getProductId(), micros(p.getRefreshedAt()), len, tf);
+    }
+
+    private static float addField(Map<String, Float> tf, String text, float weight) {
+        List<String> tokens = TextFold.tokens(text);
+        for (String t : tokens) tf.merge(t, weight, Float::sum);
+        return tokens.size() * weight;
+    }
+
+    private void addDoc(long productId, long refreshed, float len, Map<String, Float> tf) {
+        int doc = maxDoc++;
+        if (doc == docProduct.length) {
+            docProduct = Arrays.copyOf(docProduct, doc * 2);
+            docLen = Arrays.copyOf(docLen, doc * 2);
+            docRefreshed = Arrays.copyOf(docRefreshed, doc * 2);
+            docPostings = Arrays.copyOf(docPostings, doc * 2);
+        }
+        docProduct[doc] = productId;
+        docLen[doc] = len;
+        docRefreshed[doc] = refreshed;
+        docByProduct.put(productId, doc);
+        live++;
+        totalLen += len;
+        // doc id jen roste → posting listy zůstávají seřazené
+        Postings[] terms = new Postings[tf.size()];
+        int i = 0;
+        for (var e : tf.entrySet()) {
+            Postings p = dict.computeIfAbsent(e.getKey(), k -> {
+                fuzzy.add(k);
+                return new Postings();
+            });
+            p.add(doc, e.getValue());
+            terms[i++] = p;
+        }
+        docPostings[doc] = terms;
+    }
+
+    private void remove(Long productId) {
+        Integer doc = docByProduct.remove(productId);
+        if (doc == null) return;
+        deleted.set(doc);
+        live--;
+        totalLen -= docLen[doc];
+        for (Postings p : docPostings[doc]) p.live--;
+        docPostings[doc] = null;
+    }
+
+    /** Termy každého dokumentu z posting listů (po kompakci a načtení snapshotu). */
+    private void indexDocPostings() {
+        int[] counts = new int[maxDoc];
+        for (Postings p : dict.values()) {
+            for (int i = 0; i < p.size; i++) counts[p.docs[i]]++;
+        }
+        docPostings = new Postings[Math.max(64, maxDoc)][];
+        for (int doc = 0; doc < maxDoc; doc++) docPostings[doc] = new Postings[counts[doc]];
+        Arrays.fill(counts, 0);
+        for (Postings p : dict.values()) {
+            for (int i = 0; i < p.size; i++) {
+                int doc = p.docs[i];
+                docPostings[doc][counts[doc]++] = p;
+            }
+        }
+    }
+
+    /** Zahodí smazané docs a přečísluje zbytek. */
+    private void compact() {
+        int[] remap = new int[maxDoc];
+        long[] products = new long[Math.max(64, live)];
+        float[] lens = new float[Math.max(64, live)];
+        long[] refreshed = new long[Math.max(64, live)];
+        int next = 0;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (deleted.get(doc)) { remap[doc] = -1; continue; }
+            remap[doc] = next;
+            products[next] = docProduct[doc];
+            lens[next] = docLen[doc];
+            refreshed[next] = docRefreshed[doc];
+            next++;
+        }
+        TreeMap<String, Postings> compacted = new TreeMap<>();
+        for (var e : dict.entrySet()) {
+            Postings src = e.getValue();
+            Postings dst = new Postings();
+            for (int i = 0; i < src.size; i++) {
+                int doc = remap[src.docs[i]];
+                if (doc >= 0) dst.add(doc, src.tfs[i]);
+            }
+            if (dst.size > 0) compacted.put(e.getKey(), dst);
+        }
+        Map<Long, Integer> byProduct = new HashMap<>();
+        for (int doc = 0; doc < next; doc++) byProduct.put(products[doc], doc);
+
+        dict = compacted;
+        fuzzy = BkTree.of(compacted.keySet()); // termy bez dokumentů ze stromu vypadnou
+        docProduct = products;
+        docLen = lens;
+        docRefreshed = refreshed;
+        deleted = new BitSet();
+        docByProduct = byProduct;
+        maxDoc = next;
+        indexDocPostings();
+    }
+
+    /* ====== snapshot na disk ====== */
+
+    /** Otisk read modelu v DB – snapshot platí, jen když se shoduje s otiskem uložených dat. */
+    private String fingerprint() {
+        return fingerprint(repo.count(), repo.lastRefreshedAt().map(CatalogSearchEngine::micros).orElse(NO_TIME));
+    }
+
+    /**
+     * Otisk dat, která index opravdu obsahuje (živé docs) – ne dotaz do DB v okamžiku uložení,
+     * který by mohl zahrnout i změny, jejichž události se teprve aplikují. Volat pod zámkem.
+     */
+    private String indexedFingerprint() {
+        long last = NO_TIME;
+        for (int doc = 0; doc < maxDoc; doc++) {
+            if (!deleted.get(doc)) last = Math.max(last, docRefreshed[doc]);
+        }
+        return fingerprint(live, last);
+    }
+
+    private static String fingerprint(long rows, long lastRefreshed) {
+        return rows + "@" + (lastRefreshed == NO_TIME ? "-" : Long.toString(lastRefreshed));
+    }
+
+    private static long micros(OffsetDateTime time) {
+        if (time == null) return NO_TIME;
+        Instant i = time.toInstant();
+        return i.getEpochSecond() * 1_000_000 + i.getNano() / 1_000;
+    }
+
+    private boolean loadSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) return false;
+        String expected = fingerprint();
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath)))) {
+            if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_VERSION) return false;
+            if (!expected.equals(in.readUTF())) {
+                log.info("Snapshot vyhledávacího indexu je zastaralý, stavím znovu");
+                return false;
+            }
+            lock.writeLock().lock();
+            try {
+                clear();
+                int docs = in.readInt();
+                docProduct = new long[Math.max(64, docs)];
+                docLen = new float[Math.max(64, docs)];
+                docRefreshed = new long[Math.max(64, docs)];
+                for (int doc = 0; doc < docs; doc++) {
+                    docProduct[doc] = in.readLong();
+                    docLen[doc] = in.readFloat();
+                    docRefreshed[doc] = in.readLong();
+                    docByProduct.put(docProduct[doc], doc);
+                    totalLen += docLen[doc];
+                }
+                maxDoc = docs;
+                live = docs;
+                int terms = in.readInt();
+                for (int t = 0; t < terms; t++) {
+                    String term = in.readUTF();
+                    Postings p = new Postings();
+                    int size = in.readInt();
+                    p.docs = new int[Math.max(4, size)];
+                    p.tfs = new float[Math.max(4, size)];
+                    for (int i = 0; i < size; i++) {
+                        p.docs[i] = in.readInt();
+                        p.tfs[i] = in.readFloat();
+                    }
+                    p.size = size;
+                    p.live = size;
+                    dict.put(term, p);
+                }
+                fuzzy = BkTree.of(dict.keySet());
+                indexDocPostings();
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Vyhledávací index načten ze snapshotu: {} produktů, {} termů", live, dict.size());
+            return true;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot vyhledávacího indexu nejde načíst ({}), stavím znovu", e.getMessage());
+            return false;
+        }
+    }
+
+    // volat pod write lockem
+    private void writeSnapshot() {
+        if (deleted.cardinality() > 0) compact();
+        try {
+            Path dir = snapshotPath.toAbsolutePath().getParent();
+            if (dir != null) Files.createDirectories(dir);
+            Path tmp = Files.createTempFile(dir, "search-index", ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                out.writeInt(SNAPSHOT_MAGIC);
+                out.writeInt(SNAPSHOT_VERSION);
+                out.writeUTF(indexedFingerprint());
+                out.writeInt(maxDoc);
+                for (int doc = 0; doc < maxDoc; doc++) {
+                    out.writeLong(docProduct[doc]);
+                    out.writeFloat(docLen[doc]);
+                    out.writeLong(docRefreshed[doc]);
+                }
+                out.writeInt(dict.size());
+                for (var e : dict.entrySet()) {
+                    out.writeUTF(e.getKey());
+                    Postings p = e.getValue();
+                    out.writeInt(p.size);
+                    for (int i = 0; i < p.size; i++) {
+                        out.writeInt(p.docs[i]);
+                        out.writeFloat(p.tfs[i]);
+                    }
+                }
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            dirty = false;
+        } catch (IOException | RuntimeException e) {
+            log.warn("Snapshot vyhledávacího indexu se nepodařilo uložit: {}", e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void saveOnShutdown() {
+        if (!enabled || !loaded || !dirty) return;
+        lock.writeLock().lock();
+        try {
+            writeSnapshot();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+}
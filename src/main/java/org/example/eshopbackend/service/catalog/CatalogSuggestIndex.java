@@ -0,0 +1,404 @@
+package org.example.eshopbackend.service.catalog;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.dto.SuggestionDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.repository.OrderItemRepository;
+import org.example.eshopbackend.util.TextFold;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Našeptávač: seřazené pole složených tokenů (bez diakritiky) → cíl (produkt, výrobce, příchuť).
+ * Prefix se najde binárním hledáním, z rozsahu se vybere top N podle popularity (prodané kusy).
+ * Po zápisu produktů nebo obrázků se snapshot jen záplatuje: cíle změněných produktů se nahradí,
+ * jejich výrobci/příchutě dostanou novou popularitu na stejném místě a nové klíče se vlijí do
+ * seřazeného pole (bez agregace prodejů a bez řazení všech klíčů). Změny se slévají po dobu
+ * {@code catalog.suggest.debounce-ms}, takže import stovek položek znamená jednu záplatu. Plná
+ * přestavba běží na pozadí po {@code catalog.suggest.refresh-minutes} (obnoví popularitu) a když
+ * v poli převáží mrtvé cíle. Index se mění asynchronně, proto {@code /suggest} nemá ETag katalogu.
+ */
+@Component
+@Slf4j
+public class CatalogSuggestIndex {
+
+    public static final int MAX_LIMIT = 20;
+
+    private final CatalogProductRepository catalogRepo;
+    private final OrderItemRepository orderItemRepo;
+    private final Duration maxAge;
+    private final long debounceMs;
+
+    private final ScheduledExecutorService refresher = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "catalog-suggest-refresh");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean refreshing = new AtomicBoolean();
+
+    // null = ještě nenačteno (načte se líně při prvním dotazu)
+    private volatile Snapshot snapshot;
+
+    // zdroj posledního snapshotu (pod zámkem this) – pro záplatu jednotlivých produktů bez DB
+    private final Map<Long, CatalogProduct> products = new TreeMap<>();
+    private Map<String, Long> soldBySlug = Map.of();
+    private final Map<Long, Integer> productTargets = new HashMap<>(); // produkt → index cíle
+    private final Map<String, Group> manufacturers = new TreeMap<>();  // složený text → skupina
+    private final Map<String, Group> flavors = new TreeMap<>();
+    private int deadTargets; // null v poli cílů (smazané produkty a prázdné skupiny)
+
+    // čekající změny (pod zámkem pending)
+    private final Set<Long> pending = new HashSet<>();
+    private boolean pendingFull;
+    private boolean flushScheduled;
+
+    public CatalogSuggestIndex(CatalogProductRepository catalogRepo,
+                               OrderItemRepository orderItemRepo,
+                               @Value("${catalog.suggest.refresh-minutes:30}") long refreshMinutes,
+                               @Value("${catalog.suggest.debounce-ms:500}") long debounceMs) {
+        this.catalogRepo = catalogRepo;
+        this.orderItemRepo = orderItemRepo;
+        this.maxAge = Duration.ofMinutes(refreshMinutes);
+        this.debounceMs = Math.max(0, debounceMs);
+    }
+
+    private record Target(SuggestionDTO suggestion, String[] tokens, long popularity) {}
+
+    /** keys[i] je token, který vede na targets[keyTarget[i]]; keys jsou seřazené, na null cíl žádný klíč nevede. */
+    private record Snapshot(String[] keys, int[] keyTarget, Target[] targets, long builtAtMillis) {}
+
+    /** Výrobce / příchuť: popularita = součet prodejů jeho produktů + počet produktů (neprodávané aspoň podle šíře nabídky). */
+    private static final class Group {
+        final SuggestionDTO.Type type;
+        final String text;
+        final String[] tokens;
+        final int target;
+        long popularity;
+        int products;
+
+        Group(SuggestionDTO.Type type, String text, String[] tokens, int target) {
+            this.type = type;
+            this.text = text;
+            this.tokens = tokens;
+            this.target = target;
+        }
+    }
+
+    private record Key(String token, int target) {}
+
+    private static final Comparator<Key> KEY_ORDER = Comparator.comparing(Key::token);
+
+    /* ====== dotaz ====== */
+
+    /**
+     * Poslední slovo dotazu se bere jako prefix, předchozí slova musí být prefixem
+     * některého tokenu téhož cíle ("elf ja" → "Elf Bar Jahoda").
+     */
+    public List<SuggestionDTO> suggest(String query, int limit) {
+        List<String> tokens = TextFold.tokens(query);
+        if (tokens.isEmpty()) return List.of();
+        int n = Math.max(1, Math.min(limit, MAX_LIMIT));
+
+        Snapshot snap = snapshot();
+        refreshIfStale(snap);
+
+        String last = tokens.get(tokens.size() - 1);
+        List<String> others = tokens.subList(0, tokens.size() - 1);
+
+        // min-halda o velikosti n: na vrcholu nejhorší z dosud nejlepších
+        Comparator<Target> rank = RANK;
+        PriorityQueue<Target> top = new PriorityQueue<>(n + 1, rank.reversed());
+        BitSet seen = new BitSet(snap.targets().length);
+
+        for (int i = lowerBound(snap.keys(), last); i < snap.keys().length && snap.keys()[i].startsWith(last); i++) {
+            int t = snap.keyTarget()[i];
+            if (seen.get(t)) continue;
+            seen.set(t);
+            Target target = snap.targets()[t];
+            if (!containsAllPrefixes(target.tokens(), others)) continue;
+            top.add(target);
+            if (top.size() > n) top.poll();
+        }
+
+        List<Target> best = new ArrayList<>(top);
+        best.sort(rank);
+        return best.stream().map(Target::suggestion).toList();
+    }
+
+    // popularita ↓, kratší text ↑ (přesnější shoda), abecedně
+    private static final Comparator<Target> RANK = Comparator
+            .comparingLong(Target::popularity).reversed()
+            .thenComparingInt((Target t) -> t.suggestion().getText().length())
+            .thenComparing(t -> t.suggestion().getText());
+
+    private static int lowerBound(String[] keys, String prefix) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(prefix) < 0) lo = mid + 1; else hi = mid;
+        }
+        return lo;
+    }
+
+    private static boolean containsAllPrefixes(String[] tokens, List<String> prefixes) {
+        for (String p : prefixes) {
+            boolean found = false;
+            for (String t : tokens) {
+                if (t.startsWith(p)) { found = true; break; }
+            }
+            if (!found) return false;
+        }
+        return true;
+    }
+
+    /* ====== údržba ====== */
+
+    private Snapshot snapshot() {
+        Snapshot snap = snapshot;
+        if (snap != null) return snap;
+        synchronized (this) {
+            if (snapshot == null) rebuild();
+            return snapshot;
+        }
+    }
+
+    private void refreshIfStale(Snapshot snap) {
+        if (System.currentTimeMillis() - snap.builtAtMillis() < maxAge.toMillis()) return;
+        if (!refreshing.compareAndSet(false, true)) return;
+        refresher.execute(() -> {
+            try {
+                rebuild();
+            } catch (Exception e) {
+                log.warn("Obnova našeptávače selhala: {}", e.getMessage());
+            } finally {
+                refreshing.set(false);
+            }
+        });
+    }
+
+    // pořadí vůči ostatním posluchačům nehraje roli: úprava se jen naplánuje a proběhne až po debounce
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        synchronized (pending) {
+            switch (event.kind()) {
+                case PRODUCT, IMAGE -> pending.addAll(event.productIds()); // obrázek = náhled v návrhu
+                case CATEGORY, REBUILD -> pendingFull = true;
+            }
+            if (debounceMs > 0) {
+                if (flushScheduled) return;
+                flushScheduled = true;
+            }
+        }
+        if (debounceMs == 0) {
+            flushPending();
+            return;
+        }
+        refresher.schedule(() -> {
+            try {
+                flushPending();
+            } catch (Exception e) {
+                log.warn("Úprava našeptávače selhala: {}", e.getMessage());
+            }
+        }, debounceMs, TimeUnit.MILLISECONDS);
+    }
+
+    private void flushPending() {
+        Set<Long> ids;
+        boolean full;
+        synchronized (pending) {
+            ids = new HashSet<>(pending);
+            full = pendingFull;
+            pending.clear();
+            pendingFull = false;
+            flushScheduled = false;
+        }
+        // pod zámkem indexu: probíhající líné načtení se nejdřív dokončí a změna se pak použije na něj
+        synchronized (this) {
+            if (snapshot == null) return; // ještě nenačteno – první dotaz načte aktuální stav
+            if (full) rebuild();
+            else if (!ids.isEmpty()) update(ids);
+        }
+    }
+
+    /** Záplata snapshotu pro dané produkty (smazané vypadnou); prodeje zůstávají z poslední přestavby. */
+    private synchronized void update(Set<Long> productIds) {
+        Snapshot old = snapshot;
+        List<Target> targets = new ArrayList<>(Arrays.asList(old.targets()));
+        BitSet dropped = new BitSet(targets.size()); // cíle, jejichž klíče zmizí
+        Set<Group> touched = new HashSet<>();
+        List<Key> added = new ArrayList<>();
+
+        for (Long id : productIds) {
+            CatalogProduct before = products.remove(id);
+            if (before == null) continue;
+            int t = productTargets.remove(id);
+            targets.set(t, null);
+            dropped.set(t);
+            deadTargets++;
+            long weight = sold(before) + 1;
+            touched.add(leave(manufacturers, before.getManufacturer(), weight));
+            touched.add(leave(flavors, before.getFlavor(), weight));
+        }
+        for (CatalogProduct p : catalogRepo.findAllById(productIds)) {
+            products.put(p.getProductId(), p);
+            addProduct(p, targets, added);
+            long weight = sold(p) + 1;
+            touched.add(join(manufacturers, SuggestionDTO.Type.MANUFACTURER, p.getManufacturer(), weight, targets, added));
+            touched.add(join(flavors, SuggestionDTO.Type.FLAVOR, p.getFlavor(), weight, targets, added));
+        }
+        touched.remove(null);
+        for (Group g : touched) {
+            if (g.products > 0) {
+                targets.set(g.target, groupTarget(g)); // stejné tokeny → klíče zůstávají
+            } else if (targets.get(g.target) != null) {
+                targets.set(g.target, null);
+                dropped.set(g.target);
+                deadTargets++;
+            }
+        }
+        manufacturers.values().removeIf(g -> g.products == 0);
+        flavors.values().removeIf(g -> g.products == 0);
+
+        if (deadTargets * 2 > targets.size()) {
+            snapshot = build(old.builtAtMillis()); // kompakce bez DB
+        } else {
+            snapshot = merge(old, dropped, added, targets.toArray(Target[]::new));
+        }
+        log.debug("Našeptávač upraven: {} produktů", productIds.size());
+    }
+
+    /** Postaví index znovu z read modelu a prodejů. */
+    public synchronized void rebuild() {
+        Map<String, Long> sold = new HashMap<>();
+        for (OrderItemRepository.SlugSales s : orderItemRepo.sumUnitsBySlug()) {
+            sold.put(s.getSlug(), s.getUnits() == null ? 0L : s.getUnits());
+        }
+        List<CatalogProduct> all = catalogRepo.findAll();
+        products.clear();
+        for (CatalogProduct p : all) products.put(p.getProductId(), p);
+        soldBySlug = sold;
+        snapshot = build(System.currentTimeMillis());
+        log.debug("Našeptávač přestavěn: {} cílů, {} klíčů", snapshot.targets().length, snapshot.keys().length);
+    }
+
+    /** Celý snapshot z {@link #products} a {@link #soldBySlug}; přepíše i stav pro záplaty. */
+    private Snapshot build(long builtAtMillis) {
+        productTargets.clear();
+        manufacturers.clear();
+        flavors.clear();
+        deadTargets = 0;
+        List<Target> targets = new ArrayList<>();
+        List<Key> keys = new ArrayList<>();
+        for (CatalogProduct p : products.values()) {
+            addProduct(p, targets, keys);
+            long weight = sold(p) + 1;
+            join(manufacturers, SuggestionDTO.Type.MANUFACTURER, p.getManufacturer(), weight, targets, keys);
+            join(flavors, SuggestionDTO.Type.FLAVOR, p.getFlavor(), weight, targets, keys);
+        }
+        manufacturers.values().forEach(g -> targets.set(g.target, groupTarget(g)));
+        flavors.values().forEach(g -> targets.set(g.target, groupTarget(g)));
+
+        keys.sort(KEY_ORDER);
+        String[] keyTokens = new String[keys.size()];
+        int[] keyTarget = new int[keys.size()];
+        for (int i = 0; i < keys.size(); i++) {
+            keyTokens[i] = keys.get(i).token();
+            keyTarget[i] = keys.get(i).target();
+        }
+        return new Snapshot(keyTokens, keyTarget, targets.toArray(Target[]::new), builtAtMillis);
+    }
+
+    /** Staré klíče bez zahozených cílů slité s novými – jeden lineární průchod, řadí se jen nové. */
+    private static Snapshot merge(Snapshot old, BitSet dropped, List<Key> added, Target[] targets) {
+        added.sort(KEY_ORDER);
+        String[] oldKeys = old.keys();
+        int[] oldTargets = old.keyTarget();
+        int size = added.size();
+        for (int t : oldTargets) if (!dropped.get(t)) size++;
+
+        String[] keys = new String[size];
+        int[] keyTarget = new int[size];
+        int i = 0, j = 0, k = 0;
+        while (k < size) {
+            while (i < oldKeys.length && dropped.get(oldTargets[i])) i++;
+            boolean takeOld = j == added.size()
+                    || (i < oldKeys.length && oldKeys[i].compareTo(added.get(j).token()) <= 0);
+            if (takeOld) {
+                keys[k] = oldKeys[i];
+                keyTarget[k++] = oldTargets[i++];
+            } else {
+                keys[k] = added.get(j).token();
+                keyTarget[k++] = added.get(j++).target();
+            }
+        }
+        return new Snapshot(keys, keyTarget, targets, old.builtAtMillis());
+    }
+
+    private long sold(CatalogProduct p) {
+        return soldBySlug.getOrDefault(p.getSlug(), 0L);
+    }
+
+    private void addProduct(CatalogProduct p, List<Target> targets, List<Key> keys) {
+        Set<String> tokens = new LinkedHashSet<>();
+        tokens.addAll(TextFold.tokens(p.getProductName()));
+        tokens.addAll(TextFold.tokens(p.getSlug()));
+        tokens.addAll(TextFold.tokens(p.getManufacturer()));
+        tokens.addAll(TextFold.tokens(p.getFlavor()));
+        int t = targets.size();
+        targets.add(new Target(
+                SuggestionDTO.builder()
+                        .type(SuggestionDTO.Type.PRODUCT)
+                        .text(p.getProductName())
+                        .slug(p.getSlug())
+                        .primaryImageUrl(p.getPrimaryImageUrl())
+                        .build(),
+                tokens.toArray(String[]::new),
+                sold(p)));
+        productTargets.put(p.getProductId(), t);
+        for (String token : tokens) keys.add(new Key(token, t));
+    }
+
+    /** Přičte produkt ke skupině; novou skupinu založí (cíl doplní volající po sečtení popularity). */
+    private static Group join(Map<String, Group> groups, SuggestionDTO.Type type, String value, long weight, List<Target> targets, List<Key> keys) {
+        String folded = String.join(" ", TextFold.tokens(value));
+        if (folded.isEmpty()) return null;
+        Group g = groups.get(folded);
+        if (g == null) {
+            g = new Group(type, value.trim(), folded.split(" "), targets.size());
+            targets.add(null);
+            groups.put(folded, g);
+            for (String token : g.tokens) keys.add(new Key(token, g.target));
+        }
+        g.popularity += weight;
+        g.products++;
+        return g;
+    }
+
+    private static Group leave(Map<String, Group> groups, String value, long weight) {
+        Group g = groups.get(String.join(" ", TextFold.tokens(value)));
+        if (g == null) return null;
+        g.popularity -= weight;
+        g.products--;
+        return g;
+    }
+
+    private static Target groupTarget(Group g) {
+        return new Target(SuggestionDTO.builder().type(g.type).text(g.text).build(), g.tokens, g.popularity);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        refresher.shutdownNow();
+    }
+}
@@ -0,0 +1,89 @@
+package org.example.eshopbackend.service.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * Verze katalogu pro ETagy – řádek {@code catalog_version} v DB, zvedá se ve stejné transakci
+ * jako zápis produktu, kategorie nebo obrázku. Všechny uzly tak mají pro stejná data stejný ETag.
+ * Uzel si verzi drží v paměti a z DB ji čte nejvýš jednou za {@code catalog.version.poll-ms};
+ * když ji zvedl jiný uzel, zahodí nejdřív svou cache odpovědí, aby nový ETag neodešel se starými bajty.
+ * Sklad ({@link StockChangedEvent}) verzi nezvedá – jeden řádek zamčený každou objednávkou by checkouty
+ * seřadil za sebe. ETag proto nese i okno o délce TTL cache, takže počet kusů zastará nejvýš o ně.
+ */
+@Component
+@Slf4j
+public class CatalogVersion {
+
+    private static final String READ = "select version from catalog_version where id = 1";
+    private static final String BUMP = "update catalog_version set version = version + 1 where id = 1";
+
+    private final JdbcTemplate jdbc;
+    private final CatalogResponseCache responseCache;
+    private final long pollMillis;
+    private final long windowMillis; // 0 = ETag bez časového okna
+
+    private volatile long version = System.currentTimeMillis(); // do prvního čtení z DB
+    private volatile boolean known;
+    private volatile long checkedAtMillis;
+
+    public CatalogVersion(JdbcTemplate jdbc,
+                          CatalogResponseCache responseCache,
+                          @Value("${catalog.version.poll-ms:1000}") long pollMillis,
+                          @Value("${catalog.cache.ttl-minutes:5}") long ttlMinutes) {
+        this.jdbc = jdbc;
+        this.responseCache = responseCache;
+        this.pollMillis = Math.max(0, pollMillis);
+        this.windowMillis = Math.max(0, ttlMinutes) * 60_000;
+    }
+
+    public long current() {
+        if (!known || System.currentTimeMillis() - checkedAtMillis >= pollMillis) reload(false);
+        return version;
+    }
+
+    /** Verze a okno skladu – mění se se zápisem do katalogu i po uplynutí okna (sklad). */
+    public String stamp() {
+        long version = current();
+        return windowMillis == 0 ? Long.toString(version) : version + "." + System.currentTimeMillis() / windowMillis;
+    }
+
+    /** Silný ETag (včetně uvozovek) pro aktuální verzi a okno skladu. */
+    public String etag() {
+        return "\"c" + stamp() + "\"";
+    }
+
+    private synchronized void reload(boolean ownWrite) {
+        try {
+            Long stored = jdbc.queryForObject(READ, Long.class);
+            checkedAtMillis = System.currentTimeMillis();
+            if (stored == null || (known && stored == version)) return;
+            // změna z jiného uzlu – jeho invalidace sem nedorazila (vlastní zápis už cache vyhodil)
+            if (known && !ownWrite) responseCache.invalidateAll();
+            version = stored;
+            known = true;
+        } catch (RuntimeException e) {
+            log.warn("Verzi katalogu nejde načíst, platí poslední známá: {}", e.getMessage());
+            checkedAtMillis = System.currentTimeMillis();
+        }
+    }
+
+    // ve stejné transakci jako zápis – verze nikdy nepředběhne commitnutá data
+    @TransactionalEventListener(phase = TransactionPhase.BEFORE_COMMIT, fallbackExecution = true)
+    public void bump(CatalogChangedEvent event) {
+        jdbc.update(BUMP);
+    }
+
+    // až po vyhození CatalogResponseCache – jinak by nová verze mohla odejít se starými bajty z cache
+    @Order(Ordered.LOWEST_PRECEDENCE)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        reload(true); // vlastní zápis: novou verzi přečíst hned
+    }
+}
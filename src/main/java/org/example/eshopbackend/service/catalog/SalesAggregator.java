@@ -0,0 +1,252 @@
+package org.example.eshopbackend.service.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.dto.ProductResponseDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.mapper.ProductMapper;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.repository.OrderItemRepository;
+import org.example.eshopbackend.repository.OrderRepository;
+import org.example.eshopbackend.service.OrderStatusChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+
+/**
+ * Bestsellery a "často kupováno společně" z paměti. Drží prodané kusy po produktech a řídkou matici
+ * společných nákupů (počet objednávek, kde byly oba produkty). Nové objednávky se přičítají po dávkách
+ * za watermarkem (poslední zpracované id), zrušení/obnovení objednávky se odečte/přičte podle události –
+ * jen podle množiny opravdu započtených objednávek, takže už přeskočená zrušená se neodečte podruhé.
+ * Žebříčky se přepočítají po každé změně, dotaz je jen čtení hotového seznamu.
+ * Smazané objednávky se projeví až po {@link #rebuild()}.
+ */
+@Component
+@Slf4j
+public class SalesAggregator {
+
+    public static final int MAX_LIMIT = 50;
+    private static final int BATCH_SIZE = 500;
+
+    private final OrderRepository orderRepo;
+    private final OrderItemRepository orderItemRepo;
+    private final CatalogProductRepository catalogRepo;
+    private final ProductMapper productMapper;
+    private final Duration settleDelay;
+
+    // ---- počítadla (pod zámkem this) ----
+    private final Map<Long, Long> units = new HashMap<>();
+    private final Map<Long, Map<Long, Integer>> together = new HashMap<>();
+    private final Map<Long, Row> products = new HashMap<>();
+    private final Set<Long> counted = new HashSet<>(); // započtené objednávky do watermarku
+    private long watermark;
+    private boolean loaded;
+
+    // null = ještě nenačteno (načte se líně při prvním dotazu)
+    private volatile Ranking ranking;
+
+    public SalesAggregator(OrderRepository orderRepo,
+                           OrderItemRepository orderItemRepo,
+                           CatalogProductRepository catalogRepo,
+                           ProductMapper productMapper,
+                           @Value("${catalog.sales.settle-seconds:30}") long settleSeconds) {
+        this.orderRepo = orderRepo;
+        this.orderItemRepo = orderItemRepo;
+        this.catalogRepo = catalogRepo;
+        this.productMapper = productMapper;
+        this.settleDelay = Duration.ofSeconds(settleSeconds);
+    }
+
+    private record Row(ProductResponseDTO dto, String categorySlug) {}
+
+    /** Hotové žebříčky (neměnné), nejvýš {@link #MAX_LIMIT} položek. */
+    private record Ranking(List<ProductResponseDTO> overall,
+                           Map<String, List<ProductResponseDTO>> byCategory,
+                           Map<Long, List<ProductResponseDTO>> alsoBought) {}
+
+    /* ====== dotazy ====== */
+
+    /** Nejprodávanější skladem; {@code categorySlug} null = celý katalog. */
+    public List<ProductResponseDTO> bestsellers(String categorySlug, int limit) {
+        Ranking r = ranking();
+        List<ProductResponseDTO> list = categorySlug == null || categorySlug.isBlank()
+                ? r.overall()
+                : r.byCategory().getOrDefault(categorySlug, List.of());
+        return head(list, limit);
+    }
+
+    /** Co se nejčastěji kupovalo ve stejné objednávce s daným produktem. */
+    public List<ProductResponseDTO> boughtTogether(Long productId, int limit) {
+        return head(ranking().alsoBought().getOrDefault(productId, List.of()), limit);
+    }
+
+    private static List<ProductResponseDTO> head(List<ProductResponseDTO> list, int limit) {
+        int n = Math.max(1, Math.min(limit, MAX_LIMIT));
+        return list.size() <= n ? list : list.subList(0, n);
+    }
+
+    /* ====== údržba ====== */
+
+    private Ranking ranking() {
+        Ranking r = ranking;
+        if (r != null) return r;
+        synchronized (this) {
+            if (ranking == null) rebuild();
+            return ranking;
+        }
+    }
+
+    /** Spočítá vše znovu od nuly (katalog i všechny objednávky). */
+    public synchronized void rebuild() {
+        units.clear();
+        together.clear();
+        products.clear();
+        counted.clear();
+        watermark = 0L;
+        catalogRepo.findAll().forEach(this::putProduct);
+        int orders = catchUp();
+        loaded = true;
+        recompute();
+        log.info("Statistiky prodejů načteny: {} objednávek, {} produktů s prodejem", orders, units.size());
+    }
+
+    // nové objednávky po dávkách; nic se nečte znovu
+    @Scheduled(fixedDelayString = "${catalog.sales.poll-ms:60000}", initialDelayString = "${catalog.sales.poll-ms:60000}")
+    public synchronized void poll() {
+        if (!loaded) return; // ještě nikdo nečetl, načte se líně
+        if (catchUp() > 0) recompute();
+    }
+
+    /** Přičte usazené objednávky za watermarkem; vrací jejich počet. */
+    private int catchUp() {
+        Instant settledBefore = Instant.now().minus(settleDelay);
+        int processed = 0;
+        while (true) {
+            List<Long> ids = orderRepo.findSettledIdsAfter(watermark, settledBefore, PageRequest.of(0, BATCH_SIZE));
+            if (ids.isEmpty()) break;
+            apply(orderItemRepo.findSalesLines(ids), 1);
+            counted.addAll(ids);
+            watermark = ids.get(ids.size() - 1);
+            processed += ids.size();
+            if (ids.size() < BATCH_SIZE) break;
+        }
+        return processed;
+    }
+
+    // zrušená objednávka se odečte, obnovená přičte; novější než watermark vyřeší poll
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onOrderStatusChanged(OrderStatusChangedEvent event) {
+        if (!loaded || event.orderId() > watermark) return;
+        int sign;
+        if (event.canceled() && counted.remove(event.orderId())) sign = -1;
+        else if (event.reopened() && counted.add(event.orderId())) sign = 1;
+        else return; // nezapočtená se neodečítá, započtená se nepřičítá znovu
+        apply(orderItemRepo.findSalesLines(List.of(event.orderId())), sign);
+        recompute();
+    }
+
+    // dřív než CatalogVersion zvedne verzi (ETag)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 4)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public synchronized void onCatalogChanged(CatalogChangedEvent event) {
+        if (!loaded) return;
+        switch (event.kind()) {
+            case PRODUCT, IMAGE -> {
+                event.productIds().forEach(products::remove);
+                catalogRepo.findAllById(event.productIds()).forEach(this::putProduct);
+            }
+            case CATEGORY, REBUILD -> {
+                products.clear();
+                catalogRepo.findAll().forEach(this::putProduct);
+            }
+        }
+        recompute();
+    }
+
+    // sklad po objednávce: přepsat počet kusů; žebříčky přepočítat, jen když se změnilo "skladem"
+    // (počty kusů v hotových žebříčcích srovná nejbližší poll, který objednávku stejně započte)
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public synchronized void onStockChanged(StockChangedEvent event) {
+        if (!loaded) return;
+        boolean flipped = false;
+        for (Map.Entry<Long, Integer> e : event.amounts().entrySet()) {
+            Row row = products.get(e.getKey());
+            if (row == null) continue;
+            boolean wasAvailable = available(e.getKey());
+            products.put(e.getKey(), new Row(row.dto().toBuilder().amount(e.getValue()).build(), row.categorySlug()));
+            flipped |= wasAvailable != available(e.getKey());
+        }
+        if (flipped) recompute();
+    }
+
+    private void putProduct(CatalogProduct p) {
+        products.put(p.getProductId(), new Row(productMapper.toDto(p), p.getCategorySlug()));
+    }
+
+    private void apply(List<OrderItemRepository.SalesLine> lines, int sign) {
+        Map<Long, Set<Long>> byOrder = new HashMap<>();
+        for (OrderItemRepository.SalesLine line : lines) {
+            long delta = (long) sign * (line.getUnits() == null ? 0 : line.getUnits());
+            units.merge(line.getProductId(), delta, Long::sum);
+            if (units.get(line.getProductId()) <= 0) units.remove(line.getProductId());
+            byOrder.computeIfAbsent(line.getOrderId(), k -> new HashSet<>()).add(line.getProductId());
+        }
+        for (Set<Long> basket : byOrder.values()) {
+            for (Long a : basket) {
+                for (Long b : basket) {
+                    if (a.equals(b)) continue;
+                    Map<Long, Integer> row = together.computeIfAbsent(a, k -> new HashMap<>());
+                    if (row.merge(b, sign, Integer::sum) <= 0) row.remove(b);
+                    if (row.isEmpty()) together.remove(a);
+                }
+            }
+        }
+    }
+
+    /** Přepočte hotové žebříčky; jen produkty v katalogu a skladem. */
+    private void recompute() {
+        Comparator<Long> byUnits = Comparator.comparing((Long id) -> units.getOrDefault(id, 0L)).reversed()
+                .thenComparing(Comparator.naturalOrder());
+
+        List<Long> sold = units.keySet().stream().filter(this::available).sorted(byUnits).toList();
+        List<ProductResponseDTO> overall = new ArrayList<>();
+        Map<String, List<ProductResponseDTO>> byCategory = new HashMap<>();
+        for (Long id : sold) {
+            Row row = products.get(id);
+            if (overall.size() < MAX_LIMIT) overall.add(row.dto());
+            List<ProductResponseDTO> cat = byCategory.computeIfAbsent(row.categorySlug(), k -> new ArrayList<>());
+            if (cat.size() < MAX_LIMIT) cat.add(row.dto());
+        }
+
+        Map<Long, List<ProductResponseDTO>> alsoBought = new HashMap<>();
+        together.forEach((a, row) -> {
+            List<ProductResponseDTO> top = row.keySet().stream()
+                    .filter(this::available)
+                    .sorted(Comparator.comparing((Long b) -> row.get(b)).reversed().thenComparing(byUnits))
+                    .limit(MAX_LIMIT)
+                    .map(b -> products.get(b).dto())
+                    .toList();
+            if (!top.isEmpty()) alsoBought.put(a, top);
+        });
+
+        byCategory.replaceAll((k, v) -> List.copyOf(v));
+        ranking = new Ranking(List.copyOf(overall), Map.copyOf(byCategory), Map.copyOf(alsoBought));
+    }
+
+    private boolean available(Long productId) {
+        Row row = products.get(productId);
+        return row != null && row.dto().getAmount() != null && row.dto().getAmount() > 0;
+    }
+}
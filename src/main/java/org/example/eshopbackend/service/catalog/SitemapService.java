@@ -0,0 +1,314 @@
+package org.example.eshopbackend.service.catalog;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.config.StorefrontProps;
+import org.example.eshopbackend.entity.Category;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.repository.CatalogProductRepository.SitemapEntry;
+import org.example.eshopbackend.repository.CategoryRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.stereotype.Service;
+
+import jakarta.annotation.PreDestroy;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.time.OffsetDateTime;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sitemapa webu na disku: gzipované části po nejvýš 50 000 URL ({@code sitemap-<generace>-<n>.xml.gz})
+ * a index ({@code sitemap-<generace>.xml}), který na ně odkazuje. Generuje se na pozadí po startu
+ * a s odstupem po změnách katalogu (víc změn za sebou = jedno přegenerování), požadavek crawleru
+ * jen posílá hotový soubor. Slugy se čtou kurzorem, paměť nezávisí na velikosti katalogu.
+ */
+@Service
+@Slf4j
+public class SitemapService {
+
+    public static final int MAX_URLS_PER_SHARD = 50_000;
+    private static final String NS = "http://www.sitemaps.org/schemas/sitemap/0.9";
+    private static final long KEEP_PREVIOUS_MS = 10 * 60 * 1000L;
+    private static final XMLOutputFactory XML = XMLOutputFactory.newFactory();
+
+    private final CatalogProductRepository catalogRepo;
+    private final CategoryRepository categoryRepo;
+    private final StorefrontProps storefront;
+    private final TransactionTemplate tx;
+    private final Path dir;
+    private final int urlsPerShard;
+    private final long debounceSeconds;
+
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "sitemap-generator");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+
+    // null = ještě nevygenerováno
+    private volatile Generation current;
+
+    public SitemapService(CatalogProductRepository catalogRepo,
+                          CategoryRepository categoryRepo,
+                          StorefrontProps storefront,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${catalog.sitemap.dir:./data/sitemap}") String dir,
+                          @Value("${catalog.sitemap.urls-per-shard:50000}") int urlsPerShard,
+                          @Value("${catalog.sitemap.debounce-seconds:60}") long debounceSeconds) {
+        this.catalogRepo = catalogRepo;
+        this.categoryRepo = categoryRepo;
+        this.storefront = storefront;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.tx.setReadOnly(true);
+        this.dir = Path.of(dir).toAbsolutePath().normalize();
+        this.urlsPerShard = Math.max(1, Math.min(urlsPerShard, MAX_URLS_PER_SHARD));
+        this.debounceSeconds = debounceSeconds;
+    }
+
+    /** Jedna hotová sada souborů; id = čas vygenerování v ms (unikátní v rámci adresáře). */
+    public record Generation(long id, int shards, int urls, Instant generatedAt) {}
+
+    /* ====== čtení ====== */
+
+    /** Aktuální generace; jen úplně první požadavek před doběhnutím startovního generování počká. */
+    public Generation current() {
+        Generation g = current;
+        if (g != null) return g;
+        synchronized (this) {
+            if (current == null) regenerate();
+            return current;
+        }
+    }
+
+    public Path indexFile(Generation g) {
+        return dir.resolve("sitemap-" + g.id() + ".xml");
+    }
+
+    /** Část 1..shards; mimo rozsah → null. */
+    public Path shardFile(Generation g, int shard) {
+        if (shard < 1 || shard > g.shards()) return null;
+        return dir.resolve(shardName(g.id(), shard));
+    }
+
+    private static String shardName(long id, int shard) {
+        return "sitemap-" + id + "-" + shard + ".xml.gz";
+    }
+
+    /* ====== přegenerování ====== */
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onStartup() {
+        schedule(0);
+    }
+
+    // odstup, aby import/hromadná úprava nespustila generování po každé dávce
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        schedule(debounceSeconds);
+    }
+
+    private void schedule(long delaySeconds) {
+        if (!scheduled.compareAndSet(false, true)) return;
+        executor.schedule(() -> {
+            scheduled.set(false); // změna během generování naplánuje další běh
+            try {
+                regenerate();
+            } catch (RuntimeException e) {
+                log.warn("Generování sitemapy selhalo: {}", e.getMessage(), e);
+            }
+        }, delaySeconds, TimeUnit.SECONDS);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /** Vygeneruje novou sadu souborů a přepne na ni. */
+    public synchronized Generation regenerate() {
+        long id = System.currentTimeMillis();
+        if (current != null && id <= current.id()) id = current.id() + 1;
+        long started = System.nanoTime();
+
+        List<Path> written = new ArrayList<>();
+        try {
+            Files.createDirectories(dir);
+            final long generationId = id;
+            Integer urls = tx.execute(status -> writeShards(generationId, written));
+            Generation g = new Generation(id, written.size(), urls == null ? 0 : urls, Instant.ofEpochMilli(id));
+            writeIndex(g);
+            current = g;
+            log.info("Sitemapa vygenerována: {} URL v {} částech, {} ms", g.urls(), g.shards(),
+                    (System.nanoTime() - started) / 1_000_000);
+            deleteOlderGenerations(g);
+            return g;
+        } catch (IOException | XMLStreamException e) {
+            written.forEach(SitemapService::deleteQuietly);
+            throw new IllegalStateException("Zápis sitemapy selhal", e);
+        } catch (RuntimeException e) {
+            written.forEach(SitemapService::deleteQuietly);
+            throw e;
+        }
+    }
+
+    // úvodní stránka, kategorie, produkty; po urlsPerShard se začne nová část
+    private int writeShards(long id, List<Path> written) {
+        try (Stream<SitemapEntry> products = catalogRepo.streamSitemapEntries()) {
+            ShardWriter shard = null;
+            int total = 0;
+            try {
+                shard = openShard(id, written);
+                shard.url(storefront.getBaseUrl() + "/", null);
+                total++;
+
+                for (Category c : categoryRepo.findAllOrdered()) {
+                    if (c.getSlug() == null || c.getSlug().isBlank()) continue;
+                    if (shard.count == urlsPerShard) { shard.close(); shard = openShard(id, written); }
+                    shard.url(storefront.categoryUrl(c.getSlug()), null);
+                    total++;
+                }
+
+                Iterator<SitemapEntry> it = products.iterator();
+                while (it.hasNext()) {
+                    SitemapEntry e = it.next();
+                    if (shard.count == urlsPerShard) { shard.close(); shard = openShard(id, written); }
+                    shard.url(storefront.productUrl(e.getSlug()), e.getRefreshedAt());
+                    total++;
+                }
+                shard.close();
+                shard = null;
+                return total;
+            } finally {
+                if (shard != null) shard.abort();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } catch (XMLStreamException e) {
+            throw new IllegalStateException("Zápis sitemapy selhal", e);
+        }
+    }
+
+    private ShardWriter openShard(long id, List<Path> written) throws IOException, XMLStreamException {
+        Path file = dir.resolve(shardName(id, written.size() + 1));
+        written.add(file);
+        return new ShardWriter(file);
+    }
+
+    private void writeIndex(Generation g) throws IOException, XMLStreamException {
+        Path file = indexFile(g);
+        Path tmp = Files.createTempFile(dir, "sitemap-index", ".tmp");
+        try {
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+                XMLStreamWriter xml = XML.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+                xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+                xml.writeStartElement("sitemapindex");
+                xml.writeDefaultNamespace(NS);
+                String base = storefront.getApiBaseUrl() + "/api/catalog/";
+                for (int n = 1; n <= g.shards(); n++) {
+                    xml.writeStartElement("sitemap");
+                    element(xml, "loc", base + "sitemap-" + n + ".xml.gz");
+                    element(xml, "lastmod", g.generatedAt().toString());
+                    xml.writeEndElement();
+                }
+                xml.writeEndElement();
+                xml.writeEndDocument();
+                xml.close();
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    // starší generace mažeme až po chvíli – crawler mohl stáhnout index těsně před přepnutím
+    private void deleteOlderGenerations(Generation g) {
+        long cutoff = System.currentTimeMillis() - KEEP_PREVIOUS_MS;
+        String prefix = "sitemap-" + g.id();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "sitemap-*")) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                boolean ours = name.equals(prefix + ".xml") || name.startsWith(prefix + "-");
+                if (!ours && Files.getLastModifiedTime(f).toMillis() < cutoff) Files.deleteIfExists(f);
+            }
+        } catch (IOException e) {
+            log.warn("Starší sitemapy nejde smazat: {}", e.getMessage());
+        }
+    }
+
+    private static void element(XMLStreamWriter xml, String name, String value) throws XMLStreamException {
+        xml.writeStartElement(name);
+        xml.writeCharacters(value);
+        xml.writeEndElement();
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // nevadí, uklidí deleteOlderGenerations
+        }
+    }
+
+    /** Jedna gzipovaná část {@code <urlset>}. */
+    private static final class ShardWriter {
+        private final OutputStream out;
+        private final XMLStreamWriter xml;
+        int count;
+
+        ShardWriter(Path file) throws IOException, XMLStreamException {
+            this.out = new GZIPOutputStream(new BufferedOutputStream(Files.newOutputStream(file)), 64 * 1024);
+            this.xml = XML.createXMLStreamWriter(out, StandardCharsets.UTF_8.name());
+            xml.writeStartDocument(StandardCharsets.UTF_8.name(), "1.0");
+            xml.writeStartElement("urlset");
+            xml.writeDefaultNamespace(NS);
+        }
+
+        void url(String loc, OffsetDateTime lastmod) throws XMLStreamException {
+            xml.writeStartElement("url");
+            element(xml, "loc", loc);
+            if (lastmod != null) element(xml, "lastmod", lastmod.toLocalDate().toString());
+            xml.writeEndElement();
+            count++;
+        }
+
+        void close() throws IOException, XMLStreamException {
+            xml.writeEndElement();
+            xml.writeEndDocument();
+            xml.close(); // nezavírá podkladový stream
+            out.close();
+        }
+
+        void abort() {
+            try {
+                out.close();
+            } catch (IOException ignored) {
+                // soubor se smaže
+            }
+        }
+    }
+}
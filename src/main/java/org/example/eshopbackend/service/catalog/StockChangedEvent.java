@@ -0,0 +1,15 @@
+package org.example.eshopbackend.service.catalog;
+
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Změna skladu při objednávce / jejím zrušení – jen nové počty kusů, nic jiného se na produktu nemění.
+ * Read model ({@code catalog_products.amount}) už upravil stejný SQL příkaz, proto to není
+ * {@link CatalogChangedEvent}: indexy se nepřestavují, jen si posluchači přepíšou počet kusů.
+ *
+ * @param amounts productId → kusy skladem po změně
+ * @param slugs   slugy dotčených produktů (klíče cache detailu)
+ */
+public record StockChangedEvent(Map<Long, Integer> amounts, Set<String> slugs) {
+}
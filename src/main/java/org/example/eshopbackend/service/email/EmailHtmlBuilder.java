@@ -85,6 +85,17 @@ public class EmailHtmlBuilder {
                 escape(orEmpty(o.getShipPostalCode())), escape(orEmpty(o.getShipCity())), escape(orEmpty(o.getShipCountryCode())), (StringUtils.hasText(o.getCustomerPhone()) ? "<p style=\"margin:0\">Tel: " + escape(o.getCustomerPhone()) + "</p>" : ""), sellerBlockHtml());
     }
 
+    public String buildOrderExpiredHtml(OrderEntity o) {
+        return """
+          <div style="font-family:system-ui,-apple-system,Segoe UI,Roboto,Arial,sans-serif;line-height:1.45;color:#222">
+            <h2 style="margin:0 0 8px 0">Objednávka byla zrušena</h2>
+            <p style="margin:4px 0">K objednávce č. <b>%s</b> v celkové částce <b>%s</b> jsme v dané lhůtě neobdrželi platbu, proto jsme ji zrušili a zboží uvolnili.</p>
+            <p style="margin:4px 0">Pokud jste platbu mezitím odeslali, ozvěte se nám prosím – vše vyřešíme.</p>
+            <hr style="margin:20px 0;border:none;border-top:1px solid #eee" /><h4 style="margin:0 0 6px 0">Kontakt prodejce</h4>%s
+          </div>
+        """.formatted(escape(o.getOrderNumber()), fmtCzk(safeLong(o.getTotalCzk())), sellerBlockHtml());
+    }
+
     public String buildHandoverHtml(OrderEntity o, String trackingNumber, String trackingUrl) {
         String trackingRow = "";
         if (StringUtils.hasText(trackingNumber)) trackingRow += "<p style=\"margin:4px 0\"><b>Sledovací číslo:</b> " + escape(trackingNumber) + "</p>";
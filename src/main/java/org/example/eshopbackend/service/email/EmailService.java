@@ -118,6 +118,17 @@ public class EmailService {
         } catch (Exception e) { throw new RuntimeException("Nepodařilo se poslat potvrzení o platbě", e); }
     }
 
+    public void sendOrderExpired(OrderEntity order) {
+        try {
+            MimeMessage message = mailSender.createMimeMessage();
+            MimeMessageHelper helper = new MimeMessageHelper(message, false, StandardCharsets.UTF_8.name());
+            helper.setFrom(senderEmail); helper.setTo(order.getCustomerEmail()); helper.setBcc(senderEmail);
+            helper.setSubject("Objednávka č. " + order.getOrderNumber() + " byla zrušena – platba nedorazila");
+            helper.setText(htmlBuilder.buildOrderExpiredHtml(order), true);
+            mailSender.send(message);
+        } catch (Exception e) { throw new RuntimeException("Nepodařilo se poslat e-mail o zrušení objednávky", e); }
+    }
+
     private void attachTermsIfPresent(MimeMessageHelper helper) {
         try {
             Resource res = new ClassPathResource(termsClasspath);
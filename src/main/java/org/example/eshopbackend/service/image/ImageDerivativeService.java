@@ -0,0 +1,215 @@
+package org.example.eshopbackend.service.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.entity.Image;
+import org.example.eshopbackend.entity.ImageDerivativeStatus;
+import org.example.eshopbackend.repository.ImageRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.util.ImageResizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.awt.Dimension;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+/**
+ * Zmenšeniny nahraných obrázků na pozadí: pevná řada šířek do {@code static/images/derivatives}
+ * (servíruje je /static s neměnným cachováním), rozměry a velikost originálu a 16px náhled
+ * jako data URI. Upload se vrací hned se stavem PENDING, průběh je vidět v {@code derivativeStatus}.
+ * Po restartu se dokončí rozpracované a doplní starší obrázky.
+ */
+@Service
+@Slf4j
+public class ImageDerivativeService {
+
+    /** Podmnožina {@link ImageVariantService#WIDTHS}, aby resize endpoint trefil hotové soubory. */
+    public static final int[] WIDTHS = {200, 480, 800, 1280};
+    public static final String DIR = "derivatives";
+    public static final String LOCAL_PREFIX = "/static/images/";
+    private static final int PLACEHOLDER_WIDTH = 16;
+    private static final int PLACEHOLDER_QUALITY = 50;
+    private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+
+    private final ImageRepository imageRepository;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final Path originals;
+    private final ExecutorService executor;
+
+    public ImageDerivativeService(ImageRepository imageRepository,
+                                  ApplicationEventPublisher events,
+                                  PlatformTransactionManager transactionManager,
+                                  @Value("${images.dir:./static/images}") String originals,
+                                  @Value("${images.derivatives.threads:1}") int threads) {
+        this.imageRepository = imageRepository;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.originals = Path.of(originals).toAbsolutePath().normalize();
+        AtomicInteger n = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "image-derivatives-" + n.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** Jméno souboru u lokálně nahraného obrázku ({@code /static/images/<soubor>}), jinak null. */
+    public static String localFilename(String url) {
+        if (url == null || !url.startsWith(LOCAL_PREFIX)) return null;
+        String name = url.substring(LOCAL_PREFIX.length());
+        return name.isEmpty() || name.contains("/") || name.contains("\\") || name.startsWith(".") ? null : name;
+    }
+
+    /** Veřejná URL zmenšeniny o dané šířce (stejné jméno, jaké hledá resize endpoint). */
+    public static String derivativeUrl(String url, int width) {
+        String filename = localFilename(url);
+        String name = filename == null ? null
+                : ImageVariantService.variantName(filename, width, ImageVariantService.DEFAULT_QUALITY);
+        return name == null ? null : LOCAL_PREFIX + DIR + "/" + name;
+    }
+
+    /* ====== fronta ====== */
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onImageStored(ImageStoredEvent event) {
+        submit(event.imageId());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void resumePending() {
+        List<Long> ids = imageRepository.findIdsNeedingDerivatives(
+                List.of(ImageDerivativeStatus.PENDING, ImageDerivativeStatus.PROCESSING));
+        if (!ids.isEmpty()) log.info("Zmenšeniny obrázků: {} ve frontě po startu", ids.size());
+        ids.forEach(this::submit);
+    }
+
+    private void submit(Long imageId) {
+        executor.execute(() -> {
+            try {
+                process(imageId);
+            } catch (RuntimeException e) {
+                log.warn("Zmenšeniny obrázku {} selhaly: {}", imageId, e.getMessage(), e);
+            }
+        });
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdownNow();
+    }
+
+    /* ====== zpracování ====== */
+
+    private record Result(Integer width, Integer height, Long byteSize, String variantWidths, String placeholder) {}
+
+    /** Vygeneruje zmenšeniny jednoho obrázku a zapíše výsledek (volá se z fronty). */
+    public void process(Long imageId) {
+        String url = tx.execute(status -> imageRepository.findById(imageId).map(img -> {
+            img.setDerivativeStatus(ImageDerivativeStatus.PROCESSING);
+            return img.getUrl();
+        }).orElse(null));
+        if (url == null) return; // mezitím smazán
+
+        // stejný soubor (obsahově adresovaný) už jednou zpracovaný → jen převzít výsledek
+        Result result = tx.execute(status -> imageRepository
+                .findFirstByUrlAndDerivativeStatusAndImageIdNot(url, ImageDerivativeStatus.READY, imageId)
+                .map(done -> new Result(done.getWidth(), done.getHeight(), done.getByteSize(),
+                        done.getVariantWidths(), done.getPlaceholder()))
+                .orElse(null));
+        try {
+            if (result == null) result = generate(url);
+        } catch (IOException | RuntimeException e) {
+            log.warn("Obrázek {} ({}) nejde zpracovat: {}", imageId, url, e.getMessage());
+            finish(imageId, url, img -> img.setDerivativeStatus(ImageDerivativeStatus.FAILED));
+            return;
+        }
+        Result done = result;
+        finish(imageId, url, img -> {
+            img.setWidth(done.width());
+            img.setHeight(done.height());
+            img.setByteSize(done.byteSize());
+            img.setVariantWidths(done.variantWidths());
+            img.setPlaceholder(done.placeholder());
+            img.setDerivativeStatus(ImageDerivativeStatus.READY);
+        });
+    }
+
+    // zápis jen pokud URL mezitím nikdo nezměnil (nová URL = nová událost a nové zpracování)
+    private void finish(Long imageId, String url, Consumer<Image> update) {
+        tx.executeWithoutResult(status -> imageRepository.findById(imageId).ifPresent(img -> {
+            if (!url.equals(img.getUrl())) return;
+            update.accept(img);
+            events.publishEvent(CatalogChangedEvent.image(img.getProduct().getProductId(), img.getProduct().getSlug()));
+        }));
+    }
+
+    private Result generate(String url) throws IOException {
+        String filename = localFilename(url);
+        if (filename == null) throw new IOException("Obrázek není uložený lokálně");
+        Path original = originals.resolve(filename);
+        long byteSize = Files.size(original);
+
+        Dimension size = ImageResizer.size(original);
+        if (size == null) {
+            // WebP: ImageIO ho nepřečte, známe jen velikost souboru
+            return new Result(null, null, byteSize, null, null);
+        }
+
+        List<Integer> widths = new ArrayList<>();
+        for (int w : WIDTHS) if (w < size.width) widths.add(w);
+        boolean resizable = ImageVariantService.variantName(filename, 1, 1) != null; // GIF jen náhled
+
+        // dekódovat jednou, podvzorkovaně na největší potřebnou šířku; menší se řetězí od větších
+        int largest = widths.isEmpty() || !resizable ? PLACEHOLDER_WIDTH : widths.get(widths.size() - 1);
+        BufferedImage current = ImageResizer.read(original, largest, MAX_SOURCE_PIXELS);
+        if (current == null) throw new IOException("Obrázek nejde přečíst");
+
+        if (resizable) {
+            Path dir = Files.createDirectories(originals.resolve(DIR));
+            String format = filename.toLowerCase(Locale.ROOT).endsWith(".png") ? "png" : "jpeg";
+            for (int i = widths.size() - 1; i >= 0; i--) {
+                int w = widths.get(i);
+                current = ImageResizer.scaleToWidth(current, w);
+                Path target = dir.resolve(ImageVariantService.variantName(filename, w, ImageVariantService.DEFAULT_QUALITY));
+                Path tmp = Files.createTempFile(dir, "derivative", ".tmp");
+                try {
+                    ImageResizer.write(current, format, ImageVariantService.DEFAULT_QUALITY, tmp);
+                    Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+                } finally {
+                    Files.deleteIfExists(tmp);
+                }
+            }
+        } else {
+            widths.clear();
+        }
+
+        byte[] tiny = ImageResizer.jpegBytes(ImageResizer.scaleToWidth(current, PLACEHOLDER_WIDTH), PLACEHOLDER_QUALITY);
+        String placeholder = "data:image/jpeg;base64," + Base64.getEncoder().encodeToString(tiny);
+
+        String variantWidths = widths.isEmpty() ? null
+                : widths.stream().map(Objects::toString).collect(Collectors.joining(","));
+        return new Result(size.width, size.height, byteSize, variantWidths, placeholder);
+    }
+}
@@ -0,0 +1,461 @@
+package org.example.eshopbackend.service.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.entity.ImageDerivativeStatus;
+import org.example.eshopbackend.entity.Product;
+import org.example.eshopbackend.exception.NotFoundException;
+import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.util.LimitedInputStream;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.http.HttpStatus;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+
+/**
+ * Hromadný import fotek ze ZIPu. Archiv přijde jako tělo requestu ({@code application/zip}, ne multipart –
+ * globální limit uploadu zůstává malý), proudem se uloží na disk do {@code images.import.max-bytes}
+ * a zpracuje na pozadí: položky se čtou
+ * po jedné přímo z archivu (nic se nerozbaluje celé), kontrola obsahu, SHA-256 a uložení běží
+ * v omezeném poolu vláken, řádky {@code images} se vloží JDBC dávkami v jedné transakci.
+ * Průběh a výsledek po souborech vrací {@link #status(String)}.
+ * <p>
+ * Přiřazení k produktu: {@code manifest.csv} v kořeni archivu ({@code soubor;slug;alt}), jinak
+ * složka = slug ({@code protein-vanilka/1.jpg}) nebo jméno souboru = slug ({@code protein-vanilka-2.jpg}).
+ */
+@Service
+@Slf4j
+public class ImageImportService {
+
+    public static final String MANIFEST = "manifest.csv";
+    private static final Set<String> ALLOWED_EXT = Set.of("png", "jpg", "jpeg", "webp", "gif");
+    private static final long MAX_ENTRY_BYTES = 10L * 1024 * 1024; // stejně jako jednotlivý upload
+    private static final int MAX_ENTRIES = 10_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int KEEP_JOBS = 20;
+    private static final Pattern NUMBER_SUFFIX = Pattern.compile("[-_]\\d+$");
+
+    private static final String INSERT = """
+            insert into images (product_id, url, alt_text, is_primary, sort_order, derivative_status, created_at)
+            values (?, ?, ?, ?, ?, ?, now())
+            """;
+
+    private final ProductRepository productRepository;
+    private final ImageStorage imageStorage;
+    private final JdbcTemplate jdbc;
+    private final ApplicationEventPublisher events;
+    private final TransactionTemplate tx;
+    private final Path workDir;
+    private final int threads;
+    private final long maxArchiveBytes;
+
+    // importy jdou za sebou, každý má vlastní pool pro soubory
+    private final ExecutorService coordinator = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "image-import");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // posledních KEEP_JOBS importů (pod zámkem jobs)
+    private final LinkedHashMap<String, Job> jobs = new LinkedHashMap<>() {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+            return size() > KEEP_JOBS;
+        }
+    };
+
+    public ImageImportService(ProductRepository productRepository,
+                              ImageStorage imageStorage,
+                              JdbcTemplate jdbc,
+                              ApplicationEventPublisher events,
+                              PlatformTransactionManager transactionManager,
+                              @Value("${images.import.dir:./data/image-import}") String workDir,
+                              @Value("${images.import.threads:4}") int threads,
+                              @Value("${images.import.max-bytes:536870912}") long maxArchiveBytes) {
+        this.productRepository = productRepository;
+        this.imageStorage = imageStorage;
+        this.jdbc = jdbc;
+        this.events = events;
+        this.tx = new TransactionTemplate(transactionManager);
+        this.workDir = Path.of(workDir).toAbsolutePath().normalize();
+        this.threads = Math.max(1, threads);
+        this.maxArchiveBytes = maxArchiveBytes;
+    }
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    public enum Outcome { IMPORTED, DUPLICATE, SKIPPED, FAILED }
+
+    public record Item(String entry, String slug, Outcome outcome, String url, String message) {}
+
+    public record Report(String id, State state, int total, int processed,
+                         int imported, int duplicates, int skipped, int failed,
+                         Instant startedAt, Instant finishedAt, String message, List<Item> items) {}
+
+    /* ====== API ====== */
+
+    /**
+     * Uloží archiv z těla requestu na disk a zařadí import; vrací stav QUEUED.
+     * {@code contentLength} -1 = neznámá délka (chunked) – limit hlídá čtení.
+     */
+    public Report start(InputStream body, long contentLength) throws IOException {
+        String tooLarge = "Archiv je příliš velký (limit " + maxArchiveBytes / (1024 * 1024) + " MB)";
+        if (contentLength > maxArchiveBytes) {
+            throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, tooLarge);
+        }
+        Files.createDirectories(workDir);
+        Path file = Files.createTempFile(workDir, "import", ".zip");
+        long size;
+        try {
+            try (InputStream in = new LimitedInputStream(body, maxArchiveBytes, tooLarge)) {
+                size = Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+            } catch (LimitedInputStream.LimitExceededException e) {
+                throw new ResponseStatusException(HttpStatus.PAYLOAD_TOO_LARGE, tooLarge);
+            }
+            if (size == 0) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Soubor je prázdný");
+            }
+            try (ZipFile z = new ZipFile(file.toFile())) {
+                if (z.size() > MAX_ENTRIES) {
+                    throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Archiv má víc než " + MAX_ENTRIES + " položek");
+                }
+            } catch (ZipException e) {
+                throw new ResponseStatusException(HttpStatus.BAD_REQUEST, "Soubor není ZIP");
+            }
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(file);
+            throw e;
+        }
+
+        Job job = new Job(UUID.randomUUID().toString(), file);
+        synchronized (jobs) {
+            jobs.put(job.id, job);
+        }
+        coordinator.execute(() -> run(job));
+        log.info("Import obrázků {} zařazen ({} B)", job.id, size);
+        return job.report();
+    }
+
+    public Report status(String jobId) {
+        Job job;
+        synchronized (jobs) {
+            job = jobs.get(jobId);
+        }
+        if (job == null) throw new NotFoundException("Import not found: " + jobId);
+        return job.report();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        coordinator.shutdownNow();
+    }
+
+    /* ====== běh importu ====== */
+
+    private record Target(String slug, String altText) {}
+
+    private record Stored(String entry, Product product, String url, String altText) {}
+
+    void run(Job job) {
+        job.state = State.RUNNING;
+        job.startedAt = Instant.now();
+        try (ZipFile zip = new ZipFile(job.zip.toFile())) {
+            Map<String, Target> manifest = readManifest(zip);
+            List<? extends ZipEntry> files = zip.stream().filter(ImageImportService::isPayload).toList();
+            job.total = files.size();
+
+            List<Stored> stored = storeAll(job, zip, files, manifest);
+            insert(job, stored);
+
+            job.state = State.DONE;
+            Report r = job.report();
+            log.info("Import obrázků {} hotov: {} nových, {} duplicit, {} přeskočeno, {} chyb",
+                    job.id, r.imported(), r.duplicates(), r.skipped(), r.failed());
+        } catch (Exception e) {
+            if (e instanceof InterruptedException) Thread.currentThread().interrupt();
+            // uložené soubory bez řádku v DB uklidí ImageStorage.sweep() po ochranné lhůtě
+            job.message = e.getMessage();
+            job.state = State.FAILED;
+            log.warn("Import obrázků {} selhal: {}", job.id, e.getMessage(), e);
+        } finally {
+            job.finishedAt = Instant.now();
+            try {
+                Files.deleteIfExists(job.zip);
+            } catch (IOException e) {
+                log.warn("Archiv {} nejde smazat: {}", job.zip, e.getMessage());
+            }
+        }
+    }
+
+    // plná fronta → soubor zpracuje vlákno importu samo, rozpracovaných je tak nejvýš threads * 3
+    private List<Stored> storeAll(Job job, ZipFile zip, List<? extends ZipEntry> files, Map<String, Target> manifest)
+            throws InterruptedException {
+        AtomicInteger n = new AtomicInteger();
+        ThreadPoolExecutor workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(threads * 2), r -> {
+                    Thread t = new Thread(r, "image-import-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }, new ThreadPoolExecutor.CallerRunsPolicy());
+        Map<String, Optional<Product>> products = new HashMap<>();
+        List<Future<Stored>> pending = new ArrayList<>();
+        try {
+            for (ZipEntry entry : files) {
+                if (!ALLOWED_EXT.contains(extension(entry.getName()))) {
+                    job.add(new Item(entry.getName(), null, Outcome.SKIPPED, null, "Není obrázek"));
+                    continue;
+                }
+                Target target = target(entry.getName(), manifest);
+                if (target == null) {
+                    job.add(new Item(entry.getName(), null, Outcome.SKIPPED, null, "Není v manifestu"));
+                    continue;
+                }
+                Product product = resolve(target.slug(), manifest != null, products);
+                if (product == null) {
+                    job.add(new Item(entry.getName(), target.slug(), Outcome.FAILED, null, "Produkt neexistuje"));
+                    continue;
+                }
+                pending.add(workers.submit(() -> store(job, zip, entry, product, target.altText())));
+            }
+            List<Stored> stored = new ArrayList<>();
+            for (Future<Stored> f : pending) {
+                try {
+                    Stored s = f.get();
+                    if (s != null) stored.add(s);
+                } catch (ExecutionException e) {
+                    throw new IllegalStateException("Zpracování souboru selhalo", e.getCause());
+                }
+            }
+            return stored;
+        } finally {
+            workers.shutdownNow();
+        }
+    }
+
+    /** Kontrola a uložení jednoho souboru (vlákno poolu); chyba = položka FAILED, vrací null. */
+    private Stored store(Job job, ZipFile zip, ZipEntry entry, Product product, String altText) {
+        String name = entry.getName();
+        if (entry.getSize() > MAX_ENTRY_BYTES) {
+            job.add(new Item(name, product.getSlug(), Outcome.FAILED, null, "Soubor je příliš velký (limit 10 MB)"));
+            return null;
+        }
+        // velikost z hlavičky ZIPu se nedá věřit → počítá se i při čtení
+        try (InputStream in = new BufferedInputStream(new LimitedInputStream(zip.getInputStream(entry), MAX_ENTRY_BYTES,
+                "Soubor je příliš velký (limit 10 MB)"))) {
+            String format = sniff(in);
+            if (format == null) {
+                job.add(new Item(name, product.getSlug(), Outcome.FAILED, null, "Obsah není PNG, JPEG, WebP ani GIF"));
+                return null;
+            }
+            String url = imageStorage.store(in, format); // přípona podle obsahu, ne podle jména
+            job.processed.incrementAndGet();
+            return new Stored(name, product, url, altText);
+        } catch (IOException e) {
+            job.add(new Item(name, product.getSlug(), Outcome.FAILED, null, e.getMessage()));
+            return null;
+        }
+    }
+
+    /** Vloží řádky images po dávkách; pořadí pokračuje za stávající galerií, produkt bez primárního ho dostane. */
+    private void insert(Job job, List<Stored> stored) {
+        Map<Long, List<Stored>> byProduct = new LinkedHashMap<>();
+        stored.forEach(s -> byProduct.computeIfAbsent(s.product().getProductId(), id -> new ArrayList<>()).add(s));
+        if (byProduct.isEmpty()) return;
+
+        tx.executeWithoutResult(status -> {
+            List<Object[]> rows = new ArrayList<>();
+            List<Stored> inserted = new ArrayList<>();
+            for (Map.Entry<Long, List<Stored>> e : byProduct.entrySet()) {
+                Long productId = e.getKey();
+                Set<String> existing = new HashSet<>(jdbc.queryForList(
+                        "select url from images where product_id = ?", String.class, productId));
+                Map<String, Object> gallery = jdbc.queryForMap("""
+                        select coalesce(max(sort_order) + 1, 0) as next_order,
+                               coalesce(bool_or(is_primary), false) as has_primary
+                          from images where product_id = ?
+                        """, productId);
+                int sortOrder = ((Number) gallery.get("next_order")).intValue();
+                boolean needsPrimary = !Boolean.TRUE.equals(gallery.get("has_primary"));
+
+                for (Stored s : e.getValue()) {
+                    if (!existing.add(s.url())) {
+                        job.add(new Item(s.entry(), s.product().getSlug(), Outcome.DUPLICATE, s.url(), "Produkt už tuto fotku má"));
+                        continue;
+                    }
+                    rows.add(new Object[]{productId, s.url(), s.altText(), needsPrimary, sortOrder++,
+                            ImageDerivativeStatus.PENDING.name()});
+                    inserted.add(s);
+                    needsPrimary = false;
+                }
+            }
+
+            List<Long> ids = new ArrayList<>(rows.size());
+            for (int from = 0; from < rows.size(); from += BATCH_SIZE) {
+                ids.addAll(insertBatch(rows.subList(from, Math.min(from + BATCH_SIZE, rows.size()))));
+            }
+
+            for (int i = 0; i < inserted.size(); i++) {
+                Stored s = inserted.get(i);
+                job.add(new Item(s.entry(), s.product().getSlug(), Outcome.IMPORTED, s.url(), null));
+                events.publishEvent(new ImageStoredEvent(ids.get(i))); // zmenšeniny po commitu
+            }
+            byProduct.values().forEach(list -> {
+                Product p = list.get(0).product();
+                events.publishEvent(CatalogChangedEvent.image(p.getProductId(), p.getSlug()));
+            });
+        });
+    }
+
+    private List<Long> insertBatch(List<Object[]> rows) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbc.batchUpdate(con -> con.prepareStatement(INSERT, new String[]{"image_id"}), new BatchPreparedStatementSetter() {
+            @Override
+            public void setValues(PreparedStatement ps, int i) throws SQLException {
+                Object[] row = rows.get(i);
+                for (int c = 0; c < row.length; c++) ps.setObject(c + 1, row[c]);
+            }
+
+            @Override
+            public int getBatchSize() {
+                return rows.size();
+            }
+        }, keys);
+        return keys.getKeyList().stream().map(k -> ((Number) k.get("image_id")).longValue()).toList();
+    }
+
+    /* ====== přiřazení k produktům ====== */
+
+    // manifest.csv: soubor;slug;alt (alt volitelný), # komentář, první řádek může být hlavička
+    private static Map<String, Target> readManifest(ZipFile zip) throws IOException {
+        ZipEntry entry = zip.getEntry(MANIFEST);
+        if (entry == null) return null;
+        Map<String, Target> manifest = new HashMap<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(zip.getInputStream(entry), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.strip();
+                if (line.startsWith("\uFEFF")) line = line.substring(1);
+                if (line.isEmpty() || line.startsWith("#")) continue;
+                String[] cols = line.split(";", 3);
+                if (cols.length < 2 || cols[1].isBlank() || cols[1].strip().equalsIgnoreCase("slug")) continue;
+                String alt = cols.length > 2 && !cols[2].isBlank() ? cols[2].strip() : null;
+                manifest.put(cols[0].strip(), new Target(cols[1].strip(), alt));
+            }
+        }
+        return manifest;
+    }
+
+    private static Target target(String entryName, Map<String, Target> manifest) {
+        String filename = entryName.substring(entryName.lastIndexOf('/') + 1);
+        if (manifest != null) {
+            Target t = manifest.get(entryName);
+            return t != null ? t : manifest.get(filename);
+        }
+        int slash = entryName.indexOf('/');
+        if (slash > 0) return new Target(entryName.substring(0, slash), null);
+        int dot = filename.lastIndexOf('.');
+        return new Target(dot > 0 ? filename.substring(0, dot) : filename, null);
+    }
+
+    // bez manifestu zkusí i jméno bez pořadového čísla ("protein-vanilka-2" → "protein-vanilka")
+    private Product resolve(String slug, boolean exact, Map<String, Optional<Product>> cache) {
+        Product p = cache.computeIfAbsent(slug, productRepository::findBySlug).orElse(null);
+        if (p != null || exact) return p;
+        String base = NUMBER_SUFFIX.matcher(slug).replaceFirst("");
+        return base.equals(slug) || base.isEmpty() ? null
+                : cache.computeIfAbsent(base, productRepository::findBySlug).orElse(null);
+    }
+
+    private static boolean isPayload(ZipEntry e) {
+        String name = e.getName();
+        String filename = name.substring(name.lastIndexOf('/') + 1);
+        return !e.isDirectory() && !name.equals(MANIFEST)
+                && !name.startsWith("__MACOSX/") && !filename.startsWith(".");
+    }
+
+    private static String extension(String name) {
+        int dot = name.lastIndexOf('.');
+        return dot < 0 ? "" : name.substring(dot + 1).toLowerCase(Locale.ROOT);
+    }
+
+    /** Formát podle prvních bajtů (jpg/png/gif/webp), jinak null; stream vrátí na začátek. */
+    static String sniff(InputStream in) throws IOException {
+        in.mark(12);
+        byte[] h = in.readNBytes(12);
+        in.reset();
+        if (h.length >= 3 && (h[0] & 0xFF) == 0xFF && (h[1] & 0xFF) == 0xD8 && (h[2] & 0xFF) == 0xFF) return "jpg";
+        if (h.length >= 8 && (h[0] & 0xFF) == 0x89 && h[1] == 'P' && h[2] == 'N' && h[3] == 'G') return "png";
+        if (h.length >= 4 && h[0] == 'G' && h[1] == 'I' && h[2] == 'F' && h[3] == '8') return "gif";
+        if (h.length >= 12 && h[0] == 'R' && h[1] == 'I' && h[2] == 'F' && h[3] == 'F'
+                && h[8] == 'W' && h[9] == 'E' && h[10] == 'B' && h[11] == 'P') return "webp";
+        return null;
+    }
+
+    /* ====== stav ====== */
+
+    static final class Job {
+        final String id;
+        final Path zip;
+        final List<Item> items = new ArrayList<>(); // pod zámkem items
+        final AtomicInteger processed = new AtomicInteger();
+        volatile State state = State.QUEUED;
+        volatile int total;
+        volatile Instant startedAt;
+        volatile Instant finishedAt;
+        volatile String message;
+
+        Job(String id, Path zip) {
+            this.id = id;
+            this.zip = zip;
+        }
+
+        // uložené soubory se počítají hned, IMPORTED/DUPLICATE dostanou až po vložení do DB
+        void add(Item item) {
+            synchronized (items) {
+                items.add(item);
+            }
+            if (item.outcome() == Outcome.SKIPPED || item.outcome() == Outcome.FAILED) processed.incrementAndGet();
+        }
+
+        Report report() {
+            List<Item> copy;
+            synchronized (items) {
+                copy = List.copyOf(items);
+            }
+            int[] counts = new int[Outcome.values().length];
+            copy.forEach(i -> counts[i.outcome().ordinal()]++);
+            return new Report(id, state, total, processed.get(),
+                    counts[Outcome.IMPORTED.ordinal()], counts[Outcome.DUPLICATE.ordinal()],
+                    counts[Outcome.SKIPPED.ordinal()], counts[Outcome.FAILED.ordinal()],
+                    startedAt, finishedAt, message, copy);
+        }
+    }
+}
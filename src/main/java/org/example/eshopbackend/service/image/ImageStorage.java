@@ -0,0 +1,193 @@
+package org.example.eshopbackend.service.image;
+
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.repository.ImageRepository;
+import org.example.eshopbackend.repository.ProductRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestInputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+
+/**
+ * Úložiště nahraných obrázků adresované obsahem: soubor se jmenuje podle SHA-256 obsahu
+ * ({@code /static/images/<sha256>.<ext>}), stejná fotka nahraná k deseti příchutím leží na disku jednou.
+ * Počet odkazů = řádky {@code Image} (a {@code Product.imageUrl}) se stejnou URL; když po commitu
+ * poslední odkaz zmizí, soubor se smaže i se zmenšeninami. Čerstvě nahrané/znovu použité soubory
+ * mají ochrannou lhůtu (řádek Image ještě nemusí být v DB) – ty uklidí periodický průchod.
+ */
+@Service
+@Slf4j
+public class ImageStorage {
+
+    private final ImageRepository imageRepository;
+    private final ProductRepository productRepository;
+    private final ImageVariantService variants;
+    private final Path dir;
+    private final Duration grace;
+
+    public ImageStorage(ImageRepository imageRepository,
+                        ProductRepository productRepository,
+                        ImageVariantService variants,
+                        @Value("${images.dir:./static/images}") String dir,
+                        @Value("${images.gc.grace-minutes:60}") long graceMinutes) {
+        this.imageRepository = imageRepository;
+        this.productRepository = productRepository;
+        this.variants = variants;
+        this.dir = Path.of(dir).toAbsolutePath().normalize();
+        this.grace = Duration.ofMinutes(graceMinutes);
+    }
+
+    /**
+     * Uloží upload a vrátí veřejnou URL. Multipart už leží v dočasném souboru kontejneru,
+     * {@code transferTo} ho jen přesune (bez kopírování přes heap); SHA-256 se pak spočítá
+     * jedním čtením přes {@link FileChannel}.
+     */
+    public String store(MultipartFile upload, String ext) throws IOException {
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "upload", ".tmp");
+        try {
+            upload.transferTo(tmp.toFile()); // File varianta = Part.write (přesun), Path varianta kopíruje stream
+            return place(tmp, sha256Of(tmp), ext);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    /**
+     * Uloží obsah ze streamu (SHA-256 se počítá během zápisu na disk) a vrátí veřejnou URL.
+     * Stejný obsah podruhé = stejná URL, nový soubor nevznikne.
+     */
+    public String store(InputStream content, String ext) throws IOException {
+        Files.createDirectories(dir);
+        Path tmp = Files.createTempFile(dir, "upload", ".tmp");
+        try {
+            MessageDigest sha256 = sha256();
+            try (InputStream in = new DigestInputStream(content, sha256)) {
+                Files.copy(in, tmp, StandardCopyOption.REPLACE_EXISTING);
+            }
+            return place(tmp, HexFormat.of().formatHex(sha256.digest()), ext);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+    }
+
+    private String place(Path tmp, String hash, String ext) throws IOException {
+        String filename = hash + "." + ext;
+        Path target = dir.resolve(filename);
+        synchronized (this) { // souběžný úklid nesmí smazat soubor, který právě znovu používáme
+            if (Files.exists(target)) {
+                Files.setLastModifiedTime(target, FileTime.from(Instant.now())); // obnoví ochrannou lhůtu
+                log.info("Obrázek {} už existuje, použije se znovu", filename);
+            } else {
+                Files.move(tmp, target, StandardCopyOption.ATOMIC_MOVE);
+            }
+        }
+        return ImageDerivativeService.LOCAL_PREFIX + filename;
+    }
+
+    private static String sha256Of(Path file) throws IOException {
+        MessageDigest sha256 = sha256();
+        ByteBuffer buffer = ByteBuffer.allocateDirect(64 * 1024);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            while (channel.read(buffer) >= 0) {
+                buffer.flip();
+                sha256.update(buffer);
+                buffer.clear();
+            }
+        }
+        return HexFormat.of().formatHex(sha256.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e); // SHA-256 má každá JVM
+        }
+    }
+
+    /* ====== úklid ====== */
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    @Transactional(propagation = Propagation.REQUIRES_NEW, readOnly = true)
+    public void onImagesReleased(ImagesReleasedEvent event) {
+        event.urls().forEach(this::collect);
+    }
+
+    /** Smaže soubor, pokud na něj nic neodkazuje a je starší než ochranná lhůta; vrací true = smazáno. */
+    public synchronized boolean collect(String url) {
+        String filename = ImageDerivativeService.localFilename(url);
+        if (filename == null) return false;
+        Path file = dir.resolve(filename);
+        try {
+            if (!Files.isRegularFile(file) || fresh(file) || referenced(url)) return false;
+            delete(filename);
+            return true;
+        } catch (IOException e) {
+            log.warn("Obrázek {} nejde smazat: {}", filename, e.getMessage());
+            return false;
+        }
+    }
+
+    // doběhne i to, co nešlo smazat hned (ochranná lhůta), a soubory po starém pojmenování productId-UUID
+    @Scheduled(fixedDelayString = "${images.gc.sweep-ms:3600000}", initialDelayString = "${images.gc.sweep-ms:3600000}")
+    public void sweep() {
+        if (!Files.isDirectory(dir)) return;
+        int deleted = 0;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, Files::isRegularFile)) {
+            for (Path f : files) {
+                String name = f.getFileName().toString();
+                if (name.endsWith(".tmp")) {
+                    if (!fresh(f)) Files.deleteIfExists(f); // nedokončený upload
+                } else if (collect(ImageDerivativeService.LOCAL_PREFIX + name)) {
+                    deleted++;
+                }
+            }
+        } catch (IOException e) {
+            log.warn("Úklid obrázků selhal: {}", e.getMessage());
+        }
+        if (deleted > 0) log.info("Úklid obrázků: smazáno {} souborů bez odkazu", deleted);
+    }
+
+    private boolean referenced(String url) {
+        return imageRepository.existsByUrl(url) || productRepository.existsByImageUrl(url);
+    }
+
+    private boolean fresh(Path file) throws IOException {
+        return Files.getLastModifiedTime(file).toInstant().isAfter(Instant.now().minus(grace));
+    }
+
+    private void delete(String filename) throws IOException {
+        Files.deleteIfExists(dir.resolve(filename));
+        String prefix = filename.substring(0, filename.lastIndexOf('.')) + "-w";
+        Path derivatives = dir.resolve(ImageDerivativeService.DIR);
+        if (Files.isDirectory(derivatives)) {
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(derivatives, prefix + "*")) {
+                for (Path f : files) Files.deleteIfExists(f);
+            }
+        }
+        variants.evict(filename);
+        log.info("Smazán obrázek bez odkazu: {}", filename);
+    }
+}
@@ -0,0 +1,4 @@
+package org.example.eshopbackend.service.image;
+
+/** Obrázek s lokálním souborem byl uložen (nový nebo se změnila URL) – po commitu se vygenerují zmenšeniny. */
+public record ImageStoredEvent(Long imageId) {}
@@ -0,0 +1,281 @@
+package org.example.eshopbackend.service.image;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.example.eshopbackend.util.ImageResizer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Service;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Pattern;
+
+/**
+ * Zmenšené varianty produktových obrázků. Varianta se vygeneruje při prvním požadavku v omezeném
+ * poolu vláken (plná fronta → 503), souběžné požadavky na stejnou variantu čekají na jeden výpočet.
+ * Hotové varianty leží na disku v LRU cache s limitem velikosti; po restartu se pořadí obnoví
+ * podle času vytvoření souborů. Šířky se zaokrouhlují nahoru na pevnou řadu, aby se cache nedala
+ * zahltit libovolnými rozměry.
+ */
+@Service
+@Slf4j
+public class ImageVariantService {
+
+    public static final int[] WIDTHS = {64, 128, 200, 320, 480, 640, 800, 1024, 1280, 1600};
+    public static final int DEFAULT_QUALITY = 80;
+    private static final int MIN_QUALITY = 40, MAX_QUALITY = 95;
+    private static final long MAX_SOURCE_PIXELS = 50_000_000L;
+    private static final int QUEUE_SIZE = 100;
+
+    // jen jména, jaká ukládá upload (<productId>-<uuid>.<ext>), žádné cesty
+    private static final Pattern FILENAME = Pattern.compile("[A-Za-z0-9][A-Za-z0-9_-]*\\.[A-Za-z0-9]{2,5}");
+    private static final Map<String, String> CONTENT_TYPES = Map.of(
+            "jpg", "image/jpeg", "jpeg", "image/jpeg", "png", "image/png",
+            "webp", "image/webp", "gif", "image/gif");
+
+    private final Path originals;
+    private final Path cacheDir;
+    private final long maxBytes;
+    private final long timeoutMs;
+    private final ThreadPoolExecutor pool;
+
+    private final ConcurrentHashMap<String, CompletableFuture<Path>> inflight = new ConcurrentHashMap<>();
+    // originál není širší než varianta → posílá se originál
+    private final Set<String> passthrough = ConcurrentHashMap.newKeySet();
+
+    // ---- LRU (pod zámkem lru) ----
+    private final LinkedHashMap<String, Long> lru = new LinkedHashMap<>(64, 0.75f, true);
+    private long totalBytes;
+
+    public ImageVariantService(@Value("${images.dir:./static/images}") String originals,
+                               @Value("${images.variants.dir:./data/image-variants}") String cacheDir,
+                               @Value("${images.variants.max-bytes:536870912}") long maxBytes,
+                               @Value("${images.resize.threads:2}") int threads,
+                               @Value("${images.resize.timeout-ms:20000}") long timeoutMs) {
+        this.originals = Path.of(originals).toAbsolutePath().normalize();
+        this.cacheDir = Path.of(cacheDir).toAbsolutePath().normalize();
+        this.maxBytes = maxBytes;
+        this.timeoutMs = timeoutMs;
+        AtomicInteger n = new AtomicInteger();
+        this.pool = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(QUEUE_SIZE), r -> {
+                    Thread t = new Thread(r, "image-resize-" + n.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                });
+        loadCache();
+    }
+
+    public record Variant(Path file, String contentType) {}
+
+    /** Varianta obrázku {@code filename} o šířce nejbližší vyšší z {@link #WIDTHS}. */
+    public Variant variant(String filename, int width, Integer quality) {
+        if (filename == null || !FILENAME.matcher(filename).matches()) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Obrázek neexistuje");
+        }
+        Path original = originals.resolve(filename);
+        if (!Files.isRegularFile(original)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Obrázek neexistuje");
+        }
+        String ext = filename.substring(filename.lastIndexOf('.') + 1).toLowerCase(Locale.ROOT);
+        String contentType = CONTENT_TYPES.get(ext);
+        if (contentType == null) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "Obrázek neexistuje");
+
+        // WebP a GIF (animace) ImageIO nezmenší → originál
+        int w = snapWidth(width);
+        int q = snapQuality(quality);
+        String key = variantName(filename, w, q);
+        if (key == null) return new Variant(original, contentType);
+
+        // zmenšenina vygenerovaná při nahrání (ImageDerivativeService) má přednost před cache
+        Path derivative = originals.resolve(ImageDerivativeService.DIR).resolve(key);
+        if (Files.isRegularFile(derivative)) return new Variant(derivative, contentType);
+
+        if (passthrough.contains(key)) return new Variant(original, contentType);
+        Path cached = cached(key);
+        if (cached == null) cached = await(key, submit(key, original, w, q, contentType.equals("image/jpeg")));
+        return cached.equals(original) ? new Variant(original, contentType) : new Variant(cached, contentType);
+    }
+
+    /**
+     * Jméno souboru varianty ({@code 12-<uuid>-w200-q80.jpg}, PNG bez kvality);
+     * null = formát, který se nezmenšuje.
+     */
+    public static String variantName(String filename, int width, int quality) {
+        int dot = filename.lastIndexOf('.');
+        String ext = filename.substring(dot + 1).toLowerCase(Locale.ROOT);
+        String base = filename.substring(0, dot);
+        return switch (ext) {
+            case "jpg", "jpeg" -> base + "-w" + width + "-q" + quality + ".jpg";
+            case "png" -> base + "-w" + width + ".png";
+            default -> null;
+        };
+    }
+
+    private static int snapWidth(int width) {
+        for (int w : WIDTHS) if (w >= width) return w;
+        return WIDTHS[WIDTHS.length - 1];
+    }
+
+    // po pěti, ať q=81 a q=82 nejsou dvě varianty
+    private static int snapQuality(Integer quality) {
+        int q = quality == null ? DEFAULT_QUALITY : quality;
+        q = Math.max(MIN_QUALITY, Math.min(MAX_QUALITY, q));
+        return Math.round(q / 5f) * 5;
+    }
+
+    /* ====== generování ====== */
+
+    private CompletableFuture<Path> submit(String key, Path original, int width, int quality, boolean jpeg) {
+        CompletableFuture<Path> created = new CompletableFuture<>();
+        CompletableFuture<Path> running = inflight.putIfAbsent(key, created);
+        if (running != null) return running;
+        try {
+            pool.execute(() -> {
+                try {
+                    created.complete(generate(key, original, width, quality, jpeg));
+                } catch (Throwable e) {
+                    created.completeExceptionally(e);
+                } finally {
+                    inflight.remove(key, created);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            inflight.remove(key, created);
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Zpracování obrázků je přetížené");
+        }
+        return created;
+    }
+
+    private Path await(String key, CompletableFuture<Path> future) {
+        try {
+            return future.get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // výpočet doběhne a uloží se, příští požadavek ho najde v cache
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Zpracování obrázku trvá příliš dlouho");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new ResponseStatusException(HttpStatus.SERVICE_UNAVAILABLE, "Přerušeno");
+        } catch (ExecutionException e) {
+            log.warn("Varianta {} nejde vytvořit: {}", key, e.getCause().getMessage());
+            throw new ResponseStatusException(HttpStatus.UNPROCESSABLE_ENTITY, "Obrázek nejde zmenšit");
+        }
+    }
+
+    private Path generate(String key, Path original, int width, int quality, boolean jpeg) throws IOException {
+        Path cached = cached(key); // mezitím mohl doběhnout předchozí výpočet
+        if (cached != null) return cached;
+
+        BufferedImage img = ImageResizer.downscale(original, width, MAX_SOURCE_PIXELS);
+        if (img == null) {
+            passthrough.add(key);
+            return original;
+        }
+
+        Files.createDirectories(cacheDir);
+        Path target = cacheDir.resolve(key);
+        Path tmp = Files.createTempFile(cacheDir, "variant", ".tmp");
+        try {
+            ImageResizer.write(img, jpeg ? "jpeg" : "png", quality, tmp);
+            Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        put(key, Files.size(target));
+        return target;
+    }
+
+    /* ====== LRU na disku ====== */
+
+    private Path cached(String key) {
+        synchronized (lru) {
+            return lru.get(key) != null ? cacheDir.resolve(key) : null; // get = posun na konec LRU
+        }
+    }
+
+    private void put(String key, long size) {
+        List<String> evicted = new ArrayList<>();
+        synchronized (lru) {
+            Long previous = lru.put(key, size);
+            totalBytes += size - (previous == null ? 0 : previous);
+            Iterator<Map.Entry<String, Long>> it = lru.entrySet().iterator();
+            while (totalBytes > maxBytes && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                if (eldest.getKey().equals(key)) continue;
+                totalBytes -= eldest.getValue();
+                evicted.add(eldest.getKey());
+                it.remove();
+            }
+        }
+        for (String name : evicted) {
+            try {
+                Files.deleteIfExists(cacheDir.resolve(name));
+            } catch (IOException e) {
+                log.warn("Variantu {} nejde smazat: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    private record CachedFile(String name, long modified, long size) {}
+
+    private void loadCache() {
+        if (!Files.isDirectory(cacheDir)) return;
+        List<CachedFile> files = new ArrayList<>();
+        try (DirectoryStream<Path> dir = Files.newDirectoryStream(cacheDir)) {
+            for (Path f : dir) {
+                if (f.getFileName().toString().endsWith(".tmp")) Files.deleteIfExists(f); // nedokončený zápis
+                else if (Files.isRegularFile(f)) files.add(new CachedFile(f.getFileName().toString(),
+                        Files.getLastModifiedTime(f).toMillis(), Files.size(f)));
+            }
+        } catch (IOException e) {
+            log.warn("Cache variant obrázků nejde načíst: {}", e.getMessage());
+        }
+        files.sort(Comparator.comparingLong(CachedFile::modified));
+        files.forEach(f -> put(f.name(), f.size()));
+        if (!files.isEmpty()) log.info("Cache variant obrázků: {} souborů, {} B", lru.size(), totalBytes);
+    }
+
+    /** Odebere z cache všechny varianty daného originálu (originál byl smazán). */
+    public void evict(String filename) {
+        String prefix = filename.substring(0, filename.lastIndexOf('.')) + "-w";
+        List<String> removed = new ArrayList<>();
+        synchronized (lru) {
+            Iterator<Map.Entry<String, Long>> it = lru.entrySet().iterator();
+            while (it.hasNext()) {
+                Map.Entry<String, Long> e = it.next();
+                if (!e.getKey().startsWith(prefix)) continue;
+                totalBytes -= e.getValue();
+                removed.add(e.getKey());
+                it.remove();
+            }
+        }
+        passthrough.removeIf(key -> key.startsWith(prefix));
+        for (String name : removed) {
+            try {
+                Files.deleteIfExists(cacheDir.resolve(name));
+            } catch (IOException e) {
+                log.warn("Variantu {} nejde smazat: {}", name, e.getMessage());
+            }
+        }
+    }
+
+    public long cachedBytes() {
+        synchronized (lru) {
+            return totalBytes;
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        pool.shutdownNow();
+    }
+}
@@ -0,0 +1,18 @@
+package org.example.eshopbackend.service.image;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/** Obrázkové URL, na které po commitu možná už nic neodkazuje (smazaný obrázek/produkt, změna URL). */
+public record ImagesReleasedEvent(Set<String> urls) {
+
+    public static ImagesReleasedEvent of(Collection<String> urls) {
+        return new ImagesReleasedEvent(urls.stream().filter(Objects::nonNull).collect(Collectors.toUnmodifiableSet()));
+    }
+
+    public static ImagesReleasedEvent of(String url) {
+        return url == null ? new ImagesReleasedEvent(Set.of()) : new ImagesReleasedEvent(Set.of(url));
+    }
+}
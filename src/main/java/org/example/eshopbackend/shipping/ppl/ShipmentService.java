@@ -112,14 +112,13 @@ public class ShipmentService {
         if (entity.getLabelPath() == null) {
             throw new IllegalStateException("Shipment nemá uložený štítek");
         }
-        try {
-            Path p = Path.of(entity.getLabelPath());
-            byte[] bytes = Files.readAllBytes(p);
-            String mime = p.toString().toLowerCase().endsWith(".pdf") ? "application/pdf" : "image/png";
-            return new LabelFile(bytes, mime, p.getFileName().toString());
-        } catch (Exception e) {
-            throw new RuntimeException("Chyba při čtení štítku: " + entity.getLabelPath(), e);
+        // jen cesta k souboru – obsah se streamuje až do odpovědi, nic se nenačítá do paměti
+        Path p = Path.of(entity.getLabelPath());
+        if (!Files.isRegularFile(p)) {
+            throw new IllegalStateException("Soubor štítku neexistuje: " + entity.getLabelPath());
         }
+        String mime = p.toString().toLowerCase().endsWith(".pdf") ? "application/pdf" : "image/png";
+        return new LabelFile(p, mime, p.getFileName().toString());
     }
 
     @Transactional
@@ -185,7 +184,7 @@ public class ShipmentService {
         return ShipmentStatus.REQUESTED;
     }
 
-    public record LabelFile(byte[] bytes, String mime, String filename) {}
+    public record LabelFile(Path path, String mime, String filename) {}
 
     @Transactional(readOnly = true)
     public PplTrackingStatus getTrackingByNumber(String trackingNumber) {
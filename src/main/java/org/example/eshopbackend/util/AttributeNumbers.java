@@ -0,0 +1,45 @@
+package org.example.eshopbackend.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Čtení čísel z textových parametrů produktu ("20 mg", "1,5 ml", "1 500 mAh", "6k potahů").
+ * Bere první číslo v textu; text bez čísla ("bez nikotinu") → null.
+ */
+public final class AttributeNumbers {
+    private AttributeNumbers() {}
+
+    // celé číslo s volitelnými tisíci oddělenými mezerou (i nezlomitelnou), desetinná čárka/tečka, přípona k = tisíce
+    private static final Pattern NUMBER = Pattern.compile(
+            "(\\d{1,3}(?:[ \\u00A0\\u202F]\\d{3})+|\\d+)(?:[.,](\\d+))?(\\s*[kK](?![a-zA-Z]))?");
+
+    private static final BigDecimal MAX_DECIMAL = new BigDecimal("999999.99");
+
+    /** První číslo v textu na 2 desetinná místa (jako sloupce numeric(8,2)); větší než sloupec pojme → null. */
+    public static BigDecimal firstNumber(String text) {
+        if (text == null) return null;
+        Matcher m = NUMBER.matcher(text);
+        if (!m.find()) return null;
+        BigDecimal number = parse(m).setScale(2, RoundingMode.HALF_UP);
+        return number.compareTo(MAX_DECIMAL) > 0 ? null : number;
+    }
+
+    private static BigDecimal parse(Matcher m) {
+        String digits = m.group(1).replaceAll("[ \\u00A0\\u202F]", "");
+        String value = m.group(2) == null ? digits : digits + "." + m.group(2);
+        BigDecimal number = new BigDecimal(value);
+        return m.group(3) == null ? number : number.multiply(BigDecimal.valueOf(1000));
+    }
+
+    /** První číslo zaokrouhlené na celé (potahy, mAh); null, pokud v textu žádné není nebo je mimo int. */
+    public static Integer firstInteger(String text) {
+        if (text == null) return null;
+        Matcher m = NUMBER.matcher(text);
+        if (!m.find()) return null;
+        BigDecimal rounded = parse(m).setScale(0, RoundingMode.HALF_UP);
+        return rounded.compareTo(BigDecimal.valueOf(Integer.MAX_VALUE)) > 0 ? null : rounded.intValueExact();
+    }
+}
@@ -0,0 +1,82 @@
+package org.example.eshopbackend.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * BK-strom nad editační vzdáleností: slova s překlepem se hledají bez průchodu celým slovníkem.
+ * Dítě uzlu leží ve vzdálenosti d od rodiče, takže pro dotaz s tolerancí max stačí projít děti
+ * ve vzdálenostech d(dotaz, uzel) ± max (trojúhelníková nerovnost). Není thread-safe, mazání
+ * nepodporuje – po odebrání slov se postaví znovu.
+ */
+public final class BkTree {
+
+    private static final class Node {
+        final String term;
+        Node[] children = new Node[0]; // index = vzdálenost od tohoto uzlu
+
+        Node(String term) {
+            this.term = term;
+        }
+    }
+
+    private Node root;
+    private int size;
+
+    public static BkTree of(Iterable<String> terms) {
+        BkTree tree = new BkTree();
+        terms.forEach(tree::add);
+        return tree;
+    }
+
+    public void add(String term) {
+        if (root == null) {
+            root = new Node(term);
+            size++;
+            return;
+        }
+        Node node = root;
+        while (true) {
+            int d = distance(term, node.term);
+            if (d == 0) return; // už tam je
+            if (d >= node.children.length) node.children = Arrays.copyOf(node.children, d + 1);
+            Node child = node.children[d];
+            if (child == null) {
+                node.children[d] = new Node(term);
+                size++;
+                return;
+            }
+            node = child;
+        }
+    }
+
+    /** Slova ve vzdálenosti nejvýš max od dotazu (v pořadí průchodu). */
+    public List<String> within(String query, int max) {
+        List<String> out = new ArrayList<>();
+        if (root == null) return out;
+        Deque<Node> stack = new ArrayDeque<>();
+        stack.push(root);
+        while (!stack.isEmpty()) {
+            Node node = stack.pop();
+            int d = distance(query, node.term);
+            if (d <= max) out.add(node.term);
+            int to = Math.min(d + max, node.children.length - 1);
+            for (int i = Math.max(1, d - max); i <= to; i++) {
+                if (node.children[i] != null) stack.push(node.children[i]);
+            }
+        }
+        return out;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // přesná vzdálenost – mez ji neořízne
+    private static int distance(String a, String b) {
+        return BoundedLevenshtein.distance(a, b, Math.max(a.length(), b.length()));
+    }
+}
@@ -0,0 +1,46 @@
+package org.example.eshopbackend.util;
+
+/**
+ * Editační vzdálenost s horní mezí: počítá jen pás šířky 2·max kolem diagonály
+ * a skončí hned, jak celý řádek přesáhne max. Pro překlepy v dotazech (max 1–2).
+ */
+public final class BoundedLevenshtein {
+    private BoundedLevenshtein() {}
+
+    /** Vzdálenost a ↔ b, nebo {@code max + 1}, pokud je větší než max. */
+    public static int distance(CharSequence a, CharSequence b, int max) {
+        int n = a.length(), m = b.length();
+        if (Math.abs(n - m) > max) return max + 1;
+        if (n == 0 || m == 0) return Math.max(n, m);
+
+        int over = max + 1;
+        int[] prev = new int[m + 1];
+        int[] cur = new int[m + 1];
+        for (int j = 0; j <= m; j++) prev[j] = j <= max ? j : over;
+
+        for (int i = 1; i <= n; i++) {
+            int from = Math.max(1, i - max);
+            int to = Math.min(m, i + max);
+            cur[0] = i <= max ? i : over;
+            if (from > 1) cur[from - 1] = over;
+            int rowMin = cur[0];
+            char ca = a.charAt(i - 1);
+            for (int j = from; j <= to; j++) {
+                int cost = ca == b.charAt(j - 1) ? 0 : 1;
+                int v = Math.min(Math.min(prev[j] + 1, cur[j - 1] + 1), prev[j - 1] + cost);
+                cur[j] = Math.min(v, over);
+                rowMin = Math.min(rowMin, cur[j]);
+            }
+            if (to < m) cur[to + 1] = over;
+            if (rowMin > max) return over;
+            int[] tmp = prev; prev = cur; cur = tmp;
+        }
+        return Math.min(prev[m], over);
+    }
+
+    /** Povolený počet překlepů podle délky slova: do 3 znaků žádný, do 7 jeden, jinak dva. */
+    public static int allowedEdits(int length) {
+        if (length <= 3) return 0;
+        return length <= 7 ? 1 : 2;
+    }
+}
@@ -0,0 +1,157 @@
+package org.example.eshopbackend.util;
+
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageInputStream;
+import javax.imageio.stream.ImageOutputStream;
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Iterator;
+
+/**
+ * Zmenšení obrázku na šířku (poměr stran zůstává). Rozměry se čtou z hlavičky, velké originály
+ * se dekódují rovnou podvzorkované (nejvýš 2× cílová šířka) a zbytek se zmenšuje po polovinách –
+ * jeden bilineární krok z velkého poměru dává zubaté hrany.
+ */
+public final class ImageResizer {
+    private ImageResizer() {}
+
+    /**
+     * @return zmenšený obrázek, nebo null, pokud originál není širší než {@code width}
+     *         nebo ho ImageIO neumí přečíst (např. WebP)
+     * @throws IOException originál má víc než {@code maxPixels} pixelů nebo je poškozený
+     */
+    public static BufferedImage downscale(Path file, int width, long maxPixels) throws IOException {
+        BufferedImage src = read(file, width * 2, maxPixels);
+        if (src == null || src.getWidth() <= width) return null;
+        return scaleToWidth(src, width);
+    }
+
+    /**
+     * Přečte obrázek; je-li originál víc než 2× širší než {@code minWidth}, rovnou podvzorkovaný
+     * (nejvýš na {@code minWidth}). {@code minWidth} ≤ 0 = plné rozlišení. Null = ImageIO formát nezná.
+     */
+    public static BufferedImage read(Path file, int minWidth, long maxPixels) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                int sw = reader.getWidth(0), sh = reader.getHeight(0);
+                if ((long) sw * sh > maxPixels) {
+                    throw new IOException("Obrázek je příliš velký: " + sw + "x" + sh);
+                }
+                ImageReadParam param = reader.getDefaultReadParam();
+                int step = minWidth > 0 ? sw / minWidth : 1;
+                if (step >= 2) param.setSourceSubsampling(step, step, 0, 0);
+                return reader.read(0, param);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** Rozměry z hlavičky bez dekódování; null = ImageIO formát nezná. */
+    public static Dimension size(Path file) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file.toFile())) {
+            if (in == null) return null;
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) return null;
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, true, true);
+                return new Dimension(reader.getWidth(0), reader.getHeight(0));
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    /** Zmenší na danou šířku (poměr stran zůstává); užší obrázek vrací beze změny. */
+    public static BufferedImage scaleToWidth(BufferedImage src, int width) {
+        if (src.getWidth() <= width) return src;
+        int height = Math.max(1, (int) Math.round((double) src.getHeight() * width / src.getWidth()));
+        return scale(src, width, height);
+    }
+
+    private static BufferedImage scale(BufferedImage src, int width, int height) {
+        int type = src.getColorModel().hasAlpha() ? BufferedImage.TYPE_INT_ARGB : BufferedImage.TYPE_INT_RGB;
+        BufferedImage img = src;
+        int w = src.getWidth(), h = src.getHeight();
+        do {
+            w = Math.max(w / 2, width);
+            h = Math.max(h / 2, height);
+            BufferedImage next = new BufferedImage(w, h, type);
+            Graphics2D g = next.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(img, 0, 0, w, h, null);
+            } finally {
+                g.dispose();
+            }
+            img = next;
+        } while (w != width || h != height);
+        return img;
+    }
+
+    /** Zapíše JPEG s kvalitou 1–100, ostatní formáty ("png") bez ztráty. */
+    public static void write(BufferedImage img, String format, int quality, Path target) throws IOException {
+        if (!"jpeg".equals(format)) {
+            if (!ImageIO.write(img, format, target.toFile())) throw new IOException("Nepodporovaný formát: " + format);
+            return;
+        }
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(target.toFile())) {
+            writeJpeg(img, quality, out);
+        }
+    }
+
+    /** JPEG v paměti (malé náhledy); průhlednost se slije na bílé pozadí. */
+    public static byte[] jpegBytes(BufferedImage img, int quality) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ImageOutputStream out = ImageIO.createImageOutputStream(bytes)) {
+            writeJpeg(img, quality, out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeJpeg(BufferedImage img, int quality, ImageOutputStream out) throws IOException {
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("jpeg").next();
+        try {
+            ImageWriteParam param = writer.getDefaultWriteParam();
+            param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+            param.setCompressionQuality(quality / 100f);
+            writer.setOutput(out);
+            writer.write(null, new IIOImage(opaque(img), null, null), param);
+        } finally {
+            writer.dispose();
+        }
+    }
+
+    // JPEG kodér alfa kanál neumí
+    private static BufferedImage opaque(BufferedImage img) {
+        if (!img.getColorModel().hasAlpha()) return img;
+        BufferedImage rgb = new BufferedImage(img.getWidth(), img.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        try {
+            g.setColor(Color.WHITE);
+            g.fillRect(0, 0, img.getWidth(), img.getHeight());
+            g.drawImage(img, 0, 0, null);
+        } finally {
+            g.dispose();
+        }
+        return rgb;
+    }
+}
@@ -0,0 +1,41 @@
+package org.example.eshopbackend.util;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Neprůhledný token pro keyset (seek) stránkování: řazení + poslední klíč + poslední id.
+ * Klient ho jen vrací zpátky v {@code ?cursor=}, obsah ho nezajímá.
+ */
+public record KeysetCursor(String sort, String key, long id) {
+
+    private static final char SEP = '\n';
+
+    public String encode() {
+        String raw = sort + SEP + key + SEP + id;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /** @throws IllegalArgumentException poškozený token, nebo token k jinému řazení */
+    public static KeysetCursor decode(String token, String expectedSort) {
+        String raw;
+        try {
+            raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Neplatný cursor");
+        }
+        int first = raw.indexOf(SEP);
+        int last = raw.lastIndexOf(SEP);
+        if (first < 0 || first == last) throw new IllegalArgumentException("Neplatný cursor");
+
+        String sort = raw.substring(0, first);
+        if (!sort.equals(expectedSort)) {
+            throw new IllegalArgumentException("Cursor patří k jinému řazení: " + sort);
+        }
+        try {
+            return new KeysetCursor(sort, raw.substring(first + 1, last), Long.parseLong(raw.substring(last + 1)));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Neplatný cursor");
+        }
+    }
+}
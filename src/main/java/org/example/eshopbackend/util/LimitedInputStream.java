@@ -0,0 +1,47 @@
+package org.example.eshopbackend.util;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Stream, který po {@code limit} bajtech hlásí {@link LimitExceededException} – pro vstupy,
+ * jejichž deklarované velikosti se nedá věřit (ZIP bomba, lživá hlavička, tělo requestu bez délky).
+ */
+public final class LimitedInputStream extends FilterInputStream {
+
+    /** Vstup je delší než povolený limit. */
+    public static final class LimitExceededException extends IOException {
+        public LimitExceededException(String message) {
+            super(message);
+        }
+    }
+
+    private final String message;
+    private long remaining;
+
+    public LimitedInputStream(InputStream in, long limit, String message) {
+        super(in);
+        this.remaining = limit;
+        this.message = message;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b >= 0) consumed(1);
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) consumed(n);
+        return n;
+    }
+
+    private void consumed(long n) throws IOException {
+        remaining -= n;
+        if (remaining < 0) throw new LimitExceededException(message);
+    }
+}
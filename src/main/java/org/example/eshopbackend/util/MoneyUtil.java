@@ -0,0 +1,29 @@
+package org.example.eshopbackend.util;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * Částky v haléřích ({@code long}). Cena produktu se na haléře zaokrouhlí jednou (HALF_UP),
+ * násobení a součty jsou pak přesné celočíselné (přetečení = výjimka), na celé Kč se zaokrouhluje
+ * až výsledný součet (HALF_UP, tj. ,50 od nuly).
+ */
+public final class MoneyUtil {
+    private MoneyUtil() {}
+
+    /** 12.345 Kč → 1235 hal. */
+    public static long toHalere(BigDecimal czk) {
+        return czk.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /** 1235 hal. → 12.35 Kč */
+    public static BigDecimal fromHalere(long halere) {
+        return BigDecimal.valueOf(halere, 2);
+    }
+
+    /** 1250 hal. → 13 Kč, 1249 → 12, -1250 → -13 */
+    public static long halereToKc(long halere) {
+        long kc = Math.addExact(Math.abs(halere), 50) / 100;
+        return halere < 0 ? -kc : kc;
+    }
+}
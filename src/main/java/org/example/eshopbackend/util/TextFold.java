@@ -0,0 +1,48 @@
+package org.example.eshopbackend.util;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+/** Sjednocení textu pro vyhledávání: bez diakritiky, malá písmena, jen [a-z0-9]. */
+public final class TextFold {
+    private TextFold() {}
+
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{InCombiningDiacriticalMarks}+");
+    private static final Pattern NON_ALNUM = Pattern.compile("[^a-z0-9]+");
+
+    private static final int MAX_QUERY_TOKENS = 8;
+    private static final int MAX_TOKEN_LENGTH = 40;
+
+    /** "Příchuť Jahoda" -> "prichut jahoda" */
+    public static String fold(String input) {
+        if (input == null || input.isEmpty()) return "";
+        String s = DIACRITICS.matcher(Normalizer.normalize(input, Normalizer.Form.NFD)).replaceAll("");
+        return s.toLowerCase(Locale.ROOT);
+    }
+
+    /** Rozdělí složený text na tokeny [a-z0-9]+. */
+    public static List<String> tokens(String input) {
+        List<String> out = new ArrayList<>();
+        for (String t : NON_ALNUM.split(fold(input))) {
+            if (!t.isEmpty()) out.add(t);
+        }
+        return out;
+    }
+
+    /**
+     * Dotaz pro Postgres {@code to_tsquery('simple', ...)}: každý token jako prefix, spojené AND.
+     * "příchuť jah" -> "prichut:* & jah:*". Vrací null, pokud dotaz nemá žádný použitelný token.
+     */
+    public static String toPrefixTsQuery(String query) {
+        List<String> parts = new ArrayList<>();
+        for (String t : tokens(query)) {
+            if (parts.size() == MAX_QUERY_TOKENS) break;
+            if (t.length() > MAX_TOKEN_LENGTH) t = t.substring(0, MAX_TOKEN_LENGTH);
+            parts.add(t + ":*");
+        }
+        return parts.isEmpty() ? null : String.join(" & ", parts);
+    }
+}
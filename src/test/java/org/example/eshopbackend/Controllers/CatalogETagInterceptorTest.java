@@ -0,0 +1,108 @@
+package org.example.eshopbackend.Controllers;
+
+import org.example.eshopbackend.config.CatalogETagInterceptor;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.catalog.CatalogResponseCache;
+import org.example.eshopbackend.service.catalog.CatalogVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CatalogETagInterceptorTest {
+
+    // řádek catalog_version sdílený "uzly"
+    private final AtomicLong stored = new AtomicLong(100);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final CatalogResponseCache cache = mock(CatalogResponseCache.class);
+    private final CatalogVersion version = new CatalogVersion(jdbc, cache, 0, 5);
+    private final CatalogETagInterceptor interceptor = new CatalogETagInterceptor(version);
+
+    @BeforeEach
+    void init() {
+        when(jdbc.queryForObject(anyString(), eq(Long.class))).thenAnswer(inv -> stored.get());
+        when(jdbc.update(startsWith("update catalog_version"))).thenAnswer(inv -> {
+            stored.incrementAndGet();
+            return 1;
+        });
+    }
+
+    @Test
+    @DisplayName("první GET projde na controller a dostane silný ETag s no-cache")
+    void firstRequest_passesWithETag() {
+        MockHttpServletResponse res = new MockHttpServletResponse();
+
+        boolean proceed = interceptor.preHandle(new MockHttpServletRequest("GET", "/api/catalog/products"), res, null);
+
+        assertTrue(proceed);
+        assertEquals(version.etag(), res.getHeader("ETag"));
+        assertFalse(res.getHeader("ETag").startsWith("W/"));
+        assertTrue(res.getHeader("Cache-Control").contains("no-cache"));
+    }
+
+    @Test
+    @DisplayName("shodný If-None-Match → 304 a controller (ani DB) se nevolá")
+    void matchingIfNoneMatch_notModified() {
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/catalog/categories");
+        req.addHeader("If-None-Match", version.etag());
+        MockHttpServletResponse res = new MockHttpServletResponse();
+
+        boolean proceed = interceptor.preHandle(req, res, null);
+
+        assertFalse(proceed);
+        assertEquals(304, res.getStatus());
+    }
+
+    @Test
+    @DisplayName("po zápisu do katalogu starý ETag neplatí")
+    void catalogChange_invalidatesOldETag() {
+        String old = version.etag();
+        version.bump(CatalogChangedEvent.category(1L));
+        version.onCatalogChanged(CatalogChangedEvent.category(1L));
+
+        MockHttpServletRequest req = new MockHttpServletRequest("GET", "/api/catalog/categories");
+        req.addHeader("If-None-Match", old);
+        MockHttpServletResponse res = new MockHttpServletResponse();
+
+        assertTrue(interceptor.preHandle(req, res, null));
+        assertEquals(200, res.getStatus());
+        assertNotEquals(old, res.getHeader("ETag"));
+    }
+
+    @Test
+    @DisplayName("verzi zvednutou jiným uzlem převezme i tento a zahodí svou cache odpovědí")
+    void remoteChange_sameETagEverywhere() {
+        CatalogVersion other = new CatalogVersion(jdbc, mock(CatalogResponseCache.class), 0, 5);
+        String before = version.etag();
+        assertEquals(before, other.etag());
+
+        other.bump(CatalogChangedEvent.category(1L));
+        other.onCatalogChanged(CatalogChangedEvent.category(1L));
+
+        assertNotEquals(before, version.etag());
+        assertEquals(other.etag(), version.etag());
+        verify(cache).invalidateAll();
+    }
+
+    @Test
+    @DisplayName("vlastní zápis cache celou nezahazuje; bez DB platí poslední známá verze")
+    void ownChange_andDbOutage() {
+        String before = version.etag();
+        version.bump(CatalogChangedEvent.category(1L));
+        version.onCatalogChanged(CatalogChangedEvent.category(1L));
+        verify(cache, never()).invalidateAll();
+
+        String after = version.etag();
+        assertNotEquals(before, after);
+        when(jdbc.queryForObject(anyString(), eq(Long.class))).thenThrow(new IllegalStateException("db down"));
+        assertEquals(after, version.etag());
+    }
+}
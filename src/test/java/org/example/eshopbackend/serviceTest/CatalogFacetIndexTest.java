@@ -0,0 +1,141 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.dto.ProductResponseDTO;
+import org.example.eshopbackend.dto.facet.FacetFilterDTO;
+import org.example.eshopbackend.dto.facet.FacetResultDTO;
+import org.example.eshopbackend.dto.facet.FacetValueDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.mapper.ProductMapper;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.catalog.CatalogFacetIndex;
+import org.example.eshopbackend.service.catalog.StockChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class CatalogFacetIndexTest {
+
+    @Mock private CatalogProductRepository repo;
+    @Mock private ProductMapper productMapper;
+
+    @InjectMocks
+    private CatalogFacetIndex index;
+
+    @BeforeEach
+    void init() {
+        MockitoAnnotations.openMocks(this);
+        when(productMapper.toDto(any(CatalogProduct.class))).thenAnswer(inv -> {
+            CatalogProduct p = inv.getArgument(0);
+            return ProductResponseDTO.builder()
+                    .productId(p.getProductId())
+                    .productName(p.getProductName())
+                    .manufacturer(p.getManufacturer())
+                    .flavor(p.getFlavor())
+                    .nicotineMg(p.getNicotineMg())
+                    .price(p.getPrice())
+                    .amount(p.getAmount())
+                    .build();
+        });
+        when(repo.findAll()).thenReturn(List.of(
+                row(1L, "Alfa", "Elf Bar", "jahoda", "20 mg", "150"),
+                row(2L, "Beta", "Elf Bar", "mango", "10 mg", "250"),
+                row(3L, "Gama", "Vuse", "jahoda", "20 mg", "90"),
+                row(4L, "Delta", "Vuse", "máta", null, "300")));
+    }
+
+    private static CatalogProduct row(Long id, String name, String manufacturer, String flavor, String nicotine, String price) {
+        return CatalogProduct.builder()
+                .productId(id).productName(name).slug(name.toLowerCase())
+                .manufacturer(manufacturer).flavor(flavor).nicotineMg(nicotine)
+                .price(new BigDecimal(price))
+                .categorySlug("jednorazovky")
+                .build();
+    }
+
+    private static int count(FacetResultDTO out, String facet, String value) {
+        return out.getFacets().get(facet).stream()
+                .filter(v -> v.getValue().equals(value))
+                .mapToInt(FacetValueDTO::getCount)
+                .findFirst().orElse(0);
+    }
+
+    private static List<Long> ids(FacetResultDTO out) {
+        return out.getItems().stream().map(ProductResponseDTO::getProductId).toList();
+    }
+
+    @Test
+    @DisplayName("výběr v jedné facetě filtruje výsledky, ale její vlastní počty zůstávají (OR uvnitř facety)")
+    void disjunctiveCounts() {
+        FacetResultDTO out = index.search(FacetFilterDTO.builder().manufacturer(List.of("Elf Bar")).build());
+
+        assertEquals(List.of(1L, 2L), ids(out)); // Alfa, Beta – podle názvu
+        assertEquals(2, out.getTotalElements());
+        assertEquals(2, count(out, CatalogFacetIndex.MANUFACTURER, "Vuse"), "vlastní faceta se nefiltruje");
+        assertEquals(1, count(out, CatalogFacetIndex.FLAVOR, "jahoda"), "ostatní facety ano");
+        assertEquals(0, count(out, CatalogFacetIndex.FLAVOR, "máta"));
+    }
+
+    @Test
+    @DisplayName("AND mezi facetami, cenový rozsah a řazení podle ceny")
+    void priceRangeAndSort() {
+        FacetResultDTO out = index.search(FacetFilterDTO.builder()
+                .flavor(List.of("jahoda", "mango"))
+                .priceMax(new BigDecimal("200"))
+                .sort("price")
+                .build());
+
+        assertEquals(List.of(3L, 1L), ids(out)); // 90, 150
+        assertEquals(new BigDecimal("90"), out.getPriceMin());
+        assertEquals(new BigDecimal("250"), out.getPriceMax(), "rozsah pro slider ignoruje cenový filtr");
+    }
+
+    @Test
+    @DisplayName("stránkování nad bitsetem")
+    void paging() {
+        FacetResultDTO out = index.search(FacetFilterDTO.builder().page(1).size(3).build());
+
+        assertEquals(List.of(3L), ids(out)); // Alfa, Beta, Delta | Gama
+        assertEquals(4, out.getTotalElements());
+    }
+
+    @Test
+    @DisplayName("zápis produktu: načte se jen on, smazaný z indexu vypadne")
+    void incrementalRefresh() {
+        index.search(new FacetFilterDTO()); // první načtení celého katalogu
+        when(repo.findAllById(Set.of(2L, 4L))).thenReturn(List.of(row(2L, "Beta", "Vuse", "mango", "10 mg", "250")));
+
+        index.onCatalogChanged(new CatalogChangedEvent(CatalogChangedEvent.Kind.PRODUCT, Set.of(2L, 4L), Set.of()));
+        FacetResultDTO out = index.search(FacetFilterDTO.builder().manufacturer(List.of("Vuse")).build());
+
+        assertEquals(List.of(2L, 3L), ids(out));
+        verify(repo, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("změna skladu přepíše jen počet kusů – bez dotazu do DB a bez přestavby")
+    void stockPatchedInPlace() {
+        index.search(new FacetFilterDTO());
+
+        index.onStockChanged(new StockChangedEvent(Map.of(2L, 7), Set.of("beta")));
+        FacetResultDTO out = index.search(FacetFilterDTO.builder().manufacturer(List.of("Elf Bar")).build());
+
+        assertEquals(List.of(1L, 2L), ids(out));
+        assertEquals(7, out.getItems().get(1).getAmount());
+        assertNull(out.getItems().get(0).getAmount());
+        verify(repo, times(1)).findAll();
+        verify(repo, never()).findAllById(any());
+    }
+}
@@ -0,0 +1,107 @@
+package org.example.eshopbackend.serviceTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.persistence.EntityManager;
+import org.example.eshopbackend.config.StorefrontProps;
+import org.example.eshopbackend.dto.ProductResponseDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.mapper.ProductMapper;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogFeedService;
+import org.example.eshopbackend.service.catalog.CatalogFeedWriter;
+import org.example.eshopbackend.service.catalog.CatalogFeedWriter.Format;
+import org.example.eshopbackend.service.catalog.CatalogVersion;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+class CatalogFeedTest {
+
+    private final CatalogProductRepository repo = mock(CatalogProductRepository.class);
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+    private final EntityManager em = mock(EntityManager.class);
+    private CatalogFeedWriter writer;
+
+    @BeforeEach
+    void init() {
+        StorefrontProps storefront = new StorefrontProps();
+        storefront.setBaseUrl("https://shop.cz");
+        storefront.setImageBaseUrl("https://api.shop.cz");
+        writer = new CatalogFeedWriter(repo, productMapper, new ObjectMapper(), storefront);
+        ReflectionTestUtils.setField(writer, "em", em);
+
+        when(repo.streamAllOrderById()).thenAnswer(inv -> Stream.of(
+                product(1L, "Elf Bar <Jahoda> & Mango", 5, "/static/images/1.jpg"),
+                product(2L, "Vyprodáno", 0, null)));
+        when(productMapper.toDto(any(CatalogProduct.class))).thenAnswer(inv ->
+                ProductResponseDTO.builder().productId(((CatalogProduct) inv.getArgument(0)).getProductId()).build());
+    }
+
+    private static CatalogProduct product(Long id, String name, int amount, String image) {
+        return CatalogProduct.builder().productId(id).productName(name).slug("p-" + id).amount(amount)
+                .price(new BigDecimal("199.9")).categoryName("Jednorázovky").primaryImageUrl(image).build();
+    }
+
+    private String write(Format format) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writer.write(format, out);
+        return out.toString(StandardCharsets.UTF_8);
+    }
+
+    @Test
+    @DisplayName("Heureka: jen skladem, escapování, absolutní URL, každý řádek odpojen z persistence contextu")
+    void heureka() throws Exception {
+        String xml = write(Format.HEUREKA);
+
+        assertTrue(xml.contains("<PRODUCTNAME>Elf Bar &lt;Jahoda&gt; &amp; Mango</PRODUCTNAME>"));
+        assertTrue(xml.contains("<URL>https://shop.cz/produkt/p-1</URL>"));
+        assertTrue(xml.contains("<IMGURL>https://api.shop.cz/static/images/1.jpg</IMGURL>"));
+        assertTrue(xml.contains("<PRICE_VAT>199.90</PRICE_VAT>"));
+        assertFalse(xml.contains("Vyprodáno"));
+        verify(em, times(2)).detach(any());
+    }
+
+    @Test
+    @DisplayName("Zboží má vlastní namespace, NDJSON = jeden produkt na řádek")
+    void zboziAndNdjson() throws Exception {
+        assertTrue(write(Format.ZBOZI).contains("<SHOP xmlns=\"http://www.zbozi.cz/ns/offer/1.0\">"));
+        assertEquals(2, write(Format.NDJSON).lines().count());
+    }
+
+    @Test
+    @DisplayName("soubor na disku se generuje jen při změně verze katalogu")
+    void diskCacheByVersion(@TempDir Path dir) throws Exception {
+        CatalogFeedWriter fake = mock(CatalogFeedWriter.class);
+        when(fake.write(eq(Format.HEUREKA), any())).thenAnswer(inv -> {
+            ((OutputStream) inv.getArgument(1)).write("<SHOP/>".getBytes(StandardCharsets.UTF_8));
+            return 0;
+        });
+        CatalogVersion version = mock(CatalogVersion.class);
+        when(version.stamp()).thenReturn("7");
+        CatalogFeedService feeds = new CatalogFeedService(fake, version, dir.toString());
+
+        Path first = feeds.feed(Format.HEUREKA);
+        assertEquals(first, feeds.feed(Format.HEUREKA));
+        assertEquals("<SHOP/>", Files.readString(first));
+        verify(fake, times(1)).write(eq(Format.HEUREKA), any());
+
+        when(version.stamp()).thenReturn("8");
+        assertEquals("heureka-8.xml", feeds.feed(Format.HEUREKA).getFileName().toString());
+        verify(fake, times(2)).write(eq(Format.HEUREKA), any());
+    }
+}
@@ -0,0 +1,139 @@
+package org.example.eshopbackend.serviceTest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.catalog.CatalogResponseCache;
+import org.example.eshopbackend.service.catalog.StockChangedEvent;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CatalogResponseCacheTest {
+
+    private final CatalogResponseCache cache = new CatalogResponseCache(new ObjectMapper(), 64 * 1024, Duration.ofMinutes(5));
+
+    @Test
+    @DisplayName("druhý požadavek na stejný klíč jde z cache (hit), loader se volá jednou")
+    void hitAfterMiss() {
+        AtomicInteger loads = new AtomicInteger();
+
+        byte[] first = cache.getOrLoad("products:0:12:UNSORTED", () -> { loads.incrementAndGet(); return Map.of("a", 1); });
+        byte[] second = cache.getOrLoad("products:0:12:UNSORTED", () -> { loads.incrementAndGet(); return Map.of("a", 2); });
+
+        assertEquals("{\"a\":1}", new String(second, StandardCharsets.UTF_8));
+        assertSame(first, second);
+        assertEquals(1, loads.get());
+        assertEquals(1, cache.stats().hits());
+        assertEquals(1, cache.stats().misses());
+    }
+
+    @Test
+    @DisplayName("zápis produktu vyhodí výpisy a jeho slug, kategorie a jiné produkty zůstanou")
+    void productChange_evictsListsAndOwnSlugOnly() {
+        cache.getOrLoad("products:0:12:UNSORTED", () -> List.of(1));
+        cache.getOrLoad("product:foo", () -> "foo");
+        cache.getOrLoad("product:bar", () -> "bar");
+        cache.getOrLoad("categories", () -> List.of("c"));
+
+        cache.onCatalogChanged(CatalogChangedEvent.product(1L, "foo"));
+
+        assertEquals(2, cache.stats().entries());
+        assertEquals(2, cache.stats().invalidations());
+
+        AtomicInteger loads = new AtomicInteger();
+        cache.getOrLoad("product:bar", () -> { loads.incrementAndGet(); return "bar"; });
+        cache.getOrLoad("categories", () -> { loads.incrementAndGet(); return List.of("c"); });
+        cache.getOrLoad("product:foo", () -> { loads.incrementAndGet(); return "foo2"; });
+        assertEquals(1, loads.get(), "znovu se načte jen foo");
+    }
+
+    @Test
+    @DisplayName("změna skladu vyhodí jen detail dotčeného produktu, výpisy dožijí TTL")
+    void stockChange_evictsProductDetailOnly() {
+        cache.getOrLoad("products:0:12:UNSORTED", () -> List.of(1));
+        cache.getOrLoad("product:foo", () -> "foo");
+        cache.getOrLoad("product:bar", () -> "bar");
+
+        cache.onStockChanged(new StockChangedEvent(Map.of(1L, 4), Set.of("foo")));
+
+        assertEquals(2, cache.stats().entries());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    @DisplayName("změna kategorie vyhodí jen navbar s kategoriemi")
+    void categoryChange_evictsCategoriesOnly() {
+        cache.getOrLoad("products:0:12:UNSORTED", () -> List.of(1));
+        cache.getOrLoad("categories", () -> List.of("c"));
+
+        cache.onCatalogChanged(CatalogChangedEvent.category(1L));
+
+        assertEquals(1, cache.stats().entries());
+        assertEquals(1, cache.stats().invalidations());
+    }
+
+    @Test
+    @DisplayName("přestavba read modelu vyhodí celou cache")
+    void readModelRebuild_evictsEverything() {
+        cache.getOrLoad("products:0:12:UNSORTED", () -> List.of(1));
+        cache.getOrLoad("product:foo", () -> "foo");
+        cache.getOrLoad("categories", () -> List.of("c"));
+
+        cache.onCatalogChanged(CatalogChangedEvent.rebuild());
+
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    @DisplayName("při překročení limitu bajtů se vyhazuje nejdéle nepoužitý záznam")
+    void memoryCap_evictsLeastRecentlyUsed() {
+        CatalogResponseCache small = new CatalogResponseCache(new ObjectMapper(), 4 * 1024, Duration.ofMinutes(5));
+        String payload = "x".repeat(700);
+
+        small.getOrLoad("product:a", () -> payload);
+        small.getOrLoad("product:b", () -> payload);
+        small.getOrLoad("product:a", () -> payload); // a je teď nejčerstvější
+        for (int i = 0; i < 5; i++) {
+            small.getOrLoad("product:n" + i, () -> payload);
+        }
+
+        CatalogResponseCache.Stats stats = small.stats();
+        assertTrue(stats.bytes() <= stats.maxBytes());
+        assertTrue(stats.evictions() > 0);
+    }
+
+    @Test
+    @DisplayName("načtení, které běželo během invalidace, se do cache neuloží")
+    void loadRacingWithInvalidation_isNotStored() {
+        cache.getOrLoad("products:0:12:UNSORTED", () -> {
+            cache.onCatalogChanged(CatalogChangedEvent.image(1L, "foo")); // zápis doběhl mezi čtením
+            return List.of("stale");
+        });
+
+        assertEquals(0, cache.stats().entries());
+    }
+
+    @Test
+    @DisplayName("záznam po TTL vyprší – zápis na jiném uzlu se projeví i bez události")
+    void expiresAfterTtl() throws Exception {
+        CatalogResponseCache shortLived = new CatalogResponseCache(new ObjectMapper(), 64 * 1024, Duration.ofMillis(50));
+        AtomicInteger loads = new AtomicInteger();
+
+        shortLived.getOrLoad("product:foo", () -> { loads.incrementAndGet(); return "foo"; });
+        shortLived.getOrLoad("product:foo", () -> { loads.incrementAndGet(); return "foo"; });
+        Thread.sleep(80);
+        byte[] body = shortLived.getOrLoad("product:foo", () -> { loads.incrementAndGet(); return "foo2"; });
+
+        assertEquals("\"foo2\"", new String(body, StandardCharsets.UTF_8));
+        assertEquals(2, loads.get());
+        assertEquals(1, shortLived.stats().entries());
+    }
+}
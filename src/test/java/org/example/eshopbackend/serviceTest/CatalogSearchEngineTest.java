@@ -0,0 +1,189 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.catalog.CatalogSearchEngine;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.data.domain.PageRequest;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.*;
+
+class CatalogSearchEngineTest {
+
+    @TempDir Path dir;
+
+    private final CatalogProductRepository repo = mock(CatalogProductRepository.class);
+    private final OffsetDateTime refreshed = OffsetDateTime.parse("2026-01-01T10:00:00Z");
+    private CatalogSearchEngine engine;
+
+    @BeforeEach
+    void init() {
+        when(repo.findAll()).thenReturn(List.of(
+                product(1L, "Elf Bar 600 Jahoda", "Elf Bar", "Jahoda", "Jednorázovky", "Sladká jahoda"),
+                product(2L, "Elf Bar 600 Mango", "Elf Bar", "Mango", "Jednorázovky", null),
+                product(3L, "Vuse Příchuť Máta", "Vuse", "Máta", "Náplně", "Osvěžující, s tónem jahody")));
+        when(repo.count()).thenReturn(3L);
+        when(repo.lastRefreshedAt()).thenReturn(Optional.of(refreshed));
+        engine = engine();
+    }
+
+    private CatalogSearchEngine engine() {
+        return new CatalogSearchEngine(repo, "embedded", dir.resolve("index.bin").toString());
+    }
+
+    private CatalogProduct product(Long id, String name, String manufacturer, String flavor,
+                                   String category, String description) {
+        return CatalogProduct.builder().productId(id).productName(name).manufacturer(manufacturer)
+                .flavor(flavor).categoryName(category).description(description).refreshedAt(refreshed).build();
+    }
+
+    private List<Long> ids(String q) {
+        return engine.search(q, PageRequest.of(0, 10)).getContent();
+    }
+
+    @Test
+    @DisplayName("BM25F: shoda v názvu má přednost před shodou v popisu")
+    void fieldWeights() {
+        assertEquals(List.of(1L, 3L), ids("jahoda"));
+    }
+
+    @Test
+    @DisplayName("bez diakritiky, všechna slova musí sedět, poslední slovo jako prefix")
+    void foldedAndPrefix() {
+        assertEquals(List.of(3L), ids("vuse prich"));
+        assertEquals(List.of(2L), ids("ELF mang"));
+        assertTrue(ids("elf kiwi").isEmpty());
+    }
+
+    @Test
+    @DisplayName("překlepy: jeden u kratších slov, krátká slova jen přesně")
+    void typoTolerance() {
+        assertEquals(List.of(2L), ids("mamgo"));
+        assertEquals(List.of(1L, 3L), ids("jahodq")); // jahoda i jahody (popis)
+        assertTrue(ids("elx").isEmpty()); // 3 znaky bez prefixu shody → nic
+    }
+
+    @Test
+    @DisplayName("stránkování a celkový počet")
+    void paging() {
+        var page = engine.search("elf", PageRequest.of(1, 1));
+        assertEquals(2, page.getTotalElements());
+        assertEquals(1, page.getContent().size());
+    }
+
+    @Test
+    @DisplayName("změna produktu přeindexuje jen jeho id, smazaný produkt zmizí")
+    void incrementalReindex() {
+        ids("elf"); // načte index
+        when(repo.findAllById(anyCollection())).thenReturn(List.of(
+                product(2L, "Elf Bar 600 Kiwi", "Elf Bar", "Kiwi", "Jednorázovky", null)));
+
+        engine.onCatalogChanged(CatalogChangedEvent.product(2L));
+        assertEquals(List.of(2L), ids("kiwi"));
+        assertTrue(ids("mango").isEmpty());
+
+        when(repo.findAllById(anyCollection())).thenReturn(List.of());
+        engine.onCatalogChanged(CatalogChangedEvent.product(1L));
+        assertEquals(List.of(2L), ids("elf"));
+        verify(repo, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("snapshot na disku: při stejném otisku se při startu nečte katalog, jinak přestavba")
+    void snapshot() {
+        ids("elf");
+        assertTrue(Files.exists(dir.resolve("index.bin")));
+
+        engine = engine();
+        assertEquals(List.of(1L, 3L), ids("jahoda"));
+        verify(repo, times(1)).findAll();
+
+        when(repo.lastRefreshedAt()).thenReturn(Optional.of(refreshed.plusMinutes(1)));
+        engine = engine();
+        ids("jahoda");
+        verify(repo, times(2)).findAll();
+    }
+
+    @Test
+    @DisplayName("otisk snapshotu odpovídá uloženým datům, ne stavu DB v okamžiku uložení")
+    void snapshotFingerprintFromIndexedData() {
+        // v DB už je novější řádek, jehož událost se teprve aplikuje – findAll ho ještě nevrátil
+        when(repo.lastRefreshedAt()).thenReturn(Optional.of(refreshed.plusMinutes(1)));
+        ids("elf");
+
+        engine = engine();
+        ids("elf");
+        verify(repo, times(2)).findAll(); // snapshot se nevydává za novější, než je
+    }
+
+    @Test
+    @DisplayName("idf počítá jen živé dokumenty – smazané do kompakce pořadí nezkreslí")
+    void idfIgnoresDeletedDocs() {
+        when(repo.findAll()).thenReturn(List.of(
+                product(1L, "Kiwi", null, null, null, "mango"),
+                product(2L, "Mango", null, null, null, "kiwi"),
+                product(3L, "Produkt tři", null, null, null, "mango"),
+                product(4L, "Produkt čtyři", null, null, null, "mango"),
+                product(5L, "Produkt pět", null, null, null, "kiwi"),
+                product(6L, "Produkt šest", null, null, null, null),
+                product(7L, "Produkt sedm", null, null, null, null),
+                product(8L, "Produkt osm", null, null, null, null)));
+        assertEquals(List.of(1L, 2L), ids("kiwi mango")); // kiwi je vzácnější → vyhrává název Kiwi
+
+        // 3 a 4 už mango nemají: kiwi 3×, mango 2× → vzácnější je mango
+        when(repo.findAllById(anyCollection())).thenReturn(List.of(
+                product(3L, "Produkt tři", null, null, null, null),
+                product(4L, "Produkt čtyři", null, null, null, null)));
+        engine.onCatalogChanged(CatalogChangedEvent.products(List.of(3L, 4L), List.of()));
+
+        assertEquals(List.of(2L, 1L), ids("kiwi mango"));
+    }
+
+    @Test
+    @DisplayName("změna před líným načtením se nezahodí – použije se na načtený snapshot")
+    void changeBeforeLoadApplied() {
+        ids("elf"); // uloží snapshot
+        engine = engine();
+        when(repo.findAllById(anyCollection())).thenReturn(List.of(
+                product(2L, "Elf Bar 600 Kiwi", "Elf Bar", "Kiwi", "Jednorázovky", null)));
+
+        engine.onCatalogChanged(CatalogChangedEvent.product(2L)); // otisk se nezměnil, snapshot je starý
+
+        assertEquals(List.of(2L), ids("kiwi"));
+        assertTrue(ids("mango").isEmpty());
+        verify(repo, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("překlep najde i term přidaný přeindexací a nenajde term, který z indexu vypadl")
+    void typoAfterReindex() {
+        ids("elf");
+        when(repo.findAllById(anyCollection())).thenReturn(List.of(
+                product(2L, "Elf Bar 600 Kiwi", "Elf Bar", "Kiwi", "Jednorázovky", null)));
+        engine.onCatalogChanged(CatalogChangedEvent.product(2L));
+
+        assertEquals(List.of(2L), ids("kiwy"));
+        assertTrue(ids("mamgo").isEmpty());
+    }
+
+    @Test
+    @DisplayName("vypnutý engine nereaguje na události a nesahá do DB")
+    void disabled() {
+        CatalogSearchEngine off = new CatalogSearchEngine(repo, "postgres", dir.resolve("off.bin").toString());
+        assertFalse(off.isEnabled());
+        off.onCatalogChanged(CatalogChangedEvent.rebuild());
+        verifyNoInteractions(repo);
+    }
+}
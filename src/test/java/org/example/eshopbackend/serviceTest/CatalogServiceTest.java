@@ -1,30 +1,39 @@
 // src/test/java/org/example/zeniqbackend/service/CatalogServiceTest.java
 package org.example.eshopbackend.serviceTest;
+import org.example.eshopbackend.dto.CursorPageDTO;
+import org.example.eshopbackend.dto.ProductLookupItemDTO;
+import org.example.eshopbackend.dto.ProductRangeFilterDTO;
 import org.example.eshopbackend.dto.ProductResponseDTO;
 import org.example.eshopbackend.entity.Category;
-import org.example.eshopbackend.entity.Product;
 import org.example.eshopbackend.mapper.ProductMapper;
+import org.example.eshopbackend.repository.CatalogProductRepository;
 import org.example.eshopbackend.repository.CategoryRepository;
-import org.example.eshopbackend.repository.ImageRepository;
-import org.example.eshopbackend.repository.ProductRepository;
 import org.example.eshopbackend.service.CatalogService;
+import org.example.eshopbackend.service.catalog.CatalogSearchEngine;
+import org.example.eshopbackend.util.KeysetCursor;
 import org.junit.jupiter.api.*;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
 import org.mockito.*;
 import org.springframework.data.domain.*;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.web.server.ResponseStatusException;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
 
 class CatalogServiceTest {
 
-    @Mock private ProductRepository productRepository;
+    @Mock private CatalogProductRepository productRepository;
     @Mock private CategoryRepository categoryRepository;
-    @Mock private ImageRepository imageRepository;
+    @Mock private CatalogSearchEngine searchEngine; // isEnabled() = false → Postgres fulltext
     @Mock private ProductMapper productMapper;
 
     @InjectMocks
@@ -35,69 +44,9 @@ class CatalogServiceTest {
         MockitoAnnotations.openMocks(this);
     }
 
-    private static Product makeProduct(Long id, String slug, String name) {
-        Product p = new Product();
-        p.setProductId(id);
-        p.setSlug(slug);
-        p.setProductName(name);
-        p.setPrice(new BigDecimal("123.45"));
-        return p;
-    }
-
     @Nested
-    @DisplayName("list / getBy* – entity")
-    class EntityReadTests {
-
-        @Test
-        @DisplayName("list vrátí stránkované produkty")
-        void list_ok() {
-            Pageable pageable = PageRequest.of(1, 10, Sort.by("productId").descending());
-            List<Product> items = List.of(makeProduct(1L, "a", "A"), makeProduct(2L, "b", "B"));
-            Page<Product> page = new PageImpl<>(items, pageable, 25);
-
-            when(productRepository.findAll(pageable)).thenReturn(page);
-
-            Page<Product> result = catalogService.list(pageable);
-
-            assertEquals(25, result.getTotalElements());
-            assertEquals(3, result.getTotalPages()); // 25 / 10 => 3
-            assertEquals(2, result.getContent().size());
-            assertEquals("B", result.getContent().get(1).getProductName());
-            verify(productRepository).findAll(pageable);
-        }
-
-        @Test
-        @DisplayName("getBySlug – nalezen")
-        void getBySlug_found() {
-            Product p = makeProduct(10L, "foo", "Foo");
-            when(productRepository.findBySlug("foo")).thenReturn(Optional.of(p));
-
-            Product result = catalogService.getBySlug("foo");
-            assertEquals(10L, result.getProductId());
-        }
-
-        @Test
-        @DisplayName("getBySlug – nenalezen → NoSuchElementException")
-        void getBySlug_notFound() {
-            when(productRepository.findBySlug("missing")).thenReturn(Optional.empty());
-            assertThrows(NoSuchElementException.class, () -> catalogService.getBySlug("missing"));
-        }
-
-        @Test
-        @DisplayName("getById – nalezen")
-        void getById_found() {
-            Product p = makeProduct(5L, "x", "X");
-            when(productRepository.findById(5L)).thenReturn(Optional.of(p));
-            Product result = catalogService.getById(5L);
-            assertEquals("X", result.getProductName());
-        }
-
-        @Test
-        @DisplayName("getById – nenalezen → NoSuchElementException")
-        void getById_notFound() {
-            when(productRepository.findById(99L)).thenReturn(Optional.empty());
-            assertThrows(NoSuchElementException.class, () -> catalogService.getById(99L));
-        }
+    @DisplayName("kategorie")
+    class CategoryTests {
 
         @Test
         @DisplayName("listCategories – vrátí seřazené kategorie")
@@ -111,251 +60,271 @@ class CatalogServiceTest {
             assertEquals("A", out.get(0).getCategoryName());
             verify(categoryRepository).findAllOrdered();
         }
+    }
 
-        @Test
-        @DisplayName("listByCategorySlug – vrátí stránkované produkty dle kategorie")
-        void listByCategorySlug_ok() {
-            Pageable pageable = PageRequest.of(0, 2);
-            Page<Product> page = new PageImpl<>(List.of(makeProduct(1L, "a","A")), pageable, 1);
-            when(productRepository.findByCategorySlug("vapky", pageable)).thenReturn(page);
-
-            Page<Product> out = catalogService.listByCategorySlug("vapky", pageable);
-            assertEquals(1, out.getTotalElements());
-            verify(productRepository).findByCategorySlug("vapky", pageable);
-        }
+    private static ProductResponseDTO dto(Long id, String slug, String primaryImageUrl) {
+        return ProductResponseDTO.builder()
+                .productId(id)
+                .slug(slug)
+                .productName(slug.toUpperCase())
+                .price(new BigDecimal("123.45"))
+                .primaryImageUrl(primaryImageUrl)
+                .build();
     }
 
     @Nested
-    @DisplayName("DTO metody + primaryImageUrl")
+    @DisplayName("DTO metody – projekce z read modelu, bez entit")
     class DtoTests {
 
         @Test
-        @DisplayName("listDto – mapuje na DTO a doplňuje primaryImageUrl (nalezen)")
-        void listDto_withPrimaryImage() {
+        @DisplayName("listDto – stránka projekcí jedním dotazem, mapper ani obrázky se nevolají")
+        void listDto_projection() {
             Pageable pageable = PageRequest.of(0, 3);
-            Product p1 = makeProduct(1L, "p-1", "P1");
-            Product p2 = makeProduct(2L, "p-2", "P2");
-            Page<Product> entityPage = new PageImpl<>(List.of(p1, p2), pageable, 10);
-
-            ProductResponseDTO dto1 = new ProductResponseDTO(); dto1.setProductId(1L); dto1.setSlug("p-1");
-            ProductResponseDTO dto2 = new ProductResponseDTO(); dto2.setProductId(2L); dto2.setSlug("p-2");
-
-            when(productRepository.findAll(pageable)).thenReturn(entityPage);
-            when(productMapper.toDto(p1)).thenReturn(dto1);
-            when(productMapper.toDto(p2)).thenReturn(dto2);
-
-            // imageRepo: vrátí první URL pro každý produkt
-            when(imageRepository.findTopUrlsByProductId(eq(1L), any(Pageable.class)))
-                    .thenReturn(List.of("https://cdn/1.jpg"));
-            when(imageRepository.findTopUrlsByProductId(eq(2L), any(Pageable.class)))
-                    .thenReturn(List.of("https://cdn/2.png"));
+            Page<ProductResponseDTO> page = new PageImpl<>(
+                    List.of(dto(1L, "p-1", "https://cdn/1.jpg"), dto(2L, "p-2", null)), pageable, 10);
+            when(productRepository.findDtoPage(pageable)).thenReturn(page);
 
             Page<ProductResponseDTO> out = catalogService.listDto(pageable);
 
             assertEquals(10, out.getTotalElements());
-            assertEquals(2, out.getContent().size());
             assertEquals("https://cdn/1.jpg", out.getContent().get(0).getPrimaryImageUrl());
-            assertEquals("https://cdn/2.png", out.getContent().get(1).getPrimaryImageUrl());
-
-            // ověř, že se používá PageRequest.of(0,1)
-            ArgumentCaptor<Pageable> cap = ArgumentCaptor.forClass(Pageable.class);
-            verify(imageRepository, times(2)).findTopUrlsByProductId(anyLong(), cap.capture());
-            cap.getAllValues().forEach(pg -> {
-                assertEquals(0, pg.getPageNumber());
-                assertEquals(1, pg.getPageSize());
-            });
+            assertNull(out.getContent().get(1).getPrimaryImageUrl());
+            verify(productRepository, times(1)).findDtoPage(pageable);
+            verify(productRepository, never()).findAll(any(Pageable.class));
         }
 
-        @Test
-        @DisplayName("listDto – primaryImageUrl neexistuje → null")
-        void listDto_withoutImage() {
-            Pageable pageable = PageRequest.of(0, 1);
-            Product p = makeProduct(7L, "p-7", "P7");
-            Page<Product> entityPage = new PageImpl<>(List.of(p), pageable, 1);
-            ProductResponseDTO dto = new ProductResponseDTO(); dto.setProductId(7L); dto.setSlug("p-7");
-
-            when(productRepository.findAll(pageable)).thenReturn(entityPage);
-            when(productMapper.toDto(p)).thenReturn(dto);
-            when(imageRepository.findTopUrlsByProductId(eq(7L), any(Pageable.class)))
-                    .thenReturn(List.of()); // žádná URL
+        @ParameterizedTest(name = "velikost stránky {0}")
+        @ValueSource(ints = {1, 12, 48, 200})
+        @DisplayName("listDto – počet dotazů na stránku nezávisí na její velikosti")
+        void listDto_fixedQueryCountPerPage(int size) {
+            Pageable pageable = PageRequest.of(0, size);
+            List<ProductResponseDTO> rows = new ArrayList<>();
+            for (long id = 1; id <= size; id++) rows.add(dto(id, "p-" + id, "u" + id));
+            when(productRepository.findDtoPage(pageable)).thenReturn(new PageImpl<>(rows, pageable, size));
 
             Page<ProductResponseDTO> out = catalogService.listDto(pageable);
-            assertNull(out.getContent().get(0).getPrimaryImageUrl());
-        }
 
-        @Test
-        @DisplayName("getDtoBySlug – mapuje a doplní primaryImageUrl")
-        void getDtoBySlug_ok() {
-            Product p = makeProduct(11L, "slug-11", "S11");
-            ProductResponseDTO dto = new ProductResponseDTO(); dto.setProductId(11L); dto.setSlug("slug-11");
-
-            when(productRepository.findBySlug("slug-11")).thenReturn(Optional.of(p));
-            when(productMapper.toDto(p)).thenReturn(dto);
-            when(imageRepository.findTopUrlsByProductId(eq(11L), any(Pageable.class)))
-                    .thenReturn(List.of("u11"));
-
-            ProductResponseDTO out = catalogService.getDtoBySlug("slug-11");
-            assertEquals("u11", out.getPrimaryImageUrl());
+            assertEquals(size, out.getContent().size());
+            verify(productRepository, times(1)).findDtoPage(pageable);
+            verifyNoMoreInteractions(productRepository);
         }
 
         @Test
-        @DisplayName("getDtoById – mapuje a doplní primaryImageUrl")
-        void getDtoById_ok() {
-            Product p = makeProduct(99L, "s-99", "S99");
-            ProductResponseDTO dto = new ProductResponseDTO(); dto.setProductId(99L); dto.setSlug("s-99");
-
-            when(productRepository.findById(99L)).thenReturn(Optional.of(p));
-            when(productMapper.toDto(p)).thenReturn(dto);
-            when(imageRepository.findTopUrlsByProductId(eq(99L), any(Pageable.class)))
-                    .thenReturn(List.of("u99"));
-
-            ProductResponseDTO out = catalogService.getDtoById(99L);
-            assertEquals("u99", out.getPrimaryImageUrl());
+        @DisplayName("getDtoBySlug / getDtoById – projekce podle klíče")
+        void getDto_ok() {
+            when(productRepository.findDtoBySlug("foo")).thenReturn(Optional.of(dto(11L, "foo", "u11")));
+            when(productRepository.findDtoById(99L)).thenReturn(Optional.of(dto(99L, "bar", "u99")));
+
+            assertEquals("u11", catalogService.getDtoBySlug("foo").getPrimaryImageUrl());
+            assertEquals("u99", catalogService.getDtoById(99L).getPrimaryImageUrl());
+            verify(productRepository, never()).findById(any());
         }
 
         @Test
-        @DisplayName("listDtoByCategorySlug – mapuje a doplní primaryImageUrl + propagační stránkování")
+        @DisplayName("listDtoByCategorySlug – projekce filtrovaná kategorií")
         void listDtoByCategorySlug_ok() {
-            Pageable pageable = PageRequest.of(2, 2, Sort.by("productId").ascending());
-            Product p1 = makeProduct(1L, "a", "A");
-            Product p2 = makeProduct(2L, "b", "B");
-            Page<Product> page = new PageImpl<>(List.of(p1, p2), pageable, 9);
-
-            ProductResponseDTO d1 = new ProductResponseDTO(); d1.setProductId(1L); d1.setSlug("a");
-            ProductResponseDTO d2 = new ProductResponseDTO(); d2.setProductId(2L); d2.setSlug("b");
-
-            when(productRepository.findByCategorySlug("cat", pageable)).thenReturn(page);
-            when(productMapper.toDto(p1)).thenReturn(d1);
-            when(productMapper.toDto(p2)).thenReturn(d2);
-            when(imageRepository.findTopUrlsByProductId(eq(1L), any(Pageable.class))).thenReturn(List.of("i1"));
-            when(imageRepository.findTopUrlsByProductId(eq(2L), any(Pageable.class))).thenReturn(List.of("i2"));
+            Pageable pageable = PageRequest.of(0, 2, Sort.by("productName"));
+            when(productRepository.findDtoPageByCategorySlug("vapky", pageable))
+                    .thenReturn(new PageImpl<>(List.of(dto(1L, "a", "i1")), pageable, 1));
 
-            Page<ProductResponseDTO> out = catalogService.listDtoByCategorySlug("cat", pageable);
+            Page<ProductResponseDTO> out = catalogService.listDtoByCategorySlug("vapky", pageable);
 
-            assertEquals(9, out.getTotalElements());
-            assertEquals(2, out.getContent().size());
             assertEquals("i1", out.getContent().get(0).getPrimaryImageUrl());
-            assertEquals("i2", out.getContent().get(1).getPrimaryImageUrl());
-            verify(productRepository).findByCategorySlug("cat", pageable);
         }
 
-        // ==== PŘIDEJ do `@Nested class DtoTests` ====
-
         @Test
-        @DisplayName("listDto – volá imageRepo přesně s PageRequest.of(0,1)")
-        void listDto_exactPageRequestForImages() {
-            Pageable pageable = PageRequest.of(0, 2);
-            Product p1 = makeProduct(1L, "p1", "P1");
-            Product p2 = makeProduct(2L, "p2", "P2");
-            Page<Product> entityPage = new PageImpl<>(List.of(p1, p2), pageable, 2);
-
-            ProductResponseDTO d1 = new ProductResponseDTO(); d1.setProductId(1L);
-            ProductResponseDTO d2 = new ProductResponseDTO(); d2.setProductId(2L);
+        @DisplayName("searchDto – id v pořadí relevance, DTO dotažené jedním dotazem a srovnané")
+        void searchDto_keepsRelevanceOrder() {
+            Pageable ranked = PageRequest.of(0, 12);
+            when(productRepository.searchIds("c:*", ranked)).thenReturn(new PageImpl<>(List.of(3L, 1L), ranked, 2));
+            when(productRepository.findDtosByIds(List.of(3L, 1L)))
+                    .thenReturn(List.of(dto(1L, "a", "i1"), dto(3L, "c", "i3")));
 
-            when(productRepository.findAll(pageable)).thenReturn(entityPage);
-            when(productMapper.toDto(p1)).thenReturn(d1);
-            when(productMapper.toDto(p2)).thenReturn(d2);
+            Page<ProductResponseDTO> out = catalogService.searchDto("c", ranked);
 
-            when(imageRepository.findTopUrlsByProductId(eq(1L), eq(PageRequest.of(0, 1))))
-                    .thenReturn(List.of("u1"));
-            when(imageRepository.findTopUrlsByProductId(eq(2L), eq(PageRequest.of(0, 1))))
-                    .thenReturn(List.of("u2"));
+            assertEquals(List.of(3L, 1L), out.getContent().stream().map(ProductResponseDTO::getProductId).toList());
+            assertEquals(2, out.getTotalElements());
+        }
 
-            Page<ProductResponseDTO> out = catalogService.listDto(pageable);
+        @Test
+        @DisplayName("searchDto – dotaz bez diakritiky, prefixy, řazení z Pageable se zahodí (relevance)")
+        void searchDto_foldsQueryAndIgnoresSort() {
+            Pageable pageable = PageRequest.of(1, 12, Sort.by("productName"));
+            when(productRepository.searchIds(anyString(), any(Pageable.class))).thenReturn(Page.empty());
 
-            assertEquals("u1", out.getContent().get(0).getPrimaryImageUrl());
-            assertEquals("u2", out.getContent().get(1).getPrimaryImageUrl());
+            catalogService.searchDto("  Příchuť JAHODA ", pageable);
 
-            // přesná verifikace s eq(PageRequest.of(0,1))
-            verify(imageRepository).findTopUrlsByProductId(eq(1L), eq(PageRequest.of(0, 1)));
-            verify(imageRepository).findTopUrlsByProductId(eq(2L), eq(PageRequest.of(0, 1)));
+            verify(productRepository).searchIds("prichut:* & jahoda:*", PageRequest.of(1, 12));
+            verify(productRepository, never()).findDtosByIds(any());
         }
 
         @Test
-        @DisplayName("getDtoBySlug – nenalezen → NoSuchElementException a mapper/imageRepo se nevolají")
-        void getDtoBySlug_notFound_propagates() {
-            when(productRepository.findBySlug("missing")).thenReturn(Optional.empty());
-
-            assertThrows(NoSuchElementException.class, () -> catalogService.getDtoBySlug("missing"));
+        @DisplayName("searchDto – dotaz bez použitelných znaků → prázdná stránka bez dotazu do DB")
+        void searchDto_blankQuery_noDbCall() {
+            Page<ProductResponseDTO> out = catalogService.searchDto(" -- ", PageRequest.of(0, 12));
 
-            verify(productMapper, never()).toDto(any());
-            verify(imageRepository, never()).findTopUrlsByProductId(anyLong(), any());
+            assertTrue(out.isEmpty());
+            verifyNoInteractions(productRepository);
         }
 
         @Test
-        @DisplayName("getDtoById – nenalezen → NoSuchElementException a mapper/imageRepo se nevolají")
-        void getDtoById_notFound_propagates() {
-            when(productRepository.findById(404L)).thenReturn(Optional.empty());
+        @DisplayName("getDtoBySlug / getDtoById – nenalezen → NoSuchElementException")
+        void getDto_notFound_propagates() {
+            when(productRepository.findDtoBySlug("missing")).thenReturn(Optional.empty());
+            when(productRepository.findDtoById(404L)).thenReturn(Optional.empty());
 
+            assertThrows(NoSuchElementException.class, () -> catalogService.getDtoBySlug("missing"));
             assertThrows(NoSuchElementException.class, () -> catalogService.getDtoById(404L));
-
-            verify(productMapper, never()).toDto(any());
-            verify(imageRepository, never()).findTopUrlsByProductId(anyLong(), any());
         }
+    }
+
+    @Nested
+    @DisplayName("filterDto – rozsahy číselných parametrů")
+    class RangeTests {
 
         @Test
-        @DisplayName("getDtoBySlug – přesně PageRequest.of(0,1) při načtení primaryImageUrl")
-        void getDtoBySlug_exactPageRequest() {
-            Product p = makeProduct(77L, "slug-77", "S77");
-            ProductResponseDTO dto = new ProductResponseDTO(); dto.setProductId(77L);
+        @DisplayName("API řazení se přeloží na sloupce read modelu, id jako poslední klíč, velikost stránky omezená")
+        @SuppressWarnings("unchecked")
+        void filter_mapsSortAndClampsSize() {
+            when(productRepository.findAll(any(Specification.class), any(Pageable.class))).thenReturn(Page.empty());
+
+            catalogService.filterDto(ProductRangeFilterDTO.builder().nicotineMax(new BigDecimal("10")).puffMin(600).build(),
+                    PageRequest.of(2, 500, Sort.by(Sort.Order.desc("puffCount"))));
+
+            ArgumentCaptor<Pageable> page = ArgumentCaptor.forClass(Pageable.class);
+            verify(productRepository).findAll(any(Specification.class), page.capture());
+            assertEquals(2, page.getValue().getPageNumber());
+            assertEquals(100, page.getValue().getPageSize());
+            assertEquals(Sort.by(Sort.Order.desc("puffCountValue"), Sort.Order.asc("productId")), page.getValue().getSort());
+        }
 
-            when(productRepository.findBySlug("slug-77")).thenReturn(Optional.of(p));
-            when(productMapper.toDto(p)).thenReturn(dto);
-            when(imageRepository.findTopUrlsByProductId(eq(77L), eq(PageRequest.of(0, 1))))
-                    .thenReturn(List.of("img77"));
+        @Test
+        @DisplayName("neznámé řazení → 400 bez dotazu do DB")
+        void filter_unknownSort() {
+            assertThrows(ResponseStatusException.class, () -> catalogService.filterDto(
+                    new ProductRangeFilterDTO(), PageRequest.of(0, 12, Sort.by("description"))));
+            verifyNoInteractions(productRepository);
+        }
+    }
 
-            ProductResponseDTO out = catalogService.getDtoBySlug("slug-77");
-            assertEquals("img77", out.getPrimaryImageUrl());
+    @Nested
+    @DisplayName("lookupDtos – hromadně pro košík")
+    class LookupTests {
 
-            verify(imageRepository).findTopUrlsByProductId(eq(77L), eq(PageRequest.of(0, 1)));
+        @Test
+        @DisplayName("pořadí požadavku, chybějící označené, jeden dotaz na id a jeden na slugy")
+        void lookup_keepsOrderAndFlagsMissing() {
+            when(productRepository.findDtosByIds(anyCollection()))
+                    .thenReturn(List.of(dto(1L, "a", "i1"), dto(3L, "c", "i3")));
+            when(productRepository.findDtosBySlugs(anyCollection()))
+                    .thenReturn(List.of(dto(7L, "g", "i7")));
+
+            List<ProductLookupItemDTO> out = catalogService.lookupDtos(List.of(3L, 2L, 1L, 3L), List.of("x", "g"));
+
+            assertEquals(List.of(3L, 2L, 1L, 3L), out.subList(0, 4).stream().map(ProductLookupItemDTO::getId).toList());
+            assertEquals("c", out.get(0).getProduct().getSlug());
+            assertTrue(out.get(1).isMissing());
+            assertNull(out.get(1).getProduct());
+            assertEquals("c", out.get(3).getProduct().getSlug()); // duplicita v košíku
+            assertTrue(out.get(4).isMissing());
+            assertEquals("x", out.get(4).getSlug());
+            assertEquals(7L, out.get(5).getProduct().getProductId());
+            verify(productRepository, times(1)).findDtosByIds(Set.of(1L, 2L, 3L));
+            verify(productRepository, times(1)).findDtosBySlugs(Set.of("x", "g"));
         }
 
         @Test
-        @DisplayName("getDtoById – přesně PageRequest.of(0,1) při načtení primaryImageUrl")
-        void getDtoById_exactPageRequest() {
-            Product p = makeProduct(88L, "slug-88", "S88");
-            ProductResponseDTO dto = new ProductResponseDTO(); dto.setProductId(88L);
-
-            when(productRepository.findById(88L)).thenReturn(Optional.of(p));
-            when(productMapper.toDto(p)).thenReturn(dto);
-            when(imageRepository.findTopUrlsByProductId(eq(88L), eq(PageRequest.of(0, 1))))
-                    .thenReturn(List.of("img88"));
+        @DisplayName("prázdný požadavek nesahá do DB, víc než MAX_LOOKUP → 400")
+        void lookup_emptyAndLimit() {
+            assertTrue(catalogService.lookupDtos(null, List.of()).isEmpty());
+            verifyNoInteractions(productRepository);
+
+            List<Long> tooMany = new ArrayList<>();
+            for (long id = 0; id <= CatalogService.MAX_LOOKUP; id++) tooMany.add(id);
+            assertThrows(ResponseStatusException.class, () -> catalogService.lookupDtos(tooMany, null));
+        }
+    }
 
-            ProductResponseDTO out = catalogService.getDtoById(88L);
-            assertEquals("img88", out.getPrimaryImageUrl());
+    @Nested
+    @DisplayName("seekDto – keyset stránkování")
+    class SeekTests {
 
-            verify(imageRepository).findTopUrlsByProductId(eq(88L), eq(PageRequest.of(0, 1)));
+        @Test
+        @DisplayName("první stránka: načte size+1 řádků, vrátí size a cursor z posledního vráceného")
+        void firstPage_hasNextAndCursor() {
+            List<ProductResponseDTO> rows = List.of(dto(1L, "a", null), dto(2L, "b", null), dto(3L, "c", null));
+            when(productRepository.findNextByName("", 0L, PageRequest.of(0, 3))).thenReturn(rows);
+
+            CursorPageDTO<ProductResponseDTO> out = catalogService.seekDto(null, CatalogService.SORT_NAME, null, 2);
+
+            assertEquals(2, out.getItems().size());
+            assertTrue(out.isHasNext());
+            KeysetCursor next = KeysetCursor.decode(out.getNextCursor(), CatalogService.SORT_NAME);
+            assertEquals("B", next.key());
+            assertEquals(2L, next.id());
+            verify(productRepository, never()).count();
         }
 
         @Test
-        @DisplayName("listDtoByCategorySlug – přesně PageRequest.of(0,1) pro každý produkt")
-        void listDtoByCategorySlug_exactPageRequest() {
-            Pageable pageable = PageRequest.of(1, 2);
-            Product p1 = makeProduct(1L, "a", "A");
-            Product p2 = makeProduct(2L, "b", "B");
-            Page<Product> page = new PageImpl<>(List.of(p1, p2), pageable, 5);
+        @DisplayName("další stránka podle ceny v kategorii pokračuje za (cena, id) z cursoru; poslední stránka nemá cursor")
+        void nextPage_byPriceInCategory() {
+            String cursor = new KeysetCursor(CatalogService.SORT_PRICE, "123.45", 7L).encode();
+            when(productRepository.findNextByPriceInCategory("liquidy", new BigDecimal("123.45"), 7L, PageRequest.of(0, 13)))
+                    .thenReturn(List.of(dto(8L, "h", null)));
 
-            ProductResponseDTO d1 = new ProductResponseDTO(); d1.setProductId(1L);
-            ProductResponseDTO d2 = new ProductResponseDTO(); d2.setProductId(2L);
+            CursorPageDTO<ProductResponseDTO> out = catalogService.seekDto("liquidy", CatalogService.SORT_PRICE, cursor, 12);
 
-            when(productRepository.findByCategorySlug("cat", pageable)).thenReturn(page);
-            when(productMapper.toDto(p1)).thenReturn(d1);
-            when(productMapper.toDto(p2)).thenReturn(d2);
+            assertEquals(1, out.getItems().size());
+            assertFalse(out.isHasNext());
+            assertNull(out.getNextCursor());
+        }
 
-            when(imageRepository.findTopUrlsByProductId(eq(1L), eq(PageRequest.of(0, 1))))
-                    .thenReturn(List.of("i1"));
-            when(imageRepository.findTopUrlsByProductId(eq(2L), eq(PageRequest.of(0, 1))))
-                    .thenReturn(List.of("i2"));
+        @Test
+        @DisplayName("produkty bez ceny jsou na konci: cursor za nimi má prázdný klíč a pokračuje jen podle id")
+        void priceSeek_productsWithoutPrice() {
+            ProductResponseDTO priced = dto(1L, "a", null);
+            ProductResponseDTO noPrice = dto(5L, "e", null);
+            noPrice.setPrice(null);
+            when(productRepository.findNextByPrice(BigDecimal.valueOf(-1), 0L, PageRequest.of(0, 3)))
+                    .thenReturn(List.of(priced));
+            // s cenou už nic není → doplní se produkty bez ceny od začátku
+            when(productRepository.findNextWithoutPrice(0L, PageRequest.of(0, 2)))
+                    .thenReturn(List.of(noPrice, dto(6L, "f", null)));
+
+            CursorPageDTO<ProductResponseDTO> first = catalogService.seekDto(null, CatalogService.SORT_PRICE, null, 2);
+            assertEquals(List.of(1L, 5L), first.getItems().stream().map(ProductResponseDTO::getProductId).toList());
+            KeysetCursor next = KeysetCursor.decode(first.getNextCursor(), CatalogService.SORT_PRICE);
+            assertEquals("", next.key());
+            assertEquals(5L, next.id());
+
+            when(productRepository.findNextWithoutPrice(5L, PageRequest.of(0, 3))).thenReturn(List.of(dto(6L, "f", null)));
+            CursorPageDTO<ProductResponseDTO> second = catalogService.seekDto(null, CatalogService.SORT_PRICE, first.getNextCursor(), 2);
+            assertEquals(6L, second.getItems().get(0).getProductId());
+            assertFalse(second.isHasNext());
+            verify(productRepository, times(1)).findNextByPrice(any(), any(), any());
+        }
 
-            Page<ProductResponseDTO> out = catalogService.listDtoByCategorySlug("cat", pageable);
+        @Test
+        @DisplayName("plná stránka s cenou na produkty bez ceny nesahá")
+        void priceSeek_fullPricedPage() {
+            when(productRepository.findNextByPrice(BigDecimal.valueOf(-1), 0L, PageRequest.of(0, 3)))
+                    .thenReturn(List.of(dto(1L, "a", null), dto(2L, "b", null), dto(3L, "c", null)));
 
-            assertEquals("i1", out.getContent().get(0).getPrimaryImageUrl());
-            assertEquals("i2", out.getContent().get(1).getPrimaryImageUrl());
+            CursorPageDTO<ProductResponseDTO> out = catalogService.seekDto(null, CatalogService.SORT_PRICE, null, 2);
 
-            verify(imageRepository).findTopUrlsByProductId(eq(1L), eq(PageRequest.of(0, 1)));
-            verify(imageRepository).findTopUrlsByProductId(eq(2L), eq(PageRequest.of(0, 1)));
+            assertTrue(out.isHasNext());
+            verify(productRepository, never()).findNextWithoutPrice(any(), any());
         }
 
-
+        @Test
+        @DisplayName("poškozený cursor, cursor jiného řazení nebo neznámé řazení → 400 bez dotazu do DB")
+        void badInput_badRequest() {
+            String priceCursor = new KeysetCursor(CatalogService.SORT_PRICE, "1", 1L).encode();
+
+            assertThrows(ResponseStatusException.class, () -> catalogService.seekDto(null, CatalogService.SORT_NAME, "%%%", 12));
+            assertThrows(ResponseStatusException.class, () -> catalogService.seekDto(null, CatalogService.SORT_NAME, priceCursor, 12));
+            assertThrows(ResponseStatusException.class, () -> catalogService.seekDto(null, "manufacturer", null, 12));
+            verifyNoInteractions(productRepository);
+        }
     }
 }
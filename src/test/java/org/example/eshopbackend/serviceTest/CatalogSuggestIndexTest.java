@@ -0,0 +1,166 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.dto.SuggestionDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.repository.OrderItemRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.catalog.CatalogSuggestIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class CatalogSuggestIndexTest {
+
+    private final CatalogProductRepository catalogRepo = mock(CatalogProductRepository.class);
+    private final OrderItemRepository orderItemRepo = mock(OrderItemRepository.class);
+    private final CatalogSuggestIndex index = new CatalogSuggestIndex(catalogRepo, orderItemRepo, 30, 0);
+
+    @BeforeEach
+    void init() {
+        when(catalogRepo.findAll()).thenReturn(List.of(
+                product(1L, "Elf Bar 600 Jahoda", "elf-bar-600-jahoda", "Elf Bar", "Jahoda"),
+                product(2L, "Elf Bar 600 Mango", "elf-bar-600-mango", "Elf Bar", "Mango"),
+                product(3L, "Vuse Příchuť Máta", "vuse-prichut-mata", "Vuse", "Máta")));
+        when(orderItemRepo.sumUnitsBySlug()).thenReturn(List.of(
+                sales("elf-bar-600-mango", 40L),
+                sales("elf-bar-600-jahoda", 5L)));
+    }
+
+    private static CatalogProduct product(Long id, String name, String slug, String manufacturer, String flavor) {
+        return CatalogProduct.builder().productId(id).productName(name).slug(slug).manufacturer(manufacturer).flavor(flavor).build();
+    }
+
+    private static OrderItemRepository.SlugSales sales(String slug, Long units) {
+        return new OrderItemRepository.SlugSales() {
+            @Override public String getSlug() { return slug; }
+            @Override public Long getUnits() { return units; }
+        };
+    }
+
+    private static List<String> texts(List<SuggestionDTO> out) {
+        return out.stream().map(SuggestionDTO::getText).toList();
+    }
+
+    @Test
+    @DisplayName("prefix bez diakritiky, řazeno podle prodaných kusů")
+    void prefix_rankedByPopularity() {
+        List<SuggestionDTO> out = index.suggest("ELF", 3);
+
+        assertEquals(List.of("Elf Bar", "Elf Bar 600 Mango", "Elf Bar 600 Jahoda"), texts(out));
+        assertEquals(SuggestionDTO.Type.MANUFACTURER, out.get(0).getType());
+        assertEquals("elf-bar-600-mango", out.get(1).getSlug());
+    }
+
+    @Test
+    @DisplayName("diakritika v indexu i v dotazu se ignoruje, víc slov = všechna musí sedět")
+    void foldedMultiWord() {
+        assertEquals(List.of("Vuse Příchuť Máta"), texts(index.suggest("vuse prich", 5)));
+        assertTrue(texts(index.suggest("máta", 5)).containsAll(List.of("Máta", "Vuse Příchuť Máta")));
+        assertEquals(List.of("Elf Bar 600 Jahoda"), texts(index.suggest("elf jah", 5)));
+    }
+
+    @Test
+    @DisplayName("prázdný dotaz nic nevrací a nesahá do DB; limit se dodrží")
+    void emptyAndLimit() {
+        assertTrue(index.suggest(" - ", 5).isEmpty());
+        verifyNoInteractions(catalogRepo);
+
+        assertEquals(1, index.suggest("e", 1).size());
+    }
+
+    @Test
+    @DisplayName("změna produktu upraví jen jeho položky, prodeje se znovu nesčítají")
+    void updatedOnProductChange() {
+        index.suggest("elf", 5);
+        when(catalogRepo.findAllById(Set.of(9L)))
+                .thenReturn(List.of(product(9L, "Geek Bar Pulse", "geek-bar-pulse", "Geek Bar", null)));
+        when(catalogRepo.findAllById(Set.of(1L))).thenReturn(List.of()); // smazaný
+
+        index.onCatalogChanged(CatalogChangedEvent.product(9L, "geek-bar-pulse"));
+        index.onCatalogChanged(CatalogChangedEvent.product(1L, "elf-bar-600-jahoda"));
+
+        assertEquals("Geek Bar", index.suggest("gee", 5).get(0).getText());
+        assertEquals(List.of("Elf Bar", "Elf Bar 600 Mango"), texts(index.suggest("elf", 5)));
+        verify(catalogRepo, times(1)).findAll();
+        verify(orderItemRepo, times(1)).sumUnitsBySlug();
+    }
+
+    @Test
+    @DisplayName("změna obrázku obnoví náhled, změna kategorie index přestaví celý")
+    void imageUpdatesPreview_categoryRebuilds() {
+        index.suggest("elf", 5);
+
+        CatalogProduct withImage = CatalogProduct.builder().productId(1L).productName("Elf Bar 600 Jahoda")
+                .slug("elf-bar-600-jahoda").manufacturer("Elf Bar").flavor("Jahoda").primaryImageUrl("/img/1.webp").build();
+        when(catalogRepo.findAllById(Set.of(1L))).thenReturn(List.of(withImage));
+        index.onCatalogChanged(CatalogChangedEvent.image(1L, "elf-bar-600-jahoda"));
+        assertEquals("/img/1.webp", index.suggest("elf jah", 5).get(0).getPrimaryImageUrl());
+        verify(catalogRepo, times(1)).findAll();
+
+        when(catalogRepo.findAll()).thenReturn(List.of(product(9L, "Geek Bar Pulse", "geek-bar-pulse", "Geek Bar", null)));
+        index.onCatalogChanged(CatalogChangedEvent.category(1L));
+
+        assertTrue(index.suggest("elf", 5).isEmpty());
+        assertEquals("Geek Bar", index.suggest("gee", 5).get(0).getText());
+    }
+
+    @Test
+    @DisplayName("záplata dá stejné návrhy jako index postavený znovu ze stejných dat")
+    void patchedMatchesFreshBuild() {
+        index.suggest("elf", 5);
+        // Jahoda zmizí, Mango změní příchuť, přibude nový výrobce
+        when(catalogRepo.findAllById(Set.of(1L, 2L, 9L))).thenReturn(List.of(
+                product(2L, "Elf Bar 600 Máta", "elf-bar-600-mango", "Elf Bar", "Máta"),
+                product(9L, "Geek Bar Pulse", "geek-bar-pulse", "Geek Bar", "Jahoda")));
+        index.onCatalogChanged(CatalogChangedEvent.products(List.of(1L, 2L, 9L), List.of()));
+
+        CatalogSuggestIndex fresh = new CatalogSuggestIndex(catalogRepo, orderItemRepo, 30, 0);
+        when(catalogRepo.findAll()).thenReturn(List.of(
+                product(2L, "Elf Bar 600 Máta", "elf-bar-600-mango", "Elf Bar", "Máta"),
+                product(3L, "Vuse Příchuť Máta", "vuse-prichut-mata", "Vuse", "Máta"),
+                product(9L, "Geek Bar Pulse", "geek-bar-pulse", "Geek Bar", "Jahoda")));
+        for (String q : List.of("e", "elf", "m", "mat", "jah", "gee", "bar", "v", "mango")) {
+            assertEquals(texts(fresh.suggest(q, 20)), texts(index.suggest(q, 20)), q);
+        }
+        // Máta: Mango (40 kusů) + Vuse → 40 + 2, Elf Bar už bez Jahody (5 kusů)
+        assertEquals(List.of("Máta", "Elf Bar 600 Máta"), texts(index.suggest("mat", 2)));
+        assertEquals(List.of("Elf Bar", "Elf Bar 600 Máta"), texts(index.suggest("elf", 5)));
+
+        // převaha mrtvých cílů → kompakce z paměti, bez DB
+        when(catalogRepo.findAllById(Set.of(2L, 3L))).thenReturn(List.of());
+        index.onCatalogChanged(CatalogChangedEvent.products(List.of(2L, 3L), List.of()));
+        assertTrue(index.suggest("elf", 5).isEmpty());
+        assertTrue(index.suggest("mat", 5).isEmpty());
+        assertEquals(List.of("Jahoda", "Geek Bar Pulse"), texts(index.suggest("jah", 5)));
+        verify(catalogRepo, times(2)).findAll(); // index + fresh
+    }
+
+    @Test
+    @DisplayName("změny před prvním dotazem se zahodí – index se načte líně z aktuálních dat")
+    void changesBeforeLoadSkipped() {
+        index.onCatalogChanged(CatalogChangedEvent.product(1L, "elf-bar-600-jahoda"));
+
+        verifyNoInteractions(catalogRepo, orderItemRepo);
+    }
+
+    @Test
+    @DisplayName("dávka změn během debounce = jeden dotaz do DB")
+    void coalescedChanges() {
+        CatalogSuggestIndex debounced = new CatalogSuggestIndex(catalogRepo, orderItemRepo, 30, 50);
+        debounced.suggest("elf", 5);
+        when(catalogRepo.findAllById(anyCollection())).thenReturn(List.of());
+
+        for (long id = 1; id <= 3; id++) debounced.onCatalogChanged(CatalogChangedEvent.product(id));
+
+        verify(catalogRepo, timeout(2_000)).findAllById(Set.of(1L, 2L, 3L));
+        verify(catalogRepo, after(200).times(1)).findAllById(anyCollection());
+    }
+}
@@ -0,0 +1,94 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.entity.Image;
+import org.example.eshopbackend.entity.ImageDerivativeStatus;
+import org.example.eshopbackend.entity.Product;
+import org.example.eshopbackend.repository.ImageRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.image.ImageDerivativeService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+class ImageDerivativeServiceTest {
+
+    @TempDir
+    Path originals;
+
+    private final ImageRepository imageRepository = mock(ImageRepository.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+    private ImageDerivativeService derivatives;
+
+    @BeforeEach
+    void init() {
+        derivatives = new ImageDerivativeService(imageRepository, events,
+                mock(PlatformTransactionManager.class), originals.toString(), 1);
+    }
+
+    private Image stored(String filename) {
+        Product p = new Product();
+        p.setProductId(7L);
+        p.setSlug("elf-bar");
+        Image img = Image.builder().imageId(1L).product(p).url("/static/images/" + filename)
+                .derivativeStatus(ImageDerivativeStatus.PENDING).build();
+        when(imageRepository.findById(1L)).thenReturn(Optional.of(img));
+        return img;
+    }
+
+    @Test
+    @DisplayName("Zmenšeniny jen menší než originál, rozměry, velikost a LQIP náhled; katalog dostane událost")
+    void generatesDerivatives() throws Exception {
+        ImageIO.write(new BufferedImage(1000, 750, BufferedImage.TYPE_INT_RGB), "jpg", originals.resolve("7-a.jpg").toFile());
+        Image img = stored("7-a.jpg");
+
+        derivatives.process(1L);
+
+        assertEquals(ImageDerivativeStatus.READY, img.getDerivativeStatus());
+        assertEquals(1000, img.getWidth());
+        assertEquals(750, img.getHeight());
+        assertEquals(Files.size(originals.resolve("7-a.jpg")), img.getByteSize());
+        assertEquals("200,480,800", img.getVariantWidths());
+        assertTrue(img.getPlaceholder().startsWith("data:image/jpeg;base64,"));
+        assertTrue(img.getPlaceholder().length() < 2048);
+
+        BufferedImage w480 = ImageIO.read(originals.resolve("derivatives/7-a-w480-q80.jpg").toFile());
+        assertEquals(480, w480.getWidth());
+        assertEquals(360, w480.getHeight());
+        assertFalse(Files.exists(originals.resolve("derivatives/7-a-w1280-q80.jpg")));
+        verify(events).publishEvent(any(CatalogChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Poškozený soubor → FAILED, žádné zmenšeniny")
+    void brokenFileFails() throws Exception {
+        Files.write(originals.resolve("7-b.png"), new byte[]{(byte) 0x89, 'P', 'N', 'G', 13, 10, 26, 10, 0, 0});
+        Image img = stored("7-b.png");
+
+        derivatives.process(1L);
+
+        assertEquals(ImageDerivativeStatus.FAILED, img.getDerivativeStatus());
+        assertNull(img.getVariantWidths());
+    }
+
+    @Test
+    @DisplayName("URL zmenšenin: jen lokální soubory, stejná jména jako resize endpoint")
+    void derivativeUrls() {
+        assertEquals("/static/images/derivatives/7-a-w200-q80.jpg", ImageDerivativeService.derivativeUrl("/static/images/7-a.jpg", 200));
+        assertEquals("/static/images/derivatives/7-a-w200.png", ImageDerivativeService.derivativeUrl("/static/images/7-a.png", 200));
+        assertNull(ImageDerivativeService.derivativeUrl("https://cdn.example.com/7-a.jpg", 200));
+        assertNull(ImageDerivativeService.localFilename("/static/images/../secret.jpg"));
+    }
+}
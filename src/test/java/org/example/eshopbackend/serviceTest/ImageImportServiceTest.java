@@ -0,0 +1,185 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.entity.Product;
+import org.example.eshopbackend.repository.ImageRepository;
+import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.image.ImageImportService;
+import org.example.eshopbackend.service.image.ImageImportService.Outcome;
+import org.example.eshopbackend.service.image.ImageImportService.Report;
+import org.example.eshopbackend.service.image.ImageImportService.State;
+import org.example.eshopbackend.service.image.ImageStorage;
+import org.example.eshopbackend.service.image.ImageStoredEvent;
+import org.example.eshopbackend.service.image.ImageVariantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.http.HttpStatus;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class ImageImportServiceTest {
+
+    private static final byte[] JPEG = {(byte) 0xFF, (byte) 0xD8, (byte) 0xFF, 0x01, 0x02};
+    private static final byte[] PNG = {(byte) 0x89, 'P', 'N', 'G', 0x0D, 0x0A, 0x1A, 0x0A, 0x00};
+
+    @TempDir
+    Path tmp;
+
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+    private ImageImportService service;
+
+    @BeforeEach
+    void init() throws Exception {
+        Path images = Files.createDirectories(tmp.resolve("images"));
+        ImageVariantService variants = new ImageVariantService(images.toString(), tmp.resolve("variants").toString(), 1_000_000, 1, 1000);
+        ImageStorage storage = new ImageStorage(mock(ImageRepository.class), productRepository, variants, images.toString(), 60);
+        service = new ImageImportService(productRepository, storage, jdbc, events,
+                mock(PlatformTransactionManager.class), tmp.resolve("work").toString(), 2, 1024 * 1024);
+
+        Product p = new Product();
+        p.setProductId(7L);
+        p.setSlug("protein-vanilka");
+        when(productRepository.findBySlug(anyString())).thenReturn(Optional.empty());
+        when(productRepository.findBySlug("protein-vanilka")).thenReturn(Optional.of(p));
+
+        // galerie má 3 obrázky, žádný primární
+        when(jdbc.queryForList(anyString(), eq(String.class), any(Object[].class))).thenReturn(List.of());
+        when(jdbc.queryForMap(anyString(), any(Object[].class))).thenReturn(Map.of("next_order", 3, "has_primary", false));
+        when(jdbc.batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class)))
+                .thenAnswer(inv -> {
+                    BatchPreparedStatementSetter rows = inv.getArgument(1);
+                    KeyHolder keys = inv.getArgument(2);
+                    for (int i = 0; i < rows.getBatchSize(); i++) keys.getKeyList().add(Map.of("image_id", 100L + i));
+                    return new int[rows.getBatchSize()];
+                });
+    }
+
+    private static byte[] zip(Map<String, byte[]> entries) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ZipOutputStream zip = new ZipOutputStream(bytes)) {
+            for (Map.Entry<String, byte[]> e : entries.entrySet()) {
+                zip.putNextEntry(new ZipEntry(e.getKey()));
+                zip.write(e.getValue());
+                zip.closeEntry();
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private Report start(byte[] body) throws Exception {
+        return service.start(new ByteArrayInputStream(body), body.length);
+    }
+
+    private Report await(Report started) throws Exception {
+        for (int i = 0; i < 100; i++) {
+            Report r = service.status(started.id());
+            if (r.state() == State.DONE || r.state() == State.FAILED) return r;
+            Thread.sleep(50);
+        }
+        fail("Import nedoběhl");
+        return null;
+    }
+
+    private static Outcome outcome(Report r, String entry) {
+        return r.items().stream().filter(i -> i.entry().equals(entry)).findFirst().orElseThrow().outcome();
+    }
+
+    @Test
+    @DisplayName("Složka i jméno souboru = slug, neobrázky se přeskočí, falešný obsah a neznámý produkt selžou")
+    void importsBySlug() throws Exception {
+        Report r = await(start(zip(Map.of(
+                "protein-vanilka/1.jpg", JPEG,
+                "protein-vanilka-2.png", PNG,
+                "protein-vanilka/falesny.jpg", "není obrázek".getBytes(StandardCharsets.UTF_8),
+                "neznamy/x.jpg", JPEG,
+                "readme.txt", "x".getBytes(StandardCharsets.UTF_8)))));
+
+        assertEquals(State.DONE, r.state());
+        assertEquals(5, r.total());
+        assertEquals(5, r.processed());
+        assertEquals(2, r.imported());
+        assertEquals(1, r.skipped());
+        assertEquals(2, r.failed());
+        assertEquals(Outcome.IMPORTED, outcome(r, "protein-vanilka/1.jpg"));
+        assertEquals(Outcome.IMPORTED, outcome(r, "protein-vanilka-2.png"));
+        assertEquals(Outcome.FAILED, outcome(r, "protein-vanilka/falesny.jpg"));
+        assertEquals(Outcome.FAILED, outcome(r, "neznamy/x.jpg"));
+        assertEquals(Outcome.SKIPPED, outcome(r, "readme.txt"));
+
+        // jedna dávka, zmenšeniny pro nové řádky a jedna změna katalogu za produkt
+        verify(jdbc, times(1)).batchUpdate(any(PreparedStatementCreator.class), any(BatchPreparedStatementSetter.class), any(KeyHolder.class));
+        verify(events).publishEvent(new ImageStoredEvent(100L));
+        verify(events).publishEvent(new ImageStoredEvent(101L));
+        verify(events).publishEvent(CatalogChangedEvent.image(7L, "protein-vanilka"));
+        try (var left = Files.list(tmp.resolve("work"))) {
+            assertEquals(0, left.count(), "archiv se po importu smaže");
+        }
+    }
+
+    @Test
+    @DisplayName("Manifest určuje produkt; soubory mimo manifest a fotky, které produkt už má, se nevloží")
+    void manifestAndDuplicates() throws Exception {
+        when(jdbc.queryForList(anyString(), eq(String.class), any(Object[].class)))
+                .thenReturn(List.of("/static/images/843ac23b1736b4487ec81cf7c07ddd9bb46ae5b7818c2c3843d99d62fa75f3c9.png"));
+
+        Report r = await(start(zip(Map.of(
+                "manifest.csv", "soubor;slug;alt\na.jpg;protein-vanilka;Přední strana\nb.png;protein-vanilka\n"
+                        .getBytes(StandardCharsets.UTF_8),
+                "a.jpg", JPEG,
+                "b.png", PNG,
+                "c.jpg", JPEG))));
+
+        assertEquals(State.DONE, r.state());
+        assertEquals(Outcome.IMPORTED, outcome(r, "a.jpg"));
+        assertEquals(Outcome.DUPLICATE, outcome(r, "b.png"));
+        assertEquals(Outcome.SKIPPED, outcome(r, "c.jpg"));
+    }
+
+    @Test
+    @DisplayName("Soubor, který není ZIP → 400")
+    void rejectsNonZip() {
+        byte[] notZip = "ahoj".getBytes(StandardCharsets.UTF_8);
+        assertThrows(ResponseStatusException.class, () -> start(notZip));
+    }
+
+    @Test
+    @DisplayName("Archiv nad limitem → 413 podle Content-Length i při čtení bez délky; nic nezůstane na disku")
+    void rejectsOversizedArchive() throws Exception {
+        byte[] body = new byte[1024 * 1024 + 1];
+
+        ResponseStatusException declared = assertThrows(ResponseStatusException.class,
+                () -> service.start(new ByteArrayInputStream(new byte[0]), 1024 * 1024 + 1));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, declared.getStatusCode());
+
+        ResponseStatusException streamed = assertThrows(ResponseStatusException.class,
+                () -> service.start(new ByteArrayInputStream(body), -1));
+        assertEquals(HttpStatus.PAYLOAD_TOO_LARGE, streamed.getStatusCode());
+        try (var files = Files.list(tmp.resolve("work"))) {
+            assertEquals(0, files.count());
+        }
+    }
+}
@@ -5,16 +5,19 @@ import org.example.eshopbackend.dto.image.CreateImageRequestDTO;
 import org.example.eshopbackend.dto.image.ImageResponseDTO;
 import org.example.eshopbackend.dto.image.UpdateImageRequestDTO;
 import org.example.eshopbackend.entity.Image;
+import org.example.eshopbackend.entity.ImageDerivativeStatus;
 import org.example.eshopbackend.entity.Product;
 import org.example.eshopbackend.exception.NotFoundException;
 import org.example.eshopbackend.mapper.ImageMapper;
 import org.example.eshopbackend.repository.ImageRepository;
 import org.example.eshopbackend.repository.ProductRepository;
 import org.example.eshopbackend.service.ImageService;
+import org.example.eshopbackend.service.image.ImageStoredEvent;
 import org.junit.jupiter.api.*;
 import org.mockito.*;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.server.ResponseStatusException;
 
-import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 
@@ -26,6 +29,7 @@ class ImageServiceTest {
     @Mock private ImageRepository imageRepository;
     @Mock private ProductRepository productRepository;
     @Mock private ImageMapper imageMapper;
+    @Mock private ApplicationEventPublisher events;
 
     @InjectMocks
     private ImageService imageService;
@@ -129,20 +133,13 @@ class ImageServiceTest {
     }
 
     @Test
-    @DisplayName("addToProduct: vložení doprostřed → reindex sortOrder ostatním, primary=true zruší ostatním")
+    @DisplayName("addToProduct: vložení doprostřed → hromadný posun sortOrder, primary=true zruší ostatním")
     void addToProduct_insertMiddle_reindexAndPrimary() {
         Product p = product(1L);
-        Image a = img(1L, p, "a", 0, true);
-        Image b = img(2L, p, "b", 1, false);
-        Image c = img(3L, p, "c", 2, false);
 
-        // před vložením v repu existují a,b,c
+        // před vložením v repu existují 3 obrázky
         when(productRepository.findById(1L)).thenReturn(Optional.of(p));
         when(imageRepository.countByProduct(p)).thenReturn(3);
-        // voláno 2× v metodě (nejdřív kvůli zrušení primary, pak kvůli přečíslování)
-        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p))
-                .thenReturn(new ArrayList<>(List.of(a, b, c)))
-                .thenReturn(new ArrayList<>(List.of(a, b, c)));
 
         CreateImageRequestDTO req = new CreateImageRequestDTO();
         req.setUrl("mid");
@@ -160,11 +157,12 @@ class ImageServiceTest {
 
         ImageResponseDTO out = imageService.addToProduct(1L, req);
 
-        // a,b,c byly upraveny in-place:
-        assertFalse(a.isPrimary(), "a už nesmí být primary");
-        assertEquals(0, a.getSortOrder(), "a zůstává 0");
-        assertEquals(2, b.getSortOrder(), "b se posunul z 1 na 2");
-        assertEquals(3, c.getSortOrder(), "c se posunul z 2 na 3");
+        // zrušení primary a posun proběhnou před INSERTem, bez načítání galerie
+        InOrder order = inOrder(imageRepository);
+        order.verify(imageRepository).clearPrimary(p, null);
+        order.verify(imageRepository).shiftSortOrder(p, 1, Integer.MAX_VALUE, 1);
+        order.verify(imageRepository).save(any(Image.class));
+        verify(imageRepository, never()).findByProductOrderBySortOrderAscImageIdAsc(any());
 
         Image saved = savedCap.getValue();
         assertEquals(1, saved.getSortOrder(), "nový je na pozici 1");
@@ -172,18 +170,64 @@ class ImageServiceTest {
         assertEquals(99L, out.getImageId());
     }
 
+    @Test
+    @DisplayName("addToProduct: přidání na konec nic neposouvá")
+    void addToProduct_append_noShift() {
+        Product p = product(1L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(p));
+        when(imageRepository.countByProduct(p)).thenReturn(2);
+        when(imageRepository.save(any(Image.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
+
+        CreateImageRequestDTO req = new CreateImageRequestDTO();
+        req.setUrl("last");
+
+        ImageResponseDTO out = imageService.addToProduct(1L, req);
+
+        assertEquals(2, out.getSortOrder());
+        assertFalse(out.isPrimary());
+        verify(imageRepository, never()).shiftSortOrder(any(), anyInt(), anyInt(), anyInt());
+        verify(imageRepository, never()).clearPrimary(any(), any());
+    }
+
+    @Test
+    @DisplayName("addToProduct: lokální upload čeká na zmenšeniny (PENDING + událost), externí URL ne")
+    void addToProduct_localUploadRequestsDerivatives() {
+        Product p = product(1L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(p));
+        when(imageRepository.countByProduct(p)).thenReturn(0);
+        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p)).thenReturn(List.of());
+        when(imageRepository.save(any(Image.class))).thenAnswer(inv -> {
+            Image in = inv.getArgument(0);
+            in.setImageId(100L);
+            return in;
+        });
+        when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
+
+        CreateImageRequestDTO local = new CreateImageRequestDTO();
+        local.setUrl("/static/images/1-abc.jpg");
+        imageService.addToProduct(1L, local);
+
+        ArgumentCaptor<Image> savedCap = ArgumentCaptor.forClass(Image.class);
+        verify(imageRepository).save(savedCap.capture());
+        assertEquals(ImageDerivativeStatus.PENDING, savedCap.getValue().getDerivativeStatus());
+        verify(events).publishEvent(new ImageStoredEvent(100L));
+
+        CreateImageRequestDTO external = new CreateImageRequestDTO();
+        external.setUrl("https://cdn.example.com/a.jpg");
+        imageService.addToProduct(1L, external);
+        verify(events, times(1)).publishEvent(any(ImageStoredEvent.class));
+    }
+
     // ============ update ============
 
     @Test
-    @DisplayName("update: změní url/altText, přesun sortOrder nahoru (dopředu), korektně posune ostatní")
+    @DisplayName("update: změní url/altText, přesun sortOrder nahoru (dopředu) posune ostatní jedním UPDATE")
     void update_moveEarlier() {
         Product p = product(1L);
-        Image a = img(1L, p, "a", 0, false);
         Image b = img(2L, p, "b", 1, true);
-        Image c = img(3L, p, "c", 2, false);
 
         when(imageRepository.findById(2L)).thenReturn(Optional.of(b));
-        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p)).thenReturn(List.of(a, b, c));
         when(imageRepository.save(any(Image.class))).thenAnswer(inv -> inv.getArgument(0));
         when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
 
@@ -199,45 +243,56 @@ class ImageServiceTest {
         assertEquals("B2", out.getAltText());
         assertEquals(0, out.getSortOrder());
 
-        // a (0) se posunul na 1, protože b jde na jeho místo
-        assertEquals(1, a.getSortOrder());
-        assertEquals(0, b.getSortOrder());
-        assertEquals(2, c.getSortOrder());
+        // <0, 1) se posune o +1
+        verify(imageRepository).shiftSortOrder(p, 0, 0, 1);
+        verify(imageRepository, never()).findByProductOrderBySortOrderAscImageIdAsc(any());
     }
 
     @Test
-    @DisplayName("update: přesun sortOrder dolů (dozadu), korektně posune ostatní")
+    @DisplayName("update: přesun sortOrder dolů (dozadu) posune ostatní jedním UPDATE")
     void update_moveLater() {
         Product p = product(1L);
-        Image a = img(1L, p, "a", 0, false);
         Image b = img(2L, p, "b", 1, false);
-        Image c = img(3L, p, "c", 2, true);
 
         when(imageRepository.findById(2L)).thenReturn(Optional.of(b));
-        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p)).thenReturn(List.of(a, b, c));
         when(imageRepository.save(any(Image.class))).thenAnswer(inv -> inv.getArgument(0));
         when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
 
         UpdateImageRequestDTO dto = new UpdateImageRequestDTO();
-        dto.setSortOrder(2);  // b z 1 na 2
+        dto.setSortOrder(3);  // b z 1 na 3
 
         ImageResponseDTO out = imageService.update(2L, dto);
 
-        assertEquals(2, out.getSortOrder());
-        // mezi (old=1, new=2] → c se posune z 2 na 1
-        assertEquals(0, a.getSortOrder());
-        assertEquals(1, c.getSortOrder());
+        assertEquals(3, out.getSortOrder());
+        // (1, 3] se posune o -1
+        verify(imageRepository).shiftSortOrder(p, 2, 3, -1);
+    }
+
+    @Test
+    @DisplayName("update: stejné sortOrder nic neposouvá")
+    void update_sameOrder_noShift() {
+        Product p = product(1L);
+        Image b = img(2L, p, "b", 1, false);
+
+        when(imageRepository.findById(2L)).thenReturn(Optional.of(b));
+        when(imageRepository.save(any(Image.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
+
+        UpdateImageRequestDTO dto = new UpdateImageRequestDTO();
+        dto.setSortOrder(1);
+
+        imageService.update(2L, dto);
+
+        verify(imageRepository, never()).shiftSortOrder(any(), anyInt(), anyInt(), anyInt());
     }
 
     @Test
     @DisplayName("update: primary=true zruší primary ostatním a nastaví u aktuálního")
     void update_makePrimary() {
         Product p = product(1L);
-        Image a = img(1L, p, "a", 0, true);
         Image b = img(2L, p, "b", 1, false);
 
         when(imageRepository.findById(2L)).thenReturn(Optional.of(b));
-        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p)).thenReturn(List.of(a, b));
         when(imageRepository.save(any(Image.class))).thenAnswer(inv -> inv.getArgument(0));
         when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
 
@@ -247,19 +302,17 @@ class ImageServiceTest {
         ImageResponseDTO out = imageService.update(2L, dto);
 
         assertTrue(out.isPrimary());
-        assertFalse(a.isPrimary());
         assertTrue(b.isPrimary());
+        verify(imageRepository).clearPrimary(p, 2L);
     }
 
     @Test
-    @DisplayName("update: primary=false u aktuálního, vybere se první jiný jako primary")
+    @DisplayName("update: primary=false u aktuálního, primární bude první jiný")
     void update_unsetPrimary_picksFirstOther() {
         Product p = product(1L);
-        Image a = img(1L, p, "a", 0, false);
         Image b = img(2L, p, "b", 1, true); // b je původně primary
 
         when(imageRepository.findById(2L)).thenReturn(Optional.of(b));
-        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p)).thenReturn(List.of(a, b));
         when(imageRepository.save(any(Image.class))).thenAnswer(inv -> inv.getArgument(0));
         when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
 
@@ -270,14 +323,28 @@ class ImageServiceTest {
 
         // out je DTO obrázku b → ten už primary NENÍ
         assertFalse(out.isPrimary());
-
-        // první jiný (a) se stal primary
-        assertTrue(a.isPrimary(), "první jiný se stal primary");
-
-        // volitelně: ověř, že se ukládal právě b (ten, který update vrací)
+        verify(imageRepository).promoteFirstIfNoPrimary(1L, 2L);
         verify(imageRepository).save(same(b));
     }
 
+    @Test
+    @DisplayName("update: primary=false u neprimárního nic nemění")
+    void update_unsetPrimary_onNonPrimary_noop() {
+        Product p = product(1L);
+        Image b = img(2L, p, "b", 1, false);
+
+        when(imageRepository.findById(2L)).thenReturn(Optional.of(b));
+        when(imageRepository.save(any(Image.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
+
+        UpdateImageRequestDTO dto = new UpdateImageRequestDTO();
+        dto.setPrimary(false);
+
+        imageService.update(2L, dto);
+
+        verify(imageRepository, never()).promoteFirstIfNoPrimary(any(), any());
+        verify(imageRepository, never()).clearPrimary(any(), any());
+    }
 
     @Test
     @DisplayName("update: image nenalezen → NotFoundException")
@@ -292,66 +359,51 @@ class ImageServiceTest {
     @DisplayName("delete: zkompaktuje sortOrder a ponechá stávající primary (pokud smazaný nebyl primary)")
     void delete_compactOrder_noPrimaryChange() {
         Product p = product(1L);
-        Image a = img(1L, p, "a", 0, true);
         Image b = img(2L, p, "b", 1, false);
-        Image c = img(3L, p, "c", 2, false);
 
         when(imageRepository.findById(2L)).thenReturn(Optional.of(b));
-        doNothing().when(imageRepository).delete(b);
-        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p))
-                .thenReturn(new ArrayList<>(List.of(a, c)));
 
         imageService.delete(2L);
 
-        // b smazán, c se posune z 2 na 1
-        assertEquals(0, a.getSortOrder());
-        assertEquals(1, c.getSortOrder());
-        assertTrue(a.isPrimary());
-        assertFalse(c.isPrimary());
+        // DELETE se zapíše před posunem (flushAutomatically na UPDATE)
+        InOrder order = inOrder(imageRepository);
+        order.verify(imageRepository).delete(b);
+        order.verify(imageRepository).shiftSortOrder(p, 2, Integer.MAX_VALUE, -1);
+        verify(imageRepository, never()).promoteFirstIfNoPrimary(any(), any());
+        verify(imageRepository, never()).findByProductOrderBySortOrderAscImageIdAsc(any());
     }
 
     @Test
-    @DisplayName("delete: smaže primární a nastaví primary prvnímu zbývajícímu, pokud žádný jiný primary není")
+    @DisplayName("delete: smaže primární a nastaví primary prvnímu zbývajícímu")
     void delete_deletedWasPrimary_pickFirstAsPrimary() {
         Product p = product(1L);
         Image a = img(1L, p, "a", 0, true);  // smažeme
-        Image b = img(2L, p, "b", 1, false);
-        Image c = img(3L, p, "c", 2, false);
 
         when(imageRepository.findById(1L)).thenReturn(Optional.of(a));
-        doNothing().when(imageRepository).delete(a);
-        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p))
-                .thenReturn(new ArrayList<>(List.of(b, c)));
 
         imageService.delete(1L);
 
-        // kompakce: b(0), c(1)
-        assertEquals(0, b.getSortOrder());
-        assertEquals(1, c.getSortOrder());
-        // žádný primary nebyl → první zbývající se stal primary
-        assertTrue(b.isPrimary());
-        assertFalse(c.isPrimary());
+        verify(imageRepository).shiftSortOrder(p, 1, Integer.MAX_VALUE, -1);
+        verify(imageRepository).promoteFirstIfNoPrimary(1L, 1L);
     }
 
     // ============ setPrimary ============
 
     @Test
-    @DisplayName("setPrimary: zruší primary všem a nastaví ho cílovému obrazku, uloží a vrátí DTO")
+    @DisplayName("setPrimary: zruší primary ostatním a nastaví ho cílovému obrázku, uloží a vrátí DTO")
     void setPrimary_ok() {
         Product p = product(1L);
-        Image a = img(1L, p, "a", 0, true);
         Image b = img(2L, p, "b", 1, false);
 
         when(imageRepository.findById(2L)).thenReturn(Optional.of(b));
-        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p)).thenReturn(List.of(a, b));
         when(imageRepository.save(any(Image.class))).thenAnswer(inv -> inv.getArgument(0));
         when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
 
         ImageResponseDTO out = imageService.setPrimary(2L);
 
         assertTrue(out.isPrimary());
-        assertFalse(a.isPrimary());
         assertTrue(b.isPrimary());
+        verify(imageRepository).clearPrimary(p, 2L);
         verify(imageRepository).save(b);
     }
 
@@ -361,5 +413,38 @@ class ImageServiceTest {
         when(imageRepository.findById(999L)).thenReturn(Optional.empty());
         assertThrows(NotFoundException.class, () -> imageService.setPrimary(999L));
     }
-}
 
+    // ============ reorder ============
+
+    @Test
+    @DisplayName("reorder: kompletní permutace → jeden UPDATE a galerie v novém pořadí")
+    void reorder_ok() {
+        Product p = product(1L);
+        Image a = img(1L, p, "a", 0, true);
+        Image b = img(2L, p, "b", 1, false);
+        Image c = img(3L, p, "c", 2, false);
+
+        when(productRepository.findById(1L)).thenReturn(Optional.of(p));
+        when(imageRepository.findIdsByProduct(p)).thenReturn(List.of(1L, 2L, 3L));
+        when(imageRepository.findByProductOrderBySortOrderAscImageIdAsc(p)).thenReturn(List.of(c, a, b));
+        when(imageMapper.toDto(any(Image.class))).thenAnswer(inv -> dtoOf(inv.getArgument(0)));
+
+        List<ImageResponseDTO> out = imageService.reorder(1L, List.of(3L, 1L, 2L));
+
+        verify(imageRepository).reorder(1L, List.of(3L, 1L, 2L));
+        assertEquals(List.of(3L, 1L, 2L), out.stream().map(ImageResponseDTO::getImageId).toList());
+    }
+
+    @Test
+    @DisplayName("reorder: chybějící, cizí nebo zdvojený obrázek → 400, nic se nezapíše")
+    void reorder_invalid() {
+        Product p = product(1L);
+        when(productRepository.findById(1L)).thenReturn(Optional.of(p));
+        when(imageRepository.findIdsByProduct(p)).thenReturn(List.of(1L, 2L, 3L));
+
+        assertThrows(ResponseStatusException.class, () -> imageService.reorder(1L, List.of(3L, 1L)));
+        assertThrows(ResponseStatusException.class, () -> imageService.reorder(1L, List.of(3L, 1L, 9L)));
+        assertThrows(ResponseStatusException.class, () -> imageService.reorder(1L, List.of(3L, 1L, 1L)));
+        verify(imageRepository, never()).reorder(any(), any());
+    }
+}
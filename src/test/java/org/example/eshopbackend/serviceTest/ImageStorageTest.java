@@ -0,0 +1,108 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.repository.ImageRepository;
+import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.service.image.ImageStorage;
+import org.example.eshopbackend.service.image.ImageVariantService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.mock.web.MockMultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class ImageStorageTest {
+
+    @TempDir
+    Path tmp;
+
+    private final ImageRepository imageRepository = mock(ImageRepository.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private Path images;
+    private ImageStorage storage;
+
+    @BeforeEach
+    void init() throws Exception {
+        images = Files.createDirectories(tmp.resolve("images"));
+        ImageVariantService variants = new ImageVariantService(images.toString(), tmp.resolve("variants").toString(), 1_000_000, 1, 1000);
+        storage = new ImageStorage(imageRepository, productRepository, variants, images.toString(), 60);
+    }
+
+    private String store(String content) throws Exception {
+        return storage.store(new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), "jpg");
+    }
+
+    private void age(String url) throws Exception {
+        Path file = images.resolve(url.substring("/static/images/".length()));
+        Files.setLastModifiedTime(file, FileTime.from(Instant.now().minus(Duration.ofHours(2))));
+    }
+
+    @Test
+    @DisplayName("Stejný obsah = stejná URL podle SHA-256 a jeden soubor na disku")
+    void deduplicates() throws Exception {
+        String a = store("foto");
+        String b = store("foto");
+        String c = store("jiná foto");
+
+        assertEquals("/static/images/6187eb884a2243dbed3a648d69e5a1a538be022abc7d72d596fc0b1024fa3dab.jpg", a);
+        assertEquals(a, b);
+        assertNotEquals(a, c);
+        try (var files = Files.list(images)) {
+            assertEquals(2, files.count()); // žádné .tmp nezůstaly
+        }
+    }
+
+    @Test
+    @DisplayName("Upload přes transferTo dává stejný hash jako stream")
+    void multipartUpload() throws Exception {
+        MockMultipartFile upload = new MockMultipartFile("file", "foto.jpg", "image/jpeg", "foto".getBytes(StandardCharsets.UTF_8));
+
+        assertEquals(store("foto"), storage.store(upload, "jpg"));
+    }
+
+    @Test
+    @DisplayName("Soubor se smaže i se zmenšeninami až bez posledního odkazu a po ochranné lhůtě")
+    void collectsUnreferenced() throws Exception {
+        String url = store("foto");
+        String base = url.substring("/static/images/".length(), url.lastIndexOf('.'));
+        Path derivative = Files.createDirectories(images.resolve("derivatives")).resolve(base + "-w200-q80.jpg");
+        Files.writeString(derivative, "x");
+
+        when(imageRepository.existsByUrl(url)).thenReturn(false);
+        assertFalse(storage.collect(url), "čerstvě nahraný soubor chrání lhůta");
+
+        age(url);
+        when(imageRepository.existsByUrl(url)).thenReturn(true);
+        assertFalse(storage.collect(url), "na soubor ještě odkazuje jiný obrázek");
+
+        when(imageRepository.existsByUrl(url)).thenReturn(false);
+        assertTrue(storage.collect(url));
+        assertFalse(Files.exists(images.resolve(base + ".jpg")));
+        assertFalse(Files.exists(derivative));
+    }
+
+    @Test
+    @DisplayName("Periodický úklid smaže staré soubory bez odkazu, odkazované nechá")
+    void sweep() throws Exception {
+        String kept = store("produkt");
+        String orphan = store("sirotek");
+        age(kept);
+        age(orphan);
+        when(imageRepository.existsByUrl(kept)).thenReturn(true);
+
+        storage.sweep();
+
+        assertTrue(Files.exists(images.resolve(kept.substring("/static/images/".length()))));
+        assertFalse(Files.exists(images.resolve(orphan.substring("/static/images/".length()))));
+    }
+}
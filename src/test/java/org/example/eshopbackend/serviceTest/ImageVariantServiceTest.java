@@ -0,0 +1,100 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.service.image.ImageVariantService;
+import org.example.eshopbackend.service.image.ImageVariantService.Variant;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.server.ResponseStatusException;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ImageVariantServiceTest {
+
+    @TempDir
+    Path tmp;
+
+    private Path originals;
+    private Path cache;
+
+    @BeforeEach
+    void init() throws Exception {
+        originals = Files.createDirectories(tmp.resolve("images"));
+        cache = tmp.resolve("variants");
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), "jpg", originals.resolve("1-a.jpg").toFile());
+        ImageIO.write(new BufferedImage(1000, 500, BufferedImage.TYPE_INT_RGB), "jpg", originals.resolve("1-b.jpg").toFile());
+        ImageIO.write(new BufferedImage(100, 50, BufferedImage.TYPE_INT_ARGB), "png", originals.resolve("2-a.png").toFile());
+    }
+
+    private ImageVariantService service(long maxBytes) {
+        return new ImageVariantService(originals.toString(), cache.toString(), maxBytes, 2, 10_000);
+    }
+
+    @Test
+    @DisplayName("Šířka se zaokrouhlí nahoru na řadu, varianta se uloží a příště se jen vrátí")
+    void resizeAndCache() throws Exception {
+        ImageVariantService images = service(10_000_000);
+
+        Variant v = images.variant("1-a.jpg", 190, 77);
+
+        assertEquals("image/jpeg", v.contentType());
+        assertEquals(cache.resolve("1-a-w200-q75.jpg"), v.file());
+        BufferedImage img = ImageIO.read(v.file().toFile());
+        assertEquals(200, img.getWidth());
+        assertEquals(100, img.getHeight());
+        assertEquals(v.file(), images.variant("1-a.jpg", 200, 75).file());
+    }
+
+    @Test
+    @DisplayName("Menší originál se nezvětšuje, cesty mimo adresář a neznámé soubory → 404")
+    void passthroughAndNotFound() {
+        ImageVariantService images = service(10_000_000);
+
+        assertEquals(originals.resolve("2-a.png"), images.variant("2-a.png", 640, null).file());
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+                () -> images.variant("../images/1-a.jpg", 200, null)).getStatusCode());
+        assertEquals(HttpStatus.NOT_FOUND, assertThrows(ResponseStatusException.class,
+                () -> images.variant("9-x.jpg", 200, null)).getStatusCode());
+    }
+
+    @Test
+    @DisplayName("Souběžné požadavky na stejnou variantu = jeden soubor v cache")
+    void coalesced() throws Exception {
+        ImageVariantService images = service(10_000_000);
+        ExecutorService clients = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Variant>> results = clients.invokeAll(
+                    java.util.Collections.nCopies(8, () -> images.variant("1-a.jpg", 320, null)));
+            for (Future<Variant> r : results) assertEquals(cache.resolve("1-a-w320-q80.jpg"), r.get().file());
+        } finally {
+            clients.shutdown();
+        }
+        assertEquals(Files.size(cache.resolve("1-a-w320-q80.jpg")), images.cachedBytes());
+    }
+
+    @Test
+    @DisplayName("Nad limitem velikosti se maže nejdéle nepoužitá varianta, i po restartu")
+    void lruEviction() throws Exception {
+        ImageVariantService images = service(10_000_000);
+        Path a = images.variant("1-a.jpg", 64, null).file();
+        long oneVariant = Files.size(a);
+
+        // limit na jednu variantu: druhá vytlačí první
+        ImageVariantService small = service(oneVariant + oneVariant / 2);
+        assertEquals(oneVariant, small.cachedBytes());
+        Path b = small.variant("1-b.jpg", 64, null).file();
+
+        assertTrue(Files.exists(b));
+        assertFalse(Files.exists(a));
+        assertTrue(small.cachedBytes() <= oneVariant + oneVariant / 2);
+    }
+}
@@ -0,0 +1,223 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.adulto.AdultoVerifier;
+import org.example.eshopbackend.dto.shipment.CreateOrderRequestDTO;
+import org.example.eshopbackend.dto.shipment.OrderItemRequestDTO;
+import org.example.eshopbackend.dto.shipment.UpdateOrderDTO;
+import org.example.eshopbackend.entity.OrderEntity;
+import org.example.eshopbackend.entity.OrderItemEntity;
+import org.example.eshopbackend.entity.OrderStatus;
+import org.example.eshopbackend.exception.NotFoundException;
+import org.example.eshopbackend.exception.OutOfStockException;
+import org.example.eshopbackend.mapper.OrderMapper;
+import org.example.eshopbackend.repository.OrderRepository;
+import org.example.eshopbackend.repository.ProductRepository;
+import org.example.eshopbackend.repository.ProductRepository.CheckoutProduct;
+import org.example.eshopbackend.service.OrderNumberAllocator;
+import org.example.eshopbackend.service.OrderService;
+import org.example.eshopbackend.service.StockService;
+import org.example.eshopbackend.service.email.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InOrder;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.Mockito.*;
+
+/** Položky objednávky: produkty jedním dotazem, ceny v haléřích. */
+class OrderCheckoutTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final OrderMapper orderMapper = mock(OrderMapper.class);
+    private final ProductRepository productRepository = mock(ProductRepository.class);
+    private final OrderNumberAllocator allocator = mock(OrderNumberAllocator.class);
+    private final StockService stockService = mock(StockService.class);
+    private OrderService orderService;
+
+    @BeforeEach
+    void init() {
+        orderService = new OrderService(orderRepository, orderMapper, mock(EmailService.class),
+                mock(AdultoVerifier.class), productRepository, mock(ApplicationEventPublisher.class), allocator, stockService);
+        when(orderMapper.toEntity(any(CreateOrderRequestDTO.class))).thenAnswer(inv -> new OrderEntity());
+        when(orderRepository.save(any(OrderEntity.class))).thenAnswer(inv -> inv.getArgument(0));
+        when(allocator.next()).thenReturn("2025-00001");
+        // katalog: produkt id stojí (id + 0.335) Kč
+        when(productRepository.findCheckoutProducts(anyCollection())).thenAnswer(inv -> {
+            Collection<Long> ids = inv.getArgument(0);
+            return ids.stream().filter(id -> id < 1000).map(OrderCheckoutTest::product).toList();
+        });
+    }
+
+    private static CheckoutProduct product(long id) {
+        return new CheckoutProduct() {
+            public Long getProductId() { return id; }
+            public String getProductName() { return "Produkt " + id; }
+            public String getSlug() { return "produkt-" + id; }
+            public BigDecimal getPrice() { return new BigDecimal(id + ".335"); }
+            public Integer getWeightGrams() { return 100; }
+        };
+    }
+
+    private static CreateOrderRequestDTO request(long... productIds) {
+        CreateOrderRequestDTO dto = new CreateOrderRequestDTO();
+        dto.setCustomerFirstName("Jan");
+        dto.setCustomerLastName("Novák");
+        dto.setCustomerEmail("jan@novak.cz");
+        dto.setCustomerPhone("+420777123456");
+        dto.setAdultoczUid("DEV-MOCK-UID-OK");
+        dto.setShippingCzk(89L);
+        List<OrderItemRequestDTO> items = new ArrayList<>();
+        for (long id : productIds) {
+            OrderItemRequestDTO it = new OrderItemRequestDTO();
+            it.setProductId(id);
+            it.setQuantity(3);
+            items.add(it);
+        }
+        dto.setItems(items);
+        return dto;
+    }
+
+    @Test
+    @DisplayName("Jednotková cena se zaokrouhlí na haléře jednou, řádek a součet počítají přesně")
+    void pricesInHalere() {
+        OrderEntity out = orderService.addOrder(request(1, 2));
+
+        OrderItemEntity first = out.getItems().get(0);
+        assertEquals(new BigDecimal("1.34"), first.getUnitPriceCzk());   // 1.335 → 1.34
+        assertEquals(new BigDecimal("4.02"), first.getLineTotalCzk());   // 3 × 1.34
+        assertEquals(new BigDecimal("7.02"), out.getItems().get(1).getLineTotalCzk());
+        assertEquals(11L, out.getSubtotalCzk());  // 11.04 → 11
+        assertEquals(89L, out.getShippingCzk());
+        assertEquals(100L, out.getTotalCzk());
+        assertEquals("2025-00001", out.getOrderNumber());
+    }
+
+    @Test
+    @DisplayName("Zdvojený produkt → 400 ještě před dotazem do DB")
+    void duplicateProduct() {
+        assertThrows(ResponseStatusException.class, () -> orderService.addOrder(request(1, 2, 1)));
+        verifyNoInteractions(productRepository);
+        verify(orderRepository, never()).save(any());
+    }
+
+    @Test
+    @DisplayName("Neexistující produkty → NotFoundException se všemi chybějícími id")
+    void missingProducts() {
+        NotFoundException e = assertThrows(NotFoundException.class,
+                () -> orderService.addOrder(request(1, 1001, 1002)));
+        assertTrue(e.getMessage().contains("1001") && e.getMessage().contains("1002"));
+        verify(orderRepository, never()).save(any());
+        verify(allocator, never()).next();
+    }
+
+    @Test
+    @DisplayName("Checkout odečte sklad všech položek najednou")
+    void reservesStock() {
+        OrderEntity out = orderService.addOrder(request(1, 2));
+
+        verify(stockService).reserve(Map.of(1L, 3, 2L, 3));
+        assertTrue(out.getStockReserved());
+    }
+
+    @Test
+    @DisplayName("Nedostatek zboží → OutOfStockException, objednávka ani číslo nevzniknou")
+    void outOfStock() {
+        doThrow(new OutOfStockException(List.of(new OutOfStockException.Line(2L, 3, 1))))
+                .when(stockService).reserve(anyMap());
+
+        OutOfStockException e = assertThrows(OutOfStockException.class, () -> orderService.addOrder(request(1, 2)));
+        assertEquals(2L, e.getLines().get(0).productId());
+        verify(allocator, never()).next();
+        verify(orderRepository, never()).save(any());
+    }
+
+    private OrderEntity existing(OrderStatus status, Boolean stockReserved) {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(5L);
+        order.setOrderStatus(status);
+        order.setStockReserved(stockReserved);
+        order.getItems().add(OrderItemEntity.builder().productId(1L).amountOfProducts(2).build());
+        order.getItems().add(OrderItemEntity.builder().productId(1L).amountOfProducts(1).build());
+        order.getItems().add(OrderItemEntity.builder().productId(4L).amountOfProducts(5).build());
+        when(orderRepository.findByIdForUpdate(5L)).thenReturn(Optional.of(order));
+        return order;
+    }
+
+    private void changeStatus(OrderStatus to) {
+        doAnswer(inv -> {
+            inv.<OrderEntity>getArgument(0).setOrderStatus(to);
+            return null;
+        }).when(orderMapper).updateOrder(any(OrderEntity.class), any(UpdateOrderDTO.class));
+        orderService.updateOrder(5L, new UpdateOrderDTO());
+    }
+
+    @Test
+    @DisplayName("Zrušení vrátí kusy na sklad, obnovení je odečte znovu")
+    void cancelAndReopen() {
+        OrderEntity order = existing(OrderStatus.NEW, true);
+
+        changeStatus(OrderStatus.CANCELED);
+        verify(stockService).release(Map.of(1L, 3, 4L, 5));
+        assertFalse(order.getStockReserved());
+
+        changeStatus(OrderStatus.NEW);
+        verify(stockService).reserve(Map.of(1L, 3, 4L, 5));
+        assertTrue(order.getStockReserved());
+    }
+
+    @Test
+    @DisplayName("Starší objednávka bez rezervace skladu kusy při zrušení nevrací")
+    void cancelLegacyOrder() {
+        existing(OrderStatus.PAID, null);
+
+        changeStatus(OrderStatus.CANCELED);
+        verifyNoInteractions(stockService);
+    }
+
+    @Test
+    @DisplayName("Smazání objednávky s rezervací vrátí kusy na sklad, zrušená ani stará nic nevrací")
+    void deleteReleasesReservedStock() {
+        OrderEntity order = existing(OrderStatus.NEW, true);
+
+        orderService.deleteOrder(5L);
+
+        InOrder inOrder = inOrder(stockService, orderRepository);
+        inOrder.verify(stockService).releaseOrders(List.of(5L));
+        inOrder.verify(orderRepository).delete(order);
+
+        clearInvocations(stockService);
+        existing(OrderStatus.CANCELED, false);
+        orderService.deleteOrder(5L);
+        existing(OrderStatus.PAID, null);
+        orderService.deleteOrder(5L);
+        verifyNoInteractions(stockService);
+    }
+
+    @ParameterizedTest(name = "{0} položek")
+    @ValueSource(ints = {1, 10, 50})
+    @DisplayName("Jeden dotaz na produkty bez ohledu na počet položek")
+    void oneProductQueryPerCheckout(int lines) {
+        long[] ids = new long[lines];
+        for (int i = 0; i < lines; i++) ids[i] = i + 1;
+
+        OrderEntity out = orderService.addOrder(request(ids));
+        assertEquals(lines, out.getItems().size());
+        verify(productRepository, times(1)).findCheckoutProducts(anyCollection());
+        verify(productRepository, never()).findById(any());
+    }
+}
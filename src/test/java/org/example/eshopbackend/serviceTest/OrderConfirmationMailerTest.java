@@ -0,0 +1,42 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.entity.OrderEntity;
+import org.example.eshopbackend.repository.OrderRepository;
+import org.example.eshopbackend.service.OrderConfirmationMailer;
+import org.example.eshopbackend.service.OrderCreatedEvent;
+import org.example.eshopbackend.service.email.EmailService;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class OrderConfirmationMailerTest {
+
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final OrderConfirmationMailer mailer = new OrderConfirmationMailer(orderRepository, emailService);
+
+    @Test
+    @DisplayName("Po commitu načte objednávku i s položkami a pošle potvrzení")
+    void sendsConfirmation() {
+        OrderEntity order = new OrderEntity();
+        order.setOrderId(7L);
+        when(orderRepository.findWithItemsById(7L)).thenReturn(Optional.of(order));
+
+        mailer.onOrderCreated(new OrderCreatedEvent(7L));
+
+        verify(emailService).sendOrderConfirmation(order);
+    }
+
+    @Test
+    @DisplayName("Chyba SMTP se jen zaloguje")
+    void smtpFailureSwallowed() {
+        when(orderRepository.findWithItemsById(7L)).thenReturn(Optional.of(new OrderEntity()));
+        doThrow(new RuntimeException("SMTP")).when(emailService).sendOrderConfirmation(any());
+
+        assertDoesNotThrow(() -> mailer.onOrderCreated(new OrderCreatedEvent(7L)));
+    }
+}
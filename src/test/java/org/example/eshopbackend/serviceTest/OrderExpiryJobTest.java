@@ -0,0 +1,159 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.entity.OrderEntity;
+import org.example.eshopbackend.entity.OrderStatus;
+import org.example.eshopbackend.repository.OrderRepository;
+import org.example.eshopbackend.service.OrderExpiryJob;
+import org.example.eshopbackend.service.OrderStatusChangedEvent;
+import org.example.eshopbackend.service.StockService;
+import org.example.eshopbackend.service.email.EmailService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.sql.ResultSet;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tabulka orders je fake v paměti, který napodobuje {@code FOR UPDATE SKIP LOCKED}: testy ověřují
+ * dávkování, vracení skladu, události a e-maily jobu, ne zamykání v Postgresu.
+ */
+class OrderExpiryJobTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final StockService stockService = mock(StockService.class);
+    private final OrderRepository orderRepository = mock(OrderRepository.class);
+    private final EmailService emailService = mock(EmailService.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+
+    // tabulka orders: id → stav, stáří a zda drží sklad
+    private record Row(OrderStatus status, Instant createdAt, Boolean stockReserved) {}
+    private final Map<Long, Row> orders = new ConcurrentHashMap<>();
+    private final List<Long> released = Collections.synchronizedList(new ArrayList<>());
+
+    @BeforeEach
+    void init() {
+        // SKIP LOCKED: souběžné dávky dostanou disjunktní objednávky (nejstarší id, které nikdo nedrží)
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            Instant cutoff = inv.<Timestamp>getArgument(2).toInstant();
+            int limit = inv.getArgument(3);
+            List<Object[]> rows = new ArrayList<>();
+            synchronized (orders) {
+                new TreeMap<>(orders).forEach((id, row) -> {
+                    if (rows.size() >= limit) return;
+                    if (row.status() != OrderStatus.NEW || !row.createdAt().isBefore(cutoff)) return;
+                    boolean reserved = Boolean.TRUE.equals(row.stockReserved());
+                    orders.put(id, new Row(OrderStatus.CANCELED, row.createdAt(), reserved ? Boolean.FALSE : row.stockReserved()));
+                    rows.add(new Object[]{id, reserved});
+                });
+            }
+            for (Object[] row : rows) handler.processRow(resultRow(row));
+            return null;
+        }).when(jdbc).query(contains("skip locked"), any(RowCallbackHandler.class), any(Object[].class));
+
+        when(stockService.releaseOrders(anyList())).thenAnswer(inv -> {
+            List<Long> ids = inv.getArgument(0);
+            released.addAll(ids);
+            return ids.size();
+        });
+        when(orderRepository.findById(anyLong())).thenAnswer(inv -> {
+            OrderEntity o = new OrderEntity();
+            o.setOrderId(inv.getArgument(0));
+            return Optional.of(o);
+        });
+    }
+
+    private static ResultSet resultRow(Object[] row) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("order_id")).thenReturn((Long) row[0]);
+        when(rs.getBoolean("released")).thenReturn((Boolean) row[1]);
+        return rs;
+    }
+
+    private OrderExpiryJob job(int batchSize) {
+        return new OrderExpiryJob(jdbc, stockService, orderRepository, emailService, events,
+                mock(PlatformTransactionManager.class), 72, batchSize, 1000);
+    }
+
+    private void order(long id, OrderStatus status, Duration age, Boolean stockReserved) {
+        orders.put(id, new Row(status, Instant.now().minus(age), stockReserved));
+    }
+
+    @Test
+    @DisplayName("Zruší jen staré NEW, sklad vrátí jen objednávkám, které ho drží, a pošle e-maily")
+    void expiresOnlyOldUnpaid() {
+        order(1, OrderStatus.NEW, Duration.ofDays(5), true);
+        order(2, OrderStatus.NEW, Duration.ofDays(5), null);   // starší objednávka bez rezervace
+        order(3, OrderStatus.NEW, Duration.ofHours(10), true); // ještě v limitu
+        order(4, OrderStatus.PAID, Duration.ofDays(9), true);
+
+        assertEquals(2, job(100).expireUnpaid());
+
+        assertEquals(OrderStatus.CANCELED, orders.get(1L).status());
+        assertEquals(false, orders.get(1L).stockReserved());
+        assertEquals(OrderStatus.CANCELED, orders.get(2L).status());
+        assertEquals(OrderStatus.NEW, orders.get(3L).status());
+        assertEquals(OrderStatus.PAID, orders.get(4L).status());
+        verify(stockService).releaseOrders(List.of(1L));
+        verify(events).publishEvent(new OrderStatusChangedEvent(1L, OrderStatus.NEW, OrderStatus.CANCELED));
+        verify(events).publishEvent(new OrderStatusChangedEvent(2L, OrderStatus.NEW, OrderStatus.CANCELED));
+        verify(emailService, times(2)).sendOrderExpired(any(OrderEntity.class));
+    }
+
+    @Test
+    @DisplayName("Po dávkách, dokud jsou plné; chyba e-mailu nezastaví další")
+    void batchesUntilShort() {
+        for (long id = 1; id <= 25; id++) order(id, OrderStatus.NEW, Duration.ofDays(4), true);
+        doThrow(new RuntimeException("SMTP")).when(emailService).sendOrderExpired(argThat(o -> o.getOrderId() == 3L));
+
+        assertEquals(25, job(10).expireUnpaid());
+
+        verify(jdbc, times(3)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        verify(stockService, times(3)).releaseOrders(anyList());
+        verify(emailService, times(25)).sendOrderExpired(any(OrderEntity.class));
+    }
+
+    @Test
+    @DisplayName("Dvě instance nad fake SKIP LOCKED: job nevrací sklad ani nepíše dvakrát")
+    void concurrentNodes() throws Exception {
+        for (long id = 1; id <= 1_000; id++) order(id, OrderStatus.NEW, Duration.ofDays(4), true);
+        OrderExpiryJob a = job(50), b = job(50);
+
+        ExecutorService pool = Executors.newFixedThreadPool(2);
+        try {
+            Future<Integer> fa = pool.submit(a::expireUnpaid);
+            Future<Integer> fb = pool.submit(b::expireUnpaid);
+            assertEquals(1_000, fa.get(10, TimeUnit.SECONDS) + fb.get(10, TimeUnit.SECONDS));
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1_000, released.size());
+        assertEquals(1_000, new HashSet<>(released).size());
+        verify(emailService, times(1_000)).sendOrderExpired(any(OrderEntity.class));
+    }
+
+    @Test
+    @DisplayName("after-hours=0 vypne job")
+    void disabled() {
+        order(1, OrderStatus.NEW, Duration.ofDays(30), true);
+        OrderExpiryJob off = new OrderExpiryJob(jdbc, stockService, orderRepository, emailService, events,
+                mock(PlatformTransactionManager.class), 0, 100, 10);
+
+        assertEquals(0, off.expireUnpaid());
+        verifyNoInteractions(jdbc, stockService, emailService);
+    }
+}
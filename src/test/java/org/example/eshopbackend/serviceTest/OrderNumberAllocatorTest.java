@@ -0,0 +1,132 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.service.OrderNumberAllocator;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Čítač je fake v paměti: testy ověřují logiku na straně Javy (navázání řady, bloky, přechod roku,
+ * rozdělování bloku mezi vlákna), ne atomicitu UPDATE čítače v Postgresu – tu by ověřil jen test
+ * proti skutečné databázi.
+ */
+class OrderNumberAllocatorTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+
+    // tabulka order_number_counters
+    private final Map<Integer, Long> counters = new HashMap<>();
+    private long lastOldOrder; // poslední objednávka očíslovaná postaru
+
+    @BeforeEach
+    void init() {
+        when(jdbc.queryForList(startsWith("update order_number_counters"), eq(Long.class), any(Object[].class)))
+                .thenAnswer(inv -> {
+                    int by = inv.getArgument(2);
+                    int year = inv.getArgument(3);
+                    synchronized (counters) {
+                        Long last = counters.computeIfPresent(year, (y, v) -> v + by);
+                        return last == null ? List.of() : List.of(last);
+                    }
+                });
+        when(jdbc.update(startsWith("insert into order_number_counters"), any(Object[].class)))
+                .thenAnswer(inv -> {
+                    int year = inv.getArgument(1);
+                    synchronized (counters) {
+                        return counters.putIfAbsent(year, lastOldOrder) == null ? 1 : 0;
+                    }
+                });
+    }
+
+    private OrderNumberAllocator allocator(int blockSize) {
+        return new OrderNumberAllocator(jdbc, mock(PlatformTransactionManager.class), blockSize);
+    }
+
+    private static List<String> parallel(OrderNumberAllocator allocator, int checkouts) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<String>> futures = new ArrayList<>();
+            for (int i = 0; i < checkouts; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    return allocator.next(2025);
+                }));
+            }
+            start.countDown();
+            List<String> numbers = new ArrayList<>();
+            for (Future<String> f : futures) numbers.add(f.get(10, TimeUnit.SECONDS));
+            return numbers;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    @DisplayName("Formát rok-pořadí s pěti číslicemi")
+    void format() {
+        assertEquals("2025-00042", OrderNumberAllocator.format(2025, 42));
+        assertEquals("2025-123456", OrderNumberAllocator.format(2025, 123456));
+    }
+
+    @Test
+    @DisplayName("První objednávka roku naváže na objednávky číslované postaru")
+    void seedsFromExistingOrders() {
+        lastOldOrder = 41;
+        OrderNumberAllocator allocator = allocator(1);
+
+        assertEquals("2025-00042", allocator.next(2025));
+        assertEquals("2025-00043", allocator.next(2025));
+        verify(jdbc, times(1)).update(startsWith("insert"), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("block-size=1: každé číslo je další hodnota čítače, řada bez mezer")
+    void singleIncrementsGapFree() {
+        OrderNumberAllocator allocator = allocator(1);
+
+        for (int i = 1; i <= 50; i++) assertEquals(OrderNumberAllocator.format(2025, i), allocator.next(2025));
+        verify(jdbc, times(51)).queryForList(anyString(), eq(Long.class), any(Object[].class)); // + 1 před seedem
+    }
+
+    @Test
+    @DisplayName("Blok: vlákna jedné instance si čísla z bloku nerozdají dvakrát a žádný blok nepropadne")
+    void blockSharedByThreads() throws Exception {
+        List<String> numbers = parallel(allocator(20), 600);
+
+        assertEquals(600, new HashSet<>(numbers).size());
+        assertEquals(600, counters.get(2025)); // právě 30 bloků
+    }
+
+    @Test
+    @DisplayName("Bloky: dvě instance berou z čítače disjunktní bloky")
+    void blocksAcrossInstances() {
+        OrderNumberAllocator a = allocator(20);
+        OrderNumberAllocator b = allocator(20);
+
+        assertEquals("2025-00001", a.next(2025));
+        assertEquals("2025-00021", b.next(2025));
+        assertEquals("2025-00002", a.next(2025));
+        for (int i = 0; i < 18; i++) a.next(2025); // 3..20
+        assertEquals("2025-00022", b.next(2025));
+        assertEquals("2025-00041", a.next(2025)); // první blok a vyčerpán
+    }
+
+    @Test
+    @DisplayName("Nový rok začíná vlastní řadou i uprostřed bloku")
+    void newYearStartsNewBlock() {
+        OrderNumberAllocator allocator = allocator(10);
+
+        assertEquals("2025-00001", allocator.next(2025));
+        assertEquals("2026-00001", allocator.next(2026));
+    }
+}
@@ -6,12 +6,16 @@ import org.example.eshopbackend.exception.OrderCreationException;
 import org.example.eshopbackend.mapper.OrderMapper;
 import org.example.eshopbackend.repository.OrderRepository;
 import org.example.eshopbackend.service.email.EmailService;
+import org.example.eshopbackend.service.OrderCreatedEvent;
+import org.example.eshopbackend.service.OrderNumberAllocator;
 import org.example.eshopbackend.service.OrderService;
+import org.example.eshopbackend.service.StockService;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.ArgumentMatchers.any;
@@ -25,6 +29,9 @@ class OrderServiceTest {
     @Mock OrderMapper orderMapper;
     @Mock EmailService emailService;
     @Mock org.example.eshopbackend.adulto.AdultoVerifier adultoVerifier;
+    @Mock ApplicationEventPublisher events;
+    @Mock OrderNumberAllocator orderNumberAllocator;
+    @Mock StockService stockService;
 
     @InjectMocks OrderService orderService;
 
@@ -65,7 +72,8 @@ class OrderServiceTest {
         // Assert
         assertTrue(out.isAgeConfirmed());
         verify(orderRepository).save(argThat(e -> e.isAgeConfirmed()));
-        verify(emailService).sendOrderConfirmation(any(OrderEntity.class));
+        verify(events).publishEvent(new OrderCreatedEvent(1L));
+        verifyNoInteractions(emailService); // e-mail až po commitu
     }
 
     @Test
@@ -91,7 +99,7 @@ class OrderServiceTest {
 
         assertThrows(OrderCreationException.class, () -> orderService.addOrder(dto));
         verify(orderRepository, never()).save(any());
-        verify(emailService, never()).sendOrderConfirmation(any());
+        verify(events, never()).publishEvent(any(OrderCreatedEvent.class));
         verifyNoInteractions(orderMapper); // volitelné: pojisti, že se mapper opravdu nevolal
     }
     @Test
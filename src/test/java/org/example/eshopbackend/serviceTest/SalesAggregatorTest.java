@@ -0,0 +1,143 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.dto.ProductResponseDTO;
+import org.example.eshopbackend.entity.CatalogProduct;
+import org.example.eshopbackend.entity.OrderStatus;
+import org.example.eshopbackend.mapper.ProductMapper;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.repository.OrderItemRepository;
+import org.example.eshopbackend.repository.OrderRepository;
+import org.example.eshopbackend.service.OrderStatusChangedEvent;
+import org.example.eshopbackend.service.catalog.SalesAggregator;
+import org.example.eshopbackend.service.catalog.StockChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+class SalesAggregatorTest {
+
+    private final OrderRepository orderRepo = mock(OrderRepository.class);
+    private final OrderItemRepository orderItemRepo = mock(OrderItemRepository.class);
+    private final CatalogProductRepository catalogRepo = mock(CatalogProductRepository.class);
+    private final ProductMapper productMapper = mock(ProductMapper.class);
+    private final SalesAggregator sales = new SalesAggregator(orderRepo, orderItemRepo, catalogRepo, productMapper, 30);
+
+    @BeforeEach
+    void init() {
+        when(productMapper.toDto(any(CatalogProduct.class))).thenAnswer(inv -> {
+            CatalogProduct p = inv.getArgument(0);
+            return ProductResponseDTO.builder().productId(p.getProductId()).amount(p.getAmount()).build();
+        });
+        when(catalogRepo.findAll()).thenReturn(List.of(
+                product(1L, "vapky", 10), product(2L, "vapky", 10),
+                product(3L, "naplne", 10), product(4L, "naplne", 0)));
+
+        // objednávky 10: 1×2 + 3×1, 11: 1×1 + 3×1 + 4×5, 12: 2×1
+        when(orderRepo.findSettledIdsAfter(eq(0L), any(), any())).thenReturn(List.of(10L, 11L, 12L));
+        when(orderRepo.findSettledIdsAfter(eq(12L), any(), any())).thenReturn(List.of());
+        when(orderItemRepo.findSalesLines(List.of(10L, 11L, 12L))).thenReturn(List.of(
+                line(10L, 1L, 2), line(10L, 3L, 1),
+                line(11L, 1L, 1), line(11L, 3L, 1), line(11L, 4L, 5),
+                line(12L, 2L, 1)));
+    }
+
+    private static CatalogProduct product(Long id, String categorySlug, int amount) {
+        return CatalogProduct.builder().productId(id).categorySlug(categorySlug).amount(amount).build();
+    }
+
+    private static OrderItemRepository.SalesLine line(Long orderId, Long productId, Integer units) {
+        return new OrderItemRepository.SalesLine() {
+            @Override public Long getOrderId() { return orderId; }
+            @Override public Long getProductId() { return productId; }
+            @Override public Integer getUnits() { return units; }
+        };
+    }
+
+    private static List<Long> ids(List<ProductResponseDTO> out) {
+        return out.stream().map(ProductResponseDTO::getProductId).toList();
+    }
+
+    @Test
+    @DisplayName("bestsellery podle prodaných kusů, jen skladem, i po kategoriích")
+    void bestsellers() {
+        assertEquals(List.of(1L, 3L, 2L), ids(sales.bestsellers(null, 10))); // 4 prodal nejvíc, ale není skladem
+        assertEquals(List.of(1L, 2L), ids(sales.bestsellers("vapky", 10)));
+        assertEquals(List.of(1L), ids(sales.bestsellers(null, 1)));
+        assertTrue(sales.bestsellers("neexistuje", 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("často kupováno společně: počet společných objednávek")
+    void boughtTogether() {
+        assertEquals(List.of(3L), ids(sales.boughtTogether(1L, 5)));
+        assertEquals(List.of(1L, 3L), ids(sales.boughtTogether(4L, 5))); // shoda → víc prodaných kusů
+        assertTrue(sales.boughtTogether(2L, 5).isEmpty());
+    }
+
+    @Test
+    @DisplayName("poll přičte jen nové objednávky za watermarkem, bez přepočtu všeho")
+    void incrementalPoll() {
+        sales.bestsellers(null, 10);
+        when(orderRepo.findSettledIdsAfter(eq(12L), any(), any())).thenReturn(List.of(13L));
+        when(orderRepo.findSettledIdsAfter(eq(13L), any(), any())).thenReturn(List.of());
+        when(orderItemRepo.findSalesLines(List.of(13L))).thenReturn(List.of(line(13L, 2L, 5), line(13L, 3L, 1)));
+
+        sales.poll();
+
+        assertEquals(List.of(2L, 1L, 3L), ids(sales.bestsellers(null, 10)));
+        assertEquals(List.of(1L, 2L), ids(sales.boughtTogether(3L, 5)));
+        verify(orderItemRepo, times(1)).findSalesLines(List.of(10L, 11L, 12L));
+        verify(catalogRepo, times(1)).findAll();
+    }
+
+    @Test
+    @DisplayName("zrušená objednávka se odečte, obnovená zase přičte")
+    void cancelAndReopen() {
+        sales.bestsellers(null, 10);
+        when(orderItemRepo.findSalesLines(List.of(10L))).thenReturn(List.of(line(10L, 1L, 2), line(10L, 3L, 1)));
+
+        sales.onOrderStatusChanged(new OrderStatusChangedEvent(10L, OrderStatus.NEW, OrderStatus.CANCELED));
+        assertEquals(List.of(1L, 2L, 3L), ids(sales.bestsellers(null, 10)));
+
+        sales.onOrderStatusChanged(new OrderStatusChangedEvent(10L, OrderStatus.CANCELED, OrderStatus.NEW));
+        assertEquals(List.of(1L, 3L, 2L), ids(sales.bestsellers(null, 10)));
+    }
+
+    @Test
+    @DisplayName("zrušená objednávka, kterou načtení přeskočilo, se neodečte; obnovená se přičte jen jednou")
+    void skippedCanceledOrder_notSubtracted() {
+        sales.bestsellers(null, 10); // objednávka 9 byla při načtení už zrušená → není mezi 10, 11, 12
+        when(orderItemRepo.findSalesLines(List.of(9L))).thenReturn(List.of(line(9L, 2L, 7)));
+
+        sales.onOrderStatusChanged(new OrderStatusChangedEvent(9L, OrderStatus.NEW, OrderStatus.CANCELED));
+        assertEquals(List.of(1L, 3L, 2L), ids(sales.bestsellers(null, 10))); // 2 zůstává na 1 kusu
+        verify(orderItemRepo, never()).findSalesLines(List.of(9L));
+
+        sales.onOrderStatusChanged(new OrderStatusChangedEvent(9L, OrderStatus.CANCELED, OrderStatus.NEW));
+        sales.onOrderStatusChanged(new OrderStatusChangedEvent(9L, OrderStatus.CANCELED, OrderStatus.NEW));
+        assertEquals(List.of(2L, 1L, 3L), ids(sales.bestsellers(null, 10))); // 1 + 7 kusů, ne 1 + 14
+        verify(orderItemRepo, times(1)).findSalesLines(List.of(9L));
+    }
+
+    @Test
+    @DisplayName("vyprodaný produkt zmizí z bestsellerů a naskladněný se vrátí – bez dotazu do DB")
+    void stockChange_patchesAvailability() {
+        sales.bestsellers(null, 10);
+
+        sales.onStockChanged(new StockChangedEvent(Map.of(1L, 0), Set.of("p1")));
+        assertEquals(List.of(3L, 2L), ids(sales.bestsellers(null, 10)));
+
+        sales.onStockChanged(new StockChangedEvent(Map.of(4L, 3), Set.of("p4")));
+        assertEquals(List.of(4L, 3L, 2L), ids(sales.bestsellers(null, 10)));
+        verify(catalogRepo, times(1)).findAll();
+        verify(catalogRepo, never()).findAllById(any());
+    }
+}
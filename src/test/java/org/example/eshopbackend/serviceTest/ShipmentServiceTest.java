@@ -11,11 +11,15 @@ import org.example.eshopbackend.shipping.ppl.PplClient;
 import org.example.eshopbackend.shipping.ppl.ShipmentService;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.mockito.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 
 class ShipmentServiceTest {
@@ -115,4 +119,29 @@ class ShipmentServiceTest {
         assertThat(res).isEmpty();
         verifyNoInteractions(pplClient);
     }
-}
\ No newline at end of file
+
+    @Test
+    void loadLabelFile_returnsPathWithoutReadingContent(@TempDir Path dir) throws Exception {
+        Path pdf = Files.write(dir.resolve("label-1.pdf"), new byte[]{'%', 'P', 'D', 'F'});
+        ShipmentEntity entity = new ShipmentEntity();
+        entity.setShipmentId(1L);
+        entity.setLabelPath(pdf.toString());
+        when(shipmentRepo.findById(1L)).thenReturn(Optional.of(entity));
+
+        var label = service.loadLabelFile(1L);
+
+        assertThat(label.path()).isEqualTo(pdf);
+        assertThat(label.mime()).isEqualTo("application/pdf");
+        assertThat(label.filename()).isEqualTo("label-1.pdf");
+    }
+
+    @Test
+    void loadLabelFile_missingFile_throws() {
+        ShipmentEntity entity = new ShipmentEntity();
+        entity.setShipmentId(1L);
+        entity.setLabelPath("/neexistuje/label-1.pdf");
+        when(shipmentRepo.findById(1L)).thenReturn(Optional.of(entity));
+
+        assertThatThrownBy(() -> service.loadLabelFile(1L)).isInstanceOf(IllegalStateException.class);
+    }
+}
@@ -0,0 +1,101 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.config.StorefrontProps;
+import org.example.eshopbackend.entity.Category;
+import org.example.eshopbackend.repository.CatalogProductRepository;
+import org.example.eshopbackend.repository.CatalogProductRepository.SitemapEntry;
+import org.example.eshopbackend.repository.CategoryRepository;
+import org.example.eshopbackend.service.catalog.SitemapService;
+import org.example.eshopbackend.service.catalog.SitemapService.Generation;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+class SitemapServiceTest {
+
+    @TempDir
+    Path dir;
+
+    private final CatalogProductRepository catalogRepo = mock(CatalogProductRepository.class);
+    private final CategoryRepository categoryRepo = mock(CategoryRepository.class);
+    private SitemapService sitemap;
+
+    @BeforeEach
+    void init() {
+        StorefrontProps storefront = new StorefrontProps();
+        storefront.setBaseUrl("https://shop.cz");
+        storefront.setApiBaseUrl("https://api.shop.cz");
+        // 3 URL na část, ať se dělení otestuje na malých datech
+        sitemap = new SitemapService(catalogRepo, categoryRepo, storefront,
+                mock(PlatformTransactionManager.class), dir.toString(), 3, 60);
+
+        when(categoryRepo.findAllOrdered()).thenReturn(List.of(
+                Category.builder().categoryId(1L).slug("jednorazovky").build()));
+        when(catalogRepo.streamSitemapEntries()).thenAnswer(inv -> Stream.of(
+                entry("elf-bar"), entry("lost-mary"), entry("vozol"), entry("geek-bar")));
+    }
+
+    private static SitemapEntry entry(String slug) {
+        return new SitemapEntry() {
+            public String getSlug() { return slug; }
+            public OffsetDateTime getRefreshedAt() { return OffsetDateTime.of(2026, 5, 4, 10, 0, 0, 0, ZoneOffset.UTC); }
+        };
+    }
+
+    private static String gunzip(Path file) throws Exception {
+        try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+            return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    @Test
+    @DisplayName("Úvod + kategorie + produkty se rozdělí do gzipovaných částí, index na ně odkazuje")
+    void shards() throws Exception {
+        Generation g = sitemap.current();
+
+        assertEquals(6, g.urls());
+        assertEquals(2, g.shards());
+        String first = gunzip(sitemap.shardFile(g, 1));
+        assertTrue(first.contains("<loc>https://shop.cz/</loc>"));
+        assertTrue(first.contains("<loc>https://shop.cz/kategorie/jednorazovky</loc>"));
+        assertTrue(first.contains("<url><loc>https://shop.cz/produkt/elf-bar</loc><lastmod>2026-05-04</lastmod></url>"));
+        String second = gunzip(sitemap.shardFile(g, 2));
+        assertTrue(second.contains("https://shop.cz/produkt/geek-bar"));
+        assertFalse(second.contains("elf-bar"));
+        assertNull(sitemap.shardFile(g, 3));
+
+        String index = Files.readString(sitemap.indexFile(g));
+        assertTrue(index.contains("<loc>https://api.shop.cz/api/catalog/sitemap-1.xml.gz</loc>"));
+        assertTrue(index.contains("<loc>https://api.shop.cz/api/catalog/sitemap-2.xml.gz</loc>"));
+    }
+
+    @Test
+    @DisplayName("Čtení nezpůsobí nové procházení katalogu, až přegenerování vytvoří novou generaci")
+    void cachedUntilRegenerated() {
+        Generation g = sitemap.current();
+        assertSame(g, sitemap.current());
+        verify(catalogRepo, times(1)).streamSitemapEntries();
+
+        Generation next = sitemap.regenerate();
+        assertTrue(next.id() > g.id());
+        assertSame(next, sitemap.current());
+        // předchozí generace zůstává, dokud ji nesmaže úklid po KEEP_PREVIOUS_MS
+        assertTrue(Files.isRegularFile(sitemap.indexFile(g)));
+        assertTrue(Files.isRegularFile(sitemap.indexFile(next)));
+    }
+}
@@ -0,0 +1,201 @@
+package org.example.eshopbackend.serviceTest;
+
+import org.example.eshopbackend.exception.OutOfStockException;
+import org.example.eshopbackend.service.StockService;
+import org.example.eshopbackend.service.catalog.CatalogChangedEvent;
+import org.example.eshopbackend.service.catalog.StockChangedEvent;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.sql.ResultSet;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * Tabulka products je fake v paměti (sklad + zámek řádku): testy ověřují, co dělá služba – pořadí
+ * zámků, zpracování řádků výsledku a události katalogu – ne chování SQL v Postgresu.
+ */
+class StockServiceTest {
+
+    private final JdbcTemplate jdbc = mock(JdbcTemplate.class);
+    private final ApplicationEventPublisher events = mock(ApplicationEventPublisher.class);
+    private final StockService stockService = new StockService(jdbc, events);
+
+    // tabulka products: sklad a zámek řádku (FOR UPDATE) po produktech
+    private final Map<Long, Integer> stock = new ConcurrentHashMap<>();
+    private final Map<Long, ReentrantLock> rowLocks = new ConcurrentHashMap<>();
+
+    @BeforeEach
+    void init() throws Exception {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            long[] ids = inv.getArgument(2);
+            int[] qtys = inv.getArgument(3);
+            for (Object[] row : reserveInDb(ids, qtys)) handler.processRow(resultRow(row));
+            return null;
+        }).when(jdbc).query(startsWith("with req"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    // jeden dotaz: zámky vzestupně podle id, odečet jen kde stačí sklad; nevyšlo-li něco, rollback
+    private List<Object[]> reserveInDb(long[] ids, int[] qtys) {
+        List<ReentrantLock> held = new ArrayList<>();
+        try {
+            for (int i = 0; i < ids.length; i++) {
+                if (i > 0) assertTrue(ids[i - 1] < ids[i], "zámky se berou vzestupně");
+                ReentrantLock lock = rowLocks.computeIfAbsent(ids[i], id -> new ReentrantLock());
+                lock.lock();
+                held.add(lock);
+            }
+            List<Object[]> rows = new ArrayList<>();
+            boolean all = true;
+            for (int i = 0; i < ids.length; i++) {
+                int available = stock.getOrDefault(ids[i], 0);
+                boolean ok = available >= qtys[i];
+                all &= ok;
+                rows.add(new Object[]{ids[i], qtys[i], available, ok, available - qtys[i]});
+            }
+            if (all) for (int i = 0; i < ids.length; i++) stock.merge(ids[i], -qtys[i], Integer::sum);
+            return rows;
+        } finally {
+            held.forEach(ReentrantLock::unlock);
+        }
+    }
+
+    private static ResultSet resultRow(Object[] row) throws Exception {
+        ResultSet rs = mock(ResultSet.class);
+        when(rs.getLong("product_id")).thenReturn((Long) row[0]);
+        when(rs.getInt("qty")).thenReturn((Integer) row[1]);
+        when(rs.getInt("available")).thenReturn((Integer) row[2]);
+        when(rs.getBoolean("reserved")).thenReturn((Boolean) row[3]);
+        when(rs.getString("slug")).thenReturn((Boolean) row[3] ? slug((Long) row[0]) : null);
+        when(rs.getInt("amount")).thenReturn((Integer) row[4]);
+        return rs;
+    }
+
+    private static String slug(long productId) {
+        return "produkt-" + productId;
+    }
+
+    // RELEASE ... select product_id, slug, amount: vrací jen existující produkty (sklad po vrácení = 10·id)
+    private void releasedRows(long... productIds) throws Exception {
+        doAnswer(inv -> {
+            RowCallbackHandler handler = inv.getArgument(1);
+            for (long id : productIds) {
+                ResultSet rs = mock(ResultSet.class);
+                when(rs.getLong("product_id")).thenReturn(id);
+                when(rs.getString("slug")).thenReturn(slug(id));
+                when(rs.getInt("amount")).thenReturn((int) id * 10);
+                handler.processRow(rs);
+            }
+            return null;
+        }).when(jdbc).query(contains("amount_of_products + r.qty"), any(RowCallbackHandler.class), any(Object[].class));
+    }
+
+    @Test
+    @DisplayName("Všechny položky jedním dotazem, seřazené podle id")
+    void reservesAllLinesInOneQuery() {
+        stock.put(1L, 10);
+        stock.put(7L, 10);
+
+        stockService.reserve(new LinkedHashMap<>(Map.of(7L, 2, 1L, 3)));
+
+        assertEquals(7, stock.get(1L));
+        assertEquals(8, stock.get(7L));
+        verify(jdbc, times(1)).query(anyString(), any(RowCallbackHandler.class), any(Object[].class));
+        verify(jdbc).query(contains("update catalog_products c set amount"), any(RowCallbackHandler.class), any(Object[].class));
+        // read model upraví stejný dotaz (catalog_products.amount) → jen lehká událost s novým skladem
+        verify(events).publishEvent(new StockChangedEvent(Map.of(1L, 7, 7L, 8), Set.of("produkt-1", "produkt-7")));
+        verify(events, never()).publishEvent(any(CatalogChangedEvent.class));
+    }
+
+    @Test
+    @DisplayName("Nedostatek → výjimka jen s položkami, které nevyšly, a nic se neodečte")
+    void outOfStockLines() {
+        stock.put(1L, 10);
+        stock.put(2L, 1);
+
+        OutOfStockException e = assertThrows(OutOfStockException.class,
+                () -> stockService.reserve(Map.of(1L, 3, 2L, 2, 3L, 1)));
+
+        assertEquals(List.of(new OutOfStockException.Line(2L, 2, 1), new OutOfStockException.Line(3L, 1, 0)),
+                e.getLines());
+        assertEquals(10, stock.get(1L));
+        verifyNoInteractions(events);
+    }
+
+    @Test
+    @DisplayName("Vrácení kusů je jeden UPDATE s událostí katalogu; prázdná objednávka na DB nesahá")
+    void release() throws Exception {
+        releasedRows(1L, 4L);
+
+        stockService.release(Map.of(4L, 5, 1L, 3));
+        stockService.release(Map.of());
+        stockService.reserve(Map.of());
+
+        verify(jdbc).query(contains("amount_of_products + r.qty"), any(RowCallbackHandler.class),
+                eq(new long[]{1L, 4L}), eq(new int[]{3, 5}));
+        verifyNoMoreInteractions(jdbc);
+        verify(events, times(1)).publishEvent(new StockChangedEvent(Map.of(1L, 10, 4L, 40), Set.of("produkt-1", "produkt-4")));
+    }
+
+    @Test
+    @DisplayName("Vrácení kusů zrušených objednávek publikuje jen produkty, které ještě existují")
+    void releaseOrders() throws Exception {
+        releasedRows(3L);
+
+        assertEquals(1, stockService.releaseOrders(List.of(10L, 11L)));
+        assertEquals(0, stockService.releaseOrders(List.of()));
+
+        verify(jdbc).query(contains("from order_items"), any(RowCallbackHandler.class), eq(new long[]{10L, 11L}));
+        verify(events).publishEvent(new StockChangedEvent(Map.of(3L, 30), Set.of("produkt-3")));
+    }
+
+    @Test
+    @DisplayName("Souběžné objednávky nad fake DB: zámky vždy vzestupně, nedostatek jen u neúspěšných")
+    void concurrentReservesLockInIdOrder() throws Exception {
+        int buyers = 600, initial = 250;
+        stock.put(1L, initial);
+        for (long id = 2; id <= 20; id++) stock.put(id, 1_000);
+
+        ExecutorService pool = Executors.newFixedThreadPool(64);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger sold = new AtomicInteger(), rejected = new AtomicInteger();
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < buyers; i++) {
+                long other = 2 + i % 19; // hot produkt + jeden další, zámky se kříží
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    try {
+                        stockService.reserve(Map.of(other, 1, 1L, 1));
+                        sold.incrementAndGet();
+                    } catch (OutOfStockException e) {
+                        rejected.incrementAndGet();
+                    }
+                    return null;
+                }));
+            }
+            start.countDown();
+            for (Future<?> f : futures) f.get(10, TimeUnit.SECONDS);
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(initial, sold.get());
+        assertEquals(buyers - initial, rejected.get());
+        assertEquals(0, stock.get(1L));
+        int others = 0;
+        for (long id = 2; id <= 20; id++) others += 1_000 - stock.get(id);
+        assertEquals(initial, others, "neúspěšné objednávky neodečetly ani ostatní položky");
+    }
+}
@@ -0,0 +1,35 @@
+package org.example.eshopbackend.utilTest;
+
+import org.example.eshopbackend.util.AttributeNumbers;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AttributeNumbersTest {
+
+    @Test
+    void firstNumber_unitsAndDecimalComma() {
+        assertEquals(new BigDecimal("20.00"), AttributeNumbers.firstNumber("20 mg"));
+        assertEquals(new BigDecimal("1.50"), AttributeNumbers.firstNumber("1,5 ml"));
+        assertEquals(new BigDecimal("20.00"), AttributeNumbers.firstNumber("20mg/ml"));
+    }
+
+    @Test
+    void firstInteger_thousandsAndSuffix() {
+        assertEquals(1500, AttributeNumbers.firstInteger("1 500 mAh"));
+        assertEquals(10000, AttributeNumbers.firstInteger("10 000 potahů"));
+        assertEquals(6000, AttributeNumbers.firstInteger("6k potahů"));
+        assertEquals(3500, AttributeNumbers.firstInteger("3,5K"));
+        assertEquals(12, AttributeNumbers.firstInteger("12 kusů")); // "k" na začátku slova není tisíc
+    }
+
+    @Test
+    void noNumberOrTooLarge_isNull() {
+        assertNull(AttributeNumbers.firstNumber("bez nikotinu"));
+        assertNull(AttributeNumbers.firstNumber(null));
+        assertNull(AttributeNumbers.firstNumber("9999999 ml")); // nevejde se do numeric(8,2)
+        assertNull(AttributeNumbers.firstInteger("99999999999"));
+    }
+}
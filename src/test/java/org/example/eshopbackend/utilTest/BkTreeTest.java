@@ -0,0 +1,48 @@
+package org.example.eshopbackend.utilTest;
+
+import org.example.eshopbackend.util.BkTree;
+import org.example.eshopbackend.util.BoundedLevenshtein;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BkTreeTest {
+
+    @Test
+    void within_findsTyposOnly() {
+        BkTree tree = BkTree.of(List.of("jahoda", "jahody", "mango", "malina", "mata", "jahoda"));
+
+        assertEquals(5, tree.size());
+        assertEquals(Set.of("jahoda", "jahody"), new HashSet<>(tree.within("jahodq", 1)));
+        assertEquals(Set.of("mango"), new HashSet<>(tree.within("mamgo", 1)));
+        assertTrue(tree.within("kiwi", 1).isEmpty());
+        assertTrue(new BkTree().within("mango", 2).isEmpty());
+    }
+
+    @Test
+    void within_sameAsFullScan() {
+        Random random = new Random(42);
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 2_000; i++) words.add(word(random));
+        BkTree tree = BkTree.of(words);
+
+        for (int i = 0; i < 200; i++) {
+            String query = word(random);
+            for (int max = 1; max <= 2; max++) {
+                Set<String> expected = new TreeSet<>();
+                for (String w : words) {
+                    if (BoundedLevenshtein.distance(query, w, max) <= max) expected.add(w);
+                }
+                assertEquals(expected, new TreeSet<>(tree.within(query, max)), query);
+            }
+        }
+    }
+
+    private static String word(Random random) {
+        char[] c = new char[4 + random.nextInt(5)];
+        for (int i = 0; i < c.length; i++) c[i] = "aehkmnot".charAt(random.nextInt(8));
+        return new String(c);
+    }
+}
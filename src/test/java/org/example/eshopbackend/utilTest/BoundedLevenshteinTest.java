@@ -0,0 +1,33 @@
+package org.example.eshopbackend.utilTest;
+
+import org.example.eshopbackend.util.BoundedLevenshtein;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BoundedLevenshteinTest {
+
+    @Test
+    void distance_withinBound() {
+        assertEquals(0, BoundedLevenshtein.distance("jahoda", "jahoda", 2));
+        assertEquals(2, BoundedLevenshtein.distance("jahoda", "jahdoa", 2)); // přehození = 2 editace
+        assertEquals(1, BoundedLevenshtein.distance("mango", "mamgo", 1));
+        assertEquals(1, BoundedLevenshtein.distance("mango", "mang", 1));
+        assertEquals(3, BoundedLevenshtein.distance("kitten", "sitting", 3));
+    }
+
+    @Test
+    void distance_overBoundReturnsMaxPlusOne() {
+        assertEquals(2, BoundedLevenshtein.distance("jahoda", "malina", 1));
+        assertEquals(3, BoundedLevenshtein.distance("abc", "abcdef", 2));
+        assertEquals(3, BoundedLevenshtein.distance("", "abc", 3));
+    }
+
+    @Test
+    void allowedEdits_byLength() {
+        assertEquals(0, BoundedLevenshtein.allowedEdits(3));
+        assertEquals(1, BoundedLevenshtein.allowedEdits(4));
+        assertEquals(1, BoundedLevenshtein.allowedEdits(7));
+        assertEquals(2, BoundedLevenshtein.allowedEdits(8));
+    }
+}
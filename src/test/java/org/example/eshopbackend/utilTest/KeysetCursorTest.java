@@ -0,0 +1,27 @@
+package org.example.eshopbackend.utilTest;
+
+import org.example.eshopbackend.util.KeysetCursor;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeysetCursorTest {
+
+    @Test
+    void encodeDecode_roundTrip() {
+        KeysetCursor c = new KeysetCursor("productName", "Příchuť\\jahoda", 42L);
+
+        String token = c.encode();
+
+        assertFalse(token.contains("="), "bez paddingu, bezpečné v URL");
+        assertEquals(c, KeysetCursor.decode(token, "productName"));
+    }
+
+    @Test
+    void decode_rejectsGarbageAndForeignSort() {
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("%%%", "price"));
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode("YWJj", "price")); // "abc"
+        String byName = new KeysetCursor("productName", "x", 1L).encode();
+        assertThrows(IllegalArgumentException.class, () -> KeysetCursor.decode(byName, "price"));
+    }
+}
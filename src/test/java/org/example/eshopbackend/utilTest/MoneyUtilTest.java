@@ -0,0 +1,32 @@
+package org.example.eshopbackend.utilTest;
+
+import org.example.eshopbackend.util.MoneyUtil;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MoneyUtilTest {
+
+    @Test
+    void toHalere_roundsHalfUpOnce() {
+        assertEquals(1235, MoneyUtil.toHalere(new BigDecimal("12.345")));
+        assertEquals(1234, MoneyUtil.toHalere(new BigDecimal("12.3449")));
+        assertEquals(19900, MoneyUtil.toHalere(new BigDecimal("199")));
+    }
+
+    @Test
+    void fromHalere_hasTwoDecimals() {
+        assertEquals(new BigDecimal("12.35"), MoneyUtil.fromHalere(1235));
+        assertEquals(new BigDecimal("0.05"), MoneyUtil.fromHalere(5));
+    }
+
+    @Test
+    void halereToKc_halfUpAwayFromZero() {
+        assertEquals(13, MoneyUtil.halereToKc(1250));
+        assertEquals(12, MoneyUtil.halereToKc(1249));
+        assertEquals(-13, MoneyUtil.halereToKc(-1250));
+        assertEquals(0, MoneyUtil.halereToKc(49));
+    }
+}
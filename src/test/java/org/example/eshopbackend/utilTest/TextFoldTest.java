@@ -0,0 +1,30 @@
+package org.example.eshopbackend.utilTest;
+
+import org.example.eshopbackend.util.TextFold;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TextFoldTest {
+
+    @Test
+    void fold_removesCzechDiacritics() {
+        assertEquals("prichut zlutoucky kun", TextFold.fold("Příchuť Žluťoučký KŮŇ"));
+        assertEquals("", TextFold.fold(null));
+    }
+
+    @Test
+    void tokens_splitOnNonAlphanumerics() {
+        assertEquals(List.of("elf", "bar", "600", "mg"), TextFold.tokens("Elf-Bar 600/mg"));
+    }
+
+    @Test
+    void toPrefixTsQuery_buildsSafeAndQuery() {
+        assertEquals("prichut:* & jah:*", TextFold.toPrefixTsQuery("příchuť jah"));
+        // operátory tsquery se do dotazu nedostanou
+        assertEquals("a:* & b:*", TextFold.toPrefixTsQuery("a & !b |"));
+        assertNull(TextFold.toPrefixTsQuery("  !&| "));
+    }
+}